@@ -0,0 +1,60 @@
+package gov.nasa.gsfc.gmsec.gmoc;
+
+import gov.nasa.gsfc.gmsec.gmoc.service.ScheduleBackfill;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+
+/**
+ * Write a schedule file per day over a range of dates, to default today,
+ * and follow its progress
+ *      curl -X POST 'http://127.0.0.1:8090/schedule/backfill?from=2016-01-01&to=2016-12-31'
+ *      curl http://127.0.0.1:8090/schedule/backfill
+ *      curl -X DELETE http://127.0.0.1:8090/schedule/backfill
+ */
+@RestController
+@RequestMapping("/schedule/backfill")
+public class BackfillController
+{
+    @Autowired
+    private ScheduleBackfill backfill;
+
+    @RequestMapping(method = RequestMethod.POST)
+    public ResponseEntity<ScheduleBackfill.Progress> start(@RequestParam("from") String from,
+                                                           @RequestParam(value = "to", required = false) String to)
+    {
+        LocalDate today = LocalDate.now();
+        ScheduleBackfill.Progress progress = backfill.start(ScheduleBackfill.parseDate(from, today),
+                ScheduleBackfill.parseDate(to, today));
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(progress);
+    }
+
+    @RequestMapping(method = RequestMethod.GET)
+    public ResponseEntity<ScheduleBackfill.Progress> progress()
+    {
+        ScheduleBackfill.Progress progress = backfill.getProgress();
+        if(progress == null) return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        return ResponseEntity.ok(progress);
+    }
+
+    @RequestMapping(method = RequestMethod.DELETE)
+    public ResponseEntity<ScheduleBackfill.Progress> cancel()
+    {
+        ScheduleBackfill.Progress progress = backfill.cancel();
+        if(progress == null) return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(progress);
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<String> conflict(IllegalStateException e)
+    {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+}
@@ -0,0 +1,20 @@
+package gov.nasa.gsfc.gmsec.gmoc;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+
+/**
+ * Answers 400 with the message when a controller rejects a parameter by
+ * throwing IllegalArgumentException.
+ */
+@ControllerAdvice
+public class BadRequestHandler
+{
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e)
+    {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+    }
+}
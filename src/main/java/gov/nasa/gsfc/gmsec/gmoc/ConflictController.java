@@ -0,0 +1,25 @@
+package gov.nasa.gsfc.gmsec.gmoc;
+
+import gov.nasa.gsfc.gmsec.gmoc.model.ConflictReport;
+import gov.nasa.gsfc.gmsec.gmoc.service.PassScheduleService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Overlapping passes of the published schedule, per mission and per
+ * ground station, with the first conflicts in time order
+ *      http://127.0.0.1:8090/schedule/conflicts
+ */
+@RestController
+public class ConflictController
+{
+    @Autowired
+    private PassScheduleService passScheduleService;
+
+    @RequestMapping("/schedule/conflicts")
+    public ConflictReport conflicts()
+    {
+        return passScheduleService.getConflicts(passScheduleService.getSnapshot());
+    }
+}
@@ -1,24 +1,249 @@
 package gov.nasa.gsfc.gmsec.gmoc;
 
+import gov.nasa.gsfc.gmsec.gmoc.model.RenderedResponse;
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleEncoder;
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleEncoders;
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleSnapshot;
 import gov.nasa.gsfc.gmsec.gmoc.service.PassScheduleService;
+import gov.nasa.gsfc.gmsec.gmoc.service.RenderedResponseCache;
+import gov.nasa.gsfc.gmsec.gmoc.service.ScheduleMetrics;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.List;
 
 /**
  * View generated schedule from web browser
  *      view-source:http://127.0.0.1:8090/
  *
+ * Stream a window of the schedule, times as epoch seconds or ISO-8601
+ *      view-source:http://127.0.0.1:8090/schedule?from=2016-11-30T13:00:00Z&limit=10
+ *
+ * The window is CSV rows unless the Accept header or a format parameter
+ * (csv, jsonl, json or bin) asks for JSON Lines, columns of a JSON object
+ * or the fixed-width binary format
+ *      curl -H 'Accept: application/x-ndjson' http://127.0.0.1:8090/schedule?limit=10
+ *
+ * The whole schedule and bounded windows are served from the rendered
+ * response cache with an ETag, gzip when accepted, and 304 for a matching
+ * If-None-Match.
+ *
  * Created by leif on 10/12/16.
  */
 @RestController
 public class DefaultRestController
 {
+    static final MediaType TEXT_PLAIN_UTF8 = new MediaType("text", "plain", StandardCharsets.UTF_8);
+    private static final int MAX_CACHED_ROWS = 10000;
+
     @Autowired
     private PassScheduleService passScheduleService;
 
+    @Autowired
+    private RenderedResponseCache responseCache;
+
+    @Autowired
+    private ScheduleMetrics metrics;
+
     @RequestMapping("/")
-    public String index() {
-        return passScheduleService.getGenericPassSchedule();
+    public ResponseEntity<byte[]> index(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding)
+    {
+        long start = System.nanoTime();
+        try
+        {
+            ScheduleSnapshot snapshot = passScheduleService.getSnapshot();
+            RenderedResponse response = responseCache.get(snapshot.getVersion(), "/",
+                    () -> passScheduleService.renderGenericPassSchedule(snapshot));
+            return respond(response, ifNoneMatch, acceptEncoding);
+        } finally
+        {
+            metrics.recordRequest("/", System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Unbounded windows are written to the response as they are generated,
+     * with no Content-Length, so the container sends them chunked. Windows
+     * with a limit of up to MAX_CACHED_ROWS rows are rendered once per
+     * schedule version and cached. Latency of streamed windows is recorded
+     * when the last row has been written.
+     *
+     * Both kinds are returned as a StreamingResponseBody; Spring only picks
+     * the streaming return value handler for that declared body type.
+     *
+     * The format is picked here rather than by Spring's message converters,
+     * which do not apply to streamed bodies: an explicit format parameter
+     * wins, otherwise the most specific acceptable media type any encoder
+     * produces, CSV for none or any. 406 when no encoder is acceptable.
+     */
+    @RequestMapping("/schedule")
+    public ResponseEntity<StreamingResponseBody> schedule(
+            @RequestParam(value = "from", required = false) String from,
+            @RequestParam(value = "to", required = false) String to,
+            @RequestParam(value = "limit", required = false, defaultValue = "-1") int limit,
+            @RequestParam(value = "format", required = false) String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding)
+    {
+        final long start = System.nanoTime();
+        final long fromSecond = from == null ? Long.MIN_VALUE / 2 : parseInstant(from);
+        final long toSecond = to == null ? Long.MAX_VALUE / 2 : parseInstant(to);
+        ScheduleEncoder encoder = negotiate(format, accept);
+        if(encoder == null)
+        {
+            metrics.recordRequest("/schedule", System.nanoTime() - start);
+            return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                    .body(null);
+        }
+        MediaType contentType = MediaType.parseMediaType(encoder.getMediaTypes().get(0));
+        if(encoder.isText())
+            contentType = new MediaType(contentType, StandardCharsets.UTF_8);
+        ScheduleSnapshot snapshot = passScheduleService.getSnapshot();
+        if(limit >= 0 && limit <= MAX_CACHED_ROWS)
+        {
+            String key = "/schedule?from=" + fromSecond + "&to=" + toSecond + "&limit=" + limit
+                    + "&format=" + encoder.getName();
+            RenderedResponse response = responseCache.get(snapshot.getVersion(), key, () -> {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                try
+                {
+                    passScheduleService.writePassSchedule(snapshot, encoder, out, fromSecond, toSecond, limit);
+                } catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+                return out.toByteArray();
+            });
+            metrics.recordRequest("/schedule", System.nanoTime() - start);
+            return streaming(respond(response, ifNoneMatch, acceptEncoding, contentType,
+                    HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING));
+        }
+        StreamingResponseBody body = out -> {
+            try
+            {
+                passScheduleService.writePassSchedule(snapshot, encoder, out, fromSecond, toSecond, limit);
+            } finally
+            {
+                metrics.recordRequest("/schedule", System.nanoTime() - start);
+            }
+        };
+        return ResponseEntity.ok().contentType(contentType).header(HttpHeaders.VARY, HttpHeaders.ACCEPT).body(body);
+    }
+
+    /**
+     * @return encoder for the format parameter or the Accept header, null if none is acceptable
+     * @throws IllegalArgumentException for an unknown format or a malformed Accept header
+     */
+    static ScheduleEncoder negotiate(String format, String accept)
+    {
+        if(format != null)
+            return ScheduleEncoders.forName(format);
+        if(accept == null || accept.trim().isEmpty())
+            return ScheduleEncoders.CSV;
+        List<MediaType> accepted = MediaType.parseMediaTypes(accept);
+        MediaType.sortBySpecificityAndQuality(accepted);
+        for(MediaType type : accepted)
+        {
+            if(type.getQualityValue() == 0) continue;
+            for(ScheduleEncoder encoder : ScheduleEncoders.all())
+            {
+                for(String produced : encoder.getMediaTypes())
+                {
+                    MediaType producedType = MediaType.parseMediaType(produced);
+                    if(type.includes(producedType) && !excluded(producedType, accepted)) return encoder;
+                }
+            }
+        }
+        return null;
+    }
+
+    // The most specific range including type, first in sorted order, decides: q=0 rules it out
+    private static boolean excluded(MediaType type, List<MediaType> accepted)
+    {
+        for(MediaType range : accepted)
+        {
+            if(range.includes(type)) return range.getQualityValue() == 0;
+        }
+        return false;
+    }
+
+    /**
+     * Same response with the cached bytes written by a StreamingResponseBody
+     * and an explicit Content-Length, so they are not sent chunked.
+     */
+    static ResponseEntity<StreamingResponseBody> streaming(ResponseEntity<byte[]> response)
+    {
+        byte[] bytes = response.getBody();
+        if(bytes == null) return new ResponseEntity<>(response.getHeaders(), response.getStatusCode());
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(response.getHeaders());
+        headers.setContentLength(bytes.length);
+        return new ResponseEntity<>(out -> out.write(bytes), headers, response.getStatusCode());
+    }
+
+    static ResponseEntity<byte[]> respond(RenderedResponse response, String ifNoneMatch, String acceptEncoding)
+    {
+        return respond(response, ifNoneMatch, acceptEncoding, TEXT_PLAIN_UTF8, HttpHeaders.ACCEPT_ENCODING);
+    }
+
+    static ResponseEntity<byte[]> respond(RenderedResponse response, String ifNoneMatch, String acceptEncoding,
+                                          MediaType contentType, String vary)
+    {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        String etag = gzip ? response.getGzipEtag() : response.getEtag();
+        if(response.matches(ifNoneMatch))
+        {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag)
+                    .header(HttpHeaders.VARY, vary).body(null);
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().eTag(etag).contentType(contentType)
+                .header(HttpHeaders.VARY, vary);
+        if(gzip)
+        {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(response.getGzipBody());
+        }
+        return builder.body(response.getBody());
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding)
+    {
+        if(acceptEncoding == null) return false;
+        for(String coding : acceptEncoding.split(","))
+        {
+            String[] parts = coding.trim().split(";");
+            if(!parts[0].trim().equalsIgnoreCase("gzip")) continue;
+            return parts.length < 2 || !parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+        }
+        return false;
+    }
+
+    static long parseInstant(String value)
+    {
+        try
+        {
+            if(!value.isEmpty() && value.chars().allMatch(Character::isDigit))
+                return Long.parseLong(value);
+            return Instant.parse(value).getEpochSecond();
+        } catch (NumberFormatException | DateTimeParseException e)
+        {
+            throw new IllegalArgumentException("Expected epoch seconds or ISO-8601 instant: " + value);
+        }
     }
 }
@@ -1,19 +1,33 @@
 package gov.nasa.gsfc.gmsec.gmoc;
 
+import gov.nasa.gsfc.gmsec.gmoc.service.OptionsReloader;
+import gov.nasa.gsfc.gmsec.gmoc.service.PassEventBroadcaster;
 import gov.nasa.gsfc.gmsec.gmoc.service.PassScheduleService;
+import gov.nasa.gsfc.gmsec.gmoc.service.ScheduleBackfill;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
+import java.nio.file.Paths;
+import java.time.LocalDate;
+
 /**
  * Run arguments
  * schedule_file_path=/home/
  * Else defaults to write to HOME
+ * schedule.backfill.from=2016-01-01 schedule.backfill.to=2016-12-31
+ * Also writes a schedule file per day of the range in the background
+ * schedule.batch=true
+ * Writes the files and exits without starting the web server, see GmocBatch
+ * schedule.options.file=/etc/gmoc/options.properties
+ * Applies the options in the file again whenever it changes, see OptionsReloader
  *
  * @See view-source:http://127.0.0.1:8090/
  *
@@ -32,10 +46,32 @@ public class GmocApplication implements CommandLineRunner {
 	@Autowired
 	private PassScheduleService passScheduleService;
 
+	@Autowired
+	private ScheduleBackfill scheduleBackfill;
+
+	@Autowired
+	private OptionsReloader optionsReloader;
+
+	/**
+	 * Server-Sent Events of pass state, a plain async servlet so that
+	 * subscribers are served with non-blocking I/O.
+	 */
+	@Bean
+	public ServletRegistrationBean passEventServlet(PassEventBroadcaster broadcaster)
+	{
+		ServletRegistrationBean registration = new ServletRegistrationBean(
+				new PassEventServlet(broadcaster, options), "/passes/events");
+		registration.setAsyncSupported(true);
+		return registration;
+	}
+
 	public static void main(String[] args)
 	{
+		if(Options.isBatch(args))
+		{
+			System.exit(GmocBatch.run(args));
+		}
 		SpringApplication app = new SpringApplication(GmocApplication.class);
-//		app.setWebEnvironment(false);
 		app.run(args);
 	}
 
@@ -43,8 +79,21 @@ public class GmocApplication implements CommandLineRunner {
 	public void run(String... strings) throws Exception
 	{
 		log.info(options.usageText());
+		Options defaults = options.copy();
 		options.parse(strings);
+		// Anything published before the arguments were parsed is regenerated
+		passScheduleService.reload(defaults, options.copy(), Long.MIN_VALUE);
+		if(!options.getOptionsFile().isEmpty())
+		{
+			optionsReloader.watch(Paths.get(options.getOptionsFile()));
+		}
 		passScheduleService.createPassScheduleFile();
 		passScheduleService.getGenericPassSchedule();
+		if(!options.getBackfillFrom().isEmpty())
+		{
+			LocalDate today = LocalDate.now();
+			scheduleBackfill.start(ScheduleBackfill.parseDate(options.getBackfillFrom(), today),
+					ScheduleBackfill.parseDate(options.getBackfillTo(), today));
+		}
 	}
 }
@@ -0,0 +1,104 @@
+package gov.nasa.gsfc.gmsec.gmoc;
+
+import gov.nasa.gsfc.gmsec.gmoc.service.PassScheduleService;
+import gov.nasa.gsfc.gmsec.gmoc.service.ScheduleBackfill;
+import gov.nasa.gsfc.gmsec.gmoc.service.ScheduleFileService;
+import gov.nasa.gsfc.gmsec.gmoc.service.ScheduleMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+/**
+ * Batch mode for cron: write today's schedule file, and a backfill when
+ * one is configured, then exit
+ *      java -jar gmoc-demo-x.x.x.jar schedule.batch=true schedule.file.path=/data
+ *
+ * Spring Boot still loads application.properties, the environment and
+ * logging, but the context only holds the five beans file writing needs:
+ * no auto-configuration, embedded server, scheduler or pass events.
+ *
+ * Exit status is EXIT_OK when the files were written or already up to
+ * date, EXIT_FAILED when any could not be, EXIT_USAGE for invalid
+ * arguments.
+ */
+public class GmocBatch
+{
+    private static final Logger log = LoggerFactory.getLogger(GmocBatch.class);
+
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_FAILED = 1;
+    public static final int EXIT_USAGE = 2;
+
+    private GmocBatch()
+    {
+    }
+
+    public static int run(String[] args)
+    {
+        ConfigurableApplicationContext context;
+        try
+        {
+            context = new SpringApplicationBuilder(Options.class, ScheduleMetrics.class,
+                    ScheduleFileService.class, PassScheduleService.class, ScheduleBackfill.class)
+                    .web(false)
+                    .bannerMode(Banner.Mode.OFF)
+                    .logStartupInfo(false)
+                    .run(args);
+        } catch (RuntimeException e)
+        {
+            log.error("Could not start: {}", e.getMessage());
+            return EXIT_FAILED;
+        }
+        try
+        {
+            return run(context, args);
+        } finally
+        {
+            context.close();
+        }
+    }
+
+    private static int run(ConfigurableApplicationContext context, String[] args)
+    {
+        Options options = context.getBean(Options.class);
+        LocalDate from;
+        LocalDate to;
+        try
+        {
+            if(!options.parse(args))
+                return EXIT_USAGE;
+            LocalDate today = LocalDate.now();
+            from = ScheduleBackfill.parseDate(options.getBackfillFrom(), null);
+            to = ScheduleBackfill.parseDate(options.getBackfillTo(), today);
+        } catch (IllegalArgumentException | DateTimeException e)
+        {
+            options.usage(e.getMessage());
+            return EXIT_USAGE;
+        }
+
+        ScheduleMetrics metrics = context.getBean(ScheduleMetrics.class);
+        try
+        {
+            File file = context.getBean(PassScheduleService.class).createPassScheduleFile();
+            if(file == null || metrics.getFileFailures() > 0)
+                return EXIT_FAILED;
+            if(from != null)
+            {
+                ScheduleBackfill.Progress progress = context.getBean(ScheduleBackfill.class).backfill(from, to);
+                if(progress.getState() != ScheduleBackfill.State.COMPLETED)
+                    return EXIT_FAILED;
+            }
+        } catch (RuntimeException e)
+        {
+            log.error(e.getMessage());
+            return EXIT_FAILED;
+        }
+        return EXIT_OK;
+    }
+}
@@ -0,0 +1,60 @@
+package gov.nasa.gsfc.gmsec.gmoc;
+
+import gov.nasa.gsfc.gmsec.gmoc.model.HistoryPass;
+import gov.nasa.gsfc.gmsec.gmoc.model.HistoryRevision;
+import gov.nasa.gsfc.gmsec.gmoc.service.ScheduleHistory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Schedule history queries. Times are epoch seconds or ISO-8601 instants.
+ * Passes overlapping from..to as they were last scheduled, or as of a
+ * time with asOf=, optionally of one mission=<category>; and the
+ * revisions published from..to.
+ *      http://127.0.0.1:8090/history?from=2016-03-01T00:00:00Z&to=2016-04-01T00:00:00Z&mission=WIRE
+ *      http://127.0.0.1:8090/history?from=1480492800&to=1480579200&asOf=2016-11-29T12:00:00Z
+ *      http://127.0.0.1:8090/history/revisions?from=2016-11-01T00:00:00Z
+ */
+@RestController
+@RequestMapping("/history")
+public class HistoryController
+{
+    @Autowired
+    private ScheduleHistory scheduleHistory;
+
+    @RequestMapping("")
+    public List<HistoryPass> passes(
+            @RequestParam(value = "from") String from,
+            @RequestParam(value = "to", required = false) String to,
+            @RequestParam(value = "mission", required = false) String mission,
+            @RequestParam(value = "asOf", required = false) String asOf,
+            @RequestParam(value = "limit", required = false, defaultValue = "1000") int limit)
+    {
+        long toSecond = to == null ? Long.MAX_VALUE / 2 : DefaultRestController.parseInstant(to);
+        Long asOfMillis = asOf == null ? null : DefaultRestController.parseInstant(asOf) * 1000 + 999;
+        return scheduleHistory.query(DefaultRestController.parseInstant(from), toSecond, mission, asOfMillis, limit);
+    }
+
+    @RequestMapping("/revisions")
+    public List<HistoryRevision> revisions(
+            @RequestParam(value = "from", required = false) String from,
+            @RequestParam(value = "to", required = false) String to)
+    {
+        long fromMillis = from == null ? Long.MIN_VALUE : DefaultRestController.parseInstant(from) * 1000;
+        long toMillis = to == null ? Long.MAX_VALUE : DefaultRestController.parseInstant(to) * 1000;
+        return scheduleHistory.revisions(fromMillis, toMillis);
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<String> conflict(IllegalStateException e)
+    {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+}
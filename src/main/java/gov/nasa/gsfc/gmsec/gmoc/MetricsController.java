@@ -0,0 +1,34 @@
+package gov.nasa.gsfc.gmsec.gmoc;
+
+import gov.nasa.gsfc.gmsec.gmoc.service.PassScheduleService;
+import gov.nasa.gsfc.gmsec.gmoc.service.ScheduleMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Generation, file and request metrics in the Prometheus text format
+ *      http://127.0.0.1:8090/metrics
+ */
+@RestController
+public class MetricsController
+{
+    static final MediaType PROMETHEUS_TEXT = MediaType.parseMediaType("text/plain; version=0.0.4; charset=utf-8");
+
+    @Autowired
+    private ScheduleMetrics metrics;
+
+    @Autowired
+    private PassScheduleService passScheduleService;
+
+    @RequestMapping(value = "/metrics", method = RequestMethod.GET)
+    public ResponseEntity<String> metrics()
+    {
+        StringBuilder out = new StringBuilder(4096);
+        metrics.writePrometheus(out, passScheduleService.getPublishedSnapshot(), System.currentTimeMillis());
+        return ResponseEntity.ok().contentType(PROMETHEUS_TEXT).body(out.toString());
+    }
+}
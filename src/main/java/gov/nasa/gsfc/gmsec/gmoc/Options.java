@@ -1,6 +1,9 @@
 package gov.nasa.gsfc.gmsec.gmoc;
 
+import gov.nasa.gsfc.gmsec.gmoc.model.Horizon;
+import gov.nasa.gsfc.gmsec.gmoc.model.Mission;
 import gov.nasa.gsfc.gmsec.gmoc.model.PassSchedule;
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleEncoders;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.env.Environment;
@@ -10,7 +13,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -23,7 +31,14 @@ import java.util.Map;
  * DateFormat: Julian vs month/day
  * PassDuration: expressed in hh:mm:ss
  * PassInterval: expressed as minutes
+ * Missions: Example: WIRE,SDO each with optional schedule.mission.SDO.* overrides
  *
+ * Settings may be reloaded while other threads read them, see update().
+ * Each setting is volatile and the mission overrides are replaced rather
+ * than changed, so a getter always sees a whole value. Readers needing
+ * several settings that belong together take a copy(), which like
+ * update(), parse() and getMissionList() holds the lock, so it never
+ * sees half of a reload.
  */
 @Component
 public class Options
@@ -33,17 +48,65 @@ public class Options
     private static final String SCHEDULE_DATE_FORMAT = "schedule.date.format";
     private static final String SCHEDULE_PASS_DURATION = "schedule.pass.duration";
     private static final String SCHEDULE_PASS_INTERVAL = "schedule.pass.interval";
+    private static final String SCHEDULE_PASS_COUNT = "schedule.pass.count";
     private static final String SCHEDULE_CATEGORY = "schedule.category";
     private static final String SCHEDULE_START_LABEL = "schedule.start.label";
     private static final String SCHEDULE_END_LABEL= "schedule.end.label";
+    private static final String SCHEDULE_MISSIONS = "schedule.missions";
+    private static final String SCHEDULE_MISSION_PREFIX = "schedule.mission.";
+    private static final String SCHEDULE_GENERATION_PARALLELISM = "schedule.generation.parallelism";
+    private static final String SCHEDULE_CACHE_MAX_BYTES = "schedule.cache.max.bytes";
+    private static final String SCHEDULE_INGEST_FILE = "schedule.ingest.file";
+    private static final String SCHEDULE_EVENTS_QUEUE_MAX = "schedule.events.queue.max";
+    private static final String SCHEDULE_HORIZON_START = "schedule.horizon.start";
+    private static final String SCHEDULE_HORIZON_END = "schedule.horizon.end";
+    private static final String SCHEDULE_HORIZON_DAYS = "schedule.horizon.days";
+    private static final String SCHEDULE_WINDOWS = "schedule.windows";
+    private static final String SCHEDULE_BACKFILL_FROM = "schedule.backfill.from";
+    private static final String SCHEDULE_BACKFILL_TO = "schedule.backfill.to";
+    private static final String SCHEDULE_BACKFILL_IO_THREADS = "schedule.backfill.io.threads";
+    private static final String SCHEDULE_BATCH = "schedule.batch";
+    private static final String SCHEDULE_CONFLICTS_BLOCK = "schedule.conflicts.block";
+    private static final String SCHEDULE_OPTIONS_FILE = "schedule.options.file";
+    private static final String SCHEDULE_BUS_ADAPTER = "schedule.bus.adapter";
+    private static final String SCHEDULE_BUS_BATCH_SIZE = "schedule.bus.batch.size";
+    private static final String SCHEDULE_BUS_WINDOW = "schedule.bus.window";
+    private static final String SCHEDULE_BUS_RETRIES = "schedule.bus.retries";
+    private static final String SCHEDULE_HISTORY_DIR = "schedule.history.dir";
+    private static final String SCHEDULE_HISTORY_RETAIN_DAYS = "schedule.history.retain.days";
+    private static final String SCHEDULE_FILE_FORMAT = "schedule.file.format";
 
-    private String scheduleFilePath;
-    private String duration = PassSchedule.DEFAULT_DURATION;
-    private int passInterval = PassSchedule.DEFAULT_PASS_INTERVAL;
-    private String category = Category.WIRE.type;
-    private String startLabel = StartLabel.AOS.type;
-    private String endLabel = EndLabel.LOS.type;
-    private String dateFormat = DateFormat.DAY_IN_YEAR.toString();
+    private volatile String scheduleFilePath;
+    private volatile String duration = PassSchedule.DEFAULT_DURATION;
+    private volatile int passInterval = PassSchedule.DEFAULT_PASS_INTERVAL;
+    private volatile int passCount = PassSchedule.DEFAULT_PASS_COUNT;
+    private volatile String category = Category.WIRE.type;
+    private volatile String startLabel = StartLabel.AOS.type;
+    private volatile String endLabel = EndLabel.LOS.type;
+    private volatile String dateFormat = DateFormat.DAY_IN_YEAR.toString();
+    private volatile String missions = "";
+    // Replaced, never changed in place, so readers need no lock
+    private volatile Map<String, String> missionOverrides = Collections.emptyMap();
+    private volatile int generationParallelism = Runtime.getRuntime().availableProcessors();
+    private volatile long cacheMaxBytes = 64L * 1024 * 1024;
+    private volatile String ingestFile = "";
+    private volatile int eventsQueueMax = 64;
+    private volatile String horizonStart = "";
+    private volatile String horizonEnd = "";
+    private volatile int horizonDays = 0;
+    private volatile String windows = "";
+    private volatile String backfillFrom = "";
+    private volatile String backfillTo = "";
+    private volatile int backfillIoThreads = 4;
+    private volatile boolean conflictsBlock = false;
+    private volatile String optionsFile = "";
+    private volatile String busAdapter = "";
+    private volatile int busBatchSize = 256;
+    private volatile int busWindow = 8;
+    private volatile int busRetries = 3;
+    private volatile String historyDir = "";
+    private volatile int historyRetainDays = 30;
+    private volatile String fileFormat = ScheduleEncoders.CSV.getName();
 
     @Value("${schedule.file.path}")
     private String schedule_file_path;
@@ -57,6 +120,9 @@ public class Options
     @Value("${schedule.pass.interval}")
     private String schedule_pass_interval;
 
+    @Value("${schedule.pass.count:}")
+    private String schedule_pass_count;
+
     @Value("${schedule.category}")
     private String schedule_category;
 
@@ -66,9 +132,81 @@ public class Options
     @Value("${schedule.end.label}")
     private String schedule_end_label;
 
+    @Value("${schedule.missions:}")
+    private String schedule_missions;
+
+    @Value("${schedule.generation.parallelism:}")
+    private String schedule_generation_parallelism;
+
+    @Value("${schedule.cache.max.bytes:}")
+    private String schedule_cache_max_bytes;
+
+    @Value("${schedule.ingest.file:}")
+    private String schedule_ingest_file;
+
+    @Value("${schedule.events.queue.max:}")
+    private String schedule_events_queue_max;
+
+    @Value("${schedule.horizon.start:}")
+    private String schedule_horizon_start;
+
+    @Value("${schedule.horizon.end:}")
+    private String schedule_horizon_end;
+
+    @Value("${schedule.horizon.days:}")
+    private String schedule_horizon_days;
+
+    @Value("${schedule.windows:}")
+    private String schedule_windows;
+
+    @Value("${schedule.backfill.from:}")
+    private String schedule_backfill_from;
+
+    @Value("${schedule.backfill.to:}")
+    private String schedule_backfill_to;
+
+    @Value("${schedule.backfill.io.threads:}")
+    private String schedule_backfill_io_threads;
+
+    @Value("${schedule.conflicts.block:}")
+    private String schedule_conflicts_block;
+
+    @Value("${schedule.options.file:}")
+    private String schedule_options_file;
+
+    @Value("${schedule.bus.adapter:}")
+    private String schedule_bus_adapter;
+
+    @Value("${schedule.bus.batch.size:}")
+    private String schedule_bus_batch_size;
+
+    @Value("${schedule.bus.window:}")
+    private String schedule_bus_window;
+
+    @Value("${schedule.bus.retries:}")
+    private String schedule_bus_retries;
+
+    @Value("${schedule.history.dir:}")
+    private String schedule_history_dir;
+
+    @Value("${schedule.history.retain.days:}")
+    private String schedule_history_retain_days;
+
+    @Value("${schedule.file.format:}")
+    private String schedule_file_format;
+
     @Autowired
     private Environment env;
 
+    public Options()
+    {
+    }
+
+    private Options(Options other)
+    {
+        assign(other);
+    }
+
     @PostConstruct
     public void init() {
         String OS = env.getProperty("os.name");
@@ -84,25 +222,69 @@ public class Options
         log.info(SCHEDULE_DATE_FORMAT + " = "+ schedule_date_format);
         log.info(SCHEDULE_PASS_DURATION + " = "+ schedule_pass_duration);
         log.info(SCHEDULE_PASS_INTERVAL + " = "+ schedule_pass_interval);
+        log.info(SCHEDULE_PASS_COUNT + " = "+ schedule_pass_count);
         log.info(SCHEDULE_CATEGORY + " = "+ schedule_category);
         log.info(SCHEDULE_START_LABEL + " = "+ schedule_start_label);
         log.info(SCHEDULE_END_LABEL + " = "+ schedule_end_label);
+        log.info(SCHEDULE_MISSIONS + " = "+ schedule_missions);
+        log.info(SCHEDULE_GENERATION_PARALLELISM + " = "+ schedule_generation_parallelism);
+        log.info(SCHEDULE_CACHE_MAX_BYTES + " = "+ schedule_cache_max_bytes);
+        log.info(SCHEDULE_INGEST_FILE + " = "+ schedule_ingest_file);
+        log.info(SCHEDULE_EVENTS_QUEUE_MAX + " = "+ schedule_events_queue_max);
+        log.info(SCHEDULE_HORIZON_START + " = "+ schedule_horizon_start);
+        log.info(SCHEDULE_HORIZON_END + " = "+ schedule_horizon_end);
+        log.info(SCHEDULE_HORIZON_DAYS + " = "+ schedule_horizon_days);
+        log.info(SCHEDULE_WINDOWS + " = "+ schedule_windows);
+        log.info(SCHEDULE_BACKFILL_FROM + " = "+ schedule_backfill_from);
+        log.info(SCHEDULE_BACKFILL_TO + " = "+ schedule_backfill_to);
+        log.info(SCHEDULE_BACKFILL_IO_THREADS + " = "+ schedule_backfill_io_threads);
+        log.info(SCHEDULE_CONFLICTS_BLOCK + " = "+ schedule_conflicts_block);
+        log.info(SCHEDULE_OPTIONS_FILE + " = "+ schedule_options_file);
+        log.info(SCHEDULE_BUS_ADAPTER + " = "+ schedule_bus_adapter);
+        log.info(SCHEDULE_BUS_BATCH_SIZE + " = "+ schedule_bus_batch_size);
+        log.info(SCHEDULE_BUS_WINDOW + " = "+ schedule_bus_window);
+        log.info(SCHEDULE_BUS_RETRIES + " = "+ schedule_bus_retries);
+        log.info(SCHEDULE_HISTORY_DIR + " = "+ schedule_history_dir);
+        log.info(SCHEDULE_HISTORY_RETAIN_DAYS + " = "+ schedule_history_retain_days);
+        log.info(SCHEDULE_FILE_FORMAT + " = "+ schedule_file_format);
 
         // Use application properties as default values
         this.setScheduleFilePath(schedule_file_path);
         this.setDateFormat(schedule_date_format);
         this.setDuration(schedule_pass_duration);
         this.setPassInterval(schedule_pass_interval);
+        this.setPassCount(schedule_pass_count);
         this.setCategory(schedule_category);
         this.setStartLabel(schedule_start_label);
         this.setEndLabel(schedule_end_label);
+        this.setMissions(schedule_missions);
+        this.setGenerationParallelism(schedule_generation_parallelism);
+        this.setCacheMaxBytes(schedule_cache_max_bytes);
+        this.setIngestFile(schedule_ingest_file);
+        this.setEventsQueueMax(schedule_events_queue_max);
+        this.setHorizonStart(schedule_horizon_start);
+        this.setHorizonEnd(schedule_horizon_end);
+        this.setHorizonDays(schedule_horizon_days);
+        this.setWindows(schedule_windows);
+        this.setBackfillFrom(schedule_backfill_from);
+        this.setBackfillTo(schedule_backfill_to);
+        this.setBackfillIoThreads(schedule_backfill_io_threads);
+        this.setConflictsBlock(schedule_conflicts_block);
+        this.setOptionsFile(schedule_options_file);
+        this.setBusAdapter(schedule_bus_adapter);
+        this.setBusBatchSize(schedule_bus_batch_size);
+        this.setBusWindow(schedule_bus_window);
+        this.setBusRetries(schedule_bus_retries);
+        this.setHistoryDir(schedule_history_dir);
+        this.setHistoryRetainDays(schedule_history_retain_days);
+        this.setFileFormat(schedule_file_format);
 
         // Override with any configured environmental properties
         String envFilePath = env.getProperty("schedule_file_path");
         this.setScheduleFilePath(envFilePath != null && !envFilePath.isEmpty() ? envFilePath : schedule_file_path);
 
         String envDateFormat = env.getProperty("schedule_date_format");
-        this.setDateFormat(envFilePath != null && !envDateFormat.isEmpty() ? envFilePath : schedule_date_format);
+        this.setDateFormat(envDateFormat != null && !envDateFormat.isEmpty() ? envDateFormat : schedule_date_format);
 
         String envDuration = env.getProperty("schedule_pass_duration");
         this.setDuration(envDuration != null && !envDuration.isEmpty() ? envDuration : schedule_pass_duration);
@@ -110,6 +292,9 @@ public class Options
         String envInterval = env.getProperty("schedule_pass_interval");
         this.setPassInterval(envInterval != null && !envInterval.isEmpty() ? envInterval : schedule_pass_interval);
 
+        String envCount = env.getProperty("schedule_pass_count");
+        this.setPassCount(envCount != null && !envCount.isEmpty() ? envCount : schedule_pass_count);
+
         String envCategory = env.getProperty("schedule_category");
         this.setCategory(envCategory != null && !envCategory.isEmpty() ? envCategory : schedule_category);
 
@@ -119,6 +304,115 @@ public class Options
         String envEndLabel = env.getProperty("schedule_end_label");
         this.setEndLabel(envEndLabel != null && !envEndLabel.isEmpty() ? envEndLabel : schedule_end_label);
 
+        String envMissions = env.getProperty("schedule_missions");
+        this.setMissions(envMissions != null && !envMissions.isEmpty() ? envMissions : schedule_missions);
+
+        String envIngestFile = env.getProperty("schedule_ingest_file");
+        this.setIngestFile(envIngestFile != null && !envIngestFile.isEmpty() ? envIngestFile : schedule_ingest_file);
+
+        String envEventsQueueMax = env.getProperty("schedule_events_queue_max");
+        this.setEventsQueueMax(envEventsQueueMax != null && !envEventsQueueMax.isEmpty() ? envEventsQueueMax : schedule_events_queue_max);
+
+        String envHorizonStart = env.getProperty("schedule_horizon_start");
+        this.setHorizonStart(envHorizonStart != null && !envHorizonStart.isEmpty() ? envHorizonStart : schedule_horizon_start);
+
+        String envHorizonEnd = env.getProperty("schedule_horizon_end");
+        this.setHorizonEnd(envHorizonEnd != null && !envHorizonEnd.isEmpty() ? envHorizonEnd : schedule_horizon_end);
+
+        String envHorizonDays = env.getProperty("schedule_horizon_days");
+        this.setHorizonDays(envHorizonDays != null && !envHorizonDays.isEmpty() ? envHorizonDays : schedule_horizon_days);
+
+        String envWindows = env.getProperty("schedule_windows");
+        this.setWindows(envWindows != null && !envWindows.isEmpty() ? envWindows : schedule_windows);
+
+        String envBackfillFrom = env.getProperty("schedule_backfill_from");
+        this.setBackfillFrom(envBackfillFrom != null && !envBackfillFrom.isEmpty() ? envBackfillFrom : schedule_backfill_from);
+
+        String envBackfillTo = env.getProperty("schedule_backfill_to");
+        this.setBackfillTo(envBackfillTo != null && !envBackfillTo.isEmpty() ? envBackfillTo : schedule_backfill_to);
+
+        String envBackfillIoThreads = env.getProperty("schedule_backfill_io_threads");
+        this.setBackfillIoThreads(envBackfillIoThreads != null && !envBackfillIoThreads.isEmpty() ? envBackfillIoThreads : schedule_backfill_io_threads);
+
+        String envConflictsBlock = env.getProperty("schedule_conflicts_block");
+        this.setConflictsBlock(envConflictsBlock != null && !envConflictsBlock.isEmpty() ? envConflictsBlock : schedule_conflicts_block);
+
+        String envOptionsFile = env.getProperty("schedule_options_file");
+        this.setOptionsFile(envOptionsFile != null && !envOptionsFile.isEmpty() ? envOptionsFile : schedule_options_file);
+
+        String envBusAdapter = env.getProperty("schedule_bus_adapter");
+        this.setBusAdapter(envBusAdapter != null && !envBusAdapter.isEmpty() ? envBusAdapter : schedule_bus_adapter);
+
+        String envBusBatchSize = env.getProperty("schedule_bus_batch_size");
+        this.setBusBatchSize(envBusBatchSize != null && !envBusBatchSize.isEmpty() ? envBusBatchSize : schedule_bus_batch_size);
+
+        String envBusWindow = env.getProperty("schedule_bus_window");
+        this.setBusWindow(envBusWindow != null && !envBusWindow.isEmpty() ? envBusWindow : schedule_bus_window);
+
+        String envBusRetries = env.getProperty("schedule_bus_retries");
+        this.setBusRetries(envBusRetries != null && !envBusRetries.isEmpty() ? envBusRetries : schedule_bus_retries);
+
+        String envHistoryDir = env.getProperty("schedule_history_dir");
+        this.setHistoryDir(envHistoryDir != null && !envHistoryDir.isEmpty() ? envHistoryDir : schedule_history_dir);
+
+        String envHistoryRetainDays = env.getProperty("schedule_history_retain_days");
+        this.setHistoryRetainDays(envHistoryRetainDays != null && !envHistoryRetainDays.isEmpty()
+                ? envHistoryRetainDays : schedule_history_retain_days);
+
+        String envFileFormat = env.getProperty("schedule_file_format");
+        this.setFileFormat(envFileFormat != null && !envFileFormat.isEmpty() ? envFileFormat : schedule_file_format);
+    }
+
+    /**
+     * A consistent copy of every setting, for building a schedule while
+     * they may be reloaded, or for parsing new settings on the side.
+     */
+    public synchronized Options copy()
+    {
+        return new Options(this);
+    }
+
+    /**
+     * Replace every setting with those of other in one step.
+     */
+    public synchronized void update(Options other)
+    {
+        assign(other);
+    }
+
+    private void assign(Options other)
+    {
+        scheduleFilePath = other.scheduleFilePath;
+        duration = other.duration;
+        passInterval = other.passInterval;
+        passCount = other.passCount;
+        category = other.category;
+        startLabel = other.startLabel;
+        endLabel = other.endLabel;
+        dateFormat = other.dateFormat;
+        missions = other.missions;
+        missionOverrides = other.missionOverrides;
+        generationParallelism = other.generationParallelism;
+        cacheMaxBytes = other.cacheMaxBytes;
+        ingestFile = other.ingestFile;
+        eventsQueueMax = other.eventsQueueMax;
+        horizonStart = other.horizonStart;
+        horizonEnd = other.horizonEnd;
+        horizonDays = other.horizonDays;
+        windows = other.windows;
+        backfillFrom = other.backfillFrom;
+        backfillTo = other.backfillTo;
+        backfillIoThreads = other.backfillIoThreads;
+        conflictsBlock = other.conflictsBlock;
+        optionsFile = other.optionsFile;
+        busAdapter = other.busAdapter;
+        busBatchSize = other.busBatchSize;
+        busWindow = other.busWindow;
+        busRetries = other.busRetries;
+        historyDir = other.historyDir;
+        historyRetainDays = other.historyRetainDays;
+        fileFormat = other.fileFormat;
+        env = other.env;
     }
 
     public String usageText() {
@@ -129,9 +423,35 @@ public class Options
                         + "\n\t"+SCHEDULE_DATE_FORMAT+"=<String>     default: " + getDateFormat() + ". Choices: " + enumList("DATEFORMAT")
                         + "\n\t"+SCHEDULE_PASS_DURATION+"=<String>   default: " + getDuration() + ". Expressed in hh:mm:ss"
                         + "\n\t"+SCHEDULE_PASS_INTERVAL+"=<int>      default: " + getPassInterval() + ". Expressed as minutes"
+                        + "\n\t"+SCHEDULE_PASS_COUNT+"=<int>         default: " + getPassCount() + ". Passes per mission per day"
                         + "\n\t"+SCHEDULE_CATEGORY+"=<String>        default: " + getCategory() + ". Choices: " + enumList("CATEGORY")
                         + "\n\t"+SCHEDULE_START_LABEL+"=<String>     default: " + getStartLabel() + ". Choices: " + enumList("STARTLABEL")
                         + "\n\t"+SCHEDULE_END_LABEL+"=<String>       default: " + getEndLabel() + ". Choices: " + enumList("ENDLABEL")
+                        + "\n\t"+SCHEDULE_MISSIONS+"=<String>        default: " + getCategory() + ". Comma separated categories"
+                        + "\n\t"+SCHEDULE_MISSION_PREFIX+"<category>.<key>=<value>  per mission pass.interval, pass.duration, start.label, end.label, station"
+                        + "\n\t"+SCHEDULE_GENERATION_PARALLELISM+"=<int> default: " + getGenerationParallelism()
+                        + "\n\t"+SCHEDULE_CACHE_MAX_BYTES+"=<long>      default: " + getCacheMaxBytes() + ". Rendered response cache budget"
+                        + "\n\t"+SCHEDULE_INGEST_FILE+"=<String>     default: none. CSV pass file to serve instead of generated passes"
+                        + "\n\t"+SCHEDULE_EVENTS_QUEUE_MAX+"=<int>  default: " + getEventsQueueMax() + ". Events queued for a slow /passes/events client before it is dropped"
+                        + "\n\t"+SCHEDULE_HORIZON_START+"=<String>   default: 08:00 of the day. Epoch seconds or ISO-8601 date-time"
+                        + "\n\t"+SCHEDULE_HORIZON_END+"=<String>     default: none. Epoch seconds or ISO-8601 date-time, exclusive"
+                        + "\n\t"+SCHEDULE_HORIZON_DAYS+"=<int>       default: none. Days from the start, when no end is given"
+                        + "\n\t"+SCHEDULE_WINDOWS+"=<String>          default: all day. Daily windows of local time, e.g. 08:00-12:00,13:00-18:00"
+                        + "\n\t\t without an end or days, " + SCHEDULE_PASS_COUNT + " passes per mission are generated from the start"
+                        + "\n\t"+SCHEDULE_BACKFILL_FROM+"=<yyyy-MM-dd>  default: none. Write one schedule file per day from this date"
+                        + "\n\t"+SCHEDULE_BACKFILL_TO+"=<yyyy-MM-dd>    default: today. Last day of the backfill, inclusive"
+                        + "\n\t"+SCHEDULE_BACKFILL_IO_THREADS+"=<int> default: " + getBackfillIoThreads() + ". Concurrent backfill file writes"
+                        + "\n\t"+SCHEDULE_BATCH+"=<boolean>           default: false. Write the schedule file, and any backfill, then exit"
+                        + "\n\t\t without starting the web server. Exit status 0 written, 1 failed, 2 invalid arguments"
+                        + "\n\t"+SCHEDULE_CONFLICTS_BLOCK+"=<boolean> default: false. Do not write schedule files with overlapping passes"
+                        + "\n\t"+SCHEDULE_OPTIONS_FILE+"=<String>    default: none. key=value file of these options, applied again whenever it changes"
+                        + "\n\t"+SCHEDULE_BUS_ADAPTER+"=<String>     default: none. Message bus each new schedule's passes are published to, e.g. loopback"
+                        + "\n\t"+SCHEDULE_BUS_BATCH_SIZE+"=<int>     default: " + getBusBatchSize() + ". Pass messages per bus batch"
+                        + "\n\t"+SCHEDULE_BUS_WINDOW+"=<int>         default: " + getBusWindow() + ". Bus batches awaiting acknowledgement"
+                        + "\n\t"+SCHEDULE_BUS_RETRIES+"=<int>        default: " + getBusRetries() + ". Times a failed bus batch is sent again"
+                        + "\n\t"+SCHEDULE_HISTORY_DIR+"=<String>     default: history under " + SCHEDULE_FILE_PATH + ". Schedule history store, none to disable"
+                        + "\n\t"+SCHEDULE_HISTORY_RETAIN_DAYS+"=<int> default: " + getHistoryRetainDays() + ". Days superseded passes are kept in the history"
+                        + "\n\t"+SCHEDULE_FILE_FORMAT+"=<String>    default: " + getFileFormat() + ". Schedule file format, " + ScheduleEncoders.names()
                         + "\n"
                  );
         return sb.toString();
@@ -145,7 +465,23 @@ public class Options
         return false;
     }
 
-    public boolean parse(String[] args)
+    /**
+     * @return true when args or the schedule_batch environment variable
+     * ask to write the schedule and exit, looked at before Spring starts
+     */
+    public static boolean isBatch(String[] args)
+    {
+        String batch = System.getenv("schedule_batch");
+        for (String arg : args)
+        {
+            int p = arg.indexOf('=');
+            if (p != -1 && arg.substring(0, p).equalsIgnoreCase(SCHEDULE_BATCH))
+                batch = arg.substring(p + 1);
+        }
+        return Boolean.parseBoolean(batch != null ? batch.trim() : null);
+    }
+
+    public synchronized boolean parse(String[] args)
     {
         for (String arg : args)
         {
@@ -159,20 +495,73 @@ public class Options
                 this.setScheduleFilePath(value);
             if(key.equalsIgnoreCase("schedule.category"))
                 this.setCategory(value);
-            if(key.equalsIgnoreCase("startLabel"))
+            if(key.equalsIgnoreCase("startLabel") || key.equalsIgnoreCase(SCHEDULE_START_LABEL))
                 this.setStartLabel(value);
-            if(key.equalsIgnoreCase("endLabel"))
+            if(key.equalsIgnoreCase("endLabel") || key.equalsIgnoreCase(SCHEDULE_END_LABEL))
                 this.setEndLabel(value);
-            if(key.equalsIgnoreCase("dateFormat"))
+            if(key.equalsIgnoreCase("dateFormat") || key.equalsIgnoreCase(SCHEDULE_DATE_FORMAT))
                 this.setDateFormat(value);
-            if (key.equalsIgnoreCase("passDuration"))
+            if (key.equalsIgnoreCase("passDuration") || key.equalsIgnoreCase(SCHEDULE_PASS_DURATION))
                 this.setDuration(value);
-            if (key.equalsIgnoreCase("passInterval"))
+            if (key.equalsIgnoreCase("passInterval") || key.equalsIgnoreCase(SCHEDULE_PASS_INTERVAL))
                 this.setPassInterval(value);
+            if (key.equalsIgnoreCase("passCount") || key.equalsIgnoreCase(SCHEDULE_PASS_COUNT))
+                this.setPassCount(value);
+            if (key.equalsIgnoreCase(SCHEDULE_MISSIONS))
+                this.setMissions(value);
+            if (key.toLowerCase().startsWith(SCHEDULE_MISSION_PREFIX))
+                putMissionOverride(key.toLowerCase(), value);
+            if (key.equalsIgnoreCase(SCHEDULE_GENERATION_PARALLELISM))
+                this.setGenerationParallelism(value);
+            if (key.equalsIgnoreCase(SCHEDULE_CACHE_MAX_BYTES))
+                this.setCacheMaxBytes(value);
+            if (key.equalsIgnoreCase(SCHEDULE_INGEST_FILE))
+                this.setIngestFile(value);
+            if (key.equalsIgnoreCase(SCHEDULE_EVENTS_QUEUE_MAX))
+                this.setEventsQueueMax(value);
+            if (key.equalsIgnoreCase(SCHEDULE_HORIZON_START))
+                this.setHorizonStart(value);
+            if (key.equalsIgnoreCase(SCHEDULE_HORIZON_END))
+                this.setHorizonEnd(value);
+            if (key.equalsIgnoreCase(SCHEDULE_HORIZON_DAYS))
+                this.setHorizonDays(value);
+            if (key.equalsIgnoreCase(SCHEDULE_WINDOWS))
+                this.setWindows(value);
+            if (key.equalsIgnoreCase(SCHEDULE_BACKFILL_FROM))
+                this.setBackfillFrom(value);
+            if (key.equalsIgnoreCase(SCHEDULE_BACKFILL_TO))
+                this.setBackfillTo(value);
+            if (key.equalsIgnoreCase(SCHEDULE_BACKFILL_IO_THREADS))
+                this.setBackfillIoThreads(value);
+            if (key.equalsIgnoreCase(SCHEDULE_CONFLICTS_BLOCK))
+                this.setConflictsBlock(value);
+            if (key.equalsIgnoreCase(SCHEDULE_OPTIONS_FILE))
+                this.setOptionsFile(value);
+            if (key.equalsIgnoreCase(SCHEDULE_BUS_ADAPTER))
+                this.setBusAdapter(value);
+            if (key.equalsIgnoreCase(SCHEDULE_BUS_BATCH_SIZE))
+                this.setBusBatchSize(value);
+            if (key.equalsIgnoreCase(SCHEDULE_BUS_WINDOW))
+                this.setBusWindow(value);
+            if (key.equalsIgnoreCase(SCHEDULE_BUS_RETRIES))
+                this.setBusRetries(value);
+            if (key.equalsIgnoreCase(SCHEDULE_HISTORY_DIR))
+                this.setHistoryDir(value);
+            if (key.equalsIgnoreCase(SCHEDULE_HISTORY_RETAIN_DAYS))
+                this.setHistoryRetainDays(value);
+            if (key.equalsIgnoreCase(SCHEDULE_FILE_FORMAT))
+                this.setFileFormat(value);
         }
         return true;
     }
 
+    private void putMissionOverride(String key, String value)
+    {
+        Map<String, String> overrides = new HashMap<>(missionOverrides);
+        overrides.put(key, value);
+        missionOverrides = Collections.unmodifiableMap(overrides);
+    }
+
     public String getScheduleFilePath()
     {
         return scheduleFilePath;
@@ -206,6 +595,341 @@ public class Options
         }
     }
 
+    public int getPassCount()
+    {
+        return passCount;
+    }
+
+    public void setPassCount(String passCount)
+    {
+        if(passCount != null && !passCount.isEmpty())
+        {
+            this.passCount = Math.max(0, Integer.parseInt(passCount));
+        }
+    }
+
+    public String getMissions()
+    {
+        return missions;
+    }
+
+    public void setMissions(String missions)
+    {
+        this.missions = missions == null ? "" : missions;
+    }
+
+    /**
+     * Settings of every configured mission, in configured order. Without
+     * schedule.missions this is the single schedule.category mission.
+     * Each mission reads schedule.mission.<category>.pass.interval,
+     * .pass.duration, .start.label, .end.label and .station, from the command line,
+     * then properties or environment, then the single mission defaults. A
+     * mission without a station has its own, named after its category.
+     */
+    public synchronized List<Mission> getMissionList()
+    {
+        List<Mission> list = new ArrayList<>();
+        String names = missions.trim().isEmpty() ? getCategory() : missions;
+        for (String name : names.split(","))
+        {
+            name = name.trim();
+            if (name.isEmpty())
+                continue;
+            String interval = missionProperty(name, "pass.interval", Integer.toString(getPassInterval()));
+            list.add(new Mission(list.size(), name,
+                    missionProperty(name, "start.label", getStartLabel()),
+                    missionProperty(name, "end.label", getEndLabel()),
+                    missionProperty(name, "pass.duration", getDuration()),
+                    Integer.parseInt(interval.trim()),
+                    missionProperty(name, "station", name)));
+        }
+        return list;
+    }
+
+    private String missionProperty(String mission, String key, String defaultValue)
+    {
+        String name = SCHEDULE_MISSION_PREFIX + mission + "." + key;
+        String value = missionOverrides.get(name.toLowerCase());
+        if (value == null && env != null)
+            value = env.getProperty(name);
+        return value != null && !value.isEmpty() ? value : defaultValue;
+    }
+
+    public int getGenerationParallelism()
+    {
+        return generationParallelism;
+    }
+
+    public void setGenerationParallelism(String generationParallelism)
+    {
+        if(generationParallelism != null && !generationParallelism.isEmpty())
+        {
+            this.generationParallelism = Math.max(1, Integer.parseInt(generationParallelism));
+        }
+    }
+
+    public long getCacheMaxBytes()
+    {
+        return cacheMaxBytes;
+    }
+
+    public void setCacheMaxBytes(String cacheMaxBytes)
+    {
+        if(cacheMaxBytes != null && !cacheMaxBytes.isEmpty())
+        {
+            this.cacheMaxBytes = Long.parseLong(cacheMaxBytes);
+        }
+    }
+
+    /**
+     * @return CSV file of passes to serve instead of generating them, or empty
+     */
+    public String getIngestFile()
+    {
+        return ingestFile;
+    }
+
+    public void setIngestFile(String ingestFile)
+    {
+        this.ingestFile = ingestFile != null ? ingestFile.trim() : "";
+    }
+
+    public int getEventsQueueMax()
+    {
+        return eventsQueueMax;
+    }
+
+    public void setEventsQueueMax(String eventsQueueMax)
+    {
+        if(eventsQueueMax != null && !eventsQueueMax.isEmpty())
+        {
+            this.eventsQueueMax = Math.max(1, Integer.parseInt(eventsQueueMax));
+        }
+    }
+
+    /**
+     * @return first pass time as given, or empty for 08:00 of the schedule's day
+     */
+    public String getHorizonStart()
+    {
+        return horizonStart;
+    }
+
+    public void setHorizonStart(String horizonStart)
+    {
+        this.horizonStart = horizonStart != null ? horizonStart.trim() : "";
+        if(!this.horizonStart.isEmpty()) Horizon.parseInstant(this.horizonStart, ZoneId.systemDefault());
+    }
+
+    /**
+     * @return exclusive end of the schedule as given, or empty
+     */
+    public String getHorizonEnd()
+    {
+        return horizonEnd;
+    }
+
+    public void setHorizonEnd(String horizonEnd)
+    {
+        this.horizonEnd = horizonEnd != null ? horizonEnd.trim() : "";
+        if(!this.horizonEnd.isEmpty()) Horizon.parseInstant(this.horizonEnd, ZoneId.systemDefault());
+    }
+
+    /**
+     * @return days the schedule covers from its start, 0 for none
+     */
+    public int getHorizonDays()
+    {
+        return horizonDays;
+    }
+
+    public void setHorizonDays(String horizonDays)
+    {
+        if(horizonDays != null && !horizonDays.isEmpty())
+        {
+            this.horizonDays = Math.max(0, Integer.parseInt(horizonDays));
+        }
+    }
+
+    /**
+     * @return daily windows passes are generated in, empty for all day
+     */
+    public String getWindows()
+    {
+        return windows;
+    }
+
+    public void setWindows(String windows)
+    {
+        this.windows = windows != null ? windows.trim() : "";
+        if(!this.windows.isEmpty()) Horizon.parseWindows(this.windows);
+    }
+
+    /**
+     * @return first day of the backfill run at startup, or empty for none
+     */
+    public String getBackfillFrom()
+    {
+        return backfillFrom;
+    }
+
+    public void setBackfillFrom(String backfillFrom)
+    {
+        this.backfillFrom = backfillFrom != null ? backfillFrom.trim() : "";
+        if(!this.backfillFrom.isEmpty()) LocalDate.parse(this.backfillFrom);
+    }
+
+    /**
+     * @return last day of the backfill, or empty for today
+     */
+    public String getBackfillTo()
+    {
+        return backfillTo;
+    }
+
+    public void setBackfillTo(String backfillTo)
+    {
+        this.backfillTo = backfillTo != null ? backfillTo.trim() : "";
+        if(!this.backfillTo.isEmpty()) LocalDate.parse(this.backfillTo);
+    }
+
+    public int getBackfillIoThreads()
+    {
+        return backfillIoThreads;
+    }
+
+    public void setBackfillIoThreads(String backfillIoThreads)
+    {
+        if(backfillIoThreads != null && !backfillIoThreads.isEmpty())
+        {
+            this.backfillIoThreads = Math.max(1, Integer.parseInt(backfillIoThreads));
+        }
+    }
+
+    /**
+     * @return true to refuse writing schedule files in which passes of a
+     * mission, or of missions sharing a station, overlap
+     */
+    public boolean isConflictsBlock()
+    {
+        return conflictsBlock;
+    }
+
+    public void setConflictsBlock(String conflictsBlock)
+    {
+        if(conflictsBlock != null && !conflictsBlock.isEmpty())
+        {
+            this.conflictsBlock = Boolean.parseBoolean(conflictsBlock.trim());
+        }
+    }
+
+    /**
+     * @return properties file of options watched for changes, or empty
+     */
+    public String getOptionsFile()
+    {
+        return optionsFile;
+    }
+
+    public void setOptionsFile(String optionsFile)
+    {
+        this.optionsFile = optionsFile != null ? optionsFile.trim() : "";
+    }
+
+    /**
+     * @return name of the BusAdapter passes are published to, empty for none
+     */
+    public String getBusAdapter()
+    {
+        return busAdapter;
+    }
+
+    public void setBusAdapter(String busAdapter)
+    {
+        this.busAdapter = busAdapter != null ? busAdapter.trim() : "";
+    }
+
+    public int getBusBatchSize()
+    {
+        return busBatchSize;
+    }
+
+    public void setBusBatchSize(String busBatchSize)
+    {
+        if(busBatchSize != null && !busBatchSize.isEmpty())
+        {
+            this.busBatchSize = Math.max(1, Integer.parseInt(busBatchSize));
+        }
+    }
+
+    public int getBusWindow()
+    {
+        return busWindow;
+    }
+
+    public void setBusWindow(String busWindow)
+    {
+        if(busWindow != null && !busWindow.isEmpty())
+        {
+            this.busWindow = Math.max(1, Integer.parseInt(busWindow));
+        }
+    }
+
+    public int getBusRetries()
+    {
+        return busRetries;
+    }
+
+    public void setBusRetries(String busRetries)
+    {
+        if(busRetries != null && !busRetries.isEmpty())
+        {
+            this.busRetries = Math.max(0, Integer.parseInt(busRetries));
+        }
+    }
+
+    /**
+     * @return history store directory, empty for history under the schedule file path, none to disable
+     */
+    public String getHistoryDir()
+    {
+        return historyDir;
+    }
+
+    public void setHistoryDir(String historyDir)
+    {
+        this.historyDir = historyDir != null ? historyDir.trim() : "";
+    }
+
+    public int getHistoryRetainDays()
+    {
+        return historyRetainDays;
+    }
+
+    public void setHistoryRetainDays(String historyRetainDays)
+    {
+        if(historyRetainDays != null && !historyRetainDays.isEmpty())
+        {
+            this.historyRetainDays = Math.max(0, Integer.parseInt(historyRetainDays));
+        }
+    }
+
+    /**
+     * @return name of the ScheduleEncoder schedule files are written with
+     */
+    public String getFileFormat()
+    {
+        return fileFormat;
+    }
+
+    public void setFileFormat(String fileFormat)
+    {
+        if(fileFormat != null && !fileFormat.trim().isEmpty())
+        {
+            this.fileFormat = ScheduleEncoders.forName(fileFormat.trim()).getName();
+        }
+    }
+
     private String enumList(String enumName)
     {
         String type = enumName.toUpperCase();
@@ -343,4 +1067,13 @@ public class Options
     public String getDateFormatString() {
         return DateFormat.find(getDateFormat());
     }
+
+    public DateFormat getDateFormatType() {
+        if(DateFormat.find(getDateFormat()) == null)
+        {
+            log.error("Unknown date format " + getDateFormat() + ", defaulting to " + DateFormat.DAY_IN_YEAR);
+            return DateFormat.DAY_IN_YEAR;
+        }
+        return DateFormat.valueOf(getDateFormat());
+    }
 }
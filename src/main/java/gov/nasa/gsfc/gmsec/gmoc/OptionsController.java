@@ -0,0 +1,45 @@
+package gov.nasa.gsfc.gmsec.gmoc;
+
+import gov.nasa.gsfc.gmsec.gmoc.model.Horizon;
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleReload;
+import gov.nasa.gsfc.gmsec.gmoc.service.OptionsReloader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Change options without a restart, taking the same keys as the command
+ * line, effective now or from a given epoch second or date-time
+ *      curl -X POST 'http://127.0.0.1:8090/options/reload?schedule.mission.SDO.pass.interval=10'
+ *      curl -X POST 'http://127.0.0.1:8090/options/reload?startLabel=START&effective=2016-11-30T13:00'
+ */
+@RestController
+public class OptionsController
+{
+    private static final String EFFECTIVE = "effective";
+
+    @Autowired
+    private OptionsReloader reloader;
+
+    @RequestMapping(value = "/options/reload", method = RequestMethod.POST)
+    public ScheduleReload reload(@RequestParam Map<String, String> params)
+    {
+        long effective = System.currentTimeMillis() / 1000;
+        List<String> args = new ArrayList<>();
+        for(Map.Entry<String, String> param : params.entrySet())
+        {
+            if(param.getKey().equals(EFFECTIVE))
+                effective = Horizon.parseInstant(param.getValue(), ZoneId.systemDefault());
+            else
+                args.add(param.getKey() + "=" + param.getValue());
+        }
+        return reloader.reload(args, effective);
+    }
+}
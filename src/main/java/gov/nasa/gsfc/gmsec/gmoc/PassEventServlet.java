@@ -0,0 +1,164 @@
+package gov.nasa.gsfc.gmsec.gmoc;
+
+import gov.nasa.gsfc.gmsec.gmoc.service.PassEventBroadcaster;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+
+/**
+ * Server-Sent Events stream of pass state and AOS/LOS transitions
+ *      curl -N http://127.0.0.1:8090/passes/events
+ *
+ * Each subscriber is an async request with a WriteListener, so no thread
+ * is held per connection. Events are queued per subscriber and written
+ * only while the output stream is ready; a subscriber whose queue reaches
+ * schedule.events.queue.max events is too slow and is disconnected.
+ *
+ * Registered in GmocApplication as a plain servlet, outside Spring MVC.
+ */
+public class PassEventServlet extends HttpServlet
+{
+    private static final long serialVersionUID = 1L;
+    private static final Logger log = LoggerFactory.getLogger(PassEventServlet.class);
+    private static final byte[] PREAMBLE = "retry: 5000\n\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final PassEventBroadcaster broadcaster;
+    private final Options options;
+
+    public PassEventServlet(PassEventBroadcaster broadcaster, Options options)
+    {
+        this.broadcaster = broadcaster;
+        this.options = options;
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException
+    {
+        response.setContentType("text/event-stream");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-cache");
+        AsyncContext async = request.startAsync();
+        async.setTimeout(0);
+        EventStream stream = new EventStream(async, response.getOutputStream(), options.getEventsQueueMax());
+        async.addListener(stream);
+        stream.send(PREAMBLE);
+        broadcaster.subscribe(stream);
+        stream.out.setWriteListener(stream);
+    }
+
+    private class EventStream implements PassEventBroadcaster.Subscriber, WriteListener, AsyncListener
+    {
+        private final AsyncContext async;
+        private final ServletOutputStream out;
+        private final ArrayDeque<byte[]> queue = new ArrayDeque<>();
+        private final int maxQueued;
+        private boolean writable;
+        private boolean closed;
+
+        EventStream(AsyncContext async, ServletOutputStream out, int maxQueued)
+        {
+            this.async = async;
+            this.out = out;
+            this.maxQueued = maxQueued;
+        }
+
+        @Override
+        public synchronized boolean send(byte[] event)
+        {
+            if(closed) return false;
+            if(queue.size() >= maxQueued)
+            {
+                log.info("Dropping slow event subscriber {}", async.getRequest().getRemoteAddr());
+                close();
+                return false;
+            }
+            queue.add(event);
+            if(writable) drain();
+            return !closed;
+        }
+
+        @Override
+        public synchronized void onWritePossible()
+        {
+            writable = true;
+            drain();
+        }
+
+        // Write while the container can take bytes without blocking
+        private void drain()
+        {
+            try
+            {
+                while(!queue.isEmpty())
+                {
+                    if(!out.isReady())
+                    {
+                        writable = false;
+                        return;
+                    }
+                    out.write(queue.poll());
+                }
+                if(out.isReady()) out.flush();
+                else writable = false;
+            } catch (IOException | IllegalStateException e)
+            {
+                close();
+            }
+        }
+
+        @Override
+        public void onError(Throwable t)
+        {
+            close();
+        }
+
+        private synchronized void close()
+        {
+            if(closed) return;
+            closed = true;
+            queue.clear();
+            broadcaster.unsubscribe(this);
+            try
+            {
+                async.complete();
+            } catch (IllegalStateException e)
+            {
+                // Already completed by the container
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event)
+        {
+            close();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event)
+        {
+            close();
+        }
+
+        @Override
+        public void onError(AsyncEvent event)
+        {
+            close();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event)
+        {
+        }
+    }
+}
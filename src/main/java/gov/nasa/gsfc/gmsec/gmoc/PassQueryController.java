@@ -0,0 +1,62 @@
+package gov.nasa.gsfc.gmsec.gmoc;
+
+import gov.nasa.gsfc.gmsec.gmoc.model.PassInfo;
+import gov.nasa.gsfc.gmsec.gmoc.model.PassStatus;
+import gov.nasa.gsfc.gmsec.gmoc.service.PassQueryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Countdown queries, answered without building schedule rows.
+ * Times are epoch seconds or ISO-8601 instants, default now. An optional
+ * mission=<category> restricts the answer to one mission.
+ *      http://127.0.0.1:8090/passes/next
+ *      http://127.0.0.1:8090/passes/at?t=2016-11-30T13:01:00Z
+ *      http://127.0.0.1:8090/passes/range?from=1480510800&to=1480514400
+ */
+@RestController
+@RequestMapping("/passes")
+public class PassQueryController
+{
+    @Autowired
+    private PassQueryService passQueryService;
+
+    @RequestMapping("/next")
+    public ResponseEntity<PassInfo> next(@RequestParam(value = "t", required = false) String t,
+                                         @RequestParam(value = "mission", required = false) String mission)
+    {
+        PassInfo pass = passQueryService.next(time(t), mission);
+        if(pass == null) return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        return ResponseEntity.ok(pass);
+    }
+
+    @RequestMapping("/at")
+    public PassStatus at(@RequestParam(value = "t", required = false) String t,
+                         @RequestParam(value = "mission", required = false) String mission)
+    {
+        return passQueryService.at(time(t), mission);
+    }
+
+    @RequestMapping("/range")
+    public List<PassInfo> range(
+            @RequestParam(value = "from", required = false) String from,
+            @RequestParam(value = "to", required = false) String to,
+            @RequestParam(value = "limit", required = false, defaultValue = "1000") int limit,
+            @RequestParam(value = "mission", required = false) String mission)
+    {
+        long fromSecond = time(from);
+        long toSecond = to == null ? Long.MAX_VALUE / 2 : DefaultRestController.parseInstant(to);
+        return passQueryService.range(fromSecond, toSecond, limit, mission);
+    }
+
+    private static long time(String t)
+    {
+        return t == null ? System.currentTimeMillis() / 1000 : DefaultRestController.parseInstant(t);
+    }
+}
@@ -0,0 +1,32 @@
+package gov.nasa.gsfc.gmsec.gmoc;
+
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleDelta;
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleDiff;
+import gov.nasa.gsfc.gmsec.gmoc.service.ScheduleDiffService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Passes inserted, removed, shifted or updated since a schedule version,
+ * the toVersion of the previous answer. A removed and an inserted pass of
+ * a mission at most maxShift seconds apart are reported as one shift.
+ * A version no longer retained, or from before a restart, is answered
+ * with the whole schedule, fromVersion 0 and every pass inserted.
+ *      http://127.0.0.1:8090/schedule/diff?since=3
+ *      http://127.0.0.1:8090/schedule/diff?since=3&maxShift=0
+ */
+@RestController
+public class ScheduleDiffController
+{
+    @Autowired
+    private ScheduleDiffService scheduleDiffService;
+
+    @RequestMapping("/schedule/diff")
+    public ScheduleDelta diff(@RequestParam(value = "since") long since,
+                              @RequestParam(value = "maxShift", required = false) Integer maxShift)
+    {
+        return scheduleDiffService.diff(since, maxShift == null ? ScheduleDiff.DEFAULT_MAX_SHIFT_SECONDS : maxShift);
+    }
+}
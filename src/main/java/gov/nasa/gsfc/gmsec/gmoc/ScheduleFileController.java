@@ -0,0 +1,192 @@
+package gov.nasa.gsfc.gmsec.gmoc;
+
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleEncoder;
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleEncoders;
+import gov.nasa.gsfc.gmsec.gmoc.service.ScheduleFileService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Download the schedule files written by ScheduleFileService
+ *      curl -O http://127.0.0.1:8090/schedule/2016-11-30.csv
+ *
+ * with the extension of the schedule.file.format, .csv, .jsonl, .json or
+ * .bin, also for the binary companion written with every format.
+ *
+ * The file is never read into the heap. When the connector supports it
+ * the body is handed to Tomcat's sendfile, otherwise it is copied with
+ * FileChannel.transferTo. Supports a single byte Range, If-Range and
+ * Last-Modified / If-Modified-Since.
+ */
+@RestController
+public class ScheduleFileController
+{
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Autowired
+    private Options options;
+
+    @RequestMapping(value = "/schedule/{date:\\d{4}-\\d{2}-\\d{2}}.{format:csv|jsonl|json|bin}",
+            method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void download(@PathVariable("date") String date, @PathVariable("format") String format,
+                         HttpServletRequest request, HttpServletResponse response)
+            throws IOException
+    {
+        ScheduleEncoder encoder = ScheduleEncoders.forName(format);
+        Path file;
+        try
+        {
+            file = Paths.get(options.getScheduleFilePath(),
+                    ScheduleFileService.fileName(LocalDate.parse(date), encoder));
+        } catch (DateTimeParseException e)
+        {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid date " + date);
+            return;
+        }
+        if(!Files.isRegularFile(file))
+        {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long length = Files.size(file);
+        long lastModified = Files.getLastModifiedTime(file).toMillis() / 1000 * 1000;
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        String contentType = encoder == ScheduleEncoders.CSV ? "text/csv" : encoder.getMediaTypes().get(0);
+        response.setContentType(encoder.isText() ? contentType + ";charset=UTF-8" : contentType);
+
+        long ifModifiedSince = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        if(ifModifiedSince >= lastModified)
+        {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long end = length;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if(range != null && rangeApplies(request, lastModified))
+        {
+            long[] bounds = parseRange(range, length);
+            if(bounds == null)
+            {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if(bounds.length == 2)
+            {
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (end - 1) + "/" + length);
+            }
+        }
+        response.setContentLengthLong(end - start);
+        if("HEAD".equals(request.getMethod()) || end == start)
+            return;
+
+        if(Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT)))
+        {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return;
+        }
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while(position < end)
+            {
+                position += channel.transferTo(position, end - position, out);
+            }
+        }
+    }
+
+    /**
+     * @return {start, end} of a single satisfiable range, an empty array to
+     * send the whole file, null if unsatisfiable. A range that is not valid,
+     * such as bytes=500-100, or several ranges are ignored.
+     */
+    static long[] parseRange(String range, long length)
+    {
+        if(!range.startsWith("bytes=") || range.indexOf(',') >= 0)
+            return new long[0];
+        String spec = range.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if(dash < 0 || !isDigits(spec, 0, dash) || !isDigits(spec, dash + 1, spec.length())
+                || dash == 0 && dash == spec.length() - 1)
+            return new long[0];
+        try
+        {
+            if(dash == 0)
+            {
+                long suffix = Long.parseLong(spec.substring(1));
+                if(suffix == 0 || length == 0) return null;
+                return new long[] {Math.max(0, length - suffix), length};
+            }
+            long start = Long.parseLong(spec.substring(0, dash));
+            long last = dash == spec.length() - 1 ? Long.MAX_VALUE : Long.parseLong(spec.substring(dash + 1));
+            if(last < start)
+                return new long[0];
+            if(start >= length)
+                return null;
+            return new long[] {start, Math.min(length - 1, last) + 1};
+        } catch (NumberFormatException e)
+        {
+            // Too many digits
+            return new long[0];
+        }
+    }
+
+    private static boolean isDigits(String s, int from, int to)
+    {
+        for(int i = from; i < to; i++)
+        {
+            if(s.charAt(i) < '0' || s.charAt(i) > '9') return false;
+        }
+        return true;
+    }
+
+    // If-Range with a date only applies the Range when the file has not changed since
+    private static boolean rangeApplies(HttpServletRequest request, long lastModified)
+    {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if(ifRange == null) return true;
+        long date = dateHeader(request, HttpHeaders.IF_RANGE);
+        return date >= 0 && date == lastModified;
+    }
+
+    private static long dateHeader(HttpServletRequest request, String name)
+    {
+        try
+        {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e)
+        {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+
+/**
+ * The fixed-width BinaryScheduleFormat. The header holds the record count,
+ * so the passes are collected into a PassTable, 20 bytes a pass, before
+ * anything is written. The newline is not used.
+ */
+final class BinaryScheduleEncoder implements ScheduleEncoder
+{
+    private static final List<String> MEDIA_TYPES = Collections.unmodifiableList(
+            Arrays.asList("application/octet-stream"));
+
+    @Override
+    public String getName()
+    {
+        return "bin";
+    }
+
+    @Override
+    public List<String> getMediaTypes()
+    {
+        return MEDIA_TYPES;
+    }
+
+    @Override
+    public String getFileExtension()
+    {
+        return BinaryScheduleFormat.FILE_EXTENSION;
+    }
+
+    @Override
+    public boolean isText()
+    {
+        return false;
+    }
+
+    @Override
+    public void encode(SchedulePasses passes, long limit, byte[] newline, ByteBuffer buffer, BufferSink sink)
+            throws IOException
+    {
+        PassRecord record = new PassRecord(passes.getMissions());
+        PassTable.Builder builder = new PassTable.Builder();
+        short[][] ids = new short[record.missions()][];
+        for(int m = 0; m < ids.length; m++)
+        {
+            // Labels as PassTable.of() stores them
+            Mission mission = passes.getMissions().get(m).getMission();
+            ids[m] = new short[] {
+                    builder.intern(mission.getCategory()),
+                    builder.intern(mission.getStartLabel() + " " + mission.getCategory()),
+                    builder.intern(mission.getEndLabel() + " " + mission.getCategory())};
+        }
+        Spliterator.OfLong refs = passes.spliterator();
+        long remaining = limit < 0 ? Long.MAX_VALUE : limit;
+        while(remaining-- > 0 && refs.tryAdvance((long ref) -> {
+            record.moveTo(ref);
+            short[] id = ids[record.mission()];
+            builder.add(record.aos(), (int) (record.los() - record.aos()), id[0], id[1], id[2]);
+        }))
+        {
+            // Collected
+        }
+        // The header is written in one piece
+        ByteBuffer out = buffer.capacity() < BUFFER_SIZE ? ByteBuffer.allocate(BUFFER_SIZE) : buffer;
+        BinaryScheduleFormat.write(builder.build(), out, sink);
+    }
+}
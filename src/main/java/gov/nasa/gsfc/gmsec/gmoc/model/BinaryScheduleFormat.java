@@ -0,0 +1,94 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Fixed-width binary pass schedule, big-endian.
+ *
+ * Header
+ *     magic           8 bytes  "GMOCPSB1"
+ *     format version  int      1
+ *     record size     int      20
+ *     header size     int      offset of the first record, multiple of 8
+ *     string count    int
+ *     record count    long
+ *     max duration    int      seconds, bounds searches by end time
+ *     reserved        int
+ *     strings         string count x (unsigned short length, UTF-8 bytes)
+ *     padding         zeros up to header size
+ *
+ * Record, sorted by start
+ *     start           long     epoch seconds
+ *     duration        int      seconds
+ *     category        short    string id
+ *     start label     short    string id, the whole CSV field, "AOS WIRE"
+ *     end label       short    string id
+ *     reserved        short
+ */
+public final class BinaryScheduleFormat
+{
+    public static final String FILE_EXTENSION = ".bin";
+    static final byte[] MAGIC = "GMOCPSB1".getBytes(StandardCharsets.US_ASCII);
+    static final int FORMAT_VERSION = 1;
+    static final int RECORD_SIZE = 20;
+    static final int FIXED_HEADER_SIZE = 40;
+
+    private BinaryScheduleFormat()
+    {
+    }
+
+    public static void write(PassTable table, ByteBuffer buffer, BufferSink sink) throws IOException
+    {
+        List<String> strings = table.getStrings();
+        int headerSize = FIXED_HEADER_SIZE;
+        byte[][] encoded = new byte[strings.size()][];
+        for(int s = 0; s < encoded.length; s++)
+        {
+            encoded[s] = strings.get(s).getBytes(StandardCharsets.UTF_8);
+            if(encoded[s].length > 0xFFFF)
+                throw new IOException("String table entry too long: " + strings.get(s));
+            headerSize += 2 + encoded[s].length;
+        }
+        headerSize = (headerSize + 7) & ~7;
+        if(buffer.capacity() < Math.max(headerSize, RECORD_SIZE))
+            throw new IOException("Header of " + headerSize + " bytes does not fit the write buffer");
+
+        buffer.clear();
+        buffer.put(MAGIC);
+        buffer.putInt(FORMAT_VERSION);
+        buffer.putInt(RECORD_SIZE);
+        buffer.putInt(headerSize);
+        buffer.putInt(encoded.length);
+        buffer.putLong(table.size());
+        buffer.putInt(table.maxDuration());
+        buffer.putInt(0);
+        for(byte[] string : encoded)
+        {
+            buffer.putShort((short) string.length);
+            buffer.put(string);
+        }
+        while(buffer.position() < headerSize) buffer.put((byte) 0);
+
+        for(int i = 0; i < table.size(); i++)
+        {
+            if(buffer.remaining() < RECORD_SIZE)
+            {
+                buffer.flip();
+                sink.write(buffer);
+                buffer.clear();
+            }
+            buffer.putLong(table.startOf(i));
+            buffer.putInt(table.durationOf(i));
+            buffer.putShort(table.categoryIdOf(i));
+            buffer.putShort(table.startLabelIdOf(i));
+            buffer.putShort(table.endLabelIdOf(i));
+            buffer.putShort((short) 0);
+        }
+        buffer.flip();
+        if(buffer.hasRemaining()) sink.write(buffer);
+        buffer.clear();
+    }
+}
@@ -0,0 +1,13 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Receives a flipped buffer of whole records or rows and must consume
+ * all of it before returning; the caller reuses the buffer.
+ */
+public interface BufferSink
+{
+    void write(ByteBuffer rows) throws IOException;
+}
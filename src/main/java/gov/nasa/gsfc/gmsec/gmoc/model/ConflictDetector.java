@@ -0,0 +1,205 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+/**
+ * Sweep over the passes of a schedule in start order, as merged by
+ * SchedulePasses, finding the overlaps of a ConflictReport.
+ *
+ * A pass overlaps an earlier one exactly when it starts before the latest
+ * end seen so far, so the sweep only keeps, per mission, the latest end,
+ * and per station the latest ends of the two missions that end last. The
+ * earlier pass a pass overlaps longest is the one ending last. With the
+ * O(n log m) merge of m missions the whole analysis is linear in passes
+ * and allocates nothing per pass beyond the reported examples.
+ *
+ * Missions are told apart by category, so an ingested schedule whose
+ * category has passes of several durations is still one mission.
+ */
+public class ConflictDetector
+{
+    private ConflictDetector()
+    {
+    }
+
+    public static ConflictReport analyze(long version, SchedulePasses passes, int exampleLimit)
+    {
+        Sweep sweep = new Sweep(passes, exampleLimit);
+        passes.spliterator().forEachRemaining(sweep);
+        return sweep.report(version);
+    }
+
+    private static class Sweep implements LongConsumer
+    {
+        private final SchedulePasses passes;
+        private final PassIndex[] indexes;
+        private final int exampleLimit;
+        private final List<String> categories = new ArrayList<>();
+        private final List<String> stations = new ArrayList<>();
+        private final List<String> missionStations = new ArrayList<>();
+        private final int[] missionOf;
+        private final int[] stationOf;
+
+        // per mission
+        private final long[] missionPasses;
+        private final long[] missionOverlapping;
+        private final long[] missionMaxOverlap;
+        private final long[] lastEnd;
+        private final long[] lastEndRef;
+
+        // per station, the latest end and the latest end of another mission
+        private final long[] firstEnd;
+        private final int[] firstMission;
+        private final long[] firstRef;
+        private final long[] secondEnd;
+        private final long[] secondRef;
+        private final long[] stationConflicting;
+        private final long[] stationMaxOverlap;
+
+        private final List<ConflictReport.Conflict> examples = new ArrayList<>();
+        private long count;
+
+        Sweep(SchedulePasses passes, int exampleLimit)
+        {
+            this.passes = passes;
+            this.exampleLimit = exampleLimit;
+            List<MissionSchedule> schedules = passes.getMissions();
+            indexes = new PassIndex[schedules.size()];
+            missionOf = new int[schedules.size()];
+            stationOf = new int[schedules.size()];
+            Map<String, Integer> missionIds = new LinkedHashMap<>();
+            Map<String, Integer> stationIds = new LinkedHashMap<>();
+            for(int m = 0; m < schedules.size(); m++)
+            {
+                Mission mission = schedules.get(m).getMission();
+                indexes[m] = schedules.get(m).getIndex();
+                stationOf[m] = id(stationIds, stations, mission.getStation());
+                int before = categories.size();
+                missionOf[m] = id(missionIds, categories, mission.getCategory());
+                if(categories.size() > before) missionStations.add(mission.getStation());
+            }
+            int missions = categories.size();
+            missionPasses = new long[missions];
+            missionOverlapping = new long[missions];
+            missionMaxOverlap = new long[missions];
+            lastEnd = filled(missions);
+            lastEndRef = new long[missions];
+            int n = stations.size();
+            firstEnd = filled(n);
+            firstMission = new int[n];
+            Arrays.fill(firstMission, -1);
+            firstRef = new long[n];
+            secondEnd = filled(n);
+            secondRef = new long[n];
+            stationConflicting = new long[n];
+            stationMaxOverlap = new long[n];
+        }
+
+        private static int id(Map<String, Integer> ids, List<String> names, String name)
+        {
+            Integer id = ids.get(name);
+            if(id == null)
+            {
+                id = names.size();
+                ids.put(name, id);
+                names.add(name);
+            }
+            return id;
+        }
+
+        private static long[] filled(int length)
+        {
+            long[] values = new long[length];
+            Arrays.fill(values, Long.MIN_VALUE);
+            return values;
+        }
+
+        @Override
+        public void accept(long ref)
+        {
+            int m = SchedulePasses.mission(ref);
+            int pass = SchedulePasses.pass(ref);
+            long start = indexes[m].startOf(pass);
+            long end = indexes[m].endOf(pass);
+            int mission = missionOf[m];
+            int station = stationOf[m];
+            count++;
+
+            missionPasses[mission]++;
+            if(lastEnd[mission] > start)
+            {
+                missionOverlapping[mission]++;
+                missionMaxOverlap[mission] = Math.max(missionMaxOverlap[mission], Math.min(end, lastEnd[mission]) - start);
+                example(ConflictReport.Conflict.Type.MISSION, station, ref, lastEndRef[mission]);
+            }
+            if(end > lastEnd[mission])
+            {
+                lastEnd[mission] = end;
+                lastEndRef[mission] = ref;
+            }
+
+            boolean first = firstMission[station] != mission;
+            long otherEnd = first ? firstEnd[station] : secondEnd[station];
+            if(otherEnd > start)
+            {
+                stationConflicting[station]++;
+                stationMaxOverlap[station] = Math.max(stationMaxOverlap[station], Math.min(end, otherEnd) - start);
+                example(ConflictReport.Conflict.Type.STATION, station, ref, first ? firstRef[station] : secondRef[station]);
+            }
+            if(firstMission[station] == mission)
+            {
+                if(end > firstEnd[station])
+                {
+                    firstEnd[station] = end;
+                    firstRef[station] = ref;
+                }
+            }
+            else if(end > firstEnd[station])
+            {
+                secondEnd[station] = firstEnd[station];
+                secondRef[station] = firstRef[station];
+                firstEnd[station] = end;
+                firstMission[station] = mission;
+                firstRef[station] = ref;
+            }
+            else if(end > secondEnd[station])
+            {
+                secondEnd[station] = end;
+                secondRef[station] = ref;
+            }
+        }
+
+        private void example(ConflictReport.Conflict.Type type, int station, long ref, long earlier)
+        {
+            if(examples.size() < exampleLimit)
+                examples.add(new ConflictReport.Conflict(type, stations.get(station), passes.info(ref), passes.info(earlier)));
+        }
+
+        ConflictReport report(long version)
+        {
+            List<ConflictReport.MissionConflicts> missions = new ArrayList<>();
+            for(int mission = 0; mission < categories.size(); mission++)
+            {
+                missions.add(new ConflictReport.MissionConflicts(categories.get(mission), missionStations.get(mission),
+                        missionPasses[mission], missionOverlapping[mission], missionMaxOverlap[mission]));
+            }
+            List<ConflictReport.StationConflicts> stationConflicts = new ArrayList<>();
+            for(int station = 0; station < stations.size(); station++)
+            {
+                List<String> names = new ArrayList<>();
+                for(int mission = 0; mission < categories.size(); mission++)
+                {
+                    if(missionStations.get(mission).equals(stations.get(station))) names.add(categories.get(mission));
+                }
+                stationConflicts.add(new ConflictReport.StationConflicts(stations.get(station), names,
+                        stationConflicting[station], stationMaxOverlap[station]));
+            }
+            return new ConflictReport(version, count, missions, stationConflicts, examples);
+        }
+    }
+}
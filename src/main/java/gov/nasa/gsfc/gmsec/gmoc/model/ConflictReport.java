@@ -0,0 +1,215 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Overlapping passes of a schedule, found by ConflictDetector. A mission
+ * overlap is a pass starting before an earlier pass of the same mission
+ * ends; a station conflict is a pass starting before an earlier pass of
+ * another mission on the same ground station ends. Each pass is counted
+ * once, against the earlier pass it overlaps longest.
+ */
+public class ConflictReport
+{
+    private final long version;
+    private final long passes;
+    private final List<MissionConflicts> missions;
+    private final List<StationConflicts> stations;
+    private final List<Conflict> examples;
+
+    public ConflictReport(long version, long passes, List<MissionConflicts> missions,
+                          List<StationConflicts> stations, List<Conflict> examples)
+    {
+        this.version = version;
+        this.passes = passes;
+        this.missions = Collections.unmodifiableList(missions);
+        this.stations = Collections.unmodifiableList(stations);
+        this.examples = Collections.unmodifiableList(examples);
+    }
+
+    /**
+     * @return version of the analyzed schedule snapshot
+     */
+    public long getVersion()
+    {
+        return version;
+    }
+
+    public long getPasses()
+    {
+        return passes;
+    }
+
+    public long getMissionOverlaps()
+    {
+        long count = 0;
+        for(MissionConflicts mission : missions) count += mission.getOverlapping();
+        return count;
+    }
+
+    public long getStationConflicts()
+    {
+        long count = 0;
+        for(StationConflicts station : stations) count += station.getConflicting();
+        return count;
+    }
+
+    public boolean hasConflicts()
+    {
+        return getMissionOverlaps() > 0 || getStationConflicts() > 0;
+    }
+
+    public List<MissionConflicts> getMissions()
+    {
+        return missions;
+    }
+
+    public List<StationConflicts> getStations()
+    {
+        return stations;
+    }
+
+    /**
+     * @return the first conflicts in time order, up to the detector's limit
+     */
+    public List<Conflict> getExamples()
+    {
+        return examples;
+    }
+
+    @Override
+    public String toString()
+    {
+        return getMissionOverlaps() + " of " + passes + " passes overlap a pass of their mission, "
+                + getStationConflicts() + " a pass of another mission on their station";
+    }
+
+    public static class MissionConflicts
+    {
+        private final String category;
+        private final String station;
+        private final long passes;
+        private final long overlapping;
+        private final long maxOverlapSeconds;
+
+        public MissionConflicts(String category, String station, long passes, long overlapping, long maxOverlapSeconds)
+        {
+            this.category = category;
+            this.station = station;
+            this.passes = passes;
+            this.overlapping = overlapping;
+            this.maxOverlapSeconds = maxOverlapSeconds;
+        }
+
+        public String getCategory()
+        {
+            return category;
+        }
+
+        public String getStation()
+        {
+            return station;
+        }
+
+        public long getPasses()
+        {
+            return passes;
+        }
+
+        public long getOverlapping()
+        {
+            return overlapping;
+        }
+
+        public long getMaxOverlapSeconds()
+        {
+            return maxOverlapSeconds;
+        }
+    }
+
+    public static class StationConflicts
+    {
+        private final String station;
+        private final List<String> missions;
+        private final long conflicting;
+        private final long maxOverlapSeconds;
+
+        public StationConflicts(String station, List<String> missions, long conflicting, long maxOverlapSeconds)
+        {
+            this.station = station;
+            this.missions = Collections.unmodifiableList(missions);
+            this.conflicting = conflicting;
+            this.maxOverlapSeconds = maxOverlapSeconds;
+        }
+
+        public String getStation()
+        {
+            return station;
+        }
+
+        public List<String> getMissions()
+        {
+            return missions;
+        }
+
+        public long getConflicting()
+        {
+            return conflicting;
+        }
+
+        public long getMaxOverlapSeconds()
+        {
+            return maxOverlapSeconds;
+        }
+    }
+
+    public static class Conflict
+    {
+        public enum Type
+        {
+            MISSION, STATION
+        }
+
+        private final Type type;
+        private final String station;
+        private final PassInfo pass;
+        private final PassInfo overlaps;
+
+        public Conflict(Type type, String station, PassInfo pass, PassInfo overlaps)
+        {
+            this.type = type;
+            this.station = station;
+            this.pass = pass;
+            this.overlaps = overlaps;
+        }
+
+        public Type getType()
+        {
+            return type;
+        }
+
+        public String getStation()
+        {
+            return station;
+        }
+
+        public PassInfo getPass()
+        {
+            return pass;
+        }
+
+        /**
+         * @return the earlier pass, ending after pass starts
+         */
+        public PassInfo getOverlaps()
+        {
+            return overlaps;
+        }
+
+        public long getOverlapSeconds()
+        {
+            return Math.min(pass.getLos(), overlaps.getLos()) - pass.getAos();
+        }
+    }
+}
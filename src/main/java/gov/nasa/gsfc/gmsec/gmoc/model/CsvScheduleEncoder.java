@@ -0,0 +1,55 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+
+/**
+ * The schedule file layout, one PassRowEncoder row per pass:
+ *
+ * WIRE,2016-335-13:00:00,+00:02:00,AOS WIRE,LOS WIRE
+ */
+final class CsvScheduleEncoder implements ScheduleEncoder
+{
+    private static final List<String> MEDIA_TYPES = Collections.unmodifiableList(Arrays.asList("text/plain", "text/csv"));
+
+    @Override
+    public String getName()
+    {
+        return "csv";
+    }
+
+    @Override
+    public List<String> getMediaTypes()
+    {
+        return MEDIA_TYPES;
+    }
+
+    @Override
+    public String getFileExtension()
+    {
+        return ".csv";
+    }
+
+    @Override
+    public void encode(SchedulePasses passes, long limit, byte[] newline, ByteBuffer buffer, BufferSink sink)
+            throws IOException
+    {
+        PassRecord record = new PassRecord(passes.getMissions());
+        EncoderBlock block = new EncoderBlock(buffer, sink, record.maxRowLength() + newline.length);
+        Spliterator.OfLong refs = passes.spliterator();
+        long remaining = limit < 0 ? Long.MAX_VALUE : limit;
+        while(remaining-- > 0 && refs.tryAdvance((long ref) -> {
+            record.moveTo(ref);
+            block.pos = record.encodeRow(block.bytes, block.pos);
+            block.put(newline);
+        }))
+        {
+            block.room();
+        }
+        block.finish();
+    }
+}
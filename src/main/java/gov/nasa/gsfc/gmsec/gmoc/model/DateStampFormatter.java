@@ -0,0 +1,155 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import gov.nasa.gsfc.gmsec.gmoc.Options;
+
+import java.util.TimeZone;
+
+/**
+ * Formats epoch seconds as pass start time datestamps without going through
+ * Calendar or SimpleDateFormat. Output matches SimpleDateFormat for both
+ * Options.DateFormat patterns:
+ *
+ * DAY_IN_YEAR    yyyy-DDD-HH:mm:ss    2016-335-13:00:00
+ * MONTH_IN_YEAR  yyyy-MM-dd-HH:mm:ss  2016-11-30-13:00:00
+ *
+ * Local time comes from the zone's ZoneTransitions through a cursor, so
+ * rows in time order only search the table at an offset change. The date
+ * part only changes once a day, so it is cached as ASCII bytes and
+ * re-encoded when a row crosses into another local day. The time of day
+ * is written digit by digit. Not thread safe, use one per writer.
+ */
+public class DateStampFormatter
+{
+    private static final long SECONDS_PER_DAY = 86400L;
+
+    private final Options.DateFormat format;
+    private final TimeZone zone;
+    private final ZoneTransitions.Cursor offsets;
+
+    private final byte[] datePrefix = new byte[16];
+    private int datePrefixLength;
+    private long cachedDay = Long.MIN_VALUE;
+
+    public DateStampFormatter(Options.DateFormat format, TimeZone zone)
+    {
+        this.format = format;
+        this.zone = zone;
+        this.offsets = ZoneTransitions.of(zone).cursor();
+    }
+
+    public DateStampFormatter(Options.DateFormat format)
+    {
+        this(format, TimeZone.getDefault());
+    }
+
+    /**
+     * @return formatter with the same format and zone and its own day cache
+     */
+    public DateStampFormatter copy()
+    {
+        return new DateStampFormatter(format, zone);
+    }
+
+    public Options.DateFormat getFormat()
+    {
+        return format;
+    }
+
+    /**
+     * Longest datestamp this formatter writes for four digit years.
+     */
+    public int maxLength()
+    {
+        return format == Options.DateFormat.DAY_IN_YEAR ? 17 : 19;
+    }
+
+    /**
+     * Write the datestamp for epochSecond into dst at pos.
+     * @return position after the last byte written
+     */
+    public int format(long epochSecond, byte[] dst, int pos)
+    {
+        long local = offsets.toLocalSecond(epochSecond);
+        long day = Math.floorDiv(local, SECONDS_PER_DAY);
+        int secondOfDay = (int) (local - day * SECONDS_PER_DAY);
+        if(day != cachedDay)
+        {
+            encodeDate(day);
+        }
+        System.arraycopy(datePrefix, 0, dst, pos, datePrefixLength);
+        pos += datePrefixLength;
+
+        int hour = secondOfDay / 3600;
+        int minute = (secondOfDay / 60) % 60;
+        int second = secondOfDay % 60;
+        pos = twoDigits(hour, dst, pos);
+        dst[pos++] = ':';
+        pos = twoDigits(minute, dst, pos);
+        dst[pos++] = ':';
+        return twoDigits(second, dst, pos);
+    }
+
+    private void encodeDate(long epochDay)
+    {
+        // Civil from days, proleptic Gregorian (H. Hinnant)
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097L);
+        int doe = (int) (z - era * 146097);
+        int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        int mp = (5 * doy + 2) / 153;
+        int dayOfMonth = doy - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+
+        int pos = writeYear(year, datePrefix, 0);
+        datePrefix[pos++] = '-';
+        if(format == Options.DateFormat.DAY_IN_YEAR)
+        {
+            int dayOfYear = (int) (epochDay - daysBeforeYear(year)) + 1;
+            datePrefix[pos++] = (byte) ('0' + dayOfYear / 100);
+            pos = twoDigits(dayOfYear % 100, datePrefix, pos);
+        }
+        else
+        {
+            pos = twoDigits(month, datePrefix, pos);
+            datePrefix[pos++] = '-';
+            pos = twoDigits(dayOfMonth, datePrefix, pos);
+        }
+        datePrefix[pos++] = '-';
+        datePrefixLength = pos;
+        cachedDay = epochDay;
+    }
+
+    /**
+     * Epoch day of January 1st of the given year.
+     */
+    static long daysBeforeYear(long year)
+    {
+        long y = year - 1;
+        return 365 * y + Math.floorDiv(y, 4L) - Math.floorDiv(y, 100L) + Math.floorDiv(y, 400L) - 719162;
+    }
+
+    private static int writeYear(long year, byte[] dst, int pos)
+    {
+        // SimpleDateFormat pads "yyyy" to at least four digits
+        if(year >= 0 && year <= 9999)
+        {
+            pos = twoDigits((int) (year / 100), dst, pos);
+            return twoDigits((int) (year % 100), dst, pos);
+        }
+        String digits = Long.toString(year);
+        for(int i = 0; i < digits.length(); i++)
+        {
+            dst[pos++] = (byte) digits.charAt(i);
+        }
+        return pos;
+    }
+
+    private static int twoDigits(int value, byte[] dst, int pos)
+    {
+        dst[pos++] = (byte) ('0' + value / 10);
+        dst[pos++] = (byte) ('0' + value % 10);
+        return pos;
+    }
+}
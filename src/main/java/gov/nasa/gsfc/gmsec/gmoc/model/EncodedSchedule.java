@@ -0,0 +1,189 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Rows of a multi-mission schedule, encoded in parallel into chunks of
+ * row bytes in time order.
+ *
+ * The SchedulePasses spliterator is split down to chunks of at most
+ * CHUNK_ROWS passes, which are encoded as separate ForkJoin tasks, each
+ * with its own PassRowEncoders. The split keeps time order, so writing
+ * copies the chunks one after the other. Built for one write and dropped,
+ * schedule snapshots only keep the PassIndexes.
+ */
+public class EncodedSchedule
+{
+    static final int CHUNK_ROWS = 8192;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final MissionSchedule[] missions;
+    private final List<Chunk> chunks;
+    private final int size;
+
+    private EncodedSchedule(MissionSchedule[] missions, List<Chunk> chunks)
+    {
+        this.missions = missions;
+        this.chunks = chunks;
+        int rows = 0;
+        for(Chunk chunk : chunks)
+        {
+            rows += chunk.rowEnds.length;
+        }
+        this.size = rows;
+    }
+
+    public static EncodedSchedule encode(List<MissionSchedule> missions, ForkJoinPool pool)
+    {
+        return encode(new SchedulePasses(missions), pool);
+    }
+
+    public static EncodedSchedule encode(SchedulePasses passes, ForkJoinPool pool)
+    {
+        MissionSchedule[] missions = passes.getMissions().toArray(new MissionSchedule[0]);
+        int maxRowLength = 0;
+        for(MissionSchedule mission : missions)
+        {
+            maxRowLength = Math.max(maxRowLength, mission.newEncoder().maxRowLength());
+        }
+        List<Chunk> chunks = pool.invoke(new EncodeTask(missions, maxRowLength, passes.spliterator()));
+        return new EncodedSchedule(missions, chunks);
+    }
+
+    public MissionSchedule[] getMissions()
+    {
+        return missions.clone();
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Write every row in time order, each followed by newline.
+     */
+    public void writeTo(OutputStream out, byte[] newline) throws IOException
+    {
+        byte[] buf = new byte[BUFFER_SIZE];
+        int pos = 0;
+        for(Chunk chunk : chunks)
+        {
+            int from = 0;
+            for(int rowEnd : chunk.rowEnds)
+            {
+                int length = rowEnd - from;
+                if(pos + length + newline.length > buf.length)
+                {
+                    out.write(buf, 0, pos);
+                    pos = 0;
+                    if(length + newline.length > buf.length)
+                        buf = new byte[length + newline.length];
+                }
+                System.arraycopy(chunk.data, from, buf, pos, length);
+                pos += length;
+                System.arraycopy(newline, 0, buf, pos, newline.length);
+                pos += newline.length;
+                from = rowEnd;
+            }
+        }
+        out.write(buf, 0, pos);
+    }
+
+    /**
+     * Write every row in time order, each followed by newline, through
+     * buffer. The buffer, which may be direct, is handed to sink whenever it
+     * cannot take the next row and once more at the end.
+     */
+    public void writeTo(ByteBuffer buffer, byte[] newline, BufferSink sink) throws IOException
+    {
+        buffer.clear();
+        for(Chunk chunk : chunks)
+        {
+            int from = 0;
+            for(int rowEnd : chunk.rowEnds)
+            {
+                int length = rowEnd - from;
+                if(buffer.remaining() < length + newline.length)
+                {
+                    buffer.flip();
+                    sink.write(buffer);
+                    buffer.clear();
+                    if(buffer.remaining() < length + newline.length)
+                        throw new IOException("Row of " + length + " bytes does not fit the write buffer");
+                }
+                buffer.put(chunk.data, from, length);
+                buffer.put(newline);
+                from = rowEnd;
+            }
+        }
+        buffer.flip();
+        if(buffer.hasRemaining()) sink.write(buffer);
+        buffer.clear();
+    }
+
+    private static class Chunk
+    {
+        final byte[] data;
+        final int[] rowEnds;
+
+        Chunk(byte[] data, int[] rowEnds)
+        {
+            this.data = data;
+            this.rowEnds = rowEnds;
+        }
+    }
+
+    private static class EncodeTask extends RecursiveTask<List<Chunk>>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final MissionSchedule[] missions;
+        private final int maxRowLength;
+        private final Spliterator.OfLong passes;
+
+        EncodeTask(MissionSchedule[] missions, int maxRowLength, Spliterator.OfLong passes)
+        {
+            this.missions = missions;
+            this.maxRowLength = maxRowLength;
+            this.passes = passes;
+        }
+
+        @Override
+        protected List<Chunk> compute()
+        {
+            Spliterator.OfLong prefix;
+            if(passes.estimateSize() > CHUNK_ROWS && (prefix = passes.trySplit()) != null)
+            {
+                EncodeTask first = new EncodeTask(missions, maxRowLength, prefix);
+                first.fork();
+                List<Chunk> rest = new EncodeTask(missions, maxRowLength, passes).compute();
+                List<Chunk> chunks = first.join();
+                chunks.addAll(rest);
+                return chunks;
+            }
+            List<Chunk> chunks = new ArrayList<>();
+            int rows = (int) passes.estimateSize();
+            if(rows == 0) return chunks;
+            PassRowEncoder[] encoders = new PassRowEncoder[missions.length];
+            byte[] data = new byte[rows * maxRowLength];
+            int[] rowEnds = new int[rows];
+            int[] row = new int[1];
+            passes.forEachRemaining((long ref) -> {
+                int m = SchedulePasses.mission(ref);
+                if(encoders[m] == null) encoders[m] = missions[m].newEncoder();
+                int start = row[0] == 0 ? 0 : rowEnds[row[0] - 1];
+                rowEnds[row[0]++] = encoders[m].encode(missions[m].getIndex().startOf(SchedulePasses.pass(ref)), data, start);
+            });
+            chunks.add(new Chunk(data, rowEnds));
+            return chunks;
+        }
+    }
+}
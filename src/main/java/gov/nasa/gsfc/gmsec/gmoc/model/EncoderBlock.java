@@ -0,0 +1,121 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Output of a ScheduleEncoder collected in a byte array, which is copied
+ * into the ByteBuffer, and the buffer handed to the BufferSink when full,
+ * whenever less than a record's room is left in the array.
+ */
+final class EncoderBlock
+{
+    final byte[] bytes;
+    int pos;
+    private final int flushAt;
+    private final ByteBuffer buffer;
+    private final BufferSink sink;
+    private final byte[] digits = new byte[20];
+
+    /**
+     * @param maxRecordLength upper bound on the bytes written between calls to room()
+     */
+    EncoderBlock(ByteBuffer buffer, BufferSink sink, int maxRecordLength)
+    {
+        this.bytes = new byte[Math.max(ScheduleEncoder.BUFFER_SIZE, 2 * maxRecordLength)];
+        this.flushAt = bytes.length - maxRecordLength;
+        this.buffer = buffer;
+        this.sink = sink;
+        buffer.clear();
+    }
+
+    /**
+     * Make room for the next record.
+     */
+    void room() throws IOException
+    {
+        if(pos > flushAt) drain();
+    }
+
+    void put(byte[] fragment)
+    {
+        System.arraycopy(fragment, 0, bytes, pos, fragment.length);
+        pos += fragment.length;
+    }
+
+    void put(byte b)
+    {
+        bytes[pos++] = b;
+    }
+
+    /**
+     * Write value in decimal, at most 20 bytes.
+     */
+    void putLong(long value)
+    {
+        if(value == Long.MIN_VALUE)
+        {
+            for(char c : Long.toString(value).toCharArray()) bytes[pos++] = (byte) c;
+            return;
+        }
+        if(value < 0)
+        {
+            bytes[pos++] = '-';
+            value = -value;
+        }
+        int n = 0;
+        do
+        {
+            digits[n++] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        while(value != 0);
+        while(n > 0) bytes[pos++] = digits[--n];
+    }
+
+    /**
+     * Hand everything written to the sink.
+     */
+    void finish() throws IOException
+    {
+        drain();
+        buffer.flip();
+        if(buffer.hasRemaining()) sink.write(buffer);
+        buffer.clear();
+    }
+
+    private void drain() throws IOException
+    {
+        int from = 0;
+        while(from < pos)
+        {
+            if(!buffer.hasRemaining())
+            {
+                buffer.flip();
+                sink.write(buffer);
+                buffer.clear();
+            }
+            int length = Math.min(buffer.remaining(), pos - from);
+            buffer.put(bytes, from, length);
+            from += length;
+        }
+        pos = 0;
+    }
+
+    /**
+     * @return s as a quoted JSON string in UTF-8
+     */
+    static byte[] jsonString(String s)
+    {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for(int i = 0; i < s.length(); i++)
+        {
+            char c = s.charAt(i);
+            if(c == '"' || c == '\\') sb.append('\\').append(c);
+            else if(c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+            else sb.append(c);
+        }
+        return sb.append('"').toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,58 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+/**
+ * One pass as returned by the /history endpoint, times in epoch seconds,
+ * with the history revision that scheduled it.
+ */
+public class HistoryPass
+{
+    private final String category;
+    private final long aos;
+    private final long los;
+    private final String startLabel;
+    private final String endLabel;
+    private final long revision;
+
+    public HistoryPass(String category, long aos, long los, String startLabel, String endLabel, long revision)
+    {
+        this.category = category;
+        this.aos = aos;
+        this.los = los;
+        this.startLabel = startLabel;
+        this.endLabel = endLabel;
+        this.revision = revision;
+    }
+
+    public String getCategory()
+    {
+        return category;
+    }
+
+    public long getAos()
+    {
+        return aos;
+    }
+
+    public long getLos()
+    {
+        return los;
+    }
+
+    /**
+     * @return start label field as in the schedule file, "AOS WIRE"
+     */
+    public String getStartLabel()
+    {
+        return startLabel;
+    }
+
+    public String getEndLabel()
+    {
+        return endLabel;
+    }
+
+    public long getRevision()
+    {
+        return revision;
+    }
+}
@@ -0,0 +1,93 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import java.time.LocalDate;
+
+/**
+ * One published schedule as kept in the schedule history. Revisions are
+ * numbered by the history itself, since schedule versions start over
+ * with every run of the application.
+ *
+ * A revision covers the time from the start of its day to the end of its
+ * last pass: within that span it replaces whatever earlier revisions had
+ * scheduled, including passes it no longer has.
+ */
+public class HistoryRevision
+{
+    private final long revision;
+    private final long version;
+    private final long publishedMillis;
+    private final LocalDate date;
+    private final long coverFrom;
+    private final long coverTo;
+    private final int passes;
+
+    public HistoryRevision(long revision, long version, long publishedMillis, LocalDate date, long coverFrom,
+                           long coverTo, int passes)
+    {
+        this.revision = revision;
+        this.version = version;
+        this.publishedMillis = publishedMillis;
+        this.date = date;
+        this.coverFrom = coverFrom;
+        this.coverTo = coverTo;
+        this.passes = passes;
+    }
+
+    /**
+     * @return increasing number of the revision in the history
+     */
+    public long getRevision()
+    {
+        return revision;
+    }
+
+    /**
+     * @return schedule snapshot version, within the run that published it
+     */
+    public long getVersion()
+    {
+        return version;
+    }
+
+    public long getPublishedMillis()
+    {
+        return publishedMillis;
+    }
+
+    /**
+     * @return local day of the schedule, yyyy-MM-dd
+     */
+    public String getDate()
+    {
+        return date.toString();
+    }
+
+    public LocalDate toLocalDate()
+    {
+        return date;
+    }
+
+    /**
+     * @return first epoch second covered
+     */
+    public long getCoverFrom()
+    {
+        return coverFrom;
+    }
+
+    /**
+     * @return epoch second after the last covered, exclusive
+     */
+    public long getCoverTo()
+    {
+        return coverTo;
+    }
+
+    /**
+     * @return passes as published, including any since compacted away
+     */
+    public int getPasses()
+    {
+        return passes;
+    }
+}
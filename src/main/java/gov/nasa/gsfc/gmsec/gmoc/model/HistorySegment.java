@@ -0,0 +1,465 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable file of the schedule history: the passes of a run of history
+ * revisions, sorted by AOS, read through a read-only MappedByteBuffer.
+ * Big-endian, like BinaryScheduleFormat.
+ *
+ * Header
+ *     magic           8 bytes  "GMOCHSG1"
+ *     format version  int      1
+ *     record size     int      24
+ *     header size     int      offset of the first record, multiple of 8
+ *     string count    int
+ *     revision count  int
+ *     index interval  int      records per sparse index entry
+ *     index count     int
+ *     max duration    int      seconds, bounds searches by end time
+ *     record count    long
+ *     strings         string count x (unsigned short length, UTF-8 bytes)
+ *     revisions       revision count x (revision, version, published millis,
+ *                     epoch day, cover from, cover to: long; passes, reserved: int)
+ *     sparse index    index count x long, AOS of every index interval'th record
+ *     padding         zeros up to header size
+ *
+ * Record, sorted by AOS, then revision
+ *     aos             long     epoch seconds
+ *     duration        int      seconds
+ *     revision        int
+ *     category        short    string id
+ *     start label     short    string id, the whole CSV field, "AOS WIRE"
+ *     end label       short    string id
+ *     reserved        short
+ *
+ * The sparse index is read onto the heap when the segment is opened, so a
+ * search by time is a binary search there and then a scan of one block
+ * of the mapped records; queries touch only the pages they return.
+ * Thread safe; reads use absolute positions only.
+ */
+public class HistorySegment implements Closeable
+{
+    public static final String FILE_EXTENSION = ".seg";
+    static final byte[] MAGIC = "GMOCHSG1".getBytes(StandardCharsets.US_ASCII);
+    static final int FORMAT_VERSION = 1;
+    static final int RECORD_SIZE = 24;
+    static final int FIXED_HEADER_SIZE = 48;
+    static final int REVISION_SIZE = 56;
+    static final int INDEX_INTERVAL = 256;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int headerSize;
+    private final int recordCount;
+    private final int maxDuration;
+    private final List<String> strings;
+    private final List<HistoryRevision> revisions;
+    private final long[] index;
+
+    public HistorySegment(Path file) throws IOException
+    {
+        this.file = file;
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try
+        {
+            long length = channel.size();
+            if(length > Integer.MAX_VALUE)
+                throw new IOException(file + " is too large to map: " + length);
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            if(length < FIXED_HEADER_SIZE)
+                throw new IOException(file + " is truncated");
+            byte[] magic = new byte[MAGIC.length];
+            buffer.get(magic);
+            if(!Arrays.equals(magic, MAGIC))
+                throw new IOException(file + " is not a schedule history segment");
+            int version = buffer.getInt();
+            int recordSize = buffer.getInt();
+            if(version != FORMAT_VERSION || recordSize != RECORD_SIZE)
+                throw new IOException(file + " has unsupported format version " + version);
+            headerSize = buffer.getInt();
+            int stringCount = buffer.getInt();
+            int revisionCount = buffer.getInt();
+            int indexInterval = buffer.getInt();
+            int indexCount = buffer.getInt();
+            maxDuration = buffer.getInt();
+            long records = buffer.getLong();
+            if(indexInterval != INDEX_INTERVAL || headerSize + records * recordSize > length)
+                throw new IOException(file + " is truncated");
+            recordCount = (int) records;
+
+            List<String> table = new ArrayList<>(stringCount);
+            for(int s = 0; s < stringCount; s++)
+            {
+                byte[] string = new byte[buffer.getShort() & 0xFFFF];
+                buffer.get(string);
+                table.add(new String(string, StandardCharsets.UTF_8));
+            }
+            strings = Collections.unmodifiableList(table);
+            List<HistoryRevision> revisionTable = new ArrayList<>(revisionCount);
+            for(int r = 0; r < revisionCount; r++)
+            {
+                HistoryRevision revision = new HistoryRevision(buffer.getLong(), buffer.getLong(), buffer.getLong(),
+                        LocalDate.ofEpochDay(buffer.getLong()), buffer.getLong(), buffer.getLong(),
+                        buffer.getInt());
+                buffer.getInt();
+                revisionTable.add(revision);
+            }
+            revisions = Collections.unmodifiableList(revisionTable);
+            index = new long[indexCount];
+            for(int i = 0; i < indexCount; i++) index[i] = buffer.getLong();
+        } catch (IOException | RuntimeException e)
+        {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public Path getFile()
+    {
+        return file;
+    }
+
+    public int size()
+    {
+        return recordCount;
+    }
+
+    /**
+     * @return revisions of the segment, in revision order
+     */
+    public List<HistoryRevision> getRevisions()
+    {
+        return revisions;
+    }
+
+    /**
+     * @return highest revision of the segment, 0 for none
+     */
+    public long lastRevision()
+    {
+        return revisions.isEmpty() ? 0 : revisions.get(revisions.size() - 1).getRevision();
+    }
+
+    public long aosOf(int index)
+    {
+        return buffer.getLong(offset(index));
+    }
+
+    public int durationOf(int index)
+    {
+        return buffer.getInt(offset(index) + 8);
+    }
+
+    public long losOf(int index)
+    {
+        return aosOf(index) + durationOf(index);
+    }
+
+    public long revisionOf(int index)
+    {
+        return buffer.getInt(offset(index) + 12);
+    }
+
+    public short categoryIdOf(int index)
+    {
+        return buffer.getShort(offset(index) + 16);
+    }
+
+    public String categoryOf(int index)
+    {
+        return strings.get(categoryIdOf(index));
+    }
+
+    public String startLabelOf(int index)
+    {
+        return strings.get(buffer.getShort(offset(index) + 18));
+    }
+
+    public String endLabelOf(int index)
+    {
+        return strings.get(buffer.getShort(offset(index) + 20));
+    }
+
+    /**
+     * @return string id of value, -1 when the segment does not have it
+     */
+    public int stringId(String value)
+    {
+        return strings.indexOf(value);
+    }
+
+    /**
+     * Passes ending after t started after t - maxDuration: find that
+     * block in the sparse index and scan it.
+     *
+     * @return first record ending after t, size() when there is none
+     */
+    public int firstEndingAfter(long t)
+    {
+        long start = t - maxDuration + 1;
+        // The block before the first one starting at or after start may end with passes from start on
+        int low = 0;
+        int high = index.length;
+        while(low < high)
+        {
+            int mid = (low + high) >>> 1;
+            if(index[mid] < start) low = mid + 1;
+            else high = mid;
+        }
+        int i = Math.max(0, low - 1) * INDEX_INTERVAL;
+        while(i < recordCount && losOf(i) <= t) i++;
+        return i;
+    }
+
+    /**
+     * Add the passes of the segment overlapping [from, to) that were in
+     * force, by timeline, to passes, at most limit of them.
+     *
+     * @param category only this mission's passes, or null for all
+     */
+    public void query(long from, long to, String category, HistoryTimeline timeline, int limit,
+                      List<HistoryPass> passes)
+    {
+        int id = category == null ? -1 : stringId(category);
+        if(category != null && id < 0)
+            return;
+        int found = 0;
+        for(int i = firstEndingAfter(from); i < recordCount && found < limit; i++)
+        {
+            long aos = aosOf(i);
+            if(aos >= to)
+                break;
+            if(id >= 0 && categoryIdOf(i) != id || losOf(i) <= from || timeline.revisionAt(aos) != revisionOf(i))
+                continue;
+            passes.add(new HistoryPass(categoryOf(i), aos, losOf(i), startLabelOf(i), endLabelOf(i), revisionOf(i)));
+            found++;
+        }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+
+    private int offset(int index)
+    {
+        if(index < 0 || index >= recordCount)
+            throw new IndexOutOfBoundsException("Record " + index + " of " + recordCount);
+        return headerSize + index * RECORD_SIZE;
+    }
+
+    /**
+     * Accumulates revisions and their passes, added in revision order, and
+     * writes them as a segment sorted by AOS; passes starting together keep
+     * the order they were added in.
+     */
+    public static class Builder
+    {
+        private long[] aos = new long[1024];
+        private int[] durations = new int[1024];
+        private int[] revisionIds = new int[1024];
+        private short[] categories = new short[1024];
+        private short[] startLabels = new short[1024];
+        private short[] endLabels = new short[1024];
+        private int size;
+        private int[] order;
+        private final List<HistoryRevision> revisions = new ArrayList<>();
+        private final List<String> strings = new ArrayList<>();
+        private final Map<String, Short> ids = new HashMap<>();
+
+        public Builder addRevision(HistoryRevision revision)
+        {
+            revisions.add(revision);
+            return this;
+        }
+
+        public Builder add(long start, int duration, long revision, String category, String startLabel,
+                           String endLabel)
+        {
+            if(revision > Integer.MAX_VALUE)
+                throw new IllegalStateException("History revision " + revision + " out of range");
+            if(size == aos.length) grow(size * 2);
+            aos[size] = start;
+            durations[size] = duration;
+            revisionIds[size] = (int) revision;
+            categories[size] = intern(category);
+            startLabels[size] = intern(startLabel);
+            endLabels[size] = intern(endLabel);
+            size++;
+            order = null;
+            return this;
+        }
+
+        /**
+         * Add every pass of a published schedule as passes of revision.
+         */
+        public Builder addAll(PassTable table, long revision)
+        {
+            grow(size + table.size());
+            for(int i = 0; i < table.size(); i++)
+            {
+                add(table.startOf(i), table.durationOf(i), revision, table.categoryOf(i), table.startLabelOf(i),
+                        table.endLabelOf(i));
+            }
+            return this;
+        }
+
+        public int size()
+        {
+            return size;
+        }
+
+        public List<HistoryRevision> getRevisions()
+        {
+            return Collections.unmodifiableList(revisions);
+        }
+
+        private short intern(String value)
+        {
+            Short id = ids.get(value);
+            if(id == null)
+            {
+                if(strings.size() >= Short.MAX_VALUE)
+                    throw new IllegalStateException("String table is full");
+                id = (short) strings.size();
+                strings.add(value);
+                ids.put(value, id);
+            }
+            return id;
+        }
+
+        private void grow(int capacity)
+        {
+            if(capacity <= aos.length) return;
+            aos = Arrays.copyOf(aos, capacity);
+            durations = Arrays.copyOf(durations, capacity);
+            revisionIds = Arrays.copyOf(revisionIds, capacity);
+            categories = Arrays.copyOf(categories, capacity);
+            startLabels = Arrays.copyOf(startLabels, capacity);
+            endLabels = Arrays.copyOf(endLabels, capacity);
+        }
+
+        // Stable sort of row numbers by AOS, done once however often the segment is written
+        private int[] order()
+        {
+            if(order == null)
+            {
+                Integer[] rows = new Integer[size];
+                for(int i = 0; i < size; i++) rows[i] = i;
+                Arrays.sort(rows, (a, b) -> Long.compare(aos[a], aos[b]));
+                order = new int[size];
+                for(int i = 0; i < size; i++) order[i] = rows[i];
+            }
+            return order;
+        }
+
+        /**
+         * Write the segment through buffer; the same bytes every call.
+         */
+        public void writeTo(ByteBuffer buffer, BufferSink sink) throws IOException
+        {
+            int[] order = order();
+            int indexCount = (size + INDEX_INTERVAL - 1) / INDEX_INTERVAL;
+            byte[][] encoded = new byte[strings.size()][];
+            int headerSize = FIXED_HEADER_SIZE + revisions.size() * REVISION_SIZE + indexCount * 8;
+            for(int s = 0; s < encoded.length; s++)
+            {
+                encoded[s] = strings.get(s).getBytes(StandardCharsets.UTF_8);
+                if(encoded[s].length > 0xFFFF)
+                    throw new IOException("String table entry too long: " + strings.get(s));
+                headerSize += 2 + encoded[s].length;
+            }
+            headerSize = (headerSize + 7) & ~7;
+            int maxDuration = 0;
+            for(int i = 0; i < size; i++) maxDuration = Math.max(maxDuration, durations[i]);
+
+            buffer.clear();
+            ensureRoom(buffer, sink, FIXED_HEADER_SIZE);
+            buffer.put(MAGIC);
+            buffer.putInt(FORMAT_VERSION);
+            buffer.putInt(RECORD_SIZE);
+            buffer.putInt(headerSize);
+            buffer.putInt(encoded.length);
+            buffer.putInt(revisions.size());
+            buffer.putInt(INDEX_INTERVAL);
+            buffer.putInt(indexCount);
+            buffer.putInt(maxDuration);
+            buffer.putLong(size);
+            for(byte[] string : encoded)
+            {
+                ensureRoom(buffer, sink, 2 + string.length);
+                buffer.putShort((short) string.length);
+                buffer.put(string);
+            }
+            for(HistoryRevision revision : revisions)
+            {
+                ensureRoom(buffer, sink, REVISION_SIZE);
+                buffer.putLong(revision.getRevision());
+                buffer.putLong(revision.getVersion());
+                buffer.putLong(revision.getPublishedMillis());
+                buffer.putLong(revision.toLocalDate().toEpochDay());
+                buffer.putLong(revision.getCoverFrom());
+                buffer.putLong(revision.getCoverTo());
+                buffer.putInt(revision.getPasses());
+                buffer.putInt(0);
+            }
+            for(int i = 0; i < indexCount; i++)
+            {
+                ensureRoom(buffer, sink, 8);
+                buffer.putLong(aos[order[i * INDEX_INTERVAL]]);
+            }
+            int written = FIXED_HEADER_SIZE + revisions.size() * REVISION_SIZE + indexCount * 8;
+            for(byte[] string : encoded) written += 2 + string.length;
+            for(; written < headerSize; written++)
+            {
+                ensureRoom(buffer, sink, 1);
+                buffer.put((byte) 0);
+            }
+
+            for(int i = 0; i < size; i++)
+            {
+                ensureRoom(buffer, sink, RECORD_SIZE);
+                int r = order[i];
+                buffer.putLong(aos[r]);
+                buffer.putInt(durations[r]);
+                buffer.putInt(revisionIds[r]);
+                buffer.putShort(categories[r]);
+                buffer.putShort(startLabels[r]);
+                buffer.putShort(endLabels[r]);
+                buffer.putShort((short) 0);
+            }
+            buffer.flip();
+            if(buffer.hasRemaining()) sink.write(buffer);
+            buffer.clear();
+        }
+
+        // Hand the buffer to the sink when the next bytes do not fit
+        private static void ensureRoom(ByteBuffer buffer, BufferSink sink, int bytes) throws IOException
+        {
+            if(buffer.remaining() >= bytes)
+                return;
+            buffer.flip();
+            sink.write(buffer);
+            buffer.clear();
+            if(buffer.remaining() < bytes)
+                throw new IOException("Write buffer is smaller than " + bytes + " bytes");
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Which history revision is in force at each second: the latest one
+ * covering it. A pass of the history is part of the schedule exactly when
+ * it belongs to the revision in force at its AOS; the passes of earlier
+ * revisions there were superseded.
+ *
+ * Held as sorted interval starts, so a lookup is one binary search.
+ */
+public class HistoryTimeline
+{
+    public static final long NONE = -1;
+
+    private final long[] starts;
+    private final long[] revisions;
+
+    /**
+     * @param revisions in revision order, later ones overlaying earlier ones
+     */
+    public HistoryTimeline(List<HistoryRevision> revisions)
+    {
+        TreeMap<Long, Long> timeline = new TreeMap<>();
+        for(HistoryRevision revision : revisions)
+        {
+            if(revision.getCoverTo() <= revision.getCoverFrom())
+                continue;
+            long after = at(timeline, revision.getCoverTo());
+            timeline.subMap(revision.getCoverFrom(), true, revision.getCoverTo(), true).clear();
+            timeline.put(revision.getCoverFrom(), revision.getRevision());
+            timeline.put(revision.getCoverTo(), after);
+        }
+        starts = new long[timeline.size()];
+        this.revisions = new long[timeline.size()];
+        int i = 0;
+        for(Map.Entry<Long, Long> interval : timeline.entrySet())
+        {
+            starts[i] = interval.getKey();
+            this.revisions[i++] = interval.getValue();
+        }
+    }
+
+    private static long at(TreeMap<Long, Long> timeline, long t)
+    {
+        Map.Entry<Long, Long> interval = timeline.floorEntry(t);
+        return interval == null ? NONE : interval.getValue();
+    }
+
+    /**
+     * @return revision in force at epoch second t, NONE before the first
+     */
+    public long revisionAt(long t)
+    {
+        int i = Arrays.binarySearch(starts, t);
+        if(i < 0) i = -i - 2;
+        return i < 0 ? NONE : revisions[i];
+    }
+}
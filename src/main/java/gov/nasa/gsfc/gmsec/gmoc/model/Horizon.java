@@ -0,0 +1,184 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import gov.nasa.gsfc.gmsec.gmoc.Options;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+
+/**
+ * The span a generated schedule covers: passes from a start instant until
+ * an end instant, or passCount passes when there is no end, optionally only
+ * inside daily windows of local time such as 08:00-18:00.
+ *
+ * Without windows a mission's passes are a UniformPassIndex from the start.
+ * With windows every window of every day is a run of passes from the
+ * window's opening, in a WindowedPassIndex; window times follow the zone's
+ * daylight saving changes.
+ */
+public class Horizon
+{
+    private static final int SECONDS_PER_DAY = 86400;
+
+    private final long start;
+    private final long end;
+    private final int passCount;
+    private final int[] windows;
+    private final ZoneId zone;
+
+    /**
+     * @param end exclusive end in epoch seconds, Long.MAX_VALUE for passCount passes
+     * @param windows pairs of from and to second of day, ascending, or empty for all day
+     */
+    public Horizon(long start, long end, int passCount, int[] windows, ZoneId zone)
+    {
+        if(end <= start)
+            throw new IllegalArgumentException("Schedule horizon ends before it starts");
+        this.start = start;
+        this.end = end;
+        this.passCount = passCount;
+        this.windows = windows.clone();
+        this.zone = zone;
+    }
+
+    /**
+     * Horizon configured in options, starting at defaultStart unless
+     * schedule.horizon.start is set.
+     */
+    public static Horizon fromOptions(Options options, long defaultStart, ZoneId zone)
+    {
+        long start = options.getHorizonStart().isEmpty() ? defaultStart : parseInstant(options.getHorizonStart(), zone);
+        if(!options.getHorizonEnd().isEmpty())
+        {
+            return new Horizon(start, parseInstant(options.getHorizonEnd(), zone), options.getPassCount(),
+                    parseWindows(options.getWindows()), zone);
+        }
+        return forDay(options, start, zone);
+    }
+
+    /**
+     * Horizon of options' days, windows and pass count from dayStart,
+     * ignoring a configured start and end. Used for one file per day.
+     */
+    public static Horizon forDay(Options options, long dayStart, ZoneId zone)
+    {
+        long end = Long.MAX_VALUE;
+        if(options.getHorizonDays() > 0)
+        {
+            end = Instant.ofEpochSecond(dayStart).atZone(zone).plusDays(options.getHorizonDays()).toEpochSecond();
+        }
+        return new Horizon(dayStart, end, options.getPassCount(), parseWindows(options.getWindows()), zone);
+    }
+
+    public long getStart()
+    {
+        return start;
+    }
+
+    /**
+     * @return exclusive end in epoch seconds, Long.MAX_VALUE if bounded by pass count
+     */
+    public long getEnd()
+    {
+        return end;
+    }
+
+    /**
+     * Passes of a mission repeating every intervalSeconds.
+     */
+    public PassIndex index(long intervalSeconds, int durationSeconds)
+    {
+        if(windows.length == 0)
+        {
+            long count = end == Long.MAX_VALUE ? passCount : (end - start + intervalSeconds - 1) / intervalSeconds;
+            return new UniformPassIndex(start, intervalSeconds, durationSeconds, Math.toIntExact(count));
+        }
+        long[] runStarts = new long[16];
+        int[] runCounts = new int[16];
+        int runs = 0;
+        long remaining = end == Long.MAX_VALUE ? passCount : Integer.MAX_VALUE;
+        ZoneTransitions transitions = ZoneTransitions.of(zone);
+        for(long day = Math.floorDiv(transitions.toLocalSecond(start), SECONDS_PER_DAY);
+            remaining > 0 && transitions.toEpochSecond(day * SECONDS_PER_DAY) < end; day++)
+        {
+            for(int w = 0; w < windows.length && remaining > 0; w += 2)
+            {
+                long open = transitions.toEpochSecond(day * SECONDS_PER_DAY + windows[w]);
+                long close = Math.min(end, transitions.toEpochSecond(day * SECONDS_PER_DAY + windows[w + 1]));
+                long first = open < start ? open - Math.floorDiv(open - start, intervalSeconds) * intervalSeconds : open;
+                if(first >= close) continue;
+                long count = Math.min(remaining, (close - first + intervalSeconds - 1) / intervalSeconds);
+                if(runs == runStarts.length)
+                {
+                    runStarts = Arrays.copyOf(runStarts, 2 * runs);
+                    runCounts = Arrays.copyOf(runCounts, 2 * runs);
+                }
+                runStarts[runs] = first;
+                runCounts[runs++] = (int) count;
+                remaining -= count;
+            }
+        }
+        return new WindowedPassIndex(Arrays.copyOf(runStarts, runs), Arrays.copyOf(runCounts, runs),
+                intervalSeconds, durationSeconds);
+    }
+
+    /**
+     * Epoch seconds, an ISO-8601 instant such as 2016-11-30T13:00:00Z, or an
+     * ISO-8601 local date-time such as 2016-11-30T08:00 in zone.
+     */
+    public static long parseInstant(String value, ZoneId zone)
+    {
+        String text = value.trim();
+        try
+        {
+            if(!text.isEmpty() && text.chars().allMatch(Character::isDigit))
+                return Long.parseLong(text);
+            if(text.endsWith("Z") || text.lastIndexOf('+') > 0 || text.lastIndexOf('-') > 9)
+                return ZonedDateTime.parse(text).toEpochSecond();
+            return LocalDateTime.parse(text).atZone(zone).toEpochSecond();
+        } catch (NumberFormatException | DateTimeParseException e)
+        {
+            throw new IllegalArgumentException("Expected epoch seconds or ISO-8601 date-time: " + value);
+        }
+    }
+
+    /**
+     * "08:00-12:00,13:00-18:00" to second of day pairs. Windows are local
+     * times, ascending and not overlapping; 24:00 ends a window at midnight.
+     * @return empty for null or empty text
+     */
+    public static int[] parseWindows(String text)
+    {
+        if(text == null || text.trim().isEmpty()) return new int[0];
+        String[] ranges = text.split(",");
+        int[] windows = new int[2 * ranges.length];
+        for(int w = 0; w < ranges.length; w++)
+        {
+            String[] times = ranges[w].trim().split("-");
+            if(times.length != 2)
+                throw new IllegalArgumentException("Expected HH:mm-HH:mm window: " + ranges[w]);
+            windows[2 * w] = secondOfDay(times[0]);
+            windows[2 * w + 1] = secondOfDay(times[1]);
+            if(windows[2 * w + 1] <= windows[2 * w] || (w > 0 && windows[2 * w] < windows[2 * w - 1]))
+                throw new IllegalArgumentException("Windows must be ascending and not overlap: " + text);
+        }
+        return windows;
+    }
+
+    private static int secondOfDay(String time)
+    {
+        String text = time.trim();
+        if(text.equals("24:00") || text.equals("24:00:00")) return SECONDS_PER_DAY;
+        try
+        {
+            return LocalTime.parse(text).toSecondOfDay();
+        } catch (DateTimeParseException e)
+        {
+            throw new IllegalArgumentException("Expected HH:mm time: " + time);
+        }
+    }
+}
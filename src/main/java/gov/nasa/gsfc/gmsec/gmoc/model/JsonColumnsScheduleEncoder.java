@@ -0,0 +1,112 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+
+/**
+ * One JSON object of columns, an array per field with an element per pass:
+ *
+ * {"category":["WIRE","SDO"],"start":["2016-335-13:00:00","2016-335-13:00:00"],"aos":[1480510800,1480510800],
+ *  "los":[1480510920,1480510980],"startLabel":["AOS WIRE","AOS SDO"],"endLabel":["LOS WIRE","LOS SDO"]}
+ *
+ * Passes are streamed from the PassIndexes once per column instead of
+ * being held, so memory stays constant whatever the number of passes.
+ */
+final class JsonColumnsScheduleEncoder implements ScheduleEncoder
+{
+    private static final List<String> MEDIA_TYPES = Collections.singletonList("application/json");
+    private static final String[] COLUMNS = {"category", "start", "aos", "los", "startLabel", "endLabel"};
+    private static final int CATEGORY = 0;
+    private static final int START = 1;
+    private static final int AOS = 2;
+    private static final int LOS = 3;
+    private static final int START_LABEL = 4;
+
+    @Override
+    public String getName()
+    {
+        return "json";
+    }
+
+    @Override
+    public List<String> getMediaTypes()
+    {
+        return MEDIA_TYPES;
+    }
+
+    @Override
+    public String getFileExtension()
+    {
+        return ".json";
+    }
+
+    @Override
+    public void encode(SchedulePasses passes, long limit, byte[] newline, ByteBuffer buffer, BufferSink sink)
+            throws IOException
+    {
+        PassRecord record = new PassRecord(passes.getMissions());
+        // Quoted category, start and end label of each mission
+        byte[][][] fields = new byte[3][record.missions()][];
+        int maxLength = record.maxDateStampLength() + 2;
+        for(int m = 0; m < record.missions(); m++)
+        {
+            fields[0][m] = EncoderBlock.jsonString(record.category(m));
+            fields[1][m] = EncoderBlock.jsonString(record.startField(m));
+            fields[2][m] = EncoderBlock.jsonString(record.endField(m));
+            for(byte[][] field : fields) maxLength = Math.max(maxLength, field[m].length);
+        }
+        // A value and its comma, or the end of a column and the next's name
+        maxLength += 32 + newline.length;
+
+        EncoderBlock block = new EncoderBlock(buffer, sink, maxLength);
+        for(int c = 0; c < COLUMNS.length; c++)
+        {
+            block.put((byte) (c == 0 ? '{' : ','));
+            block.put(EncoderBlock.jsonString(COLUMNS[c]));
+            block.put((byte) ':');
+            block.put((byte) '[');
+            int column = c;
+            boolean[] first = {true};
+            Spliterator.OfLong refs = passes.spliterator();
+            long remaining = limit < 0 ? Long.MAX_VALUE : limit;
+            while(remaining-- > 0 && refs.tryAdvance((long ref) -> {
+                record.moveTo(ref);
+                if(!first[0]) block.put((byte) ',');
+                first[0] = false;
+                switch(column)
+                {
+                    case CATEGORY:
+                        block.put(fields[0][record.mission()]);
+                        break;
+                    case START:
+                        block.put((byte) '"');
+                        block.pos = record.encodeDateStamp(block.bytes, block.pos);
+                        block.put((byte) '"');
+                        break;
+                    case AOS:
+                        block.putLong(record.aos());
+                        break;
+                    case LOS:
+                        block.putLong(record.los());
+                        break;
+                    case START_LABEL:
+                        block.put(fields[1][record.mission()]);
+                        break;
+                    default:
+                        block.put(fields[2][record.mission()]);
+                }
+            }))
+            {
+                block.room();
+            }
+            block.put((byte) ']');
+            block.room();
+        }
+        block.put((byte) '}');
+        block.put(newline);
+        block.finish();
+    }
+}
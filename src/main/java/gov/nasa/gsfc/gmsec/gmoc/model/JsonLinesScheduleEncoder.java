@@ -0,0 +1,101 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+
+/**
+ * JSON Lines, one object per pass:
+ *
+ * {"category":"WIRE","start":"2016-335-13:00:00","aos":1480510800,"los":1480510920,"startLabel":"AOS WIRE","endLabel":"LOS WIRE"}
+ *
+ * The parts before the datestamp and after the LOS are encoded once per
+ * mission.
+ */
+final class JsonLinesScheduleEncoder implements ScheduleEncoder
+{
+    private static final List<String> MEDIA_TYPES = Collections.unmodifiableList(
+            Arrays.asList("application/x-ndjson", "application/jsonl"));
+    private static final byte[] AOS = "\",\"aos\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] LOS = ",\"los\":".getBytes(StandardCharsets.UTF_8);
+
+    @Override
+    public String getName()
+    {
+        return "jsonl";
+    }
+
+    @Override
+    public List<String> getMediaTypes()
+    {
+        return MEDIA_TYPES;
+    }
+
+    @Override
+    public String getFileExtension()
+    {
+        return ".jsonl";
+    }
+
+    @Override
+    public void encode(SchedulePasses passes, long limit, byte[] newline, ByteBuffer buffer, BufferSink sink)
+            throws IOException
+    {
+        PassRecord record = new PassRecord(passes.getMissions());
+        byte[][] heads = new byte[record.missions()][];
+        byte[][] tails = new byte[record.missions()][];
+        int maxLength = 0;
+        for(int m = 0; m < heads.length; m++)
+        {
+            heads[m] = concat("{\"category\":", EncoderBlock.jsonString(record.category(m)), ",\"start\":\"");
+            tails[m] = concat(",\"startLabel\":", EncoderBlock.jsonString(record.startField(m)), ",\"endLabel\":",
+                    EncoderBlock.jsonString(record.endField(m)), "}");
+            maxLength = Math.max(maxLength, heads[m].length + tails[m].length);
+        }
+        maxLength += record.maxDateStampLength() + AOS.length + LOS.length + 40 + newline.length;
+
+        EncoderBlock block = new EncoderBlock(buffer, sink, maxLength);
+        Spliterator.OfLong refs = passes.spliterator();
+        long remaining = limit < 0 ? Long.MAX_VALUE : limit;
+        while(remaining-- > 0 && refs.tryAdvance((long ref) -> {
+            record.moveTo(ref);
+            block.put(heads[record.mission()]);
+            block.pos = record.encodeDateStamp(block.bytes, block.pos);
+            block.put(AOS);
+            block.putLong(record.aos());
+            block.put(LOS);
+            block.putLong(record.los());
+            block.put(tails[record.mission()]);
+            block.put(newline);
+        }))
+        {
+            block.room();
+        }
+        block.finish();
+    }
+
+    /**
+     * @param parts Strings, in UTF-8, and byte arrays
+     */
+    static byte[] concat(Object... parts)
+    {
+        int length = 0;
+        for(int i = 0; i < parts.length; i++)
+        {
+            if(parts[i] instanceof String) parts[i] = ((String) parts[i]).getBytes(StandardCharsets.UTF_8);
+            length += ((byte[]) parts[i]).length;
+        }
+        byte[] bytes = new byte[length];
+        int pos = 0;
+        for(Object part : parts)
+        {
+            System.arraycopy(part, 0, bytes, pos, ((byte[]) part).length);
+            pos += ((byte[]) part).length;
+        }
+        return bytes;
+    }
+}
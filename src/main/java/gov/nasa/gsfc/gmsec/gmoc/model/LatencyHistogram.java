@@ -0,0 +1,86 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of non-negative values, usually nanoseconds, with
+ * HdrHistogram style log-linear buckets: every power of two range is split
+ * into SUB_BUCKETS linear buckets, so any recorded value is reported
+ * within 1 / SUB_BUCKETS (about 3%) of itself from 1 ns up to centuries.
+ *
+ * Recording is one atomic add on a bucket plus two LongAdder adds.
+ * Percentiles are read from a copy of the buckets and may miss values
+ * recorded concurrently.
+ */
+public class LatencyHistogram
+{
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    public void record(long value)
+    {
+        if(value < 0) value = 0;
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+    }
+
+    public long getCount()
+    {
+        return count.sum();
+    }
+
+    public long getSum()
+    {
+        return sum.sum();
+    }
+
+    /**
+     * @param quantiles ascending, each in [0, 1]
+     * @return for each quantile the upper bound of the bucket holding it,
+     * 0 when nothing was recorded
+     */
+    public long[] percentiles(double... quantiles)
+    {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for(int b = 0; b < BUCKETS; b++)
+        {
+            snapshot[b] = counts.get(b);
+            total += snapshot[b];
+        }
+        long[] values = new long[quantiles.length];
+        if(total == 0) return values;
+        int b = 0;
+        long seen = snapshot[0];
+        for(int q = 0; q < quantiles.length; q++)
+        {
+            long rank = Math.max(1, (long) Math.ceil(quantiles[q] * total));
+            while(seen < rank && b < BUCKETS - 1) seen += snapshot[++b];
+            values[q] = highestValueIn(b);
+        }
+        return values;
+    }
+
+    static int bucketOf(long value)
+    {
+        if(value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    static long highestValueIn(int bucket)
+    {
+        if(bucket < SUB_BUCKETS) return bucket;
+        int shift = bucket / SUB_BUCKETS - 1;
+        long mantissa = SUB_BUCKETS + bucket % SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,181 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Random access to a BinaryScheduleFormat file through a read-only
+ * MappedByteBuffer. Records are read in place by index, and searches by
+ * time are binary searches over the start column, so range queries over
+ * years of archived schedules touch only the pages they need.
+ *
+ * Thread safe; reads use absolute positions only.
+ */
+public class MappedScheduleReader implements PassIndex, Closeable
+{
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int headerSize;
+    private final int recordCount;
+    private final int maxDuration;
+    private final List<String> strings;
+
+    public MappedScheduleReader(Path file) throws IOException
+    {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try
+        {
+            long length = channel.size();
+            if(length > Integer.MAX_VALUE)
+                throw new IOException(file + " is too large to map: " + length);
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            byte[] magic = new byte[BinaryScheduleFormat.MAGIC.length];
+            buffer.get(magic);
+            if(!Arrays.equals(magic, BinaryScheduleFormat.MAGIC))
+                throw new IOException(file + " is not a binary pass schedule");
+            int version = buffer.getInt();
+            int recordSize = buffer.getInt();
+            if(version != BinaryScheduleFormat.FORMAT_VERSION || recordSize != BinaryScheduleFormat.RECORD_SIZE)
+                throw new IOException(file + " has unsupported format version " + version);
+            headerSize = buffer.getInt();
+            int stringCount = buffer.getInt();
+            long records = buffer.getLong();
+            maxDuration = buffer.getInt();
+            buffer.getInt();
+            if(headerSize + records * recordSize > length)
+                throw new IOException(file + " is truncated");
+            recordCount = (int) records;
+            List<String> table = new ArrayList<>(stringCount);
+            for(int s = 0; s < stringCount; s++)
+            {
+                byte[] string = new byte[buffer.getShort() & 0xFFFF];
+                buffer.get(string);
+                table.add(new String(string, StandardCharsets.UTF_8));
+            }
+            strings = Collections.unmodifiableList(table);
+        } catch (IOException | RuntimeException e)
+        {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public int size()
+    {
+        return recordCount;
+    }
+
+    @Override
+    public long startOf(int index)
+    {
+        return buffer.getLong(offset(index));
+    }
+
+    public int durationOf(int index)
+    {
+        return buffer.getInt(offset(index) + 8);
+    }
+
+    @Override
+    public long endOf(int index)
+    {
+        return startOf(index) + durationOf(index);
+    }
+
+    public String categoryOf(int index)
+    {
+        return strings.get(buffer.getShort(offset(index) + 12));
+    }
+
+    public String startLabelOf(int index)
+    {
+        return strings.get(buffer.getShort(offset(index) + 14));
+    }
+
+    public String endLabelOf(int index)
+    {
+        return strings.get(buffer.getShort(offset(index) + 16));
+    }
+
+    public List<String> getStrings()
+    {
+        return strings;
+    }
+
+    @Override
+    public int firstStartingAtOrAfter(long t)
+    {
+        int low = 0;
+        int high = recordCount;
+        while(low < high)
+        {
+            int mid = (low + high) >>> 1;
+            if(startOf(mid) < t) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * Passes ending after t started after t - maxDuration, so search there
+     * and scan forward.
+     */
+    @Override
+    public int firstEndingAfter(long t)
+    {
+        int i = firstStartingAtOrAfter(t - maxDuration + 1);
+        while(i < recordCount && endOf(i) <= t) i++;
+        return i;
+    }
+
+    /**
+     * Copy records [from, to) into a PassTable sharing this file's string ids.
+     */
+    public PassTable toTable(int from, int to)
+    {
+        int n = Math.max(0, to - from);
+        long[] starts = new long[n];
+        int[] durations = new int[n];
+        short[] categories = new short[n];
+        short[] startLabels = new short[n];
+        short[] endLabels = new short[n];
+        for(int i = 0; i < n; i++)
+        {
+            int offset = offset(from + i);
+            starts[i] = buffer.getLong(offset);
+            durations[i] = buffer.getInt(offset + 8);
+            categories[i] = buffer.getShort(offset + 12);
+            startLabels[i] = buffer.getShort(offset + 14);
+            endLabels[i] = buffer.getShort(offset + 16);
+        }
+        return new PassTable(starts, durations, categories, startLabels, endLabels, strings);
+    }
+
+    public PassTable toTable()
+    {
+        return toTable(0, recordCount);
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+
+    private int offset(int index)
+    {
+        if(index < 0 || index >= recordCount)
+            throw new IndexOutOfBoundsException("Record " + index + " of " + recordCount);
+        return headerSize + index * BinaryScheduleFormat.RECORD_SIZE;
+    }
+}
@@ -0,0 +1,95 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+/**
+ * Pass schedule settings of one spacecraft. Immutable, built by
+ * Options.getMissionList() from the schedule.mission.<category>.* keys
+ * falling back to the single mission schedule.* keys.
+ */
+public class Mission
+{
+    private final int id;
+    private final String category;
+    private final String startLabel;
+    private final String endLabel;
+    private final String duration;
+    private final int passInterval;
+    private final String station;
+
+    public Mission(int id, String category, String startLabel, String endLabel, String duration, int passInterval)
+    {
+        this(id, category, startLabel, endLabel, duration, passInterval, category);
+    }
+
+    public Mission(int id, String category, String startLabel, String endLabel, String duration, int passInterval,
+                   String station)
+    {
+        if(passInterval <= 0)
+            throw new IllegalArgumentException("Pass interval of " + category + " must be positive: " + passInterval);
+        this.id = id;
+        this.category = category;
+        this.startLabel = startLabel;
+        this.endLabel = endLabel;
+        this.duration = duration;
+        this.passInterval = passInterval;
+        this.station = station;
+    }
+
+    /**
+     * @return position of the mission in the configured list, used to order
+     * passes that start at the same second
+     */
+    public int getId()
+    {
+        return id;
+    }
+
+    public String getCategory()
+    {
+        return category;
+    }
+
+    public String getStartLabel()
+    {
+        return startLabel;
+    }
+
+    public String getEndLabel()
+    {
+        return endLabel;
+    }
+
+    public String getDuration()
+    {
+        return duration;
+    }
+
+    public int getDurationSeconds()
+    {
+        return PassSchedule.parseDurationSeconds(duration);
+    }
+
+    /**
+     * @return pass interval in minutes
+     */
+    public int getPassInterval()
+    {
+        return passInterval;
+    }
+
+    /**
+     * @return ground station the passes are taken on, missions on the same
+     * station must not be in pass at the same time. A mission not given a
+     * station has its own, named after its category.
+     */
+    public String getStation()
+    {
+        return station;
+    }
+
+    @Override
+    public String toString()
+    {
+        return category + "[interval=" + passInterval + "m, duration=" + duration
+                + ", labels=" + startLabel + "/" + endLabel + ", station=" + station + "]";
+    }
+}
@@ -0,0 +1,85 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import gov.nasa.gsfc.gmsec.gmoc.Options;
+
+import java.util.TimeZone;
+
+/**
+ * The passes of one mission: its settings, its PassIndex and what is
+ * needed to encode its rows. Immutable and shared between threads;
+ * call newEncoder() for a thread-confined PassRowEncoder.
+ */
+public class MissionSchedule
+{
+    private final Mission mission;
+    private final PassIndex index;
+    private final PassRowEncoder encoder;
+
+    public MissionSchedule(Mission mission, PassIndex index, PassRowEncoder encoder)
+    {
+        this.mission = mission;
+        this.index = index;
+        this.encoder = encoder;
+    }
+
+    public static MissionSchedule uniform(Mission mission, long firstPassStart, int passCount,
+                                          Options.DateFormat dateFormat, TimeZone zone)
+    {
+        PassRowEncoder encoder = encoder(mission, dateFormat, zone);
+        PassIndex index = new UniformPassIndex(firstPassStart, mission.getPassInterval() * 60L,
+                encoder.getDurationSeconds(), passCount);
+        return new MissionSchedule(mission, index, encoder);
+    }
+
+    /**
+     * The mission's passes over horizon.
+     */
+    public static MissionSchedule forHorizon(Mission mission, Horizon horizon, Options.DateFormat dateFormat,
+                                             TimeZone zone)
+    {
+        PassRowEncoder encoder = encoder(mission, dateFormat, zone);
+        PassIndex index = horizon.index(mission.getPassInterval() * 60L, encoder.getDurationSeconds());
+        return new MissionSchedule(mission, index, encoder);
+    }
+
+    private static PassRowEncoder encoder(Mission mission, Options.DateFormat dateFormat, TimeZone zone)
+    {
+        return new PassRowEncoder(mission.getCategory(), mission.getDuration(),
+                mission.getStartLabel(), mission.getEndLabel(), new DateStampFormatter(dateFormat, zone));
+    }
+
+    /**
+     * The same passes under the category, labels and station of renamed,
+     * rendered with new row fragments. The passes are not regenerated and
+     * keep their duration and interval.
+     */
+    public MissionSchedule relabel(Mission renamed, Options.DateFormat dateFormat, TimeZone zone)
+    {
+        Mission relabeled = new Mission(renamed.getId(), renamed.getCategory(), renamed.getStartLabel(),
+                renamed.getEndLabel(), mission.getDuration(), mission.getPassInterval(), renamed.getStation());
+        return new MissionSchedule(relabeled, index, encoder(relabeled, dateFormat, zone));
+    }
+
+    /**
+     * @return these settings and row fragments over other passes
+     */
+    public MissionSchedule withIndex(PassIndex passes)
+    {
+        return new MissionSchedule(mission, passes, encoder);
+    }
+
+    public Mission getMission()
+    {
+        return mission;
+    }
+
+    public PassIndex getIndex()
+    {
+        return index;
+    }
+
+    public PassRowEncoder newEncoder()
+    {
+        return encoder.copy();
+    }
+}
@@ -0,0 +1,50 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+/**
+ * The start (AOS) or end (LOS) of one pass of a mission.
+ */
+public class PassEdge
+{
+    private final MissionSchedule mission;
+    private final int index;
+    private final boolean aos;
+
+    public PassEdge(MissionSchedule mission, int index, boolean aos)
+    {
+        this.mission = mission;
+        this.index = index;
+        this.aos = aos;
+    }
+
+    public MissionSchedule getMission()
+    {
+        return mission;
+    }
+
+    /**
+     * @return index of the pass in the mission's PassIndex
+     */
+    public int getIndex()
+    {
+        return index;
+    }
+
+    public boolean isAos()
+    {
+        return aos;
+    }
+
+    /**
+     * @return epoch second of the edge
+     */
+    public long getTime()
+    {
+        return aos ? mission.getIndex().startOf(index) : mission.getIndex().endOf(index);
+    }
+
+    public PassInfo toPassInfo()
+    {
+        PassIndex passes = mission.getIndex();
+        return new PassInfo(index, mission.getMission().getCategory(), passes.startOf(index), passes.endOf(index));
+    }
+}
@@ -0,0 +1,35 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+/**
+ * Time-ordered view of a pass schedule on epoch seconds.
+ *
+ * Passes are numbered from 0 in start order. Lookups return an index in
+ * [0, size()], where size() means no such pass.
+ */
+public interface PassIndex
+{
+    int size();
+
+    long startOf(int index);
+
+    long endOf(int index);
+
+    /**
+     * @return first pass still in progress at t or starting after it
+     */
+    int firstEndingAfter(long t);
+
+    /**
+     * @return first pass starting at or after t
+     */
+    int firstStartingAtOrAfter(long t);
+
+    /**
+     * @return earliest pass in progress at t, -1 if between passes
+     */
+    default int containing(long t)
+    {
+        int i = firstEndingAfter(t);
+        return i < size() && startOf(i) <= t ? i : -1;
+    }
+}
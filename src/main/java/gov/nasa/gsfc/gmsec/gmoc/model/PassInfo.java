@@ -0,0 +1,45 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+/**
+ * One pass as returned by the /passes endpoints, times in epoch seconds.
+ */
+public class PassInfo
+{
+    private final int index;
+    private final String category;
+    private final long aos;
+    private final long los;
+
+    public PassInfo(int index, String category, long aos, long los)
+    {
+        this.index = index;
+        this.category = category;
+        this.aos = aos;
+        this.los = los;
+    }
+
+    public int getIndex()
+    {
+        return index;
+    }
+
+    public String getCategory()
+    {
+        return category;
+    }
+
+    public long getAos()
+    {
+        return aos;
+    }
+
+    public long getLos()
+    {
+        return los;
+    }
+
+    public long getDuration()
+    {
+        return los - aos;
+    }
+}
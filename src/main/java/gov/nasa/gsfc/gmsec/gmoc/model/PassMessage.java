@@ -0,0 +1,133 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One pass as published on the message bus: its schedule file row, or
+ * the cancellation of a pass no longer in the schedule.
+ *
+ * A pass is identified by its key, category and AOS, and its content by
+ * the digest of its row. The dedup key combines both, so a pass that is
+ * generated again unchanged, or a batch that is sent again after a
+ * failure, carries the dedup key the bus has already seen.
+ */
+public class PassMessage
+{
+    public enum Type
+    {
+        PASS, CANCEL
+    }
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final byte[] NO_ROW = new byte[0];
+
+    private final Type type;
+    private final String key;
+    private final String category;
+    private final long aos;
+    private final long los;
+    private final byte[] row;
+    private final long digest;
+
+    private PassMessage(Type type, String category, long aos, long los, byte[] row, long digest)
+    {
+        this.type = type;
+        this.key = key(category, aos);
+        this.category = category;
+        this.aos = aos;
+        this.los = los;
+        this.row = row;
+        this.digest = digest;
+    }
+
+    /**
+     * @param row schedule file row of the pass, without line separator, not copied
+     */
+    public static PassMessage pass(String category, long aos, long los, byte[] row)
+    {
+        return new PassMessage(Type.PASS, category, aos, los, row, digest(row, 0, row.length));
+    }
+
+    public static PassMessage cancel(String category, long aos)
+    {
+        return new PassMessage(Type.CANCEL, category, aos, aos, NO_ROW, 0);
+    }
+
+    /**
+     * @return category and AOS epoch second identifying a pass, e.g. WIRE@1480492800
+     */
+    public static String key(String category, long aos)
+    {
+        return category + "@" + aos;
+    }
+
+    /**
+     * 64 bit FNV-1a hash of a row.
+     */
+    public static long digest(byte[] row, int from, int to)
+    {
+        long hash = FNV_OFFSET;
+        for(int i = from; i < to; i++)
+        {
+            hash ^= row[i] & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    public Type getType()
+    {
+        return type;
+    }
+
+    public String getCategory()
+    {
+        return category;
+    }
+
+    public long getAos()
+    {
+        return aos;
+    }
+
+    public long getLos()
+    {
+        return los;
+    }
+
+    public String getKey()
+    {
+        return key;
+    }
+
+    /**
+     * @return digest of the row, 0 for a cancellation
+     */
+    public long getDigest()
+    {
+        return digest;
+    }
+
+    /**
+     * @return key and content of the message, the same for every send of it
+     */
+    public String getDedupKey()
+    {
+        return key + "#" + (type == Type.CANCEL ? "cancel" : Long.toHexString(digest));
+    }
+
+    /**
+     * @return UTF-8 schedule file row, empty for a cancellation; not to be modified
+     */
+    public byte[] getRow()
+    {
+        return row;
+    }
+
+    @Override
+    public String toString()
+    {
+        return type == Type.CANCEL ? "CANCEL " + key : new String(row, StandardCharsets.UTF_8);
+    }
+}
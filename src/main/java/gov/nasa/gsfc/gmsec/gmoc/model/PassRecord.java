@@ -0,0 +1,118 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import java.util.List;
+
+/**
+ * The row model the ScheduleEncoders share: one pass of a schedule as
+ * primitives, moved from pass to pass by SchedulePasses ref. What is
+ * constant for a mission, its category and label fields, is looked up by
+ * mission slot, so an encoder can pre-encode it once per mission.
+ *
+ *     record.moveTo(ref);
+ *     record.mission()  record.aos()  record.los()  record.encodeDateStamp(dst, pos)
+ *
+ * Not thread safe, it holds the missions' encoders for the datestamps.
+ */
+public final class PassRecord
+{
+    private final PassIndex[] indexes;
+    private final PassRowEncoder[] encoders;
+    private int mission;
+    private int pass;
+    private long aos;
+    private long los;
+
+    public PassRecord(List<MissionSchedule> missions)
+    {
+        indexes = new PassIndex[missions.size()];
+        encoders = new PassRowEncoder[missions.size()];
+        for(int m = 0; m < indexes.length; m++)
+        {
+            indexes[m] = missions.get(m).getIndex();
+            encoders[m] = missions.get(m).newEncoder();
+        }
+    }
+
+    public int missions()
+    {
+        return indexes.length;
+    }
+
+    public String category(int mission)
+    {
+        return encoders[mission].getCategory();
+    }
+
+    public String startField(int mission)
+    {
+        return encoders[mission].getStartField();
+    }
+
+    public String endField(int mission)
+    {
+        return encoders[mission].getEndField();
+    }
+
+    /**
+     * @return upper bound on the bytes of a CSV row
+     */
+    public int maxRowLength()
+    {
+        int max = 0;
+        for(PassRowEncoder encoder : encoders) max = Math.max(max, encoder.maxRowLength());
+        return max;
+    }
+
+    public int maxDateStampLength()
+    {
+        int max = 0;
+        for(PassRowEncoder encoder : encoders) max = Math.max(max, encoder.maxDateStampLength());
+        return max;
+    }
+
+    public void moveTo(long ref)
+    {
+        mission = SchedulePasses.mission(ref);
+        pass = SchedulePasses.pass(ref);
+        aos = indexes[mission].startOf(pass);
+        los = indexes[mission].endOf(pass);
+    }
+
+    public int mission()
+    {
+        return mission;
+    }
+
+    public int pass()
+    {
+        return pass;
+    }
+
+    public long aos()
+    {
+        return aos;
+    }
+
+    public long los()
+    {
+        return los;
+    }
+
+    /**
+     * Write the pass's CSV row, as PassRowEncoder does.
+     * @return position after the last byte written
+     */
+    public int encodeRow(byte[] dst, int pos)
+    {
+        return encoders[mission].encode(aos, dst, pos);
+    }
+
+    /**
+     * Write the pass's start time datestamp.
+     * @return position after the last byte written
+     */
+    public int encodeDateStamp(byte[] dst, int pos)
+    {
+        return encoders[mission].encodeDateStamp(aos, dst, pos);
+    }
+}
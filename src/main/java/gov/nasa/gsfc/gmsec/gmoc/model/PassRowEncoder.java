@@ -0,0 +1,147 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import gov.nasa.gsfc.gmsec.gmoc.Options;
+
+import java.nio.charset.StandardCharsets;
+import java.util.TimeZone;
+
+/**
+ * Encodes pass schedule rows straight into a byte buffer.
+ *
+ * Everything but the start time is constant for a schedule, so the row is
+ * split into two pre-encoded UTF-8 fragments around the datestamp:
+ *
+ * "WIRE,"  2016-335-13:00:00  ",+00:02:00,AOS WIRE,LOS WIRE"
+ *
+ * Output is byte-identical to PassSchedule.toString(). The fields are
+ * kept as well, for the other ScheduleEncoder formats. Not thread safe,
+ * the DateStampFormatter caches the current day.
+ */
+public class PassRowEncoder
+{
+    private final String category;
+    private final String startField;
+    private final String endField;
+    private final byte[] prefix;
+    private final byte[] suffix;
+    private final DateStampFormatter dateStamp;
+    private final int durationSeconds;
+
+    public PassRowEncoder(String category, String duration, String startLabel, String endLabel,
+                          DateStampFormatter dateStamp)
+    {
+        this(category, startLabel + " " + category, endLabel + " " + category, PassSchedule.normalizeDuration(duration),
+                PassSchedule.parseDurationSeconds(duration), dateStamp);
+    }
+
+    private PassRowEncoder(String category, String startField, String endField, String duration, int durationSeconds,
+                           DateStampFormatter dateStamp)
+    {
+        this.category = category;
+        this.startField = startField;
+        this.endField = endField;
+        this.prefix = (category + ",").getBytes(StandardCharsets.UTF_8);
+        this.suffix = ("," + duration + "," + startField + "," + endField).getBytes(StandardCharsets.UTF_8);
+        this.durationSeconds = durationSeconds;
+        this.dateStamp = dateStamp;
+    }
+
+    /**
+     * Encoder for rows whose label fields are given verbatim, for example
+     * "AOS WIRE", as read back from a schedule file.
+     */
+    public static PassRowEncoder forFields(String category, int durationSeconds, String startField, String endField,
+                                           DateStampFormatter dateStamp)
+    {
+        return new PassRowEncoder(category, startField, endField, PassSchedule.formatDuration(durationSeconds),
+                durationSeconds, dateStamp);
+    }
+
+    private PassRowEncoder(PassRowEncoder other)
+    {
+        this.category = other.category;
+        this.startField = other.startField;
+        this.endField = other.endField;
+        this.prefix = other.prefix;
+        this.suffix = other.suffix;
+        this.durationSeconds = other.durationSeconds;
+        this.dateStamp = other.dateStamp.copy();
+    }
+
+    /**
+     * @return encoder sharing the row fragments, for use on another thread
+     */
+    public PassRowEncoder copy()
+    {
+        return new PassRowEncoder(this);
+    }
+
+    public static PassRowEncoder fromOptions(Options options)
+    {
+        return fromOptions(options, TimeZone.getDefault());
+    }
+
+    public static PassRowEncoder fromOptions(Options options, TimeZone zone)
+    {
+        return new PassRowEncoder(options.getCategory(), options.getDuration(),
+                options.getStartLabel(), options.getEndLabel(),
+                new DateStampFormatter(options.getDateFormatType(), zone));
+    }
+
+    /**
+     * Upper bound on the bytes a single row takes, without line separator.
+     */
+    public int maxRowLength()
+    {
+        return prefix.length + maxDateStampLength() + suffix.length;
+    }
+
+    public int getDurationSeconds()
+    {
+        return durationSeconds;
+    }
+
+    public String getCategory()
+    {
+        return category;
+    }
+
+    /**
+     * @return start label field as in the row, for example "AOS WIRE"
+     */
+    public String getStartField()
+    {
+        return startField;
+    }
+
+    public String getEndField()
+    {
+        return endField;
+    }
+
+    public int maxDateStampLength()
+    {
+        return dateStamp.maxLength() + 4;
+    }
+
+    /**
+     * Write just the datestamp of a pass starting at epochSecond.
+     * @return position after the last byte written
+     */
+    public int encodeDateStamp(long epochSecond, byte[] dst, int pos)
+    {
+        return dateStamp.format(epochSecond, dst, pos);
+    }
+
+    /**
+     * Write the row for a pass starting at epochSecond into dst at pos.
+     * @return position after the last byte written
+     */
+    public int encode(long epochSecond, byte[] dst, int pos)
+    {
+        System.arraycopy(prefix, 0, dst, pos, prefix.length);
+        pos = dateStamp.format(epochSecond, dst, pos + prefix.length);
+        System.arraycopy(suffix, 0, dst, pos, suffix.length);
+        return pos + suffix.length;
+    }
+}
@@ -0,0 +1,99 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Spliterator;
+
+/**
+ * Generates pass schedule rows from PassIndexes of primitive epoch seconds,
+ * for a uniform schedule pass k starts at firstPassStart + k * intervalSeconds.
+ * With several missions the rows are merged into time order as they go,
+ * consuming a PassSpliterator as SchedulePasses does.
+ *
+ * Rows are encoded into one reusable buffer that is flushed to the
+ * stream when full, so writing a schedule allocates nothing per row.
+ * Not thread safe, the encoders cache the current day.
+ */
+public class PassRowGenerator
+{
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final PassRowEncoder[] encoders;
+    private final PassIndex[] indexes;
+
+    public PassRowGenerator(PassRowEncoder encoder, PassIndex index)
+    {
+        this.encoders = new PassRowEncoder[] {encoder};
+        this.indexes = new PassIndex[] {index};
+    }
+
+    public PassRowGenerator(PassRowEncoder encoder, long firstPassStart, long intervalSeconds, int passCount)
+    {
+        this(encoder, new UniformPassIndex(firstPassStart, intervalSeconds, encoder.getDurationSeconds(), passCount));
+    }
+
+    public PassRowGenerator(List<MissionSchedule> missions)
+    {
+        this.encoders = new PassRowEncoder[missions.size()];
+        this.indexes = new PassIndex[missions.size()];
+        for(int m = 0; m < encoders.length; m++)
+        {
+            encoders[m] = missions.get(m).newEncoder();
+            indexes[m] = missions.get(m).getIndex();
+        }
+    }
+
+    public void writeTo(OutputStream out, byte[] newline) throws IOException
+    {
+        writeWindow(out, newline, Long.MIN_VALUE / 2, Long.MAX_VALUE / 2, -1);
+    }
+
+    /**
+     * Write rows of passes overlapping [from, to) in time order, at most
+     * limit of them when limit is not negative, each followed by newline.
+     */
+    public void writeWindow(OutputStream out, byte[] newline, long from, long to, int limit) throws IOException
+    {
+        int[] first = new int[indexes.length];
+        int[] last = new int[indexes.length];
+        for(int m = 0; m < indexes.length; m++)
+        {
+            first[m] = indexes[m].firstEndingAfter(from);
+            last[m] = Math.max(first[m], indexes[m].firstStartingAtOrAfter(to));
+        }
+        write(new PassSpliterator(indexes, first, last), out, newline, limit);
+    }
+
+    /**
+     * Write the rows of passes, SchedulePasses refs of the missions this
+     * generator was built with, at most limit of them when limit is not
+     * negative, each followed by newline.
+     */
+    public void write(Spliterator.OfLong passes, OutputStream out, byte[] newline, long limit) throws IOException
+    {
+        int maxRowLength = 0;
+        for(PassRowEncoder encoder : encoders)
+        {
+            maxRowLength = Math.max(maxRowLength, encoder.maxRowLength() + newline.length);
+        }
+        byte[] buf = new byte[Math.max(BUFFER_SIZE, 2 * maxRowLength)];
+        int flushAt = buf.length - maxRowLength;
+        int[] pos = new int[1];
+        long remaining = limit < 0 ? Long.MAX_VALUE : limit;
+        while(remaining-- > 0 && passes.tryAdvance((long ref) -> {
+            int m = SchedulePasses.mission(ref);
+            pos[0] = encoders[m].encode(indexes[m].startOf(SchedulePasses.pass(ref)), buf, pos[0]);
+            System.arraycopy(newline, 0, buf, pos[0], newline.length);
+            pos[0] += newline.length;
+        }))
+        {
+            if(pos[0] > flushAt)
+            {
+                out.write(buf, 0, pos[0]);
+                pos[0] = 0;
+            }
+        }
+        out.write(buf, 0, pos[0]);
+    }
+}
@@ -9,8 +9,8 @@ import org.springframework.stereotype.Component;
 
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.time.LocalDate;
 import java.util.Calendar;
-import java.util.TimeZone;
 
 /**
  * Created by leif on 10/12/16.
@@ -46,34 +46,31 @@ public class PassSchedule
     Options options;
     public static final String DEFAULT_DURATION = "00:30:00";
     public static final int DEFAULT_PASS_INTERVAL = 5;
+    public static final int DEFAULT_PASS_COUNT = 121;
+    public static final int FIRST_PASS_SECOND_OF_DAY = 8 * 3600;
 
     private DateFormat dateFormat;
 
     public PassSchedule(Options options) {
+        this(options, Calendar.getInstance());
+    }
+
+    /**
+     * Schedule for the day containing cal. cal is moved to the first
+     * pass start and kept as the pass start time.
+     */
+    public PassSchedule(Options options, Calendar cal) {
         this.options = options;
         dateFormat = new SimpleDateFormat(options.getDateFormatString());
         category = options.getCategory();
         passScheduleInterval = options.getPassInterval();
         passDuration = options.getDuration();
 
-        Calendar cal = Calendar.getInstance();
-        TimeZone tz = cal.getTimeZone();
-        int gmtOffset = tz.getOffset(
-                cal.get(Calendar.ERA),
-                cal.get(Calendar.YEAR),
-                cal.get(Calendar.MONTH),
-                cal.get(Calendar.DAY_OF_MONTH),
-                cal.get(Calendar.DAY_OF_WEEK),
-                cal.get(Calendar.MILLISECOND)
-                );
-        // convert to hours
-        gmtOffset = gmtOffset / (60*60*1000);
-        log.info("Current Offset from GMT (in hrs): " + gmtOffset); // eg -5
-        cal.set(Calendar.AM_PM, Calendar.AM);
-        int startHour = 8 - gmtOffset;
-        cal.set(Calendar.HOUR, startHour);
-        cal.set(Calendar.MINUTE, 0);
-        cal.set(Calendar.SECOND, 0);
+        ZoneTransitions zone = ZoneTransitions.of(cal.getTimeZone());
+        LocalDate day = LocalDate.ofEpochDay(Math.floorDiv(zone.toLocalSecond(Math.floorDiv(cal.getTimeInMillis(), 1000L)), 86400));
+        long start = firstPassStart(day, zone);
+        log.info("Current Offset from GMT (in secs): " + zone.offsetAt(start)); // eg -18000
+        cal.setTimeInMillis(start * 1000L);
         setPassStartTime(cal);
 
         setCounterOne(1);
@@ -108,6 +105,80 @@ public class PassSchedule
         return passDuration;
     }
 
+    /**
+     * @return epoch second of 8AM local time on date, the first pass
+     */
+    public static long firstPassStart(LocalDate date, ZoneTransitions zone)
+    {
+        return zone.toEpochSecond(date.toEpochDay() * 86400 + FIRST_PASS_SECOND_OF_DAY);
+    }
+
+    /**
+     * Normalize a configured duration to "+hh:mm:ss" the same way
+     * getPassDuration() does, without the regex. Invalid durations
+     * fall back to "+" DEFAULT_DURATION on every row; getPassDuration()
+     * returns it unsigned on its first call only, then signed.
+     */
+    public static String normalizeDuration(String duration)
+    {
+        String d = duration != null && duration.startsWith("+") ? duration : "+" + duration;
+        if(!isDuration(d))
+        {
+            log.error("Configured pass duration " + d + " does not have correct hh:mm:ss time format.");
+            log.error("Defaulting to pass duration "+DEFAULT_DURATION);
+            d = "+" + DEFAULT_DURATION;
+        }
+        return d;
+    }
+
+    /**
+     * @return configured duration in seconds, DEFAULT_DURATION if invalid
+     */
+    public static int parseDurationSeconds(String duration)
+    {
+        String d = normalizeDuration(duration);
+        return ((d.charAt(1) - '0') * 10 + (d.charAt(2) - '0')) * 3600
+                + ((d.charAt(4) - '0') * 10 + (d.charAt(5) - '0')) * 60
+                + (d.charAt(7) - '0') * 10 + (d.charAt(8) - '0');
+    }
+
+    /**
+     * @return seconds as a "+hh:mm:ss" pass duration
+     */
+    public static String formatDuration(int seconds)
+    {
+        if(seconds < 0 || seconds >= 100 * 3600)
+            throw new IllegalArgumentException("Pass duration out of +hh:mm:ss range: " + seconds);
+        char[] d = {'+', '0', '0', ':', '0', '0', ':', '0', '0'};
+        int hours = seconds / 3600;
+        int minutes = seconds / 60 % 60;
+        d[1] += hours / 10; d[2] += hours % 10;
+        d[4] += minutes / 10; d[5] += minutes % 10;
+        d[7] += seconds % 60 / 10; d[8] += seconds % 10;
+        return new String(d);
+    }
+
+    /**
+     * @return true for a pass duration in hh:mm:ss or +hh:mm:ss format
+     */
+    public static boolean isValidDuration(String duration)
+    {
+        return duration != null && isDuration(duration.startsWith("+") ? duration : "+" + duration);
+    }
+
+    // Same check as getPassDuration() pattern ^\+[\d]{2}:[\d]{2}:[\d]{2}
+    private static boolean isDuration(String d)
+    {
+        if(d.length() != 9 || d.charAt(0) != '+' || d.charAt(3) != ':' || d.charAt(6) != ':')
+            return false;
+        for(int i = 1; i < 9; i++)
+        {
+            if(i == 3 || i == 6) continue;
+            if(d.charAt(i) < '0' || d.charAt(i) > '9') return false;
+        }
+        return true;
+    }
+
     // "WIRE", "2016-10-07-08:00:00", "+00:03:00", "1", "1"
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -122,6 +193,11 @@ public class PassSchedule
         return sb.toString();
     }
 
+    public long getPassStartEpochSecond()
+    {
+        return Math.floorDiv(passStartTime.getTimeInMillis(), 1000L);
+    }
+
     public void setPassStartTime(Calendar passStartTime)
     {
         this.passStartTime = passStartTime;
@@ -0,0 +1,93 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+
+/**
+ * Spliterator over passes [from[m], to[m]) of several PassIndexes in time
+ * order, as SchedulePasses refs. Traversal merges the missions through a
+ * ScheduleMerger created on first use.
+ *
+ * trySplit cuts every mission at the start of the middle pass of the
+ * largest range: the prefix gets the passes starting before it, this
+ * spliterator keeps the rest. Both halves know their exact size, so the
+ * spliterator is SIZED and SUBSIZED and keeps encounter order.
+ */
+class PassSpliterator implements Spliterator.OfLong
+{
+    private static final int MIN_SPLIT = 1024;
+
+    private final PassIndex[] indexes;
+    private final int[] from;
+    private final int[] to;
+    private ScheduleMerger merger;
+    private long remaining;
+
+    PassSpliterator(PassIndex[] indexes, int[] from, int[] to)
+    {
+        this.indexes = indexes;
+        this.from = from.clone();
+        this.to = to.clone();
+        for(int m = 0; m < indexes.length; m++)
+        {
+            remaining += Math.max(0, to[m] - from[m]);
+        }
+    }
+
+    @Override
+    public boolean tryAdvance(LongConsumer action)
+    {
+        if(merger == null) merger = new ScheduleMerger(indexes, from, to);
+        if(!merger.advance()) return false;
+        remaining--;
+        action.accept(SchedulePasses.ref(merger.mission(), merger.pass()));
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(LongConsumer action)
+    {
+        if(merger == null) merger = new ScheduleMerger(indexes, from, to);
+        while(merger.advance())
+        {
+            action.accept(SchedulePasses.ref(merger.mission(), merger.pass()));
+        }
+        remaining = 0;
+    }
+
+    @Override
+    public Spliterator.OfLong trySplit()
+    {
+        if(merger != null || remaining < MIN_SPLIT) return null;
+        int largest = 0;
+        for(int m = 1; m < indexes.length; m++)
+        {
+            if(to[m] - from[m] > to[largest] - from[largest]) largest = m;
+        }
+        long cutTime = indexes[largest].startOf(from[largest] + (to[largest] - from[largest]) / 2);
+        int[] cut = new int[indexes.length];
+        long prefixSize = 0;
+        for(int m = 0; m < indexes.length; m++)
+        {
+            cut[m] = Math.max(from[m], Math.min(to[m], indexes[m].firstStartingAtOrAfter(cutTime)));
+            prefixSize += Math.max(0, cut[m] - from[m]);
+        }
+        if(prefixSize == 0 || prefixSize == remaining) return null;
+        PassSpliterator prefix = new PassSpliterator(indexes, from, cut);
+        System.arraycopy(cut, 0, from, 0, cut.length);
+        remaining -= prefixSize;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize()
+    {
+        return remaining;
+    }
+
+    @Override
+    public int characteristics()
+    {
+        return ORDERED | SIZED | SUBSIZED | IMMUTABLE | NONNULL | DISTINCT;
+    }
+}
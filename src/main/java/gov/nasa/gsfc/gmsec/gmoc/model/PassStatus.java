@@ -0,0 +1,55 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+/**
+ * Countdown state at an instant: the pass in progress, if any, and the
+ * next pass to start. Times in epoch seconds.
+ */
+public class PassStatus
+{
+    private final long time;
+    private final PassInfo current;
+    private final PassInfo next;
+
+    public PassStatus(long time, PassInfo current, PassInfo next)
+    {
+        this.time = time;
+        this.current = current;
+        this.next = next;
+    }
+
+    public long getTime()
+    {
+        return time;
+    }
+
+    public boolean isInPass()
+    {
+        return current != null;
+    }
+
+    public PassInfo getCurrent()
+    {
+        return current;
+    }
+
+    public PassInfo getNext()
+    {
+        return next;
+    }
+
+    /**
+     * @return seconds until the next AOS, -1 when no pass is left
+     */
+    public long getSecondsToAos()
+    {
+        return next == null ? -1 : next.getAos() - time;
+    }
+
+    /**
+     * @return seconds until LOS of the current pass, -1 between passes
+     */
+    public long getSecondsToLos()
+    {
+        return current == null ? -1 : current.getLos() - time;
+    }
+}
@@ -0,0 +1,306 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import gov.nasa.gsfc.gmsec.gmoc.Options;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Time-ordered schedule held as primitive columns: start epoch second,
+ * duration seconds, and ids into a small string table for the category
+ * and the two label fields as they appear in the CSV ("AOS WIRE").
+ *
+ * This is the record model shared by the binary format, the CSV ingest
+ * and anything else that needs arbitrary, non-uniform passes.
+ */
+public class PassTable
+{
+    private final long[] starts;
+    private final int[] durations;
+    private final short[] categories;
+    private final short[] startLabels;
+    private final short[] endLabels;
+    private final List<String> strings;
+
+    public PassTable(long[] starts, int[] durations, short[] categories, short[] startLabels, short[] endLabels,
+                     List<String> strings)
+    {
+        this.starts = starts;
+        this.durations = durations;
+        this.categories = categories;
+        this.startLabels = startLabels;
+        this.endLabels = endLabels;
+        this.strings = Collections.unmodifiableList(new ArrayList<>(strings));
+    }
+
+    /**
+     * Merge the passes of each mission into one table in time order.
+     */
+    public static PassTable of(List<MissionSchedule> missions)
+    {
+        Builder builder = new Builder();
+        PassIndex[] indexes = new PassIndex[missions.size()];
+        short[][] ids = new short[missions.size()][];
+        int size = 0;
+        for(int m = 0; m < indexes.length; m++)
+        {
+            Mission mission = missions.get(m).getMission();
+            indexes[m] = missions.get(m).getIndex();
+            ids[m] = new short[] {
+                    builder.intern(mission.getCategory()),
+                    builder.intern(mission.getStartLabel() + " " + mission.getCategory()),
+                    builder.intern(mission.getEndLabel() + " " + mission.getCategory())};
+            size += indexes[m].size();
+        }
+        builder.ensureCapacity(size);
+        ScheduleMerger merger = new ScheduleMerger(indexes);
+        while(merger.advance())
+        {
+            short[] id = ids[merger.mission()];
+            PassIndex index = indexes[merger.mission()];
+            int pass = merger.pass();
+            builder.add(index.startOf(pass), (int) (index.endOf(pass) - index.startOf(pass)), id[0], id[1], id[2]);
+        }
+        return builder.build();
+    }
+
+    public int size()
+    {
+        return starts.length;
+    }
+
+    public long startOf(int i)
+    {
+        return starts[i];
+    }
+
+    public int durationOf(int i)
+    {
+        return durations[i];
+    }
+
+    public short categoryIdOf(int i)
+    {
+        return categories[i];
+    }
+
+    public short startLabelIdOf(int i)
+    {
+        return startLabels[i];
+    }
+
+    public short endLabelIdOf(int i)
+    {
+        return endLabels[i];
+    }
+
+    public String categoryOf(int i)
+    {
+        return strings.get(categories[i]);
+    }
+
+    public String startLabelOf(int i)
+    {
+        return strings.get(startLabels[i]);
+    }
+
+    public String endLabelOf(int i)
+    {
+        return strings.get(endLabels[i]);
+    }
+
+    public List<String> getStrings()
+    {
+        return strings;
+    }
+
+    public int maxDuration()
+    {
+        int max = 0;
+        for(int d : durations) max = Math.max(max, d);
+        return max;
+    }
+
+    /**
+     * @return index over all passes of the table
+     */
+    public SortedPassIndex asIndex()
+    {
+        return new SortedPassIndex(starts, durations);
+    }
+
+    /**
+     * Split the table into one MissionSchedule per distinct category,
+     * duration and label fields, in order of first appearance, so ingested
+     * passes can be served like generated ones. The labels are kept
+     * verbatim; the Mission labels drop the trailing category.
+     */
+    public List<MissionSchedule> missionSchedules(Options.DateFormat format, TimeZone zone)
+    {
+        Map<Long, Integer> shapes = new LinkedHashMap<>();
+        int[] shapeOf = new int[starts.length];
+        List<Integer> firstRows = new ArrayList<>();
+        int[] counts = new int[16];
+        for(int i = 0; i < starts.length; i++)
+        {
+            if(durations[i] < 0 || durations[i] >= 1 << 18)
+                throw new IllegalArgumentException("Pass duration out of range at row " + i + ": " + durations[i]);
+            long key = (long) durations[i] << 45 | (long) categories[i] << 30
+                    | (long) startLabels[i] << 15 | endLabels[i];
+            Integer shape = shapes.get(key);
+            if(shape == null)
+            {
+                shape = shapes.size();
+                shapes.put(key, shape);
+                firstRows.add(i);
+                if(shape == counts.length) counts = Arrays.copyOf(counts, shape * 2);
+            }
+            shapeOf[i] = shape;
+            counts[shape]++;
+        }
+
+        List<MissionSchedule> missions = new ArrayList<>(shapes.size());
+        for(int shape = 0; shape < shapes.size(); shape++)
+        {
+            int first = firstRows.get(shape);
+            long[] shapeStarts = new long[counts[shape]];
+            int[] shapeDurations = new int[counts[shape]];
+            int n = 0;
+            for(int i = first; n < shapeStarts.length; i++)
+            {
+                if(shapeOf[i] != shape) continue;
+                shapeStarts[n] = starts[i];
+                shapeDurations[n++] = durations[i];
+            }
+            String category = categoryOf(first);
+            int interval = n > 1 ? (int) ((shapeStarts[n - 1] - shapeStarts[0]) / (n - 1) / 60) : 0;
+            Mission mission = new Mission(shape, category,
+                    withoutCategory(startLabelOf(first), category), withoutCategory(endLabelOf(first), category),
+                    PassSchedule.formatDuration(durations[first]).substring(1), Math.max(1, interval));
+            missions.add(new MissionSchedule(mission, new SortedPassIndex(shapeStarts, shapeDurations),
+                    PassRowEncoder.forFields(category, durations[first], startLabelOf(first), endLabelOf(first),
+                            new DateStampFormatter(format, zone))));
+        }
+        return missions;
+    }
+
+    private static String withoutCategory(String label, String category)
+    {
+        return label.endsWith(" " + category) ? label.substring(0, label.length() - category.length() - 1) : label;
+    }
+
+    /**
+     * Accumulates passes in any order; build() sorts them by start time,
+     * keeping insertion order for equal starts.
+     */
+    public static class Builder
+    {
+        private long[] starts = new long[1024];
+        private int[] durations = new int[1024];
+        private short[] categories = new short[1024];
+        private short[] startLabels = new short[1024];
+        private short[] endLabels = new short[1024];
+        private int size;
+        private boolean sorted = true;
+        private final List<String> strings = new ArrayList<>();
+        private final Map<String, Short> ids = new HashMap<>();
+
+        public short intern(String value)
+        {
+            Short id = ids.get(value);
+            if(id == null)
+            {
+                if(strings.size() >= Short.MAX_VALUE)
+                    throw new IllegalStateException("String table is full");
+                id = (short) strings.size();
+                strings.add(value);
+                ids.put(value, id);
+            }
+            return id;
+        }
+
+        public Builder add(long start, int duration, String category, String startLabel, String endLabel)
+        {
+            return add(start, duration, intern(category), intern(startLabel), intern(endLabel));
+        }
+
+        public Builder add(long start, int duration, short category, short startLabel, short endLabel)
+        {
+            if(size == starts.length) ensureCapacity(size * 2);
+            if(size > 0 && start < starts[size - 1]) sorted = false;
+            starts[size] = start;
+            durations[size] = duration;
+            categories[size] = category;
+            startLabels[size] = startLabel;
+            endLabels[size] = endLabel;
+            size++;
+            return this;
+        }
+
+        /**
+         * Append every pass of another builder, re-mapping its string ids.
+         */
+        public Builder addAll(Builder other)
+        {
+            short[] remap = new short[other.strings.size()];
+            for(int s = 0; s < remap.length; s++) remap[s] = intern(other.strings.get(s));
+            ensureCapacity(size + other.size);
+            for(int i = 0; i < other.size; i++)
+            {
+                add(other.starts[i], other.durations[i], remap[other.categories[i]],
+                        remap[other.startLabels[i]], remap[other.endLabels[i]]);
+            }
+            return this;
+        }
+
+        public int size()
+        {
+            return size;
+        }
+
+        void ensureCapacity(int capacity)
+        {
+            if(capacity <= starts.length) return;
+            starts = Arrays.copyOf(starts, capacity);
+            durations = Arrays.copyOf(durations, capacity);
+            categories = Arrays.copyOf(categories, capacity);
+            startLabels = Arrays.copyOf(startLabels, capacity);
+            endLabels = Arrays.copyOf(endLabels, capacity);
+        }
+
+        public PassTable build()
+        {
+            if(sorted)
+            {
+                return new PassTable(Arrays.copyOf(starts, size), Arrays.copyOf(durations, size),
+                        Arrays.copyOf(categories, size), Arrays.copyOf(startLabels, size),
+                        Arrays.copyOf(endLabels, size), strings);
+            }
+            // Stable sort of row numbers by start
+            Integer[] order = new Integer[size];
+            for(int i = 0; i < size; i++) order[i] = i;
+            Arrays.sort(order, (a, b) -> Long.compare(starts[a], starts[b]));
+            long[] s = new long[size];
+            int[] d = new int[size];
+            short[] c = new short[size];
+            short[] sl = new short[size];
+            short[] el = new short[size];
+            for(int i = 0; i < size; i++)
+            {
+                int r = order[i];
+                s[i] = starts[r];
+                d[i] = durations[r];
+                c[i] = categories[r];
+                sl[i] = startLabels[r];
+                el[i] = endLabels[r];
+            }
+            return new PassTable(s, d, c, sl, el, strings);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A response body rendered once for a schedule version: the UTF-8 bytes,
+ * a gzip variant compressed up front and a strong ETag for each.
+ */
+public class RenderedResponse
+{
+    private static final int OVERHEAD_BYTES = 128;
+
+    private final byte[] body;
+    private final byte[] gzipBody;
+    private final String etag;
+    private final String gzipEtag;
+
+    public RenderedResponse(long version, byte[] body)
+    {
+        this.body = body;
+        this.gzipBody = gzip(body);
+        CRC32 crc = new CRC32();
+        crc.update(body, 0, body.length);
+        String tag = version + "-" + Long.toHexString(crc.getValue()) + "-" + body.length;
+        this.etag = "\"" + tag + "\"";
+        this.gzipEtag = "\"" + tag + "-gz\"";
+    }
+
+    public byte[] getBody()
+    {
+        return body;
+    }
+
+    public byte[] getGzipBody()
+    {
+        return gzipBody;
+    }
+
+    public String getEtag()
+    {
+        return etag;
+    }
+
+    public String getGzipEtag()
+    {
+        return gzipEtag;
+    }
+
+    /**
+     * @return true if an If-None-Match header value names either variant,
+     * compared weakly as If-None-Match requires, so W/"tag" also matches
+     */
+    public boolean matches(String ifNoneMatch)
+    {
+        if(ifNoneMatch == null) return false;
+        if(ifNoneMatch.trim().equals("*")) return true;
+        for(String tag : ifNoneMatch.split(","))
+        {
+            String t = tag.trim();
+            if(t.startsWith("W/")) t = t.substring(2);
+            if(t.equals(etag) || t.equals(gzipEtag)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return approximate heap held by this entry
+     */
+    public long weight()
+    {
+        return body.length + gzipBody.length + OVERHEAD_BYTES;
+    }
+
+    private static byte[] gzip(byte[] body)
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try(GZIPOutputStream gz = new GZIPOutputStream(out, 8192))
+        {
+            gz.write(body);
+        } catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,123 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import gov.nasa.gsfc.gmsec.gmoc.Options;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Converts pass schedules between the CSV file format and
+ * BinaryScheduleFormat. Converting a CSV to binary and back gives the same
+ * bytes.
+ *
+ * Run from the packaged jar with
+ *      java -cp gmoc.jar -Dloader.main=gov.nasa.gsfc.gmsec.gmoc.model.ScheduleCsvConverter \
+ *           org.springframework.boot.loader.PropertiesLauncher in.csv out.bin
+ */
+public class ScheduleCsvConverter
+{
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    private ScheduleCsvConverter()
+    {
+    }
+
+    /**
+     * Read CSV rows of category,datestamp,+hh:mm:ss,start label,end label.
+     * Datestamps carry no offset, so local times in the repeated hour when
+     * daylight saving time ends parse to standard time, as SimpleDateFormat
+     * does.
+     */
+    public static PassTable readCsv(Path csv, TimeZone zone) throws IOException
+    {
+        return new ScheduleCsvParser(zone).parse(csv);
+    }
+
+    public static void writeBinary(PassTable table, Path bin) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        try(FileChannel channel = FileChannel.open(bin, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+        {
+            BinaryScheduleFormat.write(table, buffer, rows -> {
+                while(rows.hasRemaining()) channel.write(rows);
+            });
+        }
+    }
+
+    /**
+     * Write every record of a binary schedule as CSV rows, each followed by
+     * newline. One encoder is kept per distinct row shape.
+     */
+    public static void writeCsv(MappedScheduleReader reader, OutputStream out, byte[] newline,
+                                Options.DateFormat format, TimeZone zone) throws IOException
+    {
+        DateStampFormatter dateStamp = new DateStampFormatter(format, zone);
+        Map<String, PassRowEncoder> encoders = new HashMap<>();
+        byte[] buf = new byte[BUFFER_SIZE];
+        int pos = 0;
+        for(int i = 0; i < reader.size(); i++)
+        {
+            String category = reader.categoryOf(i);
+            int duration = reader.durationOf(i);
+            String startLabel = reader.startLabelOf(i);
+            String endLabel = reader.endLabelOf(i);
+            String key = category + '\0' + duration + '\0' + startLabel + '\0' + endLabel;
+            PassRowEncoder encoder = encoders.get(key);
+            if(encoder == null)
+            {
+                encoder = PassRowEncoder.forFields(category, duration, startLabel, endLabel, dateStamp);
+                encoders.put(key, encoder);
+            }
+            if(pos + encoder.maxRowLength() + newline.length > buf.length)
+            {
+                out.write(buf, 0, pos);
+                pos = 0;
+            }
+            pos = encoder.encode(reader.startOf(i), buf, pos);
+            System.arraycopy(newline, 0, buf, pos, newline.length);
+            pos += newline.length;
+        }
+        out.write(buf, 0, pos);
+    }
+
+    /**
+     * ScheduleCsvConverter in.csv out.bin | in.bin out.csv [DAY_IN_YEAR|MONTH_IN_YEAR]
+     */
+    public static void main(String[] args) throws IOException
+    {
+        if(args.length < 2)
+        {
+            System.err.println("Usage: ScheduleCsvConverter in.csv out.bin | in.bin out.csv [DAY_IN_YEAR|MONTH_IN_YEAR]");
+            System.exit(1);
+        }
+        Path in = Paths.get(args[0]);
+        Path out = Paths.get(args[1]);
+        if(in.toString().endsWith(BinaryScheduleFormat.FILE_EXTENSION))
+        {
+            Options.DateFormat format = args.length > 2
+                    ? Options.DateFormat.valueOf(args[2]) : Options.DateFormat.DAY_IN_YEAR;
+            try(MappedScheduleReader reader = new MappedScheduleReader(in);
+                OutputStream stream = new BufferedOutputStream(Files.newOutputStream(out)))
+            {
+                writeCsv(reader, stream, System.lineSeparator().getBytes(StandardCharsets.US_ASCII),
+                        format, TimeZone.getDefault());
+            }
+        }
+        else
+        {
+            writeBinary(readCsv(in, TimeZone.getDefault()), out);
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Parses externally supplied pass schedule files into a PassTable. Rows
+ * have the same five fields the generator writes:
+ *
+ * WIRE,2016-335-13:00:00,+00:02:00,AOS WIRE,LOS WIRE
+ *
+ * The file is memory mapped and scanned byte by byte. Datestamps in either
+ * Options.DateFormat and "+hh:mm:ss" durations are parsed straight into
+ * epoch and duration seconds, and the text fields are only decoded when
+ * they differ from the previous row's. Lines end in LF or CRLF, blank lines
+ * are skipped and any malformed row fails the parse with its line number.
+ *
+ * Given a pool, files of more than MIN_PARALLEL_BYTES per thread are split
+ * at line boundaries and the pieces parsed concurrently.
+ */
+public class ScheduleCsvParser
+{
+    static final int MIN_PARALLEL_BYTES = 4 * 1024 * 1024;
+    private static final long SECONDS_PER_DAY = 86400L;
+    private static final int[] DAYS_BEFORE_MONTH = {0, 31, 59, 90, 120, 151, 181, 212, 243, 273, 304, 334};
+
+    private final ZoneTransitions transitions;
+
+    /**
+     * @param zone zone the datestamps are local to
+     */
+    public ScheduleCsvParser(TimeZone zone)
+    {
+        this.transitions = ZoneTransitions.of(zone);
+    }
+
+    public PassTable parse(Path file) throws IOException
+    {
+        return parse(file, null);
+    }
+
+    /**
+     * @param pool pool to parse large files on, or null to parse on the caller
+     */
+    public PassTable parse(Path file, ForkJoinPool pool) throws IOException
+    {
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            long length = channel.size();
+            if(length > Integer.MAX_VALUE)
+                throw new IOException(file + " is too large to parse: " + length);
+            return parse(channel.map(FileChannel.MapMode.READ_ONLY, 0, length), pool);
+        } catch (ScheduleFormatException e)
+        {
+            throw new ScheduleFormatException(file + ":" + e.getMessage());
+        }
+    }
+
+    /**
+     * Parse the bytes between position and limit of data.
+     */
+    public PassTable parse(ByteBuffer data, ForkJoinPool pool) throws ScheduleFormatException
+    {
+        int from = data.position();
+        int to = data.limit();
+        int parts = pool == null ? 1 : Math.min(pool.getParallelism(), (to - from) / MIN_PARALLEL_BYTES);
+        if(parts <= 1)
+        {
+            return parseChecked(data, from, to).build();
+        }
+
+        List<Callable<PassTable.Builder>> tasks = new ArrayList<>(parts);
+        int start = from;
+        for(int p = 1; p <= parts; p++)
+        {
+            int end = p == parts ? to : nextLine(data, from + (int) ((long) (to - from) * p / parts), to);
+            final int partStart = start;
+            final int partEnd = Math.max(start, end);
+            tasks.add(() -> parseChecked(data, partStart, partEnd));
+            start = partEnd;
+        }
+        PassTable.Builder table = null;
+        try
+        {
+            for(Future<PassTable.Builder> part : pool.invokeAll(tasks))
+            {
+                if(table == null) table = part.get();
+                else table.addAll(part.get());
+            }
+        } catch (ExecutionException e)
+        {
+            if(e.getCause() instanceof ScheduleFormatException)
+                throw (ScheduleFormatException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted parsing schedule", e);
+        }
+        return table.build();
+    }
+
+    private PassTable.Builder parseChecked(ByteBuffer data, int from, int to) throws ScheduleFormatException
+    {
+        Rows rows = new Rows(data);
+        try
+        {
+            rows.parse(from, to);
+        } catch (RowException e)
+        {
+            throw new ScheduleFormatException("line " + lineOf(data, e.offset) + ": " + e.getMessage());
+        }
+        return rows.builder;
+    }
+
+    private static int nextLine(ByteBuffer data, int pos, int to)
+    {
+        while(pos < to && data.get(pos - 1) != '\n') pos++;
+        return pos;
+    }
+
+    // Only counted when reporting an error, so the parts need not know where they start
+    private static int lineOf(ByteBuffer data, int offset)
+    {
+        int line = 1;
+        for(int i = 0; i < offset; i++)
+        {
+            if(data.get(i) == '\n') line++;
+        }
+        return line;
+    }
+
+    /**
+     * Malformed row. The message starts with the line number, and with the
+     * file when parsing a file.
+     */
+    public static class ScheduleFormatException extends IOException
+    {
+        private static final long serialVersionUID = 1L;
+
+        public ScheduleFormatException(String message)
+        {
+            super(message);
+        }
+    }
+
+    private static class RowException extends RuntimeException
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final int offset;
+
+        RowException(int offset, String message)
+        {
+            super(message, null, false, false);
+            this.offset = offset;
+        }
+    }
+
+    /**
+     * Parser state for one thread: the builder, the last value of each text
+     * field and the UTC offset of the current local day.
+     */
+    private class Rows
+    {
+        private final ByteBuffer data;
+        private final PassTable.Builder builder = new PassTable.Builder();
+        private final byte[][] lastField = {new byte[64], new byte[64], new byte[64]};
+        private final int[] lastLength = {-1, -1, -1};
+        private final short[] lastId = new short[3];
+        private long cachedDay = Long.MIN_VALUE;
+        private int cachedOffset;
+        private boolean transitionDay;
+
+        Rows(ByteBuffer data)
+        {
+            this.data = data;
+        }
+
+        void parse(int from, int to)
+        {
+            int pos = from;
+            while(pos < to)
+            {
+                int end = pos;
+                while(end < to && data.get(end) != '\n') end++;
+                int lineEnd = end > pos && data.get(end - 1) == '\r' ? end - 1 : end;
+                if(lineEnd > pos) row(pos, lineEnd);
+                pos = end + 1;
+            }
+        }
+
+        private void row(int pos, int end)
+        {
+            int c1 = comma(pos, end);
+            int c2 = comma(c1 + 1, end);
+            int c3 = comma(c2 + 1, end);
+            int c4 = comma(c3 + 1, end);
+            for(int i = c4 + 1; i < end; i++)
+            {
+                if(data.get(i) == ',') throw new RowException(pos, "expected 5 fields");
+            }
+            if(c1 == pos) throw new RowException(pos, "empty category");
+            long start = datestamp(c1 + 1, c2);
+            int duration = duration(c2 + 1, c3);
+            builder.add(start, duration, field(0, pos, c1), field(1, c3 + 1, c4), field(2, c4 + 1, end));
+        }
+
+        private int comma(int pos, int end)
+        {
+            while(pos < end && data.get(pos) != ',') pos++;
+            if(pos == end) throw new RowException(pos, "expected 5 fields");
+            return pos;
+        }
+
+        private short field(int slot, int from, int to)
+        {
+            int length = to - from;
+            byte[] last = lastField[slot];
+            if(length == lastLength[slot])
+            {
+                int i = 0;
+                while(i < length && last[i] == data.get(from + i)) i++;
+                if(i == length) return lastId[slot];
+            }
+            if(length > last.length) last = lastField[slot] = new byte[length];
+            for(int i = 0; i < length; i++) last[i] = data.get(from + i);
+            lastLength[slot] = length;
+            lastId[slot] = builder.intern(new String(last, 0, length, StandardCharsets.UTF_8));
+            return lastId[slot];
+        }
+
+        /**
+         * yyyy-DDD-HH:mm:ss or yyyy-MM-dd-HH:mm:ss local time to epoch seconds.
+         */
+        private long datestamp(int p, int end)
+        {
+            if(end - p != 17 && end - p != 19)
+                throw new RowException(p, "expected yyyy-DDD-HH:mm:ss or yyyy-MM-dd-HH:mm:ss datestamp");
+            int year = digits(p, 4);
+            expect(p + 4, '-');
+            long epochDay = DateStampFormatter.daysBeforeYear(year);
+            boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+            int time;
+            if(end - p == 17)
+            {
+                int dayOfYear = digits(p + 5, 3);
+                if(dayOfYear < 1 || dayOfYear > (leap ? 366 : 365))
+                    throw new RowException(p, "day of year out of range: " + dayOfYear);
+                epochDay += dayOfYear - 1;
+                time = p + 9;
+            }
+            else
+            {
+                int month = digits(p + 5, 2);
+                expect(p + 7, '-');
+                int day = digits(p + 8, 2);
+                if(month < 1 || month > 12)
+                    throw new RowException(p, "month out of range: " + month);
+                int monthLength = (month == 12 ? 365 : DAYS_BEFORE_MONTH[month]) - DAYS_BEFORE_MONTH[month - 1]
+                        + (leap && month == 2 ? 1 : 0);
+                if(day < 1 || day > monthLength)
+                    throw new RowException(p, "day of month out of range: " + day);
+                epochDay += DAYS_BEFORE_MONTH[month - 1] + (leap && month > 2 ? 1 : 0) + day - 1;
+                time = p + 11;
+            }
+            expect(time - 1, '-');
+            int secondOfDay = clock(time, 24);
+            long local = epochDay * SECONDS_PER_DAY + secondOfDay;
+            return local - offset(epochDay, local);
+        }
+
+        private int duration(int p, int end)
+        {
+            if(end - p != 9 || data.get(p) != '+')
+                throw new RowException(p, "expected +hh:mm:ss pass duration");
+            return clock(p + 1, 100);
+        }
+
+        // hh:mm:ss to seconds
+        private int clock(int p, int hourLimit)
+        {
+            int hours = digits(p, 2);
+            expect(p + 2, ':');
+            int minutes = digits(p + 3, 2);
+            expect(p + 5, ':');
+            int seconds = digits(p + 6, 2);
+            if(hours >= hourLimit || minutes > 59 || seconds > 59)
+                throw new RowException(p, "time out of range");
+            return hours * 3600 + minutes * 60 + seconds;
+        }
+
+        private int digits(int p, int count)
+        {
+            int value = 0;
+            for(int i = p; i < p + count; i++)
+            {
+                int digit = data.get(i) - '0';
+                if(digit < 0 || digit > 9) throw new RowException(i, "expected digit");
+                value = value * 10 + digit;
+            }
+            return value;
+        }
+
+        private void expect(int p, char c)
+        {
+            if(data.get(p) != c) throw new RowException(p, "expected '" + c + "'");
+        }
+
+        /**
+         * UTC offset in seconds for a local time. Cached per local day;
+         * only days with a transition look it up row by row.
+         */
+        private int offset(long epochDay, long local)
+        {
+            if(epochDay != cachedDay)
+            {
+                long midnight = epochDay * SECONDS_PER_DAY;
+                cachedOffset = offsetAt(midnight);
+                transitionDay = offsetAt(midnight + SECONDS_PER_DAY - 1) != cachedOffset;
+                cachedDay = epochDay;
+            }
+            return transitionDay ? offsetAt(local) : cachedOffset;
+        }
+
+        /**
+         * Like SimpleDateFormat, local times repeated when the offset falls
+         * back take the later offset, and local times skipped when it
+         * springs forward take the earlier one.
+         */
+        private int offsetAt(long local)
+        {
+            return transitions.offsetOfLocal(local, true);
+        }
+    }
+}
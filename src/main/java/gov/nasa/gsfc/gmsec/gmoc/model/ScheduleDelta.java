@@ -0,0 +1,242 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What changed from one schedule version to another, in time order, as
+ * returned by /schedule/diff and written as the delta file next to the
+ * schedule file. A pass is identified by its category and AOS.
+ *
+ * Delta file, one line per row, rows exactly as in the schedule file
+ *     # <schedule file> version <from> to <to>: <counts>
+ *     + <row>             inserted
+ *     - <row>             removed
+ *     < <row>             shifted or updated, the old row,
+ *     > <row>             directly followed by the new one
+ */
+public class ScheduleDelta
+{
+    public enum Type
+    {
+        /** In the new version only */
+        INSERT,
+        /** In the old version only */
+        REMOVE,
+        /** Same pass, moved: a new AOS or LOS */
+        SHIFT,
+        /** Same AOS and LOS, other fields of the row changed */
+        UPDATE
+    }
+
+    /**
+     * One changed pass. Old times and row are null for an insertion, new
+     * ones for a removal.
+     */
+    public static class Change
+    {
+        private final Type type;
+        private final String category;
+        private final Long oldAos;
+        private final Long oldLos;
+        private final Long aos;
+        private final Long los;
+        private final String oldRow;
+        private final String row;
+
+        public Change(Type type, String category, Long oldAos, Long oldLos, Long aos, Long los, String oldRow,
+                      String row)
+        {
+            this.type = type;
+            this.category = category;
+            this.oldAos = oldAos;
+            this.oldLos = oldLos;
+            this.aos = aos;
+            this.los = los;
+            this.oldRow = oldRow;
+            this.row = row;
+        }
+
+        public Type getType()
+        {
+            return type;
+        }
+
+        public String getCategory()
+        {
+            return category;
+        }
+
+        public Long getOldAos()
+        {
+            return oldAos;
+        }
+
+        public Long getOldLos()
+        {
+            return oldLos;
+        }
+
+        public Long getAos()
+        {
+            return aos;
+        }
+
+        public Long getLos()
+        {
+            return los;
+        }
+
+        public String getOldRow()
+        {
+            return oldRow;
+        }
+
+        public String getRow()
+        {
+            return row;
+        }
+
+        /**
+         * @return the AOS the change is ordered by, the new one unless removed
+         */
+        long at()
+        {
+            return aos != null ? aos : oldAos;
+        }
+    }
+
+    private final long fromVersion;
+    private final long toVersion;
+    private final String fileName;
+    private final long unchanged;
+    private final int inserted;
+    private final int removed;
+    private final int shifted;
+    private final int updated;
+    private final List<Change> changes;
+
+    public ScheduleDelta(long fromVersion, long toVersion, String fileName, long unchanged, List<Change> changes)
+    {
+        this.fromVersion = fromVersion;
+        this.toVersion = toVersion;
+        this.fileName = fileName;
+        this.unchanged = unchanged;
+        this.changes = Collections.unmodifiableList(changes);
+        int[] counts = new int[Type.values().length];
+        for(Change change : changes) counts[change.type.ordinal()]++;
+        inserted = counts[Type.INSERT.ordinal()];
+        removed = counts[Type.REMOVE.ordinal()];
+        shifted = counts[Type.SHIFT.ordinal()];
+        updated = counts[Type.UPDATE.ordinal()];
+    }
+
+    public long getFromVersion()
+    {
+        return fromVersion;
+    }
+
+    /**
+     * @return true for a delta from version 0, every pass inserted: replace
+     * the whole schedule rather than applying it
+     */
+    public boolean isFull()
+    {
+        return fromVersion == 0;
+    }
+
+    public long getToVersion()
+    {
+        return toVersion;
+    }
+
+    /**
+     * @return schedule file of the new version
+     */
+    public String getFileName()
+    {
+        return fileName;
+    }
+
+    public long getUnchanged()
+    {
+        return unchanged;
+    }
+
+    public int getInserted()
+    {
+        return inserted;
+    }
+
+    public int getRemoved()
+    {
+        return removed;
+    }
+
+    public int getShifted()
+    {
+        return shifted;
+    }
+
+    public int getUpdated()
+    {
+        return updated;
+    }
+
+    public List<Change> getChanges()
+    {
+        return changes;
+    }
+
+    /**
+     * Write the delta file through buffer, rows ending in newline.
+     */
+    public void writeTo(ByteBuffer buffer, byte[] newline, BufferSink sink) throws IOException
+    {
+        buffer.clear();
+        put(buffer, sink, "# " + fileName + " version " + fromVersion + " to " + toVersion + ": " + this, newline);
+        for(Change change : changes)
+        {
+            switch(change.type)
+            {
+                case INSERT:
+                    put(buffer, sink, "+ " + change.row, newline);
+                    break;
+                case REMOVE:
+                    put(buffer, sink, "- " + change.oldRow, newline);
+                    break;
+                default:
+                    put(buffer, sink, "< " + change.oldRow, newline);
+                    put(buffer, sink, "> " + change.row, newline);
+            }
+        }
+        buffer.flip();
+        if(buffer.hasRemaining()) sink.write(buffer);
+        buffer.clear();
+    }
+
+    private static void put(ByteBuffer buffer, BufferSink sink, String line, byte[] newline) throws IOException
+    {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        if(buffer.remaining() < bytes.length + newline.length)
+        {
+            buffer.flip();
+            sink.write(buffer);
+            buffer.clear();
+            if(buffer.remaining() < bytes.length + newline.length)
+                throw new IOException("Delta row of " + bytes.length + " bytes does not fit the write buffer");
+        }
+        buffer.put(bytes);
+        buffer.put(newline);
+    }
+
+    @Override
+    public String toString()
+    {
+        return inserted + " inserted, " + removed + " removed, " + shifted + " shifted, " + updated + " updated, "
+                + unchanged + " unchanged";
+    }
+}
@@ -0,0 +1,258 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Diff of two schedule versions in one linear merge of their passes in
+ * time order, each side streamed through a ScheduleMerger.
+ *
+ * Passes starting at the same second are the same pass when they have the
+ * same category; their rows are encoded and compared, so a pass is only
+ * reported when its row changed. Passes found on one side only are held
+ * per category, and a pass removed and one inserted within maxShiftSeconds
+ * of each other are paired, in time order, as one shifted pass. Whatever
+ * is left unpaired is removed or inserted. Only changed passes are
+ * encoded to Strings; memory is the pending passes and the result.
+ */
+public final class ScheduleDiff
+{
+    public static final int DEFAULT_MAX_SHIFT_SECONDS = 900;
+
+    private ScheduleDiff()
+    {
+    }
+
+    /**
+     * @return every pass of to as inserted, a full delta from version 0
+     */
+    public static ScheduleDelta full(ScheduleSnapshot to)
+    {
+        return diff(new ScheduleSnapshot(0, to.getDate(), to.getFileName(), Collections.emptyList()), to, 0);
+    }
+
+    public static ScheduleDelta diff(ScheduleSnapshot from, ScheduleSnapshot to, int maxShiftSeconds)
+    {
+        if(maxShiftSeconds < 0)
+            throw new IllegalArgumentException("maxShift must not be negative: " + maxShiftSeconds);
+        Side old = new Side(from);
+        Side next = new Side(to);
+        List<ScheduleDelta.Change> changes = new ArrayList<>();
+        Map<String, Pending> pending = new HashMap<>();
+        long unchanged = 0;
+        boolean[] matched = new boolean[16];
+
+        old.advance();
+        next.advance();
+        while(old.has || next.has)
+        {
+            long t = Math.min(old.has ? old.aos : Long.MAX_VALUE, next.has ? next.aos : Long.MAX_VALUE);
+            int oldCount = old.group(t);
+            int newCount = next.group(t);
+            int[] oldGroup = old.group;
+            int[] newGroup = next.group;
+            if(matched.length < oldCount) matched = new boolean[2 * oldCount];
+            for(int o = 0; o < oldCount; o++) matched[o] = false;
+            for(int n = 0; n < newCount; n++)
+            {
+                int nm = newGroup[2 * n];
+                int np = newGroup[2 * n + 1];
+                String category = next.categories[nm];
+                int o = 0;
+                while(o < oldCount && (matched[o] || !old.categories[oldGroup[2 * o]].equals(category))) o++;
+                if(o == oldCount)
+                {
+                    pending(pending, category).inserted(next.pass(nm, np), maxShiftSeconds, changes);
+                    continue;
+                }
+                matched[o] = true;
+                int om = oldGroup[2 * o];
+                int op = oldGroup[2 * o + 1];
+                if(old.sameRow(om, op, next, nm, np))
+                {
+                    unchanged++;
+                    continue;
+                }
+                Pass before = old.pass(om, op);
+                Pass after = next.pass(nm, np);
+                changes.add(change(before.los == after.los ? ScheduleDelta.Type.UPDATE : ScheduleDelta.Type.SHIFT,
+                        before, after));
+            }
+            for(int o = 0; o < oldCount; o++)
+            {
+                if(matched[o])
+                    continue;
+                Pass removed = old.pass(oldGroup[2 * o], oldGroup[2 * o + 1]);
+                pending(pending, removed.category).removed(removed, maxShiftSeconds, changes);
+            }
+        }
+        for(Pending unpaired : pending.values()) unpaired.flush(Long.MAX_VALUE, changes);
+        changes.sort(Comparator.comparingLong(ScheduleDelta.Change::at)
+                .thenComparing(ScheduleDelta.Change::getCategory));
+        return new ScheduleDelta(from.getVersion(), to.getVersion(), to.getFileName(), unchanged, changes);
+    }
+
+    private static Pending pending(Map<String, Pending> pending, String category)
+    {
+        return pending.computeIfAbsent(category, c -> new Pending());
+    }
+
+    private static ScheduleDelta.Change change(ScheduleDelta.Type type, Pass before, Pass after)
+    {
+        return new ScheduleDelta.Change(type, after != null ? after.category : before.category,
+                before != null ? before.aos : null, before != null ? before.los : null,
+                after != null ? after.aos : null, after != null ? after.los : null,
+                before != null ? before.row : null, after != null ? after.row : null);
+    }
+
+    /**
+     * A pass found on one side only, with its row.
+     */
+    private static final class Pass
+    {
+        final String category;
+        final long aos;
+        final long los;
+        final String row;
+
+        Pass(String category, long aos, long los, String row)
+        {
+            this.category = category;
+            this.aos = aos;
+            this.los = los;
+            this.row = row;
+        }
+    }
+
+    /**
+     * One category's unpaired passes, each side in time order.
+     */
+    private static final class Pending
+    {
+        final ArrayDeque<Pass> removed = new ArrayDeque<>();
+        final ArrayDeque<Pass> inserted = new ArrayDeque<>();
+
+        void removed(Pass pass, int maxShift, List<ScheduleDelta.Change> changes)
+        {
+            flush(pass.aos - maxShift, changes);
+            if(inserted.isEmpty()) removed.add(pass);
+            else changes.add(change(ScheduleDelta.Type.SHIFT, pass, inserted.poll()));
+        }
+
+        void inserted(Pass pass, int maxShift, List<ScheduleDelta.Change> changes)
+        {
+            flush(pass.aos - maxShift, changes);
+            if(removed.isEmpty()) inserted.add(pass);
+            else changes.add(change(ScheduleDelta.Type.SHIFT, removed.poll(), pass));
+        }
+
+        /**
+         * Give up pairing passes starting before t.
+         */
+        void flush(long t, List<ScheduleDelta.Change> changes)
+        {
+            while(!removed.isEmpty() && removed.peek().aos < t)
+                changes.add(change(ScheduleDelta.Type.REMOVE, removed.poll(), null));
+            while(!inserted.isEmpty() && inserted.peek().aos < t)
+                changes.add(change(ScheduleDelta.Type.INSERT, null, inserted.poll()));
+        }
+    }
+
+    /**
+     * One version's passes in time order, with an encoder per mission.
+     */
+    private static final class Side
+    {
+        final PassIndex[] indexes;
+        final String[] categories;
+        final PassRowEncoder[] encoders;
+        final byte[][] rows;
+        final ScheduleMerger merger;
+        int[] group = new int[16];
+        boolean has;
+        int mission;
+        int pass;
+        long aos;
+
+        Side(ScheduleSnapshot snapshot)
+        {
+            List<MissionSchedule> missions = snapshot.getMissions();
+            indexes = new PassIndex[missions.size()];
+            categories = new String[missions.size()];
+            encoders = new PassRowEncoder[missions.size()];
+            rows = new byte[missions.size()][];
+            for(int m = 0; m < indexes.length; m++)
+            {
+                indexes[m] = missions.get(m).getIndex();
+                categories[m] = missions.get(m).getMission().getCategory();
+                encoders[m] = missions.get(m).newEncoder();
+                rows[m] = new byte[encoders[m].maxRowLength()];
+            }
+            merger = new ScheduleMerger(indexes);
+        }
+
+        void advance()
+        {
+            has = merger.advance();
+            if(has)
+            {
+                mission = merger.mission();
+                pass = merger.pass();
+                aos = merger.start();
+            }
+        }
+
+        /**
+         * Take the passes starting at t into group as mission, pass pairs.
+         * @return how many
+         */
+        int group(long t)
+        {
+            int count = 0;
+            while(has && aos == t)
+            {
+                if(2 * count == group.length) group = Arrays.copyOf(group, 2 * group.length);
+                group[2 * count] = mission;
+                group[2 * count + 1] = pass;
+                count++;
+                advance();
+            }
+            return count;
+        }
+
+        int encode(int m, int p)
+        {
+            return encoders[m].encode(indexes[m].startOf(p), rows[m], 0);
+        }
+
+        boolean sameRow(int m, int p, Side other, int om, int op)
+        {
+            if(indexes[m].endOf(p) != other.indexes[om].endOf(op))
+                return false;
+            int length = encode(m, p);
+            if(other.encode(om, op) != length)
+                return false;
+            byte[] row = rows[m];
+            byte[] otherRow = other.rows[om];
+            for(int i = 0; i < length; i++)
+            {
+                if(row[i] != otherRow[i]) return false;
+            }
+            return true;
+        }
+
+        Pass pass(int m, int p)
+        {
+            int length = encode(m, p);
+            return new Pass(categories[m], indexes[m].startOf(p), indexes[m].endOf(p),
+                    new String(rows[m], 0, length, StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * An output format for the passes of a schedule, written in time order
+ * straight from the missions' PassIndexes through a PassRecord, into
+ * bytes without a String per pass. Implementations are stateless and
+ * shared; the built-in ones are in ScheduleEncoders, picked by getName()
+ * with schedule.file.format and by media type for /schedule.
+ */
+public interface ScheduleEncoder
+{
+    int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * @return name selecting the format in schedule.file.format
+     */
+    String getName();
+
+    /**
+     * @return media types of the format, the one responses are sent as first
+     */
+    List<String> getMediaTypes();
+
+    /**
+     * @return extension of schedule files in the format, such as ".csv"
+     */
+    String getFileExtension();
+
+    /**
+     * @return true for a text format, sent and written as UTF-8
+     */
+    default boolean isText()
+    {
+        return true;
+    }
+
+    /**
+     * Write passes, at most limit of them when limit is not negative,
+     * records separated by newline, through buffer. The buffer, which may
+     * be direct, is handed to sink whenever it is full and once more at the
+     * end.
+     */
+    void encode(SchedulePasses passes, long limit, byte[] newline, ByteBuffer buffer, BufferSink sink)
+            throws IOException;
+
+    default void encode(SchedulePasses passes, long limit, byte[] newline, OutputStream out) throws IOException
+    {
+        encode(passes, limit, newline, ByteBuffer.allocate(BUFFER_SIZE), rows -> {
+            out.write(rows.array(), rows.arrayOffset() + rows.position(), rows.remaining());
+            rows.position(rows.limit());
+        });
+    }
+}
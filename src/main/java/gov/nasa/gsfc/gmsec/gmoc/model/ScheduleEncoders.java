@@ -0,0 +1,57 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The built-in ScheduleEncoders.
+ */
+public final class ScheduleEncoders
+{
+    public static final ScheduleEncoder CSV = new CsvScheduleEncoder();
+    public static final ScheduleEncoder JSON_LINES = new JsonLinesScheduleEncoder();
+    public static final ScheduleEncoder JSON_COLUMNS = new JsonColumnsScheduleEncoder();
+    public static final ScheduleEncoder BINARY = new BinaryScheduleEncoder();
+
+    private static final List<ScheduleEncoder> ALL = Collections.unmodifiableList(
+            Arrays.asList(CSV, JSON_LINES, JSON_COLUMNS, BINARY));
+
+    private ScheduleEncoders()
+    {
+    }
+
+    /**
+     * @return every format, CSV, the default, first
+     */
+    public static List<ScheduleEncoder> all()
+    {
+        return ALL;
+    }
+
+    /**
+     * @throws IllegalArgumentException for an unknown format
+     */
+    public static ScheduleEncoder forName(String name)
+    {
+        for(ScheduleEncoder encoder : ALL)
+        {
+            if(encoder.getName().equalsIgnoreCase(name)) return encoder;
+        }
+        throw new IllegalArgumentException("Unknown schedule format " + name + ", expected one of " + names());
+    }
+
+    /**
+     * @return names of the formats, comma separated
+     */
+    public static String names()
+    {
+        StringBuilder sb = new StringBuilder();
+        for(ScheduleEncoder encoder : ALL)
+        {
+            if(sb.length() > 0) sb.append(", ");
+            sb.append(encoder.getName());
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,141 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+/**
+ * Streaming k-way merge of per-mission pass indexes into one time-ordered
+ * sequence, using a binary heap of mission slots keyed on the start of
+ * each mission's next pass. Passes starting at the same second come out
+ * in mission order. O(log k) per pass, nothing is concatenated or sorted.
+ *
+ *     ScheduleMerger merger = new ScheduleMerger(indexes);
+ *     while(merger.advance())
+ *         write(merger.mission(), merger.pass());
+ */
+public class ScheduleMerger
+{
+    private final PassIndex[] indexes;
+    private final int[] next;
+    private final int[] end;
+    private final long[] key;
+    private final int[] heap;
+    private int heapSize;
+    private int mission = -1;
+    private int pass = -1;
+
+    public ScheduleMerger(PassIndex[] indexes)
+    {
+        this(indexes, new int[indexes.length], sizes(indexes));
+    }
+
+    /**
+     * Merge passes [from[m], to[m]) of each index m.
+     */
+    public ScheduleMerger(PassIndex[] indexes, int[] from, int[] to)
+    {
+        this.indexes = indexes;
+        this.next = from.clone();
+        this.end = to;
+        this.key = new long[indexes.length];
+        this.heap = new int[indexes.length];
+        for(int m = 0; m < indexes.length; m++)
+        {
+            if(next[m] < end[m])
+            {
+                key[m] = indexes[m].startOf(next[m]);
+                heap[heapSize] = m;
+                siftUp(heapSize++);
+            }
+        }
+    }
+
+    /**
+     * Move to the next pass in time order.
+     * @return false once every index is exhausted
+     */
+    public boolean advance()
+    {
+        if(heapSize == 0)
+        {
+            mission = -1;
+            pass = -1;
+            return false;
+        }
+        int m = heap[0];
+        mission = m;
+        pass = next[m]++;
+        if(next[m] < end[m])
+        {
+            key[m] = indexes[m].startOf(next[m]);
+        }
+        else
+        {
+            heap[0] = heap[--heapSize];
+        }
+        siftDown(0);
+        return true;
+    }
+
+    /**
+     * @return slot of the current pass's mission in the indexes array
+     */
+    public int mission()
+    {
+        return mission;
+    }
+
+    /**
+     * @return index of the current pass within its mission
+     */
+    public int pass()
+    {
+        return pass;
+    }
+
+    public long start()
+    {
+        return indexes[mission].startOf(pass);
+    }
+
+    private boolean less(int a, int b)
+    {
+        return key[a] < key[b] || (key[a] == key[b] && a < b);
+    }
+
+    private void siftUp(int i)
+    {
+        int m = heap[i];
+        while(i > 0)
+        {
+            int parent = (i - 1) >>> 1;
+            if(!less(m, heap[parent])) break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = m;
+    }
+
+    private void siftDown(int i)
+    {
+        if(heapSize == 0) return;
+        int m = heap[i];
+        int half = heapSize >>> 1;
+        while(i < half)
+        {
+            int child = 2 * i + 1;
+            if(child + 1 < heapSize && less(heap[child + 1], heap[child])) child++;
+            if(!less(heap[child], m)) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = m;
+    }
+
+    private static int[] sizes(PassIndex[] indexes)
+    {
+        int[] sizes = new int[indexes.length];
+        for(int m = 0; m < indexes.length; m++)
+        {
+            sizes[m] = indexes[m].size();
+        }
+        return sizes;
+    }
+}
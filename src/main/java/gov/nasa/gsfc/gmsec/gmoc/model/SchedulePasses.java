@@ -0,0 +1,118 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazy, time ordered view of the passes of a schedule's missions, or of a
+ * time window of them. Nothing is stored: passes come from the missions'
+ * PassIndexes as the stream is consumed, and the spliterator splits with
+ * exact sizes, so months of passes can be filtered, counted or processed
+ * in parallel in constant memory.
+ *
+ *     snapshot.passes().window(from, to).stream().filter(p -> p.getDuration() > 600).count();
+ *
+ * refs() streams each pass as a long packing its mission's slot in
+ * getMissions() and its index in that mission, for consumers that
+ * allocate nothing per pass, like the CSV encoders.
+ */
+public class SchedulePasses
+{
+    private final List<MissionSchedule> missions;
+    private final PassIndex[] indexes;
+    private final int[] from;
+    private final int[] to;
+
+    public SchedulePasses(List<MissionSchedule> missions)
+    {
+        this.missions = Collections.unmodifiableList(missions);
+        this.indexes = new PassIndex[missions.size()];
+        this.from = new int[indexes.length];
+        this.to = new int[indexes.length];
+        for(int m = 0; m < indexes.length; m++)
+        {
+            indexes[m] = missions.get(m).getIndex();
+            to[m] = indexes[m].size();
+        }
+    }
+
+    private SchedulePasses(SchedulePasses passes, int[] from, int[] to)
+    {
+        this.missions = passes.missions;
+        this.indexes = passes.indexes;
+        this.from = from;
+        this.to = to;
+    }
+
+    public static long ref(int mission, int pass)
+    {
+        return (long) mission << 32 | (pass & 0xffffffffL);
+    }
+
+    public static int mission(long ref)
+    {
+        return (int) (ref >>> 32);
+    }
+
+    public static int pass(long ref)
+    {
+        return (int) ref;
+    }
+
+    /**
+     * @return the passes of this view overlapping [fromSecond, toSecond)
+     */
+    public SchedulePasses window(long fromSecond, long toSecond)
+    {
+        int[] first = new int[indexes.length];
+        int[] last = new int[indexes.length];
+        for(int m = 0; m < indexes.length; m++)
+        {
+            first[m] = Math.max(from[m], indexes[m].firstEndingAfter(fromSecond));
+            last[m] = Math.max(first[m], Math.min(to[m], indexes[m].firstStartingAtOrAfter(toSecond)));
+        }
+        return new SchedulePasses(this, first, last);
+    }
+
+    public List<MissionSchedule> getMissions()
+    {
+        return missions;
+    }
+
+    public long size()
+    {
+        long size = 0;
+        for(int m = 0; m < indexes.length; m++)
+        {
+            size += to[m] - from[m];
+        }
+        return size;
+    }
+
+    public Spliterator.OfLong spliterator()
+    {
+        return new PassSpliterator(indexes, from, to);
+    }
+
+    public LongStream refs()
+    {
+        return StreamSupport.longStream(spliterator(), false);
+    }
+
+    public Stream<PassInfo> stream()
+    {
+        return refs().mapToObj(this::info);
+    }
+
+    public PassInfo info(long ref)
+    {
+        int m = mission(ref);
+        int pass = pass(ref);
+        return new PassInfo(pass, missions.get(m).getMission().getCategory(),
+                indexes[m].startOf(pass), indexes[m].endOf(pass));
+    }
+}
@@ -0,0 +1,96 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What reloading the options did to the published schedule, by mission
+ * category: relabeled missions kept their passes and only got new row
+ * fragments, regenerated missions kept their passes starting before the
+ * effective second and took new ones from it, added missions start at
+ * it and removed missions end there. A rebuilt schedule was generated
+ * again from scratch.
+ */
+public class ScheduleReload
+{
+    private final long version;
+    private final long effectiveSecond;
+    private final boolean rebuilt;
+    private final List<String> relabeled;
+    private final List<String> regenerated;
+    private final List<String> added;
+    private final List<String> removed;
+
+    public ScheduleReload(long version, long effectiveSecond, boolean rebuilt, List<String> relabeled,
+                          List<String> regenerated, List<String> added, List<String> removed)
+    {
+        this.version = version;
+        this.effectiveSecond = effectiveSecond;
+        this.rebuilt = rebuilt;
+        this.relabeled = Collections.unmodifiableList(relabeled);
+        this.regenerated = Collections.unmodifiableList(regenerated);
+        this.added = Collections.unmodifiableList(added);
+        this.removed = Collections.unmodifiableList(removed);
+    }
+
+    /**
+     * A reload that left the schedule as it was.
+     */
+    public static ScheduleReload unchanged(long version, long effectiveSecond)
+    {
+        List<String> none = Collections.emptyList();
+        return new ScheduleReload(version, effectiveSecond, false, none, none, none, none);
+    }
+
+    /**
+     * @return version of the published snapshot after the reload
+     */
+    public long getVersion()
+    {
+        return version;
+    }
+
+    public long getEffectiveSecond()
+    {
+        return effectiveSecond;
+    }
+
+    public boolean isRebuilt()
+    {
+        return rebuilt;
+    }
+
+    public List<String> getRelabeled()
+    {
+        return relabeled;
+    }
+
+    public List<String> getRegenerated()
+    {
+        return regenerated;
+    }
+
+    public List<String> getAdded()
+    {
+        return added;
+    }
+
+    public List<String> getRemoved()
+    {
+        return removed;
+    }
+
+    public boolean isChanged()
+    {
+        return rebuilt || !relabeled.isEmpty() || !regenerated.isEmpty() || !added.isEmpty() || !removed.isEmpty();
+    }
+
+    @Override
+    public String toString()
+    {
+        if(rebuilt) return "rebuilt as version " + version;
+        if(!isChanged()) return "unchanged at version " + version;
+        return "version " + version + " from " + effectiveSecond + ": relabeled " + relabeled
+                + ", regenerated " + regenerated + ", added " + added + ", removed " + removed;
+    }
+}
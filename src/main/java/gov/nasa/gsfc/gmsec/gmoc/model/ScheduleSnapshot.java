@@ -0,0 +1,72 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One generated pass schedule, never modified after construction.
+ * PassScheduleService publishes a new snapshot on every regeneration, so
+ * readers holding a snapshot always see a complete, consistent schedule.
+ *
+ * Only the missions' PassIndexes are kept; rows are generated from
+ * passes() by whoever needs them.
+ */
+public class ScheduleSnapshot
+{
+    private final long version;
+    private final LocalDate date;
+    private final String fileName;
+    private final List<MissionSchedule> missions;
+    private final SchedulePasses passes;
+    private final long createdMillis;
+
+    public ScheduleSnapshot(long version, LocalDate date, String fileName, List<MissionSchedule> missions)
+    {
+        this.version = version;
+        this.date = date;
+        this.fileName = fileName;
+        this.missions = Collections.unmodifiableList(missions);
+        this.passes = new SchedulePasses(missions);
+        this.createdMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * @return increasing number identifying this generation
+     */
+    public long getVersion()
+    {
+        return version;
+    }
+
+    /**
+     * @return local day the schedule covers
+     */
+    public LocalDate getDate()
+    {
+        return date;
+    }
+
+    public String getFileName()
+    {
+        return fileName;
+    }
+
+    public List<MissionSchedule> getMissions()
+    {
+        return missions;
+    }
+
+    /**
+     * @return every pass of the schedule, lazily in time order
+     */
+    public SchedulePasses passes()
+    {
+        return passes;
+    }
+
+    public long getCreatedMillis()
+    {
+        return createdMillis;
+    }
+}
@@ -0,0 +1,79 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+/**
+ * Passes [from, to) of another index, renumbered from 0, for keeping the
+ * part of a mission's schedule before or after a settings change. Nothing
+ * is copied; lookups delegate to the underlying index.
+ *
+ * The underlying passes must end in start order, as generated passes of
+ * one duration do, so that the first pass of the slice ending after t is
+ * the first of the whole index ending after t, or the slice's first pass.
+ */
+public class SlicedPassIndex implements PassIndex
+{
+    private final PassIndex index;
+    private final int from;
+    private final int to;
+
+    public SlicedPassIndex(PassIndex index, int from, int to)
+    {
+        if(from < 0 || from > to || to > index.size())
+            throw new IllegalArgumentException("Invalid slice [" + from + ", " + to + ") of " + index.size() + " passes");
+        this.index = index;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * @return the passes of index starting before t
+     */
+    public static PassIndex before(PassIndex index, long t)
+    {
+        int end = index.firstStartingAtOrAfter(t);
+        return end == index.size() ? index : new SlicedPassIndex(index, 0, end);
+    }
+
+    /**
+     * @return the passes of index starting at or after t
+     */
+    public static PassIndex from(PassIndex index, long t)
+    {
+        int start = index.firstStartingAtOrAfter(t);
+        return start == 0 ? index : new SlicedPassIndex(index, start, index.size());
+    }
+
+    @Override
+    public int size()
+    {
+        return to - from;
+    }
+
+    @Override
+    public long startOf(int index)
+    {
+        return this.index.startOf(from + index);
+    }
+
+    @Override
+    public long endOf(int index)
+    {
+        return this.index.endOf(from + index);
+    }
+
+    @Override
+    public int firstEndingAfter(long t)
+    {
+        return clamp(index.firstEndingAfter(t));
+    }
+
+    @Override
+    public int firstStartingAtOrAfter(long t)
+    {
+        return clamp(index.firstStartingAtOrAfter(t));
+    }
+
+    private int clamp(int i)
+    {
+        return Math.min(Math.max(i, from), to) - from;
+    }
+}
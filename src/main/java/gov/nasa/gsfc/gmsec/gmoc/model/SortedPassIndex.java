@@ -0,0 +1,85 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+/**
+ * Index for schedules that are not uniform, kept as sorted primitive
+ * arrays and searched by binary search, O(log n).
+ *
+ * Durations may differ per pass, so pass ends are not sorted. A running
+ * maximum of the ends is kept alongside; the first index where it passes
+ * t is the first pass ending after t.
+ */
+public class SortedPassIndex implements PassIndex
+{
+    private final long[] starts;
+    private final int[] durations;
+    private final long[] maxEnds;
+
+    /**
+     * @param starts pass start epoch seconds, ascending
+     * @param durations pass durations in seconds, same length as starts
+     */
+    public SortedPassIndex(long[] starts, int[] durations)
+    {
+        if(starts.length != durations.length)
+            throw new IllegalArgumentException("starts and durations differ in length");
+        this.starts = starts;
+        this.durations = durations;
+        this.maxEnds = new long[starts.length];
+        long max = Long.MIN_VALUE;
+        for(int i = 0; i < starts.length; i++)
+        {
+            if(i > 0 && starts[i] < starts[i - 1])
+                throw new IllegalArgumentException("Pass starts are not sorted at index " + i);
+            max = Math.max(max, starts[i] + durations[i]);
+            maxEnds[i] = max;
+        }
+    }
+
+    @Override
+    public int size()
+    {
+        return starts.length;
+    }
+
+    @Override
+    public long startOf(int index)
+    {
+        return starts[index];
+    }
+
+    @Override
+    public long endOf(int index)
+    {
+        return starts[index] + durations[index];
+    }
+
+    public int durationOf(int index)
+    {
+        return durations[index];
+    }
+
+    @Override
+    public int firstEndingAfter(long t)
+    {
+        return firstGreaterThan(maxEnds, t);
+    }
+
+    @Override
+    public int firstStartingAtOrAfter(long t)
+    {
+        return t == Long.MIN_VALUE ? 0 : firstGreaterThan(starts, t - 1);
+    }
+
+    private static int firstGreaterThan(long[] sorted, long t)
+    {
+        int low = 0;
+        int high = sorted.length;
+        while(low < high)
+        {
+            int mid = (low + high) >>> 1;
+            if(sorted[mid] > t) high = mid;
+            else low = mid + 1;
+        }
+        return low;
+    }
+}
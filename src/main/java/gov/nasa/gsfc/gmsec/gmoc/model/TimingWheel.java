@@ -0,0 +1,261 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel of LEVELS wheels of 64 slots each, as in the
+ * Linux kernel timer wheel. A level l slot covers 64^l ticks, so six levels
+ * reach 2^36 ticks, about two years of milliseconds; later deadlines wait
+ * in an overflow list.
+ *
+ * A timeout is kept in the lowest level whose slot holds its whole
+ * deadline's range from the current tick, in a doubly linked list, so
+ * schedule and cancel are O(1). When the current tick reaches a higher
+ * level slot its timeouts cascade down, each one at most LEVELS times.
+ * One bitmap word per level finds the next occupied slot, so advance()
+ * skips empty ticks instead of stepping through them.
+ *
+ * Timeouts with equal deadlines expire in the order they were scheduled.
+ * Not thread safe.
+ */
+public class TimingWheel<T>
+{
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 6;
+
+    private final Bucket<T>[][] wheels;
+    private final long[] occupied = new long[LEVELS];
+    private final Bucket<T> overflow = new Bucket<>(LEVELS, 0);
+    private long current;
+    private int size;
+
+    /**
+     * @param startTick first tick advance() will process
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long startTick)
+    {
+        current = startTick;
+        wheels = (Bucket<T>[][]) new Bucket<?>[LEVELS][SLOTS];
+        for(int level = 0; level < LEVELS; level++)
+        {
+            for(int slot = 0; slot < SLOTS; slot++)
+            {
+                wheels[level][slot] = new Bucket<>(level, slot);
+            }
+        }
+    }
+
+    /**
+     * A scheduled value, used to cancel it.
+     */
+    public static final class Timeout<T>
+    {
+        private final long deadline;
+        private final T value;
+        private Bucket<T> bucket;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+
+        private Timeout(long deadline, T value)
+        {
+            this.deadline = deadline;
+            this.value = value;
+        }
+
+        public long getDeadline()
+        {
+            return deadline;
+        }
+
+        public T getValue()
+        {
+            return value;
+        }
+
+        /**
+         * @return true until the timeout expires or is cancelled
+         */
+        public boolean isPending()
+        {
+            return bucket != null;
+        }
+    }
+
+    private static final class Bucket<T>
+    {
+        private final int level;
+        private final int slot;
+        private Timeout<T> head;
+        private Timeout<T> tail;
+
+        Bucket(int level, int slot)
+        {
+            this.level = level;
+            this.slot = slot;
+        }
+    }
+
+    /**
+     * Schedule value to expire at deadline. A deadline before the current
+     * tick expires on the next advance().
+     */
+    public Timeout<T> schedule(long deadline, T value)
+    {
+        Timeout<T> timeout = new Timeout<>(deadline, value);
+        insert(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * @return false if the timeout had already expired or been cancelled
+     */
+    public boolean cancel(Timeout<T> timeout)
+    {
+        if(timeout.bucket == null) return false;
+        unlink(timeout);
+        size--;
+        return true;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @return the next tick advance() will process
+     */
+    public long getCurrentTick()
+    {
+        return current;
+    }
+
+    /**
+     * Expire every timeout with a deadline up to and including now, in
+     * deadline order. The consumer may schedule and cancel timeouts.
+     * @return number of timeouts expired
+     */
+    public int advance(long now, Consumer<Timeout<T>> expired)
+    {
+        int count = 0;
+        while(current <= now)
+        {
+            long tick = nextTick();
+            if(tick > now)
+            {
+                current = now + 1;
+                break;
+            }
+            current = tick;
+            cascade(tick);
+            Bucket<T> bucket = wheels[0][(int) (tick & (SLOTS - 1))];
+            Timeout<T> timeout = bucket.head;
+            bucket.head = bucket.tail = null;
+            occupied[0] &= ~(1L << bucket.slot);
+            current = tick + 1;
+            while(timeout != null)
+            {
+                Timeout<T> next = timeout.next;
+                timeout.bucket = null;
+                timeout.prev = timeout.next = null;
+                size--;
+                count++;
+                expired.accept(timeout);
+                timeout = next;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the first tick at or after the current one on which a slot
+     * expires or cascades, Long.MAX_VALUE if the wheel is empty. Nothing
+     * expires before it, so a driver can sleep until then.
+     */
+    public long nextTick()
+    {
+        long next = Long.MAX_VALUE;
+        for(int level = 0; level < LEVELS; level++)
+        {
+            int shift = SLOT_BITS * level;
+            int digit = (int) ((current >>> shift) & (SLOTS - 1));
+            long slots = occupied[level] & (-1L << digit);
+            if(slots != 0)
+            {
+                long block = (current >>> (shift + SLOT_BITS)) << (shift + SLOT_BITS);
+                next = Math.min(next, block | ((long) Long.numberOfTrailingZeros(slots) << shift));
+            }
+        }
+        if(overflow.head != null)
+        {
+            int shift = SLOT_BITS * LEVELS;
+            next = Math.min(next, ((current >>> shift) + 1) << shift);
+        }
+        return next;
+    }
+
+    // Move timeouts from the higher level slots starting at tick down the wheels
+    private void cascade(long tick)
+    {
+        if((tick & ((1L << (SLOT_BITS * LEVELS)) - 1)) == 0) reinsert(overflow);
+        for(int level = LEVELS - 1; level >= 1; level--)
+        {
+            int shift = SLOT_BITS * level;
+            if((tick & ((1L << shift) - 1)) == 0)
+            {
+                reinsert(wheels[level][(int) ((tick >>> shift) & (SLOTS - 1))]);
+            }
+        }
+    }
+
+    private void reinsert(Bucket<T> bucket)
+    {
+        Timeout<T> timeout = bucket.head;
+        bucket.head = bucket.tail = null;
+        if(bucket.level < LEVELS) occupied[bucket.level] &= ~(1L << bucket.slot);
+        while(timeout != null)
+        {
+            Timeout<T> next = timeout.next;
+            timeout.prev = timeout.next = null;
+            insert(timeout);
+            timeout = next;
+        }
+    }
+
+    private void insert(Timeout<T> timeout)
+    {
+        long deadline = Math.max(timeout.deadline, current);
+        Bucket<T> bucket = overflow;
+        for(int level = 0; level < LEVELS; level++)
+        {
+            int above = SLOT_BITS * (level + 1);
+            if((deadline >>> above) == (current >>> above))
+            {
+                int slot = (int) ((deadline >>> (SLOT_BITS * level)) & (SLOTS - 1));
+                bucket = wheels[level][slot];
+                occupied[level] |= 1L << slot;
+                break;
+            }
+        }
+        timeout.bucket = bucket;
+        timeout.prev = bucket.tail;
+        if(bucket.tail == null) bucket.head = timeout;
+        else bucket.tail.next = timeout;
+        bucket.tail = timeout;
+    }
+
+    private void unlink(Timeout<T> timeout)
+    {
+        Bucket<T> bucket = timeout.bucket;
+        if(timeout.prev == null) bucket.head = timeout.next;
+        else timeout.prev.next = timeout.next;
+        if(timeout.next == null) bucket.tail = timeout.prev;
+        else timeout.next.prev = timeout.prev;
+        timeout.bucket = null;
+        timeout.prev = timeout.next = null;
+        if(bucket.head == null && bucket.level < LEVELS) occupied[bucket.level] &= ~(1L << bucket.slot);
+    }
+}
@@ -0,0 +1,69 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+/**
+ * Closed form index of an arithmetic schedule: pass k starts at
+ * firstPassStart + k * intervalSeconds and lasts durationSeconds.
+ * Every lookup is O(1) and no rows are materialized.
+ */
+public class UniformPassIndex implements PassIndex
+{
+    private final long firstPassStart;
+    private final long intervalSeconds;
+    private final int durationSeconds;
+    private final int passCount;
+
+    public UniformPassIndex(long firstPassStart, long intervalSeconds, int durationSeconds, int passCount)
+    {
+        if(intervalSeconds <= 0)
+            throw new IllegalArgumentException("Pass interval must be positive: " + intervalSeconds);
+        this.firstPassStart = firstPassStart;
+        this.intervalSeconds = intervalSeconds;
+        this.durationSeconds = durationSeconds;
+        this.passCount = passCount;
+    }
+
+    @Override
+    public int size()
+    {
+        return passCount;
+    }
+
+    @Override
+    public long startOf(int index)
+    {
+        return firstPassStart + index * intervalSeconds;
+    }
+
+    @Override
+    public long endOf(int index)
+    {
+        return startOf(index) + durationSeconds;
+    }
+
+    @Override
+    public int firstEndingAfter(long t)
+    {
+        return clamp(Math.floorDiv(t - durationSeconds - firstPassStart, intervalSeconds) + 1);
+    }
+
+    @Override
+    public int firstStartingAtOrAfter(long t)
+    {
+        return clamp(-Math.floorDiv(firstPassStart - t, intervalSeconds));
+    }
+
+    public long getIntervalSeconds()
+    {
+        return intervalSeconds;
+    }
+
+    public int getDurationSeconds()
+    {
+        return durationSeconds;
+    }
+
+    private int clamp(long index)
+    {
+        return (int) Math.max(0, Math.min(passCount, index));
+    }
+}
@@ -0,0 +1,85 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import java.util.Arrays;
+
+/**
+ * Closed form index of passes repeating every intervalSeconds within runs,
+ * one run per daily window: run r has runCounts[r] passes, the first at
+ * runStarts[r]. Only the runs are stored; lookups binary search them and
+ * are O(log runs).
+ */
+public class WindowedPassIndex implements PassIndex
+{
+    private final long[] runStarts;
+    private final int[] firstPass;
+    private final long intervalSeconds;
+    private final int durationSeconds;
+
+    /**
+     * @param runStarts ascending, each run's passes start before the next run
+     */
+    public WindowedPassIndex(long[] runStarts, int[] runCounts, long intervalSeconds, int durationSeconds)
+    {
+        if(intervalSeconds <= 0)
+            throw new IllegalArgumentException("Pass interval must be positive: " + intervalSeconds);
+        this.runStarts = runStarts.clone();
+        this.intervalSeconds = intervalSeconds;
+        this.durationSeconds = durationSeconds;
+        firstPass = new int[runStarts.length + 1];
+        for(int r = 0; r < runStarts.length; r++)
+        {
+            if(r > 0 && runStarts[r] <= runStarts[r - 1] + (runCounts[r - 1] - 1) * intervalSeconds)
+                throw new IllegalArgumentException("Pass runs overlap at " + runStarts[r]);
+            firstPass[r + 1] = Math.addExact(firstPass[r], runCounts[r]);
+        }
+    }
+
+    @Override
+    public int size()
+    {
+        return firstPass[runStarts.length];
+    }
+
+    @Override
+    public long startOf(int index)
+    {
+        int r = Arrays.binarySearch(firstPass, 0, runStarts.length, index);
+        // Skip empty runs sharing the first pass number
+        if(r >= 0) while(r + 1 < runStarts.length && firstPass[r + 1] == index) r++;
+        else r = -r - 2;
+        return runStarts[r] + (index - firstPass[r]) * intervalSeconds;
+    }
+
+    @Override
+    public long endOf(int index)
+    {
+        return startOf(index) + durationSeconds;
+    }
+
+    @Override
+    public int firstEndingAfter(long t)
+    {
+        return firstStartingAtOrAfter(t - durationSeconds + 1);
+    }
+
+    @Override
+    public int firstStartingAtOrAfter(long t)
+    {
+        int r = Arrays.binarySearch(runStarts, t);
+        if(r >= 0) return firstPass[r];
+        r = -r - 2;
+        if(r < 0) return 0;
+        long k = -Math.floorDiv(runStarts[r] - t, intervalSeconds);
+        return k < firstPass[r + 1] - firstPass[r] ? firstPass[r] + (int) k : firstPass[r + 1];
+    }
+
+    public long getIntervalSeconds()
+    {
+        return intervalSeconds;
+    }
+
+    public int getDurationSeconds()
+    {
+        return durationSeconds;
+    }
+}
@@ -0,0 +1,195 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A zone's UTC offset changes tabulated once, so converting between epoch
+ * seconds and local seconds (epoch seconds of the local date-time read as
+ * UTC) is a binary search and an addition instead of a Calendar or a
+ * ZonedDateTime per conversion. Local seconds split into fields with
+ * integer arithmetic, see DateStampFormatter.
+ *
+ * Offsets are to the second, so half-hour and historical zones convert
+ * like java.time. Transitions of zones still changing offset are tabulated
+ * until LAST_YEAR; later times fall back to the zone's ZoneRules.
+ *
+ * Tables are immutable and shared, one per zone, see of().
+ */
+public final class ZoneTransitions
+{
+    static final int LAST_YEAR = 2200;
+
+    private static final int SECONDS_PER_DAY = 86400;
+    private static final ConcurrentMap<ZoneId, ZoneTransitions> TABLES = new ConcurrentHashMap<>();
+
+    private final ZoneId zone;
+    private final ZoneRules rules;
+    // offsets[i] holds from instants[i - 1] up to instants[i]
+    private final long[] instants;
+    private final int[] offsets;
+    // First local second taking offsets[i + 1]: with the earlier offset
+    // where local times repeat, and with the later one
+    private final long[] localEarlier;
+    private final long[] localLater;
+    private final long end;
+
+    private ZoneTransitions(ZoneId zone)
+    {
+        ZoneRules rules = zone.getRules();
+        this.zone = zone;
+        this.rules = rules;
+        boolean ongoing = !rules.getTransitionRules().isEmpty();
+        end = ongoing ? LocalDateTime.of(LAST_YEAR + 1, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC) : Long.MAX_VALUE;
+
+        long[] instants = new long[64];
+        int[] offsets = new int[65];
+        int count = 0;
+        offsets[0] = rules.getOffset(Instant.MIN).getTotalSeconds();
+        for(ZoneOffsetTransition t = rules.nextTransition(Instant.MIN); t != null && t.toEpochSecond() < end;
+            t = rules.nextTransition(t.getInstant()))
+        {
+            if(count == instants.length)
+            {
+                instants = Arrays.copyOf(instants, 2 * count);
+                offsets = Arrays.copyOf(offsets, 2 * count + 1);
+            }
+            instants[count] = t.toEpochSecond();
+            offsets[count + 1] = t.getOffsetAfter().getTotalSeconds();
+            count++;
+        }
+        this.instants = Arrays.copyOf(instants, count);
+        this.offsets = Arrays.copyOf(offsets, count + 1);
+        localEarlier = new long[count];
+        localLater = new long[count];
+        for(int i = 0; i < count; i++)
+        {
+            localEarlier[i] = instants[i] + Math.max(offsets[i], offsets[i + 1]);
+            localLater[i] = instants[i] + offsets[i + 1];
+        }
+    }
+
+    public static ZoneTransitions of(ZoneId zone)
+    {
+        return TABLES.computeIfAbsent(zone, ZoneTransitions::new);
+    }
+
+    public static ZoneTransitions of(TimeZone zone)
+    {
+        return of(zone.toZoneId());
+    }
+
+    public ZoneId getZone()
+    {
+        return zone;
+    }
+
+    /**
+     * @return UTC offset in seconds at epochSecond
+     */
+    public int offsetAt(long epochSecond)
+    {
+        if(epochSecond >= end)
+            return rules.getOffset(Instant.ofEpochSecond(epochSecond)).getTotalSeconds();
+        return offsets[upperBound(instants, epochSecond)];
+    }
+
+    public long toLocalSecond(long epochSecond)
+    {
+        return epochSecond + offsetAt(epochSecond);
+    }
+
+    /**
+     * UTC offset of a local time. Local times skipped when the offset
+     * springs forward take the offset before, so they map to an instant
+     * as far after the change as they are past it. Local times repeated
+     * when the offset falls back take the earlier offset like java.time,
+     * or the later one like Calendar and SimpleDateFormat.
+     */
+    public int offsetOfLocal(long localSecond, boolean laterAtOverlap)
+    {
+        if(localSecond >= end - SECONDS_PER_DAY)
+        {
+            ZonedDateTime local = ZonedDateTime.ofLocal(LocalDateTime.ofEpochSecond(localSecond, 0, ZoneOffset.UTC),
+                    zone, null);
+            if(laterAtOverlap) local = local.withLaterOffsetAtOverlap();
+            return (int) (localSecond - local.toEpochSecond());
+        }
+        return offsets[upperBound(laterAtOverlap ? localLater : localEarlier, localSecond)];
+    }
+
+    /**
+     * @return epoch second of a local time, as LocalDateTime.atZone()
+     */
+    public long toEpochSecond(long localSecond)
+    {
+        return localSecond - offsetOfLocal(localSecond, false);
+    }
+
+    /**
+     * @return cursor for converting instants mostly in time order
+     */
+    public Cursor cursor()
+    {
+        return new Cursor();
+    }
+
+    /**
+     * Keeps the span between two transitions the last instant fell in, so
+     * instants in time order mostly convert without a search. Not thread
+     * safe, use one per writer.
+     */
+    public final class Cursor
+    {
+        private long from = 1;
+        private long until = 0;
+        private int offset;
+
+        private Cursor()
+        {
+        }
+
+        public int offsetAt(long epochSecond)
+        {
+            if(epochSecond >= from && epochSecond < until)
+                return offset;
+            if(epochSecond >= end)
+                return ZoneTransitions.this.offsetAt(epochSecond);
+            int i = upperBound(instants, epochSecond);
+            from = i == 0 ? Long.MIN_VALUE : instants[i - 1];
+            until = i == instants.length ? end : instants[i];
+            offset = offsets[i];
+            return offset;
+        }
+
+        public long toLocalSecond(long epochSecond)
+        {
+            return epochSecond + offsetAt(epochSecond);
+        }
+    }
+
+    /**
+     * @return how many of the ascending values are at most key
+     */
+    private static int upperBound(long[] values, long key)
+    {
+        int low = 0;
+        int high = values.length;
+        while(low < high)
+        {
+            int mid = (low + high) >>> 1;
+            if(values[mid] <= key) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+}
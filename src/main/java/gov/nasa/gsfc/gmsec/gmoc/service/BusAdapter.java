@@ -0,0 +1,28 @@
+package gov.nasa.gsfc.gmsec.gmoc.service;
+
+import gov.nasa.gsfc.gmsec.gmoc.model.PassMessage;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A message bus PassPublisher hands batches of pass messages to, such as
+ * a GMSEC connection to the Scheduler Component. Implementations are
+ * Spring beans, picked by getName() with schedule.bus.adapter.
+ */
+public interface BusAdapter
+{
+    /**
+     * @return name selecting the adapter in schedule.bus.adapter
+     */
+    String getName();
+
+    /**
+     * Send a batch without blocking. The future completes once the bus
+     * has accepted every message of the batch, and exceptionally if it
+     * may not have; the batch is then sent again as a whole. The bus
+     * must therefore ignore a message whose dedup key is that of the
+     * last message it accepted with the same key.
+     */
+    CompletableFuture<Void> send(List<PassMessage> batch);
+}
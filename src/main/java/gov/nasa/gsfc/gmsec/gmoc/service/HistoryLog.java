@@ -0,0 +1,242 @@
+package gov.nasa.gsfc.gmsec.gmoc.service;
+
+import gov.nasa.gsfc.gmsec.gmoc.model.HistoryRevision;
+import gov.nasa.gsfc.gmsec.gmoc.model.PassTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead log of the schedule history. Each revision is appended with
+ * its passes as one checksummed entry and forced to disk before it counts
+ * as stored. Opening the log replays its entries up to the first torn or
+ * corrupt one, which only a crash during an append leaves behind, and
+ * truncates the log there.
+ *
+ * Entry, big-endian
+ *     length          int      of the payload
+ *     crc             int      CRC32 of the payload
+ *     revision        long     then version, published millis, epoch day, cover from, cover to
+ *     string count    int
+ *     strings         string count x (unsigned short length, UTF-8 bytes)
+ *     pass count      int
+ *     passes          pass count x (start long, duration int, category, start label, end label short)
+ */
+public class HistoryLog implements Closeable
+{
+    private static final Logger log = LoggerFactory.getLogger(HistoryLog.class);
+    private static final int ENTRY_HEADER_SIZE = 8;
+    private static final int PASS_SIZE = 18;
+
+    /**
+     * One revision and its passes, as appended.
+     */
+    public static class Entry
+    {
+        private final HistoryRevision revision;
+        private final PassTable passes;
+
+        public Entry(HistoryRevision revision, PassTable passes)
+        {
+            this.revision = revision;
+            this.passes = passes;
+        }
+
+        public HistoryRevision getRevision()
+        {
+            return revision;
+        }
+
+        public PassTable getPasses()
+        {
+            return passes;
+        }
+    }
+
+    private final Path file;
+    private final FileChannel channel;
+    private final List<Entry> replayed;
+
+    public HistoryLog(Path file) throws IOException
+    {
+        this.file = file;
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE);
+        try
+        {
+            List<Entry> entries = new ArrayList<>();
+            long length = channel.size();
+            if(length > Integer.MAX_VALUE)
+                throw new IOException(file + " is too large to replay: " + length);
+            ByteBuffer buffer = ByteBuffer.allocate((int) length);
+            while(buffer.hasRemaining())
+            {
+                if(channel.read(buffer, buffer.position()) < 0) break;
+            }
+            buffer.flip();
+            int good = 0;
+            CRC32 crc = new CRC32();
+            while(buffer.remaining() >= ENTRY_HEADER_SIZE)
+            {
+                int size = buffer.getInt();
+                int checksum = buffer.getInt();
+                if(size < 0 || size > buffer.remaining())
+                    break;
+                crc.reset();
+                ByteBuffer payload = buffer.slice();
+                payload.limit(size);
+                crc.update(payload.duplicate());
+                if((int) crc.getValue() != checksum)
+                    break;
+                entries.add(decode(payload));
+                buffer.position(buffer.position() + size);
+                good = buffer.position();
+            }
+            if(good < length)
+            {
+                log.error("Discarding {} bytes of a torn entry at the end of {}", length - good, file);
+                channel.truncate(good);
+                channel.force(true);
+            }
+            channel.position(good);
+            replayed = Collections.unmodifiableList(entries);
+        } catch (IOException | RuntimeException e)
+        {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return entries found when the log was opened, in append order
+     */
+    public List<Entry> getReplayed()
+    {
+        return replayed;
+    }
+
+    /**
+     * Append a revision and force it to disk.
+     */
+    public void append(HistoryRevision revision, PassTable passes) throws IOException
+    {
+        List<String> strings = passes.getStrings();
+        byte[][] encoded = new byte[strings.size()][];
+        int size = 6 * 8 + 4 + 4 + passes.size() * PASS_SIZE;
+        for(int s = 0; s < encoded.length; s++)
+        {
+            encoded[s] = strings.get(s).getBytes(StandardCharsets.UTF_8);
+            if(encoded[s].length > 0xFFFF)
+                throw new IOException("String table entry too long: " + strings.get(s));
+            size += 2 + encoded[s].length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(ENTRY_HEADER_SIZE + size);
+        buffer.position(ENTRY_HEADER_SIZE);
+        buffer.putLong(revision.getRevision());
+        buffer.putLong(revision.getVersion());
+        buffer.putLong(revision.getPublishedMillis());
+        buffer.putLong(revision.toLocalDate().toEpochDay());
+        buffer.putLong(revision.getCoverFrom());
+        buffer.putLong(revision.getCoverTo());
+        buffer.putInt(encoded.length);
+        for(byte[] string : encoded)
+        {
+            buffer.putShort((short) string.length);
+            buffer.put(string);
+        }
+        buffer.putInt(passes.size());
+        for(int i = 0; i < passes.size(); i++)
+        {
+            buffer.putLong(passes.startOf(i));
+            buffer.putInt(passes.durationOf(i));
+            buffer.putShort(passes.categoryIdOf(i));
+            buffer.putShort(passes.startLabelIdOf(i));
+            buffer.putShort(passes.endLabelIdOf(i));
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), ENTRY_HEADER_SIZE, size);
+        buffer.putInt(0, size);
+        buffer.putInt(4, (int) crc.getValue());
+        buffer.flip();
+
+        long position = channel.position();
+        try
+        {
+            while(buffer.hasRemaining()) channel.write(buffer);
+            channel.force(false);
+        } catch (IOException e)
+        {
+            // Leave no partial entry for later appends to follow
+            channel.truncate(position);
+            channel.position(position);
+            throw e;
+        }
+    }
+
+    /**
+     * Empty the log, once its entries are safely in a segment.
+     */
+    public void reset() throws IOException
+    {
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(true);
+    }
+
+    public long size() throws IOException
+    {
+        return channel.size();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+
+    private static Entry decode(ByteBuffer payload)
+    {
+        long revision = payload.getLong();
+        long version = payload.getLong();
+        long publishedMillis = payload.getLong();
+        LocalDate date = LocalDate.ofEpochDay(payload.getLong());
+        long coverFrom = payload.getLong();
+        long coverTo = payload.getLong();
+        List<String> strings = new ArrayList<>();
+        int stringCount = payload.getInt();
+        for(int s = 0; s < stringCount; s++)
+        {
+            byte[] string = new byte[payload.getShort() & 0xFFFF];
+            payload.get(string);
+            strings.add(new String(string, StandardCharsets.UTF_8));
+        }
+        int n = payload.getInt();
+        long[] starts = new long[n];
+        int[] durations = new int[n];
+        short[] categories = new short[n];
+        short[] startLabels = new short[n];
+        short[] endLabels = new short[n];
+        for(int i = 0; i < n; i++)
+        {
+            starts[i] = payload.getLong();
+            durations[i] = payload.getInt();
+            categories[i] = payload.getShort();
+            startLabels[i] = payload.getShort();
+            endLabels[i] = payload.getShort();
+        }
+        return new Entry(new HistoryRevision(revision, version, publishedMillis, date, coverFrom, coverTo, n),
+                new PassTable(starts, durations, categories, startLabels, endLabels, strings));
+    }
+}
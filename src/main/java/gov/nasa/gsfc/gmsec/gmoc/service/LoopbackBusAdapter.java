@@ -0,0 +1,122 @@
+package gov.nasa.gsfc.gmsec.gmoc.service;
+
+import gov.nasa.gsfc.gmsec.gmoc.model.PassMessage;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-memory bus for tests and benchmarks, schedule.bus.adapter=loopback.
+ * Batches are accepted asynchronously on one thread, after an optional
+ * delay, into a map of the last message per pass key, the receiving
+ * end's view of the schedule. Failures can be injected; they lose the
+ * acknowledgement of a delivered batch, so the retry is a duplicate.
+ */
+@Service
+public class LoopbackBusAdapter implements BusAdapter
+{
+    public static final String NAME = "loopback";
+
+    private final ExecutorService bus = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "loopback-bus");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ConcurrentMap<String, PassMessage> passes = new ConcurrentHashMap<>();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final AtomicInteger failNext = new AtomicInteger();
+    private volatile long delayNanos;
+
+    @Override
+    public String getName()
+    {
+        return NAME;
+    }
+
+    @Override
+    public CompletableFuture<Void> send(List<PassMessage> batch)
+    {
+        return CompletableFuture.runAsync(() -> deliver(batch), bus);
+    }
+
+    private void deliver(List<PassMessage> batch)
+    {
+        if(delayNanos > 0) LockSupport.parkNanos(delayNanos);
+        batches.increment();
+        for(PassMessage message : batch)
+        {
+            PassMessage last = passes.get(message.getKey());
+            // Same key, so the same dedup key exactly when the digests match
+            boolean duplicate = message.getType() == PassMessage.Type.CANCEL ? last == null
+                    : last != null && last.getDigest() == message.getDigest();
+            if(duplicate)
+            {
+                duplicates.increment();
+                continue;
+            }
+            if(message.getType() == PassMessage.Type.CANCEL) passes.remove(message.getKey());
+            else passes.put(message.getKey(), message);
+            accepted.increment();
+        }
+        if(failNext.getAndUpdate(n -> Math.max(0, n - 1)) > 0)
+            throw new IllegalStateException("Injected loopback bus failure");
+    }
+
+    /**
+     * Fail the acknowledgement of the next batches.
+     */
+    public void failNext(int batches)
+    {
+        failNext.set(batches);
+    }
+
+    /**
+     * Delay accepting each batch, to model a remote bus.
+     */
+    public void setDelayNanos(long delayNanos)
+    {
+        this.delayNanos = delayNanos;
+    }
+
+    /**
+     * @return last message per pass key, cancelled passes removed
+     */
+    public Map<String, PassMessage> getPasses()
+    {
+        return Collections.unmodifiableMap(passes);
+    }
+
+    public long getBatches()
+    {
+        return batches.sum();
+    }
+
+    public long getAccepted()
+    {
+        return accepted.sum();
+    }
+
+    public long getDuplicates()
+    {
+        return duplicates.sum();
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        bus.shutdown();
+    }
+}
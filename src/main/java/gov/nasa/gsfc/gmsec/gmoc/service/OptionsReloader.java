@@ -0,0 +1,171 @@
+package gov.nasa.gsfc.gmsec.gmoc.service;
+
+import gov.nasa.gsfc.gmsec.gmoc.Options;
+import gov.nasa.gsfc.gmsec.gmoc.model.Mission;
+import gov.nasa.gsfc.gmsec.gmoc.model.PassSchedule;
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleReload;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.DateTimeException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Applies new options while the application runs, from POST /options/reload
+ * or from the schedule.options.file properties file each time it changes.
+ *
+ * New values are parsed and checked on a copy of the options. The schedule
+ * is regenerated from it, from the effective second on, then the copy
+ * replaces every setting in one step and the new schedule is published,
+ * see PassScheduleService.apply(), so nothing ever sees half of a reload.
+ * Today's schedule file is then written again with the new options. A
+ * reload with invalid values changes nothing.
+ */
+@Service
+public class OptionsReloader
+{
+    private static final Logger log = LoggerFactory.getLogger(OptionsReloader.class);
+
+    // Editors save in several writes, wait for them to settle
+    private static final long SETTLE_MILLIS = 200;
+
+    @Autowired
+    Options options;
+
+    @Autowired
+    PassScheduleService passScheduleService;
+
+    private volatile WatchService watchService;
+    private Properties applied;
+
+    /**
+     * Apply key=value arguments, as on the command line, from effectiveSecond.
+     * @throws IllegalArgumentException for an invalid argument or value
+     */
+    public synchronized ScheduleReload reload(List<String> args, long effectiveSecond)
+    {
+        Options next = options.copy();
+        try
+        {
+            if(!next.parse(args.toArray(new String[0])))
+                throw new IllegalArgumentException("Invalid arguments " + args);
+        } catch (DateTimeException e)
+        {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+        check(next);
+        ScheduleReload reload = passScheduleService.apply(next, effectiveSecond);
+        if(reload.isChanged())
+            passScheduleService.createPassScheduleFile();
+        return reload;
+    }
+
+    private static void check(Options options)
+    {
+        if(Options.DateFormat.find(options.getDateFormat()) == null)
+            throw new IllegalArgumentException("Unknown date format " + options.getDateFormat());
+        for(Mission mission : options.getMissionList())
+        {
+            if(!PassSchedule.isValidDuration(mission.getDuration()))
+                throw new IllegalArgumentException("Pass duration of " + mission.getCategory()
+                        + " is not hh:mm:ss: " + mission.getDuration());
+        }
+    }
+
+    /**
+     * Apply the options file now, then again on a background thread
+     * whenever it is written, until shutdown.
+     */
+    public void watch(Path file) throws IOException
+    {
+        Path dir = file.toAbsolutePath().getParent();
+        WatchService watcher = dir.getFileSystem().newWatchService();
+        dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        watchService = watcher;
+        reloadFile(file);
+
+        Thread thread = new Thread(() -> watch(watcher, file), "options-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("Watching {} for option changes", file);
+    }
+
+    private void watch(WatchService watcher, Path file)
+    {
+        Path name = file.getFileName();
+        try
+        {
+            while(true)
+            {
+                WatchKey key = watcher.take();
+                boolean changed = false;
+                for(WatchEvent<?> event : key.pollEvents())
+                {
+                    if(name.equals(event.context())) changed = true;
+                }
+                key.reset();
+                if(changed)
+                {
+                    Thread.sleep(SETTLE_MILLIS);
+                    reloadFile(file);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e)
+        {
+            log.debug("Stopped watching {}", file);
+        }
+    }
+
+    /**
+     * Apply the options file, effective now, unless it is the same as when
+     * last applied. Keys removed from the file keep their current values.
+     */
+    synchronized void reloadFile(Path file)
+    {
+        Properties properties = new Properties();
+        try(Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8))
+        {
+            properties.load(reader);
+        } catch (IOException e)
+        {
+            log.error("Could not read options file {}: {}", file, e.getMessage());
+            return;
+        }
+        if(properties.equals(applied))
+            return;
+        List<String> args = new ArrayList<>();
+        for(String key : properties.stringPropertyNames())
+            args.add(key + "=" + properties.getProperty(key).trim());
+        try
+        {
+            ScheduleReload reload = reload(args, System.currentTimeMillis() / 1000);
+            applied = properties;
+            log.info("Applied options file {}: {}", file, reload);
+        } catch (RuntimeException e)
+        {
+            log.error("Options file {} not applied: {}", file, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException
+    {
+        WatchService watcher = watchService;
+        if(watcher != null) watcher.close();
+    }
+}
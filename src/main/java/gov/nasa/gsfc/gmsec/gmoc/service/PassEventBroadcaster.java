@@ -0,0 +1,137 @@
+package gov.nasa.gsfc.gmsec.gmoc.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gov.nasa.gsfc.gmsec.gmoc.model.PassEdge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pushes pass state to Server-Sent Events subscribers.
+ *
+ * AOS and LOS events come from PassEventEngine handlers on the engine's
+ * thread. Each event is serialized once and the same bytes handed to every
+ * subscriber. A "status" event with the current PassStatus is sent on
+ * subscribe and every HEARTBEAT_SECONDS, scheduled on the same engine,
+ * which also finds dead connections.
+ *
+ * Subscribers must not block in send(); PassEventServlet queues the bytes
+ * and writes them with non-blocking servlet I/O. A subscriber whose send()
+ * returns false or throws is removed.
+ */
+@Service
+public class PassEventBroadcaster
+{
+    private static final Logger log = LoggerFactory.getLogger(PassEventBroadcaster.class);
+    static final int HEARTBEAT_SECONDS = 15;
+
+    /**
+     * Receives pre-serialized events. Implementations must not block.
+     */
+    public interface Subscriber
+    {
+        /**
+         * @return false if the subscriber has gone and should be removed
+         */
+        boolean send(byte[] event);
+    }
+
+    @Autowired
+    PassQueryService passQueryService;
+
+    @Autowired
+    PassEventEngine engine;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void start()
+    {
+        engine.addHandler(this::onEdge);
+        scheduleHeartbeat();
+    }
+
+    /**
+     * Add a subscriber and send it the current status.
+     */
+    public void subscribe(Subscriber subscriber)
+    {
+        subscribers.add(subscriber);
+        if(!send(subscriber, statusEvent(System.currentTimeMillis() / 1000)))
+            subscribers.remove(subscriber);
+    }
+
+    public void unsubscribe(Subscriber subscriber)
+    {
+        subscribers.remove(subscriber);
+    }
+
+    public int getSubscriberCount()
+    {
+        return subscribers.size();
+    }
+
+    private void onEdge(PassEdge edge)
+    {
+        broadcast(event(edge.isAos() ? "aos" : "los", edge.getTime(), edge.toPassInfo()));
+    }
+
+    private void scheduleHeartbeat()
+    {
+        long period = HEARTBEAT_SECONDS * 1000L;
+        long next = (engine.currentTimeMillis() / period + 1) * period;
+        engine.schedule(next, () -> {
+            scheduleHeartbeat();
+            broadcast(statusEvent(next / 1000));
+        });
+    }
+
+    void broadcast(byte[] event)
+    {
+        for(Subscriber subscriber : subscribers)
+        {
+            if(!send(subscriber, event)) subscribers.remove(subscriber);
+        }
+    }
+
+    // A subscriber that fails is dropped rather than stopping the others
+    private static boolean send(Subscriber subscriber, byte[] event)
+    {
+        try
+        {
+            return subscriber.send(event);
+        } catch (RuntimeException e)
+        {
+            log.warn("Dropping event subscriber that failed: {}", e.toString());
+            return false;
+        }
+    }
+
+    private byte[] statusEvent(long t)
+    {
+        return event("status", t, passQueryService.at(t, null));
+    }
+
+    /**
+     * "id: t\nevent: name\ndata: {json}\n\n" as UTF-8.
+     */
+    private byte[] event(String name, long t, Object data)
+    {
+        try
+        {
+            return ("id: " + t + "\nevent: " + name + "\ndata: " + mapper.writeValueAsString(data) + "\n\n")
+                    .getBytes(StandardCharsets.UTF_8);
+        } catch (JsonProcessingException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+}
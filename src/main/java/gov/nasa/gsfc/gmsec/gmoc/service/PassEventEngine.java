@@ -0,0 +1,252 @@
+package gov.nasa.gsfc.gmsec.gmoc.service;
+
+import gov.nasa.gsfc.gmsec.gmoc.model.MissionSchedule;
+import gov.nasa.gsfc.gmsec.gmoc.model.PassEdge;
+import gov.nasa.gsfc.gmsec.gmoc.model.PassIndex;
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleSnapshot;
+import gov.nasa.gsfc.gmsec.gmoc.model.TimingWheel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Fires registered handlers at every AOS and LOS of the published schedule.
+ *
+ * All future edges of the schedule are loaded into a millisecond
+ * TimingWheel, LOS before AOS so that a LOS and AOS on the same second
+ * fire in that order. When a new snapshot is published the pending edges
+ * are cancelled and the new ones loaded, each in O(1), from the first
+ * second the wheel has not fired yet, so no edge is lost or fired twice.
+ * One thread parks until the wheel's next deadline or the next publish and
+ * runs what expired; handlers run on it and must not block.
+ *
+ * Time is System.nanoTime() offset to the wall clock, so parking is
+ * precise to the park overshoot, and resynchronized when the wall clock
+ * steps by more than RESYNC_NANOS.
+ */
+@Service
+public class PassEventEngine
+{
+    private static final Logger log = LoggerFactory.getLogger(PassEventEngine.class);
+    private static final long MAX_PARK_MILLIS = 1000;
+    private static final long RESYNC_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    /**
+     * Called on the engine thread for each edge. Implementations must not block.
+     */
+    public interface Handler
+    {
+        void onEdge(PassEdge edge);
+    }
+
+    @Autowired
+    PassScheduleService passScheduleService;
+
+    @Autowired
+    ScheduleMetrics metrics;
+
+    private final List<Handler> handlers = new CopyOnWriteArrayList<>();
+    private final List<TimingWheel.Timeout<Runnable>> due = new ArrayList<>();
+    private final List<TimingWheel.Timeout<Runnable>> edgeTimeouts = new ArrayList<>();
+    private volatile long epochOffsetNanos;
+    private TimingWheel<Runnable> wheel;
+    private ScheduleSnapshot loaded;
+    private volatile long wakeAt = Long.MAX_VALUE;
+    private volatile boolean running;
+    private Thread thread;
+
+    @PostConstruct
+    public void start()
+    {
+        // Middle of the current wall clock millisecond
+        epochOffsetNanos = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) + 500_000L - System.nanoTime();
+        wheel = new TimingWheel<>(currentTimeMillis());
+        running = true;
+        thread = new Thread(this::run, "pass-edge-timer");
+        thread.setDaemon(true);
+        thread.start();
+        passScheduleService.addPublishListener(snapshot -> LockSupport.unpark(thread));
+    }
+
+    @PreDestroy
+    public void stop()
+    {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+
+    public void addHandler(Handler handler)
+    {
+        handlers.add(handler);
+    }
+
+    public void removeHandler(Handler handler)
+    {
+        handlers.remove(handler);
+    }
+
+    /**
+     * Run task on the engine thread at epochMillis, or as soon as possible
+     * if that has passed. The task must not block.
+     */
+    public TimingWheel.Timeout<Runnable> schedule(long epochMillis, Runnable task)
+    {
+        TimingWheel.Timeout<Runnable> timeout;
+        synchronized(wheel)
+        {
+            timeout = wheel.schedule(epochMillis, task);
+        }
+        if(epochMillis < wakeAt) LockSupport.unpark(thread);
+        return timeout;
+    }
+
+    /**
+     * @return false if the task already ran or was cancelled
+     */
+    public boolean cancel(TimingWheel.Timeout<Runnable> timeout)
+    {
+        synchronized(wheel)
+        {
+            return wheel.cancel(timeout);
+        }
+    }
+
+    public int getPendingCount()
+    {
+        synchronized(wheel)
+        {
+            return wheel.size();
+        }
+    }
+
+    /**
+     * @return the engine's clock, wall clock epoch milliseconds
+     */
+    public long currentTimeMillis()
+    {
+        return (epochOffsetNanos + System.nanoTime()) / 1_000_000L;
+    }
+
+    private void run()
+    {
+        while(running)
+        {
+            try
+            {
+                resync();
+                reload(passScheduleService.getPublishedSnapshot());
+                long now = currentTimeMillis();
+                long next;
+                synchronized(wheel)
+                {
+                    wheel.advance(now, due::add);
+                    next = Math.min(wheel.nextTick(), now + MAX_PARK_MILLIS);
+                    wakeAt = next;
+                }
+                for(TimingWheel.Timeout<Runnable> timeout : due)
+                {
+                    metrics.recordTimerLateness(epochOffsetNanos + System.nanoTime()
+                            - TimeUnit.MILLISECONDS.toNanos(timeout.getDeadline()));
+                    runTask(timeout.getValue());
+                }
+                due.clear();
+                long park = TimeUnit.MILLISECONDS.toNanos(next) - epochOffsetNanos - System.nanoTime();
+                if(park > 0) LockSupport.parkNanos(this, park);
+            } catch (RuntimeException e)
+            {
+                due.clear();
+                log.error("Pass event engine failed", e);
+            }
+        }
+    }
+
+    private static void runTask(Runnable task)
+    {
+        try
+        {
+            task.run();
+        } catch (RuntimeException e)
+        {
+            log.error("Pass event handler failed", e);
+        }
+    }
+
+    // Follow wall clock steps, ignoring the millisecond truncation of currentTimeMillis
+    private void resync()
+    {
+        long drift = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) + 500_000L
+                - (epochOffsetNanos + System.nanoTime());
+        if(Math.abs(drift) > RESYNC_NANOS)
+        {
+            epochOffsetNanos += drift;
+            log.info("Pass event clock stepped {} ms", drift / 1_000_000L);
+        }
+    }
+
+    /**
+     * Replace the pending edges with those of snapshot from the first
+     * second not yet fired, if it is not the one loaded.
+     */
+    void reload(ScheduleSnapshot snapshot)
+    {
+        if(snapshot == null || snapshot == loaded) return;
+        long started = System.nanoTime();
+        synchronized(wheel)
+        {
+            // Every deadline before the wheel's current tick has fired
+            long from = (wheel.getCurrentTick() + 999) / 1000;
+            for(TimingWheel.Timeout<Runnable> timeout : edgeTimeouts)
+            {
+                wheel.cancel(timeout);
+            }
+            edgeTimeouts.clear();
+            for(MissionSchedule mission : snapshot.getMissions())
+            {
+                PassIndex index = mission.getIndex();
+                for(int i = index.firstEndingAfter(from - 1); i < index.size(); i++)
+                {
+                    if(index.endOf(i) >= from) add(new PassEdge(mission, i, false), index.endOf(i));
+                }
+            }
+            for(MissionSchedule mission : snapshot.getMissions())
+            {
+                PassIndex index = mission.getIndex();
+                for(int i = index.firstStartingAtOrAfter(from); i < index.size(); i++)
+                {
+                    add(new PassEdge(mission, i, true), index.startOf(i));
+                }
+            }
+        }
+        loaded = snapshot;
+        log.info("Loaded {} pass edges of schedule version {} in {} ms", edgeTimeouts.size(),
+                snapshot.getVersion(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    private void add(PassEdge edge, long epochSecond)
+    {
+        edgeTimeouts.add(wheel.schedule(epochSecond * 1000L, () -> fire(edge)));
+    }
+
+    private void fire(PassEdge edge)
+    {
+        for(Handler handler : handlers)
+        {
+            try
+            {
+                handler.onEdge(edge);
+            } catch (RuntimeException e)
+            {
+                log.error("Pass edge handler failed", e);
+            }
+        }
+    }
+}
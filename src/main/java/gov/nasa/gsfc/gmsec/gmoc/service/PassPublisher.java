@@ -0,0 +1,393 @@
+package gov.nasa.gsfc.gmsec.gmoc.service;
+
+import gov.nasa.gsfc.gmsec.gmoc.Options;
+import gov.nasa.gsfc.gmsec.gmoc.model.MissionSchedule;
+import gov.nasa.gsfc.gmsec.gmoc.model.PassIndex;
+import gov.nasa.gsfc.gmsec.gmoc.model.PassMessage;
+import gov.nasa.gsfc.gmsec.gmoc.model.PassRowEncoder;
+import gov.nasa.gsfc.gmsec.gmoc.model.SchedulePasses;
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Publishes the passes of each new schedule snapshot as PassMessages
+ * through the BusAdapter named by schedule.bus.adapter.
+ *
+ * Only what changed goes out: the digest of every pass the bus accepted
+ * is kept by pass key, so passes generated again unchanged are skipped,
+ * and future passes that are no longer scheduled are cancelled. Messages
+ * are sent in batches of schedule.bus.batch.size, at most
+ * schedule.bus.window batches awaiting acknowledgement; the publisher
+ * waits for a free slot, so a slow bus slows publishing down rather than
+ * queueing the schedule up in memory. A failed batch is sent again, with
+ * the same dedup keys, up to schedule.bus.retries times with exponential
+ * backoff, and a snapshot with failed batches is published again later.
+ */
+@Service
+public class PassPublisher
+{
+    private static final Logger log = LoggerFactory.getLogger(PassPublisher.class);
+    private static final long POLL_MILLIS = 1000;
+    private static final long RETRY_MILLIS = 100;
+    private static final long MAX_BACKOFF_MILLIS = 60_000;
+    private static final long SEND_TIMEOUT_MILLIS = 30_000;
+
+    @Autowired
+    Options options;
+
+    @Autowired
+    PassScheduleService passScheduleService;
+
+    @Autowired
+    ScheduleMetrics metrics;
+
+    @Autowired(required = false)
+    List<BusAdapter> adapters = Collections.emptyList();
+
+    // Digest of the last accepted message of every pass key
+    private final ConcurrentMap<String, Long> published = new ConcurrentHashMap<>();
+    private ScheduledThreadPoolExecutor retries;
+    private volatile boolean running;
+    private Thread thread;
+
+    @PostConstruct
+    public void start()
+    {
+        retries = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread retry = new Thread(runnable, "pass-publisher-retry");
+            retry.setDaemon(true);
+            return retry;
+        });
+        // Acknowledged batches cancel their timeouts
+        retries.setRemoveOnCancelPolicy(true);
+        running = true;
+        thread = new Thread(this::run, "pass-publisher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop()
+    {
+        running = false;
+        LockSupport.unpark(thread);
+        retries.shutdownNow();
+    }
+
+    /**
+     * @return the adapter named name, null for an empty name
+     * @throws IllegalArgumentException for an unknown adapter
+     */
+    public BusAdapter adapter(String name)
+    {
+        if(name.isEmpty() || name.equalsIgnoreCase("none"))
+            return null;
+        for(BusAdapter adapter : adapters)
+        {
+            if(adapter.getName().equalsIgnoreCase(name)) return adapter;
+        }
+        throw new IllegalArgumentException("Unknown bus adapter " + name);
+    }
+
+    private void run()
+    {
+        ScheduleSnapshot done = null;
+        BusAdapter adapter = null;
+        String name = "";
+        long backoff = 0;
+        long retryAt = 0;
+        while(running)
+        {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(POLL_MILLIS));
+            try
+            {
+                String configured = options.getBusAdapter();
+                if(!configured.equals(name))
+                {
+                    // What the previous bus accepted says nothing about this one
+                    name = configured;
+                    published.clear();
+                    done = null;
+                    adapter = null;
+                    adapter = adapter(name);
+                }
+                ScheduleSnapshot snapshot = passScheduleService.getPublishedSnapshot();
+                if(adapter == null || snapshot == null || snapshot == done || System.currentTimeMillis() < retryAt)
+                    continue;
+                Result result = publish(snapshot, adapter);
+                if(result.getFailedBatches() == 0)
+                {
+                    done = snapshot;
+                    backoff = 0;
+                }
+                else
+                {
+                    backoff = Math.min(Math.max(2 * backoff, POLL_MILLIS), MAX_BACKOFF_MILLIS);
+                    retryAt = System.currentTimeMillis() + backoff;
+                }
+            } catch (RuntimeException e)
+            {
+                log.error("Could not publish passes: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Publish what changed in snapshot since the last publish to adapter,
+     * returning once every batch was accepted or given up on.
+     */
+    public synchronized Result publish(ScheduleSnapshot snapshot, BusAdapter adapter)
+    {
+        long start = System.nanoTime();
+        Options settings = options.copy();
+        Send send = new Send(adapter, settings.getBusBatchSize(), settings.getBusWindow(), settings.getBusRetries());
+        List<MissionSchedule> missions = snapshot.getMissions();
+        PassRowEncoder[] encoders = new PassRowEncoder[missions.size()];
+        byte[][] rows = new byte[missions.size()][];
+        for(int m = 0; m < encoders.length; m++)
+        {
+            encoders[m] = missions.get(m).newEncoder();
+            rows[m] = new byte[encoders[m].maxRowLength()];
+        }
+
+        Set<String> scheduled = new HashSet<>();
+        long[] unchanged = new long[1];
+        snapshot.passes().spliterator().forEachRemaining((long ref) -> {
+            int m = SchedulePasses.mission(ref);
+            int pass = SchedulePasses.pass(ref);
+            PassIndex index = missions.get(m).getIndex();
+            String category = missions.get(m).getMission().getCategory();
+            long aos = index.startOf(pass);
+            String key = PassMessage.key(category, aos);
+            scheduled.add(key);
+            int length = encoders[m].encode(aos, rows[m], 0);
+            Long digest = published.get(key);
+            if(digest != null && digest == PassMessage.digest(rows[m], 0, length))
+            {
+                unchanged[0]++;
+                return;
+            }
+            send.add(PassMessage.pass(category, aos, index.endOf(pass), Arrays.copyOf(rows[m], length)));
+        });
+        long sent = send.count;
+
+        // Future passes no longer scheduled are cancelled, past ones forgotten
+        long now = System.currentTimeMillis() / 1000;
+        for(String key : published.keySet())
+        {
+            if(scheduled.contains(key))
+                continue;
+            int at = key.lastIndexOf('@');
+            long aos = Long.parseLong(key.substring(at + 1));
+            if(aos > now) send.add(PassMessage.cancel(key.substring(0, at), aos));
+            else published.remove(key);
+        }
+        send.finish();
+
+        Result result = new Result(snapshot.getVersion(), send.count, unchanged[0], send.count - sent, send.batches,
+                send.retried.get(), send.failed.get(), System.nanoTime() - start);
+        metrics.recordBusPublish(result.getSent(), result.getUnchanged(), result.getCancelled());
+        if(result.getFailedBatches() > 0) log.error("Published schedule version {} to {} bus: {}",
+                snapshot.getVersion(), adapter.getName(), result);
+        else log.info("Published schedule version {} to {} bus: {}", snapshot.getVersion(), adapter.getName(), result);
+        return result;
+    }
+
+    /**
+     * Batches of one publish, and the window of those awaiting acknowledgement.
+     */
+    private class Send
+    {
+        private final BusAdapter adapter;
+        private final int batchSize;
+        private final int windowSize;
+        private final int maxRetries;
+        private final Semaphore window;
+        private final AtomicLong retried = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private List<PassMessage> batch;
+        private long count;
+        private long batches;
+
+        Send(BusAdapter adapter, int batchSize, int windowSize, int maxRetries)
+        {
+            this.adapter = adapter;
+            this.batchSize = batchSize;
+            this.windowSize = windowSize;
+            this.maxRetries = maxRetries;
+            this.window = new Semaphore(windowSize);
+            this.batch = new ArrayList<>(batchSize);
+        }
+
+        void add(PassMessage message)
+        {
+            batch.add(message);
+            count++;
+            if(batch.size() == batchSize) flush();
+        }
+
+        void flush()
+        {
+            if(batch.isEmpty())
+                return;
+            window.acquireUninterruptibly();
+            batches++;
+            send(Collections.unmodifiableList(batch), 0);
+            batch = new ArrayList<>(batchSize);
+        }
+
+        /**
+         * Flush and wait for every batch to be accepted or given up on.
+         */
+        void finish()
+        {
+            flush();
+            window.acquireUninterruptibly(windowSize);
+            window.release(windowSize);
+        }
+
+        private void send(List<PassMessage> messages, int attempt)
+        {
+            long start = System.nanoTime();
+            CompletableFuture<Void> accepted = new CompletableFuture<>();
+            try
+            {
+                adapter.send(messages).whenComplete((ignored, error) -> {
+                    if(error == null) accepted.complete(null);
+                    else accepted.completeExceptionally(error);
+                });
+            } catch (RuntimeException e)
+            {
+                accepted.completeExceptionally(e);
+            }
+            ScheduledFuture<?> timeout = retries.schedule(() -> accepted.completeExceptionally(
+                    new TimeoutException("No acknowledgement in " + SEND_TIMEOUT_MILLIS + " ms")),
+                    SEND_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            accepted.whenComplete((ignored, error) -> {
+                timeout.cancel(false);
+                if(error == null)
+                {
+                    metrics.recordBusBatch(System.nanoTime() - start);
+                    for(PassMessage message : messages)
+                    {
+                        if(message.getType() == PassMessage.Type.CANCEL) published.remove(message.getKey());
+                        else published.put(message.getKey(), message.getDigest());
+                    }
+                    window.release();
+                }
+                else if(attempt < maxRetries)
+                {
+                    retried.incrementAndGet();
+                    metrics.recordBusRetry();
+                    retries.schedule(() -> send(messages, attempt + 1), RETRY_MILLIS << attempt, TimeUnit.MILLISECONDS);
+                }
+                else
+                {
+                    log.error("Gave up on a batch of {} pass messages after {} attempts: {}", messages.size(),
+                            attempt + 1, error.getMessage());
+                    failed.incrementAndGet();
+                    metrics.recordBusFailure();
+                    window.release();
+                }
+            });
+        }
+    }
+
+    /**
+     * Counts of one publish; sent messages include cancellations.
+     */
+    public static class Result
+    {
+        private final long version;
+        private final long sent;
+        private final long unchanged;
+        private final long cancelled;
+        private final long batches;
+        private final long retries;
+        private final long failedBatches;
+        private final long nanos;
+
+        Result(long version, long sent, long unchanged, long cancelled, long batches, long retries,
+               long failedBatches, long nanos)
+        {
+            this.version = version;
+            this.sent = sent;
+            this.unchanged = unchanged;
+            this.cancelled = cancelled;
+            this.batches = batches;
+            this.retries = retries;
+            this.failedBatches = failedBatches;
+            this.nanos = nanos;
+        }
+
+        public long getVersion()
+        {
+            return version;
+        }
+
+        public long getSent()
+        {
+            return sent;
+        }
+
+        public long getUnchanged()
+        {
+            return unchanged;
+        }
+
+        public long getCancelled()
+        {
+            return cancelled;
+        }
+
+        public long getBatches()
+        {
+            return batches;
+        }
+
+        public long getRetries()
+        {
+            return retries;
+        }
+
+        public long getFailedBatches()
+        {
+            return failedBatches;
+        }
+
+        public long getMillis()
+        {
+            return nanos / 1_000_000;
+        }
+
+        @Override
+        public String toString()
+        {
+            return sent + " messages sent (" + cancelled + " cancellations), " + unchanged + " unchanged, in "
+                    + batches + " batches, " + retries + " retried, " + failedBatches + " failed, in "
+                    + getMillis() + " ms";
+        }
+    }
+}
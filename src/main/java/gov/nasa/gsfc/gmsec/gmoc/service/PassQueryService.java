@@ -0,0 +1,114 @@
+package gov.nasa.gsfc.gmsec.gmoc.service;
+
+import gov.nasa.gsfc.gmsec.gmoc.model.MissionSchedule;
+import gov.nasa.gsfc.gmsec.gmoc.model.PassIndex;
+import gov.nasa.gsfc.gmsec.gmoc.model.PassInfo;
+import gov.nasa.gsfc.gmsec.gmoc.model.PassStatus;
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleMerger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Answers countdown queries straight from the PassIndex of each mission
+ * instead of schedule rows. For generated schedules the index is closed
+ * form, so next/at lookups are O(1) per mission; ingested schedules fall
+ * back to binary search.
+ *
+ * A null category means all missions.
+ */
+@Service
+public class PassQueryService
+{
+    public static final int MAX_RANGE_LIMIT = 10000;
+
+    @Autowired
+    PassScheduleService passScheduleService;
+
+    /**
+     * @return first pass starting at or after t, null if none is left
+     */
+    public PassInfo next(long t, String category)
+    {
+        PassInfo next = null;
+        for(MissionSchedule mission : missions(category))
+        {
+            PassIndex index = mission.getIndex();
+            next = earlierStart(next, pass(mission, index.firstStartingAtOrAfter(t)));
+        }
+        return next;
+    }
+
+    /**
+     * @return the earliest started pass in progress at t and the next pass to start
+     */
+    public PassStatus at(long t, String category)
+    {
+        PassInfo current = null;
+        PassInfo next = null;
+        for(MissionSchedule mission : missions(category))
+        {
+            PassIndex index = mission.getIndex();
+            int i = index.containing(t);
+            current = earlierStart(current, pass(mission, i));
+            next = earlierStart(next, pass(mission, index.firstStartingAtOrAfter(t + 1)));
+        }
+        return new PassStatus(t, current, next);
+    }
+
+    /**
+     * @return passes overlapping [from, to) in time order, at most limit of them
+     */
+    public List<PassInfo> range(long from, long to, int limit, String category)
+    {
+        List<MissionSchedule> missions = missions(category);
+        PassIndex[] indexes = new PassIndex[missions.size()];
+        int[] first = new int[indexes.length];
+        int[] last = new int[indexes.length];
+        for(int m = 0; m < indexes.length; m++)
+        {
+            indexes[m] = missions.get(m).getIndex();
+            first[m] = indexes[m].firstEndingAfter(from);
+            last[m] = Math.max(first[m], indexes[m].firstStartingAtOrAfter(to));
+        }
+        ScheduleMerger merger = new ScheduleMerger(indexes, first, last);
+        int remaining = Math.max(0, Math.min(limit, MAX_RANGE_LIMIT));
+        List<PassInfo> passes = new ArrayList<>();
+        while(remaining-- > 0 && merger.advance())
+        {
+            passes.add(pass(missions.get(merger.mission()), merger.pass()));
+        }
+        return passes;
+    }
+
+    private List<MissionSchedule> missions(String category)
+    {
+        List<MissionSchedule> all = passScheduleService.getSnapshot().getMissions();
+        if(category == null) return all;
+        List<MissionSchedule> selected = new ArrayList<>(1);
+        for(MissionSchedule mission : all)
+        {
+            if(mission.getMission().getCategory().equalsIgnoreCase(category))
+                selected.add(mission);
+        }
+        if(selected.isEmpty())
+            throw new IllegalArgumentException("Unknown mission " + category);
+        return selected;
+    }
+
+    private static PassInfo earlierStart(PassInfo a, PassInfo b)
+    {
+        if(a == null) return b;
+        if(b == null) return a;
+        return b.getAos() < a.getAos() ? b : a;
+    }
+
+    private static PassInfo pass(MissionSchedule mission, int i)
+    {
+        PassIndex index = mission.getIndex();
+        if(i < 0 || i >= index.size()) return null;
+        return new PassInfo(i, mission.getMission().getCategory(), index.startOf(i), index.endOf(i));
+    }
+}
@@ -1,24 +1,55 @@
 package gov.nasa.gsfc.gmsec.gmoc.service;
 
 import gov.nasa.gsfc.gmsec.gmoc.Options;
+import gov.nasa.gsfc.gmsec.gmoc.model.ConflictDetector;
+import gov.nasa.gsfc.gmsec.gmoc.model.ConflictReport;
+import gov.nasa.gsfc.gmsec.gmoc.model.EncodedSchedule;
+import gov.nasa.gsfc.gmsec.gmoc.model.Horizon;
+import gov.nasa.gsfc.gmsec.gmoc.model.Mission;
+import gov.nasa.gsfc.gmsec.gmoc.model.MissionSchedule;
+import gov.nasa.gsfc.gmsec.gmoc.model.PassIndex;
 import gov.nasa.gsfc.gmsec.gmoc.model.PassSchedule;
+import gov.nasa.gsfc.gmsec.gmoc.model.PassTable;
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleCsvParser;
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleEncoder;
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleReload;
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleSnapshot;
+import gov.nasa.gsfc.gmsec.gmoc.model.SlicedPassIndex;
+import gov.nasa.gsfc.gmsec.gmoc.model.ZoneTransitions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.Charset;
-import java.nio.file.Files;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 /**
  * Countdown clock is configured with a WIRE pass schedule composed
@@ -46,6 +77,18 @@ import java.util.List;
  * "WIRE", "2016-10-07-17:55:00", "+00:03:00", "120", "120"
  * "WIRE", "2016-10-07-18:00:00", "+00:03:00", "121", "121"
  *
+ * With schedule.missions set, each mission's passes are encoded in
+ * parallel and merged into one time-ordered schedule.
+ *
+ * Each generation is an immutable ScheduleSnapshot published through an
+ * AtomicReference, so request threads never block on or observe a
+ * schedule being built. Tomorrow's snapshot is prepared before midnight
+ * and swapped in at the day boundary.
+ *
+ * Reloaded options regenerate only the missions they change, see reload().
+ * Listeners are told of every published snapshot, for the history.
+ *
+ * The day's schedule files are written by ScheduleFileService.
  */
 @Service
 public class PassScheduleService
@@ -55,79 +98,527 @@ public class PassScheduleService
     @Autowired
     Options options;
 
-    private static String newline = "\r\n";
-    private List<String> passSchedLines;
-    private StringBuilder passes;
+    @Autowired
+    ScheduleMetrics metrics;
+
+    @Autowired
+    ScheduleFileService scheduleFiles;
+
+    private static final byte[] NEWLINE = "\r\n".getBytes(StandardCharsets.UTF_8);
+
+    private static final int CONFLICT_EXAMPLES = 100;
 
-    private static final String GENERIC_FILE_NAME = "GENERICPassSchedule";
-    public static final String DATESTAMP_FORMAT = "yyyy-MM-dd";
-    private String fileName;
-    private boolean initialized = false;
+    private final AtomicReference<ScheduleSnapshot> current = new AtomicReference<>();
+    private final AtomicReference<ScheduleSnapshot> pending = new AtomicReference<>();
+    private final AtomicReference<ConflictReport> conflicts = new AtomicReference<>();
+    // Microseconds at start, so versions keep increasing across restarts without being stored
+    private final AtomicLong versions = new AtomicLong(TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()));
+    private final AtomicBoolean rolling = new AtomicBoolean();
+    private final Object buildLock = new Object();
+    private volatile ForkJoinPool generationPool;
+    private final List<Consumer<ScheduleSnapshot>> publishListeners = new CopyOnWriteArrayList<>();
 
+    /**
+     * Regenerate today's schedule and publish it.
+     */
     public void init() {
-        DateFormat dateFormat = new SimpleDateFormat(DATESTAMP_FORMAT);
-        StringBuilder sb = new StringBuilder();
-        sb.append(GENERIC_FILE_NAME);
-        sb.append("-");
-        sb.append(dateFormat.format(new Date()));
-        sb.append(".csv");
-        fileName = sb.toString();
+        publish(buildSnapshot(LocalDate.now()));
+    }
 
-        passSchedLines = new ArrayList<>();
-        PassSchedule pass = new PassSchedule(options);
-        passes = new StringBuilder();
-        for(int p=1; p<= 121; p++)
+    /**
+     * Call listener with every snapshot published from now on, on the
+     * publishing thread; it must not block.
+     */
+    public void addPublishListener(Consumer<ScheduleSnapshot> listener)
+    {
+        publishListeners.add(listener);
+    }
+
+    private void publish(ScheduleSnapshot snapshot)
+    {
+        current.set(snapshot);
+        for(Consumer<ScheduleSnapshot> listener : publishListeners)
         {
-            if(p>1) pass.incrementPass();
-            pass.setCounterOne(p);
-            pass.setCounterTwo(p);
-            passes.append(pass.toString());
-            passes.append(newline);
-            passSchedLines.add(pass.toString());
+            try
+            {
+                listener.accept(snapshot);
+            } catch (RuntimeException e)
+            {
+                log.error("Publish listener failed on schedule version {}: {}", snapshot.getVersion(), e.getMessage());
+            }
         }
-        initialized = true;
     }
 
-    //view-source:http://127.0.0.1:8080/
-    public String getGenericPassSchedule()
+    /**
+     * The published schedule. Only the very first call blocks while it is
+     * built; afterwards readers get the current snapshot without locking,
+     * and a snapshot left over from a previous day is replaced in the
+     * background.
+     */
+    public ScheduleSnapshot getSnapshot()
+    {
+        ScheduleSnapshot snapshot = current.get();
+        if(snapshot == null)
+        {
+            synchronized(buildLock)
+            {
+                snapshot = current.get();
+                if(snapshot == null)
+                {
+                    snapshot = buildSnapshot(LocalDate.now());
+                    publish(snapshot);
+                }
+            }
+        }
+        else if(!snapshot.getDate().equals(LocalDate.now()))
+        {
+            requestRollover();
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return the published schedule, or null before the first one is built
+     */
+    public ScheduleSnapshot getPublishedSnapshot()
     {
-        if(!initialized) init();
-        return passes.toString();
+        return current.get();
     }
 
-    public void reportCurrentTime() {
-        SimpleDateFormat dateFormat = new SimpleDateFormat("HH:mm:ss");
-        log.info("Creating a new pass schedule file now {}", dateFormat.format(new Date()));
+    /**
+     * Build the schedule for a day off to the side. The result is not
+     * visible to readers until published.
+     */
+    public ScheduleSnapshot buildSnapshot(LocalDate date)
+    {
+        return buildSnapshot(date, options.copy());
     }
 
-    //@Scheduled(fixedRate = 5000) // every 5 seconds
-    @Scheduled(cron="0 7 * * * * ") // daily at 7 am
-    public File createPassScheduleFile()
+    private ScheduleSnapshot buildSnapshot(LocalDate date, Options options)
     {
-        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd-HH:mm:ss");
-        log.info("Creating a new pass schedule file now at {}", dateFormat.format(new Date()));
+        long start = System.nanoTime();
+        String fileName = ScheduleFileService.fileName(date, ScheduleFileService.encoder(options));
+
+        Options.DateFormat format = options.getDateFormatType();
+        List<MissionSchedule> missions;
+        if(!options.getIngestFile().isEmpty())
+        {
+            missions = ingest(Paths.get(options.getIngestFile()), format);
+        }
+        else
+        {
+            missions = generate(options, Horizon.fromOptions(options, dayStart(date), ZoneId.systemDefault()));
+        }
+        ScheduleSnapshot snapshot = new ScheduleSnapshot(versions.incrementAndGet(), date, fileName, missions);
+        metrics.recordGeneration(snapshot.passes().size(), System.nanoTime() - start);
+        return snapshot;
+    }
+
+    /**
+     * Generated passes of one day's file: the configured horizon from the
+     * day's first pass, whatever the configured start and end.
+     */
+    public List<MissionSchedule> generateDay(LocalDate date)
+    {
+        return generateDay(date, options.copy());
+    }
+
+    /**
+     * Generated passes of one day's file with the given options.
+     */
+    List<MissionSchedule> generateDay(LocalDate date, Options options)
+    {
+        if(!options.getIngestFile().isEmpty())
+            throw new IllegalStateException("Passes are ingested from " + options.getIngestFile() + ", not generated");
+        return generate(options, Horizon.forDay(options, dayStart(date), ZoneId.systemDefault()));
+    }
+
+    private static List<MissionSchedule> generate(Options options, Horizon horizon)
+    {
+        Options.DateFormat format = options.getDateFormatType();
+        List<MissionSchedule> missions = new ArrayList<>();
+        for(Mission mission : options.getMissionList())
+        {
+            missions.add(MissionSchedule.forHorizon(mission, horizon, format, TimeZone.getDefault()));
+        }
+        return missions;
+    }
+
+    private static long dayStart(LocalDate date)
+    {
+        return PassSchedule.firstPassStart(date, ZoneTransitions.of(ZoneId.systemDefault()));
+    }
+
+    /**
+     * Regenerate the published schedule for options changed from previous
+     * to next, effective from effectiveSecond, and publish it as a new
+     * version. Readers holding the old snapshot keep reading it.
+     *
+     * Only what changed is regenerated. A mission whose category, labels
+     * or station changed keeps its passes and only gets new row fragments,
+     * as do all missions for a new date format. A mission whose interval
+     * or duration changed, and every mission when the horizon changed,
+     * keeps its passes starting before effectiveSecond and takes the
+     * newly generated ones from there on. Added missions start, and
+     * removed missions end, at effectiveSecond. Ingested schedules, and a
+     * snapshot of a previous day, are rebuilt.
+     */
+    public ScheduleReload reload(Options previous, Options next, long effectiveSecond)
+    {
+        return reload(previous, next, effectiveSecond, () -> { });
+    }
+
+    /**
+     * Make next the live options and publish the schedule regenerated for
+     * them, see reload(). In this order, all under the build lock: the new
+     * snapshot is built from next off to the side, the options are
+     * replaced, then the snapshot is published. No other build, rollover
+     * or reload runs in between, so none builds from the old options after
+     * this or publishes over it. Lock-free readers may, for that moment,
+     * see the new options with the previous snapshot, never the new
+     * snapshot with the old options.
+     */
+    public ScheduleReload apply(Options next, long effectiveSecond)
+    {
+        synchronized(buildLock)
+        {
+            return reload(options.copy(), next, effectiveSecond, () -> options.update(next));
+        }
+    }
+
+    private ScheduleReload reload(Options previous, Options next, long effectiveSecond, Runnable beforePublish)
+    {
+        synchronized(buildLock)
+        {
+            long start = System.nanoTime();
+            ScheduleSnapshot snapshot = current.get();
+            LocalDate today = LocalDate.now();
+            if(snapshot != null && scheduleSettings(previous).equals(scheduleSettings(next)))
+            {
+                beforePublish.run();
+                return ScheduleReload.unchanged(snapshot.getVersion(), effectiveSecond);
+            }
+
+            ScheduleSnapshot updated;
+            ScheduleReload reload;
+            if(snapshot == null || !snapshot.getDate().equals(today)
+                    || !previous.getIngestFile().isEmpty() || !next.getIngestFile().isEmpty())
+            {
+                updated = buildSnapshot(today, next);
+                List<String> none = new ArrayList<>();
+                reload = new ScheduleReload(updated.getVersion(), effectiveSecond, true, none, none, none, none);
+            }
+            else
+            {
+                List<String> relabeled = new ArrayList<>();
+                List<String> regenerated = new ArrayList<>();
+                List<String> added = new ArrayList<>();
+                List<String> removed = new ArrayList<>();
+                List<MissionSchedule> missions = splice(snapshot, previous, next, effectiveSecond,
+                        relabeled, regenerated, added, removed);
+                updated = new ScheduleSnapshot(versions.incrementAndGet(), today, snapshot.getFileName(), missions);
+                metrics.recordGeneration(updated.passes().size(), System.nanoTime() - start);
+                reload = new ScheduleReload(updated.getVersion(), effectiveSecond, false,
+                        relabeled, regenerated, added, removed);
+            }
+            pending.set(null);
+            beforePublish.run();
+            publish(updated);
+            log.info("Reloaded pass schedule options, {} in {} ms", reload, (System.nanoTime() - start) / 1000000);
+            return reload;
+        }
+    }
+
+    /**
+     * Everything in options that shapes the schedule's rows.
+     */
+    private static String scheduleSettings(Options options)
+    {
+        return options.getMissionList() + "|" + options.getDateFormatType() + "|" + options.getIngestFile()
+                + "|" + horizonSettings(options);
+    }
+
+    private static String horizonSettings(Options options)
+    {
+        return options.getHorizonStart() + "|" + options.getHorizonEnd() + "|" + options.getHorizonDays()
+                + "|" + options.getWindows() + "|" + options.getPassCount();
+    }
+
+    /**
+     * The missions of snapshot changed from previous to next from second t,
+     * sorted by mission so that passes starting together keep their order.
+     * Missions are matched by category, or by position when renamed.
+     */
+    private static List<MissionSchedule> splice(ScheduleSnapshot snapshot, Options previous, Options next, long t,
+                                                List<String> relabeled, List<String> regenerated,
+                                                List<String> added, List<String> removed)
+    {
+        List<Mission> before = previous.getMissionList();
+        List<Mission> after = next.getMissionList();
+        Map<String, Mission> beforeByCategory = new HashMap<>();
+        for(Mission mission : before) beforeByCategory.put(mission.getCategory(), mission);
+        Set<String> afterCategories = new HashSet<>();
+        for(Mission mission : after) afterCategories.add(mission.getCategory());
+
+        boolean retimeAll = !horizonSettings(previous).equals(horizonSettings(next));
+        boolean reformat = previous.getDateFormatType() != next.getDateFormatType();
+        Map<String, Mission> kept = new HashMap<>();
+        Set<String> retimed = new HashSet<>();
+        List<Mission> generated = new ArrayList<>();
+        for(Mission mission : after)
+        {
+            Mission old = beforeByCategory.get(mission.getCategory());
+            if(old == null && mission.getId() < before.size()
+                    && !afterCategories.contains(before.get(mission.getId()).getCategory()))
+                old = before.get(mission.getId());
+            if(old == null)
+            {
+                added.add(mission.getCategory());
+                generated.add(mission);
+            }
+            else if(retimeAll || old.getPassInterval() != mission.getPassInterval()
+                    || old.getDurationSeconds() != mission.getDurationSeconds())
+            {
+                retimed.add(old.getCategory());
+                regenerated.add(mission.getCategory());
+                generated.add(mission);
+            }
+            else
+            {
+                kept.put(old.getCategory(), mission);
+                if(reformat || !old.toString().equals(mission.toString()))
+                    relabeled.add(mission.getCategory());
+            }
+        }
+        for(Mission mission : before)
+        {
+            if(!kept.containsKey(mission.getCategory()) && !retimed.contains(mission.getCategory()))
+                removed.add(mission.getCategory());
+        }
 
-        if(!initialized) init();
-        File path = new File(options.getScheduleFilePath());
-        if(!path.exists())
+        TimeZone zone = TimeZone.getDefault();
+        Options.DateFormat format = next.getDateFormatType();
+        List<MissionSchedule> missions = new ArrayList<>();
+        for(MissionSchedule schedule : snapshot.getMissions())
         {
-            log.error("Configured pass schedule file path does not exist.");
-            return null;
+            Mission mission = kept.get(schedule.getMission().getCategory());
+            if(mission == null)
+            {
+                PassIndex passes = SlicedPassIndex.before(schedule.getIndex(), t);
+                if(passes.size() == 0)
+                    continue;
+                schedule = schedule.withIndex(passes);
+                if(reformat)
+                    schedule = schedule.relabel(schedule.getMission(), format, zone);
+            }
+            else if(relabeled.contains(mission.getCategory()))
+            {
+                schedule = schedule.relabel(mission, format, zone);
+            }
+            missions.add(schedule);
         }
-        if(!path.isDirectory())
+        Horizon horizon = Horizon.fromOptions(next, dayStart(snapshot.getDate()), ZoneId.systemDefault());
+        for(Mission mission : generated)
         {
-            log.error("Configured pass schedule file path is not a directory.");
-            return null;
+            MissionSchedule schedule = MissionSchedule.forHorizon(mission, horizon, format, zone);
+            PassIndex passes = SlicedPassIndex.from(schedule.getIndex(), t);
+            if(passes.size() > 0)
+                missions.add(schedule.withIndex(passes));
         }
-        Path file = Paths.get(path+File.separator+fileName);
+        missions.sort(Comparator.comparingInt(schedule -> schedule.getMission().getId()));
+        return missions;
+    }
+
+    /**
+     * Parse an externally supplied pass file into one MissionSchedule per
+     * distinct category, duration and labels.
+     */
+    List<MissionSchedule> ingest(Path file, Options.DateFormat format)
+    {
+        long start = System.nanoTime();
         try
         {
-            Files.write(file, passSchedLines, Charset.forName("UTF-8"));
+            PassTable table = new ScheduleCsvParser(TimeZone.getDefault()).parse(file, generationPool());
+            log.info("Ingested {} passes from {} in {} ms", table.size(), file,
+                    (System.nanoTime() - start) / 1000000);
+            return table.missionSchedules(format, TimeZone.getDefault());
         } catch (IOException e)
         {
-            log.error(e.getMessage());
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Build tomorrow's schedule ahead of the day boundary.
+     */
+    @Scheduled(cron = "0 55 23 * * *")
+    public void prepareRollover()
+    {
+        prepareRollover(LocalDate.now().plusDays(1));
+    }
+
+    /**
+     * Build date's schedule under the build lock, so that a reload either
+     * drops it or runs after it with the new options.
+     */
+    void prepareRollover(LocalDate date)
+    {
+        synchronized(buildLock)
+        {
+            pending.set(buildSnapshot(date));
+        }
+        log.info("Prepared pass schedule for {}", date);
+    }
+
+    /**
+     * Swap in the prepared schedule at midnight, building it now if it was
+     * not prepared, then write the new day's file. Skipped while a rollover
+     * requested by a reader is running.
+     */
+    @Scheduled(cron = "0 0 0 * * *")
+    public void rollover()
+    {
+        if(!rolling.compareAndSet(false, true))
+        {
+            log.info("Pass schedule rollover already running");
+            return;
+        }
+        try
+        {
+            rollover(LocalDate.now());
+        } finally
+        {
+            rolling.set(false);
+        }
+    }
+
+    /**
+     * Publish today's schedule, the prepared one if it is for today, and
+     * write its file, unless today's is already published. The caller
+     * holds rolling.
+     */
+    void rollover(LocalDate today)
+    {
+        ScheduleSnapshot next;
+        synchronized(buildLock)
+        {
+            ScheduleSnapshot snapshot = current.get();
+            if(snapshot != null && snapshot.getDate().equals(today))
+                return;
+            next = pending.getAndSet(null);
+            if(next == null || !next.getDate().equals(today))
+            {
+                next = buildSnapshot(today);
+            }
+            publish(next);
         }
-        return file.toFile();
+        log.info("Rolled pass schedule over to {} (version {})", today, next.getVersion());
+        createPassScheduleFile(next);
     }
 
+    private void requestRollover()
+    {
+        if(rolling.compareAndSet(false, true))
+        {
+            generationPool().execute(() -> {
+                try
+                {
+                    rollover(LocalDate.now());
+                } finally
+                {
+                    rolling.set(false);
+                }
+            });
+        }
+    }
+
+    ForkJoinPool generationPool()
+    {
+        ForkJoinPool pool = generationPool;
+        if(pool == null)
+        {
+            synchronized(buildLock)
+            {
+                pool = generationPool;
+                if(pool == null)
+                {
+                    pool = new ForkJoinPool(options.getGenerationParallelism());
+                    generationPool = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    //view-source:http://127.0.0.1:8080/
+    public String getGenericPassSchedule()
+    {
+        return new String(renderGenericPassSchedule(getSnapshot()), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Every row of snapshot, CRLF separated, encoded in parallel from its passes.
+     */
+    public byte[] renderGenericPassSchedule(ScheduleSnapshot snapshot)
+    {
+        EncodedSchedule encoded = EncodedSchedule.encode(snapshot.passes(), generationPool());
+        ByteArrayOutputStream out = new ByteArrayOutputStream(encoded.size() * 64);
+        try
+        {
+            encoded.writeTo(out, NEWLINE);
+        } catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Overlapping passes of snapshot, analyzed once per snapshot version.
+     */
+    public ConflictReport getConflicts(ScheduleSnapshot snapshot)
+    {
+        ConflictReport report = conflicts.get();
+        if(report == null || report.getVersion() != snapshot.getVersion())
+        {
+            report = ConflictDetector.analyze(snapshot.getVersion(), snapshot.passes(), CONFLICT_EXAMPLES);
+            conflicts.set(report);
+        }
+        return report;
+    }
+
+    /**
+     * Stream the passes overlapping [from, to), at most limit of them, in
+     * the encoder's format, records CRLF separated.
+     */
+    public void writePassSchedule(ScheduleSnapshot snapshot, ScheduleEncoder encoder, OutputStream out, long from,
+                                  long to, int limit) throws IOException
+    {
+        encoder.encode(snapshot.passes().window(from, to), limit, NEWLINE, out);
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        if(generationPool != null) generationPool.shutdown();
+    }
+
+    public void reportCurrentTime() {
+        SimpleDateFormat dateFormat = new SimpleDateFormat("HH:mm:ss");
+        log.info("Creating a new pass schedule file now {}", dateFormat.format(new Date()));
+    }
+
+    //@Scheduled(fixedRate = 5000) // every 5 seconds
+    @Scheduled(cron="0 0 7 * * *") // daily at 7 am
+    public File createPassScheduleFile()
+    {
+        return createPassScheduleFile(getSnapshot());
+    }
+
+    private File createPassScheduleFile(ScheduleSnapshot snapshot)
+    {
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd-HH:mm:ss");
+        log.info("Creating a new pass schedule file now at {}", dateFormat.format(new Date()));
+        return scheduleFiles.write(snapshot, generationPool());
+    }
 }
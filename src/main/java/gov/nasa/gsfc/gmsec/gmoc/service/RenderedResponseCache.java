@@ -0,0 +1,138 @@
+package gov.nasa.gsfc.gmsec.gmoc.service;
+
+import gov.nasa.gsfc.gmsec.gmoc.Options;
+import gov.nasa.gsfc.gmsec.gmoc.model.RenderedResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * LRU cache of rendered responses keyed by schedule version and request
+ * (path plus normalized query parameters). A schedule only changes when a
+ * new snapshot is published, so polling clients are answered from the
+ * pre-encoded bytes or with a 304.
+ *
+ * Total entry weight is kept under schedule.cache.max.bytes by evicting
+ * least recently used entries. Rendering happens outside the lock, once
+ * per key however many requests miss on it together.
+ */
+@Service
+public class RenderedResponseCache
+{
+    @Autowired
+    Options options;
+
+    @Autowired
+    ScheduleMetrics metrics;
+
+    private final LinkedHashMap<String, RenderedResponse> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalWeight;
+    private final ConcurrentMap<String, CompletableFuture<RenderedResponse>> rendering = new ConcurrentHashMap<>();
+
+    /**
+     * Cached response of key for the schedule version, rendered on a miss.
+     * Concurrent misses on the same key wait for the first one to render
+     * rather than each rendering it; if rendering fails they all fail.
+     */
+    public RenderedResponse get(long version, String key, Supplier<byte[]> render)
+    {
+        String cacheKey = version + " " + key;
+        RenderedResponse cached = cached(cacheKey);
+        if(cached != null)
+        {
+            metrics.recordCache(true);
+            return cached;
+        }
+        CompletableFuture<RenderedResponse> future = new CompletableFuture<>();
+        CompletableFuture<RenderedResponse> running = rendering.putIfAbsent(cacheKey, future);
+        if(running != null)
+        {
+            // Counted as a hit, only the request rendering it is a miss
+            metrics.recordCache(true);
+            return await(running);
+        }
+        try
+        {
+            // The previous render of the key may have finished since the lookup above
+            RenderedResponse response = cached(cacheKey);
+            metrics.recordCache(response != null);
+            if(response == null)
+            {
+                response = new RenderedResponse(version, render.get());
+                store(cacheKey, response);
+            }
+            future.complete(response);
+            return response;
+        } catch (RuntimeException | Error e)
+        {
+            future.completeExceptionally(e);
+            throw e;
+        } finally
+        {
+            rendering.remove(cacheKey, future);
+        }
+    }
+
+    private RenderedResponse cached(String cacheKey)
+    {
+        synchronized(entries)
+        {
+            return entries.get(cacheKey);
+        }
+    }
+
+    private void store(String cacheKey, RenderedResponse response)
+    {
+        long budget = options.getCacheMaxBytes();
+        if(response.weight() > budget) return;
+        synchronized(entries)
+        {
+            RenderedResponse replaced = entries.put(cacheKey, response);
+            if(replaced != null) totalWeight -= replaced.weight();
+            totalWeight += response.weight();
+            Iterator<Map.Entry<String, RenderedResponse>> eldest = entries.entrySet().iterator();
+            while(totalWeight > budget && eldest.hasNext())
+            {
+                totalWeight -= eldest.next().getValue().weight();
+                eldest.remove();
+            }
+        }
+    }
+
+    private static RenderedResponse await(CompletableFuture<RenderedResponse> running)
+    {
+        try
+        {
+            return running.join();
+        } catch (CompletionException e)
+        {
+            if(e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if(e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw e;
+        }
+    }
+
+    public long getTotalWeight()
+    {
+        synchronized(entries)
+        {
+            return totalWeight;
+        }
+    }
+
+    public int size()
+    {
+        synchronized(entries)
+        {
+            return entries.size();
+        }
+    }
+}
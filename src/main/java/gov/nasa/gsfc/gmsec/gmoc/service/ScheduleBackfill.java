@@ -0,0 +1,469 @@
+package gov.nasa.gsfc.gmsec.gmoc.service;
+
+import gov.nasa.gsfc.gmsec.gmoc.Options;
+import gov.nasa.gsfc.gmsec.gmoc.model.EncodedSchedule;
+import gov.nasa.gsfc.gmsec.gmoc.model.Mission;
+import gov.nasa.gsfc.gmsec.gmoc.model.SchedulePasses;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Writes the schedule file and its binary companion for every day of a
+ * range of dates, e.g. after onboarding a mission or changing the pass
+ * interval. Each day is generated from its first pass like the daily file.
+ *
+ * Days are generated and encoded in parallel on the generation pool and
+ * written by schedule.backfill.io.threads I/O threads, each with its own
+ * ScheduleFileWriter. At most two encoded days per I/O thread wait to be
+ * written, so generation runs ahead of the disk in bounded memory.
+ *
+ * Every day of a run uses the options as they were when it started, so a
+ * reload during a backfill does not mix two configurations. Written days
+ * are appended to a journal in the schedule directory under a fingerprint
+ * of those options. A backfill that was stopped or had failures resumes
+ * with the days missing from the journal, unless the options changed. The
+ * journal is removed once every day is written.
+ */
+@Service
+public class ScheduleBackfill
+{
+    private static final Logger log = LoggerFactory.getLogger(ScheduleBackfill.class);
+    static final String JOURNAL_NAME = ".GENERICPassSchedule-backfill.journal";
+    private static final long PROGRESS_LOG_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    @Autowired
+    Options options;
+
+    @Autowired
+    PassScheduleService passScheduleService;
+
+    @Autowired
+    ScheduleFileService scheduleFiles;
+
+    private volatile Progress latest;
+
+    public enum State
+    {
+        RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+
+    /**
+     * Counts of a backfill, updated as days are written.
+     */
+    public static class Progress
+    {
+        private final LocalDate from;
+        private final LocalDate to;
+        private final Path dir;
+        private final long startNanos = System.nanoTime();
+        private final AtomicInteger written = new AtomicInteger();
+        private final AtomicInteger unchanged = new AtomicInteger();
+        private final AtomicInteger resumed = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final LongAdder bytes = new LongAdder();
+        private final AtomicLong lastLogNanos = new AtomicLong(startNanos);
+        private volatile long endNanos;
+        private volatile boolean cancelled;
+        private volatile State state = State.RUNNING;
+
+        Progress(LocalDate from, LocalDate to, Path dir)
+        {
+            this.from = from;
+            this.to = to;
+            this.dir = dir;
+        }
+
+        public String getFrom()
+        {
+            return from.toString();
+        }
+
+        public String getTo()
+        {
+            return to.toString();
+        }
+
+        public State getState()
+        {
+            return state;
+        }
+
+        public int getDays()
+        {
+            return (int) ChronoUnit.DAYS.between(from, to) + 1;
+        }
+
+        /**
+         * @return days whose files were written, resumed or failed so far
+         */
+        public int getDone()
+        {
+            return written.get() + unchanged.get() + resumed.get() + failed.get();
+        }
+
+        public int getWritten()
+        {
+            return written.get();
+        }
+
+        /**
+         * @return days whose files already had the same content
+         */
+        public int getUnchanged()
+        {
+            return unchanged.get();
+        }
+
+        /**
+         * @return days written by an earlier, interrupted backfill
+         */
+        public int getResumed()
+        {
+            return resumed.get();
+        }
+
+        public int getFailed()
+        {
+            return failed.get();
+        }
+
+        public long getBytes()
+        {
+            return bytes.sum();
+        }
+
+        public long getElapsedMillis()
+        {
+            long end = state == State.RUNNING ? System.nanoTime() : endNanos;
+            return (end - startNanos) / 1000000;
+        }
+    }
+
+    /**
+     * Backfill [from, to] in the background.
+     * @throws IllegalStateException if a backfill is running or passes are ingested
+     */
+    public Progress start(LocalDate from, LocalDate to)
+    {
+        Progress progress = begin(from, to);
+        Thread thread = new Thread(() -> run(progress), "schedule-backfill");
+        thread.setDaemon(true);
+        thread.start();
+        return progress;
+    }
+
+    /**
+     * Backfill [from, to] on the calling thread.
+     */
+    public Progress backfill(LocalDate from, LocalDate to)
+    {
+        Progress progress = begin(from, to);
+        run(progress);
+        return progress;
+    }
+
+    /**
+     * @return the running or last backfill, null if none ran
+     */
+    public Progress getProgress()
+    {
+        return latest;
+    }
+
+    /**
+     * Stop the running backfill after the days already generated are
+     * written. It resumes from there when started again.
+     * @return the cancelled backfill, null if none is running
+     */
+    public Progress cancel()
+    {
+        Progress progress = latest;
+        if(progress == null || progress.state != State.RUNNING) return null;
+        progress.cancelled = true;
+        return progress;
+    }
+
+    /**
+     * @return date parsed as yyyy-MM-dd, defaultDate when null or empty
+     */
+    public static LocalDate parseDate(String date, LocalDate defaultDate)
+    {
+        if(date == null || date.trim().isEmpty()) return defaultDate;
+        try
+        {
+            return LocalDate.parse(date.trim());
+        } catch (DateTimeParseException e)
+        {
+            throw new IllegalArgumentException("Expected yyyy-MM-dd date: " + date);
+        }
+    }
+
+    private synchronized Progress begin(LocalDate from, LocalDate to)
+    {
+        if(to.isBefore(from))
+            throw new IllegalArgumentException("Backfill ends " + to + " before it starts " + from);
+        if(!options.getIngestFile().isEmpty())
+            throw new IllegalStateException("Passes are ingested from " + options.getIngestFile() + ", not generated");
+        Path dir = Paths.get(options.getScheduleFilePath());
+        if(!Files.isDirectory(dir))
+            throw new IllegalArgumentException("Configured pass schedule file path is not a directory.");
+        if(latest != null && latest.state == State.RUNNING)
+            throw new IllegalStateException("A backfill of " + latest.from + " to " + latest.to + " is running");
+        latest = new Progress(from, to, dir);
+        return latest;
+    }
+
+    private void run(Progress progress)
+    {
+        log.info("Backfilling pass schedule files from {} to {} into {}", progress.from, progress.to, progress.dir);
+        Options options = this.options.copy();
+        int ioThreads = options.getBackfillIoThreads();
+        ExecutorService io = Executors.newFixedThreadPool(ioThreads, new ThreadFactory());
+        BlockingQueue<ScheduleFileWriter> writers = new ArrayBlockingQueue<>(ioThreads);
+        for(int i = 0; i < ioThreads; i++)
+        {
+            writers.add(new ScheduleFileWriter());
+        }
+        Semaphore window = new Semaphore(2 * ioThreads);
+        ForkJoinPool pool = passScheduleService.generationPool();
+        String fingerprint = fingerprint(options);
+        Path journalFile = progress.dir.resolve(JOURNAL_NAME);
+        try(Journal journal = Journal.open(journalFile, fingerprint))
+        {
+            try
+            {
+                for(LocalDate day = progress.from; !day.isAfter(progress.to) && !progress.cancelled;
+                    day = day.plusDays(1))
+                {
+                    if(journal.contains(day))
+                    {
+                        progress.resumed.incrementAndGet();
+                        continue;
+                    }
+                    window.acquire();
+                    LocalDate date = day;
+                    CompletableFuture
+                            .supplyAsync(() -> encode(options, date, pool), pool)
+                            .thenAcceptAsync(encoded -> write(options, progress, journal, writers, date, encoded), io)
+                            .whenComplete((result, e) -> {
+                                if(e != null)
+                                {
+                                    progress.failed.incrementAndGet();
+                                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                                    log.error("Backfill of {} failed: {}", date, cause.getMessage());
+                                }
+                                window.release();
+                                logProgress(progress, false);
+                            });
+                }
+            } finally
+            {
+                // Days in flight append to the journal, even when interrupted wait for them before it closes
+                window.acquireUninterruptibly(2 * ioThreads);
+            }
+            progress.state = progress.cancelled ? State.CANCELLED
+                    : progress.failed.get() > 0 ? State.FAILED : State.COMPLETED;
+        } catch (IOException e)
+        {
+            log.error("Backfill journal {} failed: {}", journalFile, e.getMessage());
+            progress.state = State.FAILED;
+        } catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            progress.state = State.CANCELLED;
+        } finally
+        {
+            io.shutdown();
+            progress.endNanos = System.nanoTime();
+        }
+        if(progress.state == State.COMPLETED)
+        {
+            try
+            {
+                Files.deleteIfExists(journalFile);
+            } catch (IOException e)
+            {
+                log.error(e.getMessage());
+            }
+        }
+        logProgress(progress, true);
+    }
+
+    private EncodedSchedule encode(Options options, LocalDate date, ForkJoinPool pool)
+    {
+        return EncodedSchedule.encode(new SchedulePasses(passScheduleService.generateDay(date, options)), pool);
+    }
+
+    private void write(Options options, Progress progress, Journal journal, BlockingQueue<ScheduleFileWriter> writers,
+                       LocalDate date, EncodedSchedule encoded)
+    {
+        ScheduleFileWriter writer = writers.remove();
+        try
+        {
+            boolean[] changed = new boolean[1];
+            scheduleFiles.write(options, writer, progress.dir, date, encoded, (file, result) -> {
+                changed[0] |= result.isWritten();
+                progress.bytes.add(result.getBytes());
+            });
+            journal.append(date);
+            (changed[0] ? progress.written : progress.unchanged).incrementAndGet();
+        } catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        } finally
+        {
+            writers.add(writer);
+        }
+    }
+
+    private static void logProgress(Progress progress, boolean last)
+    {
+        long now = System.nanoTime();
+        long logged = progress.lastLogNanos.get();
+        if(last)
+        {
+            log.info("Backfill from {} to {} {}: {} days written, {} unchanged, {} resumed, {} failed, {} bytes in {} ms",
+                    progress.from, progress.to, progress.state, progress.getWritten(), progress.getUnchanged(),
+                    progress.getResumed(), progress.getFailed(), progress.getBytes(), progress.getElapsedMillis());
+        }
+        else if(now - logged > PROGRESS_LOG_NANOS && progress.lastLogNanos.compareAndSet(logged, now))
+        {
+            log.info("Backfill from {} to {}: {} of {} days", progress.from, progress.to, progress.getDone(),
+                    progress.getDays());
+        }
+    }
+
+    // Everything that changes a generated day's files
+    private static String fingerprint(Options options)
+    {
+        StringBuilder sb = new StringBuilder();
+        for(Mission mission : options.getMissionList())
+        {
+            sb.append(mission).append(';');
+        }
+        sb.append(options.getDateFormatType()).append(";count=").append(options.getPassCount())
+                .append(";days=").append(options.getHorizonDays()).append(";windows=").append(options.getWindows())
+                .append(";zone=").append(ZoneId.systemDefault()).append(";format=").append(options.getFileFormat());
+        return sb.toString().replace('\n', ' ');
+    }
+
+    /**
+     * Days written under a fingerprint, one yyyy-MM-dd line each after a
+     * "# fingerprint" header. Lines are appended after the day's files are
+     * forced to disk; a lost line only means the day is written again.
+     */
+    private static class Journal implements Closeable
+    {
+        private final Set<LocalDate> days;
+        private final FileChannel channel;
+
+        private Journal(Set<LocalDate> days, FileChannel channel)
+        {
+            this.days = days;
+            this.channel = channel;
+        }
+
+        static Journal open(Path file, String fingerprint) throws IOException
+        {
+            String header = "# " + fingerprint;
+            Set<LocalDate> days = new HashSet<>();
+            if(Files.isRegularFile(file))
+            {
+                List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+                if(!lines.isEmpty() && lines.get(0).equals(header))
+                {
+                    for(String line : lines.subList(1, lines.size()))
+                    {
+                        try
+                        {
+                            days.add(LocalDate.parse(line.trim()));
+                        } catch (DateTimeParseException e)
+                        {
+                            // torn last line
+                        }
+                    }
+                    log.info("Resuming backfill, {} days already written", days.size());
+                }
+                else
+                {
+                    log.info("Schedule options changed since the last backfill, writing every day");
+                }
+            }
+            if(!days.isEmpty())
+            {
+                return new Journal(days, FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+            }
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            Journal journal = new Journal(days, channel);
+            journal.write(header);
+            return journal;
+        }
+
+        boolean contains(LocalDate day)
+        {
+            return days.contains(day);
+        }
+
+        void append(LocalDate day) throws IOException
+        {
+            write(day.toString());
+        }
+
+        private synchronized void write(String line) throws IOException
+        {
+            ByteBuffer bytes = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+            while(bytes.hasRemaining()) channel.write(bytes);
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            channel.close();
+        }
+    }
+
+    private static class ThreadFactory implements java.util.concurrent.ThreadFactory
+    {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable)
+        {
+            Thread thread = new Thread(runnable, "schedule-backfill-io-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package gov.nasa.gsfc.gmsec.gmoc.service;
+
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleDelta;
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleDiff;
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleSnapshot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Deltas of the published schedule against recent versions, so that
+ * downstream ingesters can apply the passes that changed instead of
+ * loading the whole schedule again. The last RETAINED_VERSIONS published
+ * snapshots are kept; snapshots share their unchanged PassIndexes, so
+ * this costs little beyond the passes that changed.
+ */
+@Service
+public class ScheduleDiffService
+{
+    static final int RETAINED_VERSIONS = 32;
+
+    @Autowired
+    PassScheduleService passScheduleService;
+
+    private final ConcurrentNavigableMap<Long, ScheduleSnapshot> published = new ConcurrentSkipListMap<>();
+
+    @PostConstruct
+    public void start()
+    {
+        passScheduleService.addPublishListener(this::retain);
+    }
+
+    void retain(ScheduleSnapshot snapshot)
+    {
+        published.put(snapshot.getVersion(), snapshot);
+        while(published.size() > RETAINED_VERSIONS) published.pollFirstEntry();
+    }
+
+    /**
+     * Changes from version since to the published schedule. A version not
+     * retained, from before a restart or never published, is answered with
+     * the full schedule, a delta from version 0.
+     */
+    public ScheduleDelta diff(long since, int maxShiftSeconds)
+    {
+        ScheduleSnapshot current = passScheduleService.getSnapshot();
+        ScheduleSnapshot base = since == current.getVersion() ? current : published.get(since);
+        if(base == null)
+        {
+            if(maxShiftSeconds < 0)
+                throw new IllegalArgumentException("maxShift must not be negative: " + maxShiftSeconds);
+            return ScheduleDiff.full(current);
+        }
+        return ScheduleDiff.diff(base, current, maxShiftSeconds);
+    }
+}
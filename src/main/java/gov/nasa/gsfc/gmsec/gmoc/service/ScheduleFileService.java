@@ -0,0 +1,194 @@
+package gov.nasa.gsfc.gmsec.gmoc.service;
+
+import gov.nasa.gsfc.gmsec.gmoc.Options;
+import gov.nasa.gsfc.gmsec.gmoc.model.ConflictDetector;
+import gov.nasa.gsfc.gmsec.gmoc.model.ConflictReport;
+import gov.nasa.gsfc.gmsec.gmoc.model.EncodedSchedule;
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleDelta;
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleDiff;
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleEncoder;
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleEncoders;
+import gov.nasa.gsfc.gmsec.gmoc.model.SchedulePasses;
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+
+/**
+ * Writes a day's schedule files into schedule.file.path: the schedule in
+ * the schedule.file.format, its binary companion, and a delta file with
+ * the passes changed since the schedule file it replaced.
+ *
+ * Schedules are checked for overlapping passes before they are written,
+ * and not written when schedule.conflicts.block is set.
+ */
+@Service
+public class ScheduleFileService
+{
+    private static final Logger log = LoggerFactory.getLogger(ScheduleFileService.class);
+
+    private static final byte[] FILE_NEWLINE = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+    private static final String GENERIC_FILE_NAME = "GENERICPassSchedule";
+    private static final String DATESTAMP_FORMAT = "yyyy-MM-dd";
+
+    @Autowired
+    Options options;
+
+    @Autowired
+    ScheduleMetrics metrics;
+
+    private final AtomicReference<ScheduleSnapshot> lastWritten = new AtomicReference<>();
+    private final ScheduleFileWriter fileWriter = new ScheduleFileWriter();
+
+    /**
+     * @return encoder of schedule files in the schedule.file.format of options
+     */
+    public static ScheduleEncoder encoder(Options options)
+    {
+        return ScheduleEncoders.forName(options.getFileFormat());
+    }
+
+    /**
+     * @return name of the CSV schedule file for a day, GENERICPassSchedule-yyyy-MM-dd.csv
+     */
+    public static String fileName(LocalDate date)
+    {
+        return fileName(date, ScheduleEncoders.CSV);
+    }
+
+    /**
+     * @return name of the schedule file for a day in a format, such as GENERICPassSchedule-yyyy-MM-dd.jsonl
+     */
+    public static String fileName(LocalDate date, ScheduleEncoder encoder)
+    {
+        return GENERIC_FILE_NAME + "-" + date.format(DateTimeFormatter.ofPattern(DATESTAMP_FORMAT))
+                + encoder.getFileExtension();
+    }
+
+    public static String binaryFileName(LocalDate date)
+    {
+        return fileName(date, ScheduleEncoders.BINARY);
+    }
+
+    public static String deltaFileName(LocalDate date)
+    {
+        return GENERIC_FILE_NAME + "-" + date.format(DateTimeFormatter.ofPattern(DATESTAMP_FORMAT)) + ".delta";
+    }
+
+    /**
+     * Write snapshot's schedule files, its rows encoded on pool, and a
+     * delta file when the schedule file was rewritten.
+     * @return the schedule file, null when the directory is missing
+     */
+    public File write(ScheduleSnapshot snapshot, ForkJoinPool pool)
+    {
+        Options options = this.options.copy();
+        File path = new File(options.getScheduleFilePath());
+        if(!path.exists())
+        {
+            log.error("Configured pass schedule file path does not exist.");
+            metrics.recordFileFailure();
+            return null;
+        }
+        if(!path.isDirectory())
+        {
+            log.error("Configured pass schedule file path is not a directory.");
+            metrics.recordFileFailure();
+            return null;
+        }
+        Path file = Paths.get(path+File.separator+fileName(snapshot.getDate(), encoder(options)));
+        try
+        {
+            EncodedSchedule encoded = EncodedSchedule.encode(snapshot.passes(), pool);
+            boolean[] rewritten = new boolean[1];
+            write(options, fileWriter, path.toPath(), snapshot.getDate(), encoded, (target, result) -> {
+                if(result.isWritten())
+                {
+                    log.info("Wrote {} bytes to {}", result.getBytes(), target);
+                    rewritten[0] |= target.getFileName().equals(file.getFileName());
+                }
+            });
+            ScheduleSnapshot base = lastWritten.getAndSet(snapshot);
+            if(rewritten[0])
+                writeDeltaFile(path.toPath(), base, snapshot);
+        } catch (IOException e)
+        {
+            log.error(e.getMessage());
+            metrics.recordFileFailure();
+        }
+        return file.toFile();
+    }
+
+    /**
+     * Write a day's schedule file, in the schedule.file.format of options,
+     * and its binary companion into dir, recording each write in the
+     * metrics and handing it to written. CSV files are written from the
+     * rows already encoded in parallel, other formats by their encoder.
+     * @throws IOException for overlapping passes when schedule.conflicts.block is set
+     */
+    void write(Options options, ScheduleFileWriter writer, Path dir, LocalDate date, EncodedSchedule encoded,
+               BiConsumer<Path, ScheduleFileWriter.Result> written) throws IOException
+    {
+        ScheduleEncoder encoder = encoder(options);
+        Path file = dir.resolve(fileName(date, encoder));
+        SchedulePasses passes = new SchedulePasses(Arrays.asList(encoded.getMissions()));
+        ConflictReport report = ConflictDetector.analyze(0, passes, 1);
+        if(report.hasConflicts())
+        {
+            ConflictReport.Conflict first = report.getExamples().get(0);
+            String message = "Pass schedule for " + date + " has conflicts: " + report + ", first "
+                    + first.getPass().getCategory() + " pass " + first.getPass().getIndex() + " overlaps "
+                    + first.getOverlaps().getCategory() + " pass " + first.getOverlaps().getIndex();
+            if(options.isConflictsBlock())
+                throw new IOException(message + ". Not writing " + file);
+            log.warn(message);
+        }
+        ScheduleFileWriter.Result result = encoder == ScheduleEncoders.CSV
+                ? writer.write(encoded, FILE_NEWLINE, file)
+                : writer.write(file, (buffer, sink) -> encoder.encode(passes, -1, FILE_NEWLINE, buffer, sink));
+        metrics.recordFileWrite(result);
+        written.accept(file, result);
+        if(encoder == ScheduleEncoders.BINARY)
+            return;
+        Path binary = dir.resolve(binaryFileName(date));
+        result = writer.write(binary, (buffer, sink) -> ScheduleEncoders.BINARY.encode(passes, -1, FILE_NEWLINE,
+                buffer, sink));
+        metrics.recordFileWrite(result);
+        written.accept(binary, result);
+    }
+
+    /**
+     * Write the changes from base, the schedule file replaced, to snapshot
+     * into the day's delta file. Without a base of the same day, as on the
+     * first write after a restart, any delta file left is removed, as it no
+     * longer describes the schedule file.
+     */
+    private void writeDeltaFile(Path dir, ScheduleSnapshot base, ScheduleSnapshot snapshot) throws IOException
+    {
+        Path file = dir.resolve(deltaFileName(snapshot.getDate()));
+        if(base == null || !base.getDate().equals(snapshot.getDate()) || base.getVersion() == snapshot.getVersion())
+        {
+            Files.deleteIfExists(file);
+            return;
+        }
+        ScheduleDelta delta = ScheduleDiff.diff(base, snapshot, ScheduleDiff.DEFAULT_MAX_SHIFT_SECONDS);
+        ScheduleFileWriter.Result result = fileWriter.write(file,
+                (buffer, sink) -> delta.writeTo(buffer, FILE_NEWLINE, sink));
+        if(result.isWritten())
+            log.info("Wrote {} bytes to {}: {}", result.getBytes(), file, delta);
+    }
+}
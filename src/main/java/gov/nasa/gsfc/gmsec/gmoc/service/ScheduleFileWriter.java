@@ -0,0 +1,167 @@
+package gov.nasa.gsfc.gmsec.gmoc.service;
+
+import gov.nasa.gsfc.gmsec.gmoc.model.BufferSink;
+import gov.nasa.gsfc.gmsec.gmoc.model.EncodedSchedule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Writes schedule files so that the GMSEC Scheduler ingest never sees a
+ * partial file: rows are encoded into a direct ByteBuffer and written in
+ * large batches through a FileChannel to a temp file in the target
+ * directory, which is forced to disk and then atomically renamed over
+ * the target.
+ *
+ * The content is hashed first; when the existing file has the same size
+ * and SHA-256 the write is skipped and its modification time is kept.
+ * Used for the CSV schedule and its binary companion.
+ * One writer holds one buffer, calls are serialized.
+ */
+public class ScheduleFileWriter
+{
+    private static final Logger log = LoggerFactory.getLogger(ScheduleFileWriter.class);
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    public static class Result
+    {
+        private final boolean written;
+        private final long bytes;
+        private final long forceNanos;
+
+        Result(boolean written, long bytes, long forceNanos)
+        {
+            this.written = written;
+            this.bytes = bytes;
+            this.forceNanos = forceNanos;
+        }
+
+        /**
+         * @return false when the existing file already had this content
+         */
+        public boolean isWritten()
+        {
+            return written;
+        }
+
+        public long getBytes()
+        {
+            return bytes;
+        }
+
+        /**
+         * @return time spent in fsync of the file and its directory
+         */
+        public long getForceNanos()
+        {
+            return forceNanos;
+        }
+    }
+
+    /**
+     * Produces file content into the writer's buffer. Called twice per
+     * write, once to hash and once to write, and must produce the same
+     * bytes both times.
+     */
+    public interface Content
+    {
+        void writeTo(ByteBuffer buffer, BufferSink sink) throws IOException;
+    }
+
+    public Result write(EncodedSchedule schedule, byte[] newline, Path target) throws IOException
+    {
+        return write(target, (buffer, sink) -> schedule.writeTo(buffer, newline, sink));
+    }
+
+    public synchronized Result write(Path target, Content content) throws IOException
+    {
+        MessageDigest digest = sha256();
+        long[] size = new long[1];
+        content.writeTo(buffer, rows -> {
+            size[0] += rows.remaining();
+            digest.update(rows);
+        });
+        byte[] hash = digest.digest();
+        if(Files.isRegularFile(target) && Files.size(target) == size[0] && Arrays.equals(hash, hashOf(target)))
+        {
+            log.info("Pass schedule file {} is unchanged, not rewriting it.", target);
+            return new Result(false, size[0], 0);
+        }
+
+        Path dir = target.toAbsolutePath().getParent();
+        // Not Files.createTempFile, which makes the file owner-only after the rename
+        Path temp = dir.resolve("." + target.getFileName() + "." + System.nanoTime() + ".tmp");
+        long forceNanos;
+        try
+        {
+            try(FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW))
+            {
+                content.writeTo(buffer, rows -> {
+                    while(rows.hasRemaining()) channel.write(rows);
+                });
+                long start = System.nanoTime();
+                channel.force(true);
+                forceNanos = System.nanoTime() - start;
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally
+        {
+            Files.deleteIfExists(temp);
+        }
+        forceNanos += forceDirectory(dir);
+        return new Result(true, size[0], forceNanos);
+    }
+
+    private byte[] hashOf(Path file) throws IOException
+    {
+        MessageDigest digest = sha256();
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            buffer.clear();
+            while(channel.read(buffer) >= 0)
+            {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return digest.digest();
+    }
+
+    // Make the rename durable. Directories cannot be opened on every platform.
+    private static long forceDirectory(Path dir)
+    {
+        long start = System.nanoTime();
+        try(FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ))
+        {
+            channel.force(true);
+        } catch (IOException e)
+        {
+            log.debug("Could not force directory {}: {}", dir, e.getMessage());
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static MessageDigest sha256()
+    {
+        try
+        {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,472 @@
+package gov.nasa.gsfc.gmsec.gmoc.service;
+
+import gov.nasa.gsfc.gmsec.gmoc.Options;
+import gov.nasa.gsfc.gmsec.gmoc.model.HistoryPass;
+import gov.nasa.gsfc.gmsec.gmoc.model.HistoryRevision;
+import gov.nasa.gsfc.gmsec.gmoc.model.HistorySegment;
+import gov.nasa.gsfc.gmsec.gmoc.model.HistoryTimeline;
+import gov.nasa.gsfc.gmsec.gmoc.model.PassTable;
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleSnapshot;
+import gov.nasa.gsfc.gmsec.gmoc.model.SortedPassIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Append-only store of every published schedule, in schedule.history.dir,
+ * by default history under schedule.file.path, for questions like "what
+ * was scheduled for WIRE last March".
+ *
+ * Each published snapshot becomes a HistoryRevision. Its passes are
+ * appended to a write-ahead log, forced to disk, and held in memory until
+ * enough have accumulated to be written out as an immutable, AOS-sorted
+ * HistorySegment with a sparse time index. When there are too many
+ * segments, the adjacent pair with the fewest passes is merged, dropping
+ * passes superseded by a later revision more than
+ * schedule.history.retain.days ago. A crash loses nothing the log
+ * acknowledged: on open the log is replayed, and segments already merged
+ * into another are deleted.
+ *
+ * Queries see an immutable state, swapped in by the single writer thread,
+ * so they never wait for appends or compactions.
+ */
+@Service
+public class ScheduleHistory
+{
+    private static final Logger log = LoggerFactory.getLogger(ScheduleHistory.class);
+    private static final String LOG_FILE = "history.wal";
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d+)-(\\d+)\\" + HistorySegment.FILE_EXTENSION);
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    @Autowired
+    Options options;
+
+    @Autowired
+    PassScheduleService passScheduleService;
+
+    // Passes held in memory and the log before a segment is written, and segments before merging; tests lower these
+    int flushPasses = 16384;
+    int maxSegments = 8;
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "schedule-history");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ScheduleFileWriter fileWriter = new ScheduleFileWriter();
+    private final Object lock = new Object();
+    private volatile State state;
+    private Path dir;
+    private HistoryLog wal;
+    private long nextRevision = 1;
+
+    /**
+     * Everything a query needs, never modified.
+     */
+    private static class State
+    {
+        final List<HistorySegment> segments;
+        final List<HistoryLog.Entry> recent;
+        final List<HistoryRevision> revisions;
+        final HistoryTimeline timeline;
+        final int recentPasses;
+
+        State(List<HistorySegment> segments, List<HistoryLog.Entry> recent)
+        {
+            this.segments = Collections.unmodifiableList(segments);
+            this.recent = Collections.unmodifiableList(recent);
+            List<HistoryRevision> revisions = new ArrayList<>();
+            for(HistorySegment segment : segments) revisions.addAll(segment.getRevisions());
+            int passes = 0;
+            for(HistoryLog.Entry entry : recent)
+            {
+                revisions.add(entry.getRevision());
+                passes += entry.getPasses().size();
+            }
+            this.revisions = Collections.unmodifiableList(revisions);
+            this.timeline = new HistoryTimeline(revisions);
+            this.recentPasses = passes;
+        }
+    }
+
+    @PostConstruct
+    public void start()
+    {
+        passScheduleService.addPublishListener(snapshot -> {
+            long publishedMillis = System.currentTimeMillis();
+            writer.execute(() -> {
+                try
+                {
+                    append(snapshot, publishedMillis);
+                } catch (IOException | RuntimeException e)
+                {
+                    log.error("Could not add schedule version {} to the history: {}", snapshot.getVersion(),
+                            e.getMessage());
+                }
+            });
+        });
+    }
+
+    @PreDestroy
+    public void stop()
+    {
+        writer.shutdown();
+        try
+        {
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        synchronized(lock)
+        {
+            try
+            {
+                if(wal != null) wal.close();
+                if(state != null)
+                {
+                    for(HistorySegment segment : state.segments) segment.close();
+                }
+            } catch (IOException e)
+            {
+                log.error("Could not close the schedule history: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return history directory, null when the history is disabled
+     */
+    public Path getDirectory()
+    {
+        Options options = this.options.copy();
+        String configured = options.getHistoryDir();
+        if(configured.equalsIgnoreCase("none"))
+            return null;
+        return configured.isEmpty() ? Paths.get(options.getScheduleFilePath(), "history") : Paths.get(configured);
+    }
+
+    /**
+     * Add a snapshot published at publishedMillis as the next revision,
+     * durable on return.
+     *
+     * @return the revision, null when the history is disabled
+     */
+    public HistoryRevision append(ScheduleSnapshot snapshot, long publishedMillis) throws IOException
+    {
+        synchronized(lock)
+        {
+            if(open() == null)
+                return null;
+            PassTable passes = PassTable.of(snapshot.getMissions());
+            ZoneId zone = ZoneId.systemDefault();
+            long dayStart = snapshot.getDate().atStartOfDay(zone).toEpochSecond();
+            long coverFrom = dayStart;
+            long coverTo = snapshot.getDate().plusDays(1).atStartOfDay(zone).toEpochSecond();
+            for(int i = 0; i < passes.size(); i++)
+            {
+                coverFrom = Math.min(coverFrom, passes.startOf(i));
+                coverTo = Math.max(coverTo, passes.startOf(i) + passes.durationOf(i));
+            }
+            HistoryRevision revision = new HistoryRevision(nextRevision, snapshot.getVersion(),
+                    publishedMillis, snapshot.getDate(), coverFrom, coverTo, passes.size());
+            wal.append(revision, passes);
+            nextRevision++;
+
+            List<HistoryLog.Entry> recent = new ArrayList<>(state.recent);
+            recent.add(new HistoryLog.Entry(revision, passes));
+            state = new State(state.segments, recent);
+            if(state.recentPasses >= flushPasses) flush();
+            return revision;
+        }
+    }
+
+    /**
+     * Write the passes held in memory out as a segment and empty the log.
+     */
+    public void flush() throws IOException
+    {
+        synchronized(lock)
+        {
+            if(open() == null || state.recent.isEmpty())
+                return;
+            HistorySegment.Builder builder = new HistorySegment.Builder();
+            for(HistoryLog.Entry entry : state.recent)
+            {
+                builder.addRevision(entry.getRevision());
+                builder.addAll(entry.getPasses(), entry.getRevision().getRevision());
+            }
+            HistorySegment segment = write(builder);
+            List<HistorySegment> segments = new ArrayList<>(state.segments);
+            segments.add(segment);
+            state = new State(segments, Collections.emptyList());
+            wal.reset();
+            log.info("Wrote schedule history segment {}, {} passes", segment.getFile().getFileName(), segment.size());
+            compact();
+        }
+    }
+
+    /**
+     * Merge adjacent segments, the pair with the fewest passes first,
+     * until there are at most maxSegments.
+     */
+    public void compact() throws IOException
+    {
+        synchronized(lock)
+        {
+            if(open() == null)
+                return;
+            while(state.segments.size() > Math.max(1, maxSegments))
+            {
+                List<HistorySegment> segments = state.segments;
+                int pair = 0;
+                for(int i = 1; i + 1 < segments.size(); i++)
+                {
+                    if(segments.get(i).size() + segments.get(i + 1).size()
+                            < segments.get(pair).size() + segments.get(pair + 1).size()) pair = i;
+                }
+                merge(pair);
+            }
+        }
+    }
+
+    private void merge(int pair) throws IOException
+    {
+        long start = System.nanoTime();
+        long keepSupersededFrom = System.currentTimeMillis() - options.getHistoryRetainDays() * DAY_MILLIS;
+        HistoryTimeline timeline = state.timeline;
+        List<HistorySegment> merged = state.segments.subList(pair, pair + 2);
+        HistorySegment.Builder builder = new HistorySegment.Builder();
+        Map<Long, HistoryRevision> revisions = new HashMap<>();
+        for(HistoryRevision revision : state.revisions) revisions.put(revision.getRevision(), revision);
+        for(HistorySegment segment : merged)
+        {
+            for(HistoryRevision revision : segment.getRevisions()) builder.addRevision(revision);
+        }
+        int dropped = 0;
+        for(HistorySegment segment : merged)
+        {
+            for(int i = 0; i < segment.size(); i++)
+            {
+                // A pass was superseded when the revision now covering its AOS was published
+                long revision = segment.revisionOf(i);
+                HistoryRevision current = revisions.get(timeline.revisionAt(segment.aosOf(i)));
+                if(current != null && current.getRevision() != revision
+                        && current.getPublishedMillis() < keepSupersededFrom)
+                {
+                    dropped++;
+                    continue;
+                }
+                builder.add(segment.aosOf(i), segment.durationOf(i), revision, segment.categoryOf(i),
+                        segment.startLabelOf(i), segment.endLabelOf(i));
+            }
+        }
+        HistorySegment segment = write(builder);
+        List<HistorySegment> segments = new ArrayList<>(state.segments);
+        segments.subList(pair, pair + 2).clear();
+        segments.add(pair, segment);
+        state = new State(segments, state.recent);
+        for(HistorySegment old : merged)
+        {
+            // Queries still reading the old segment keep its mapping
+            old.close();
+            Files.delete(old.getFile());
+        }
+        log.info("Compacted schedule history into {}, {} passes, {} superseded dropped, in {} ms",
+                segment.getFile().getFileName(), segment.size(), dropped, (System.nanoTime() - start) / 1000000);
+    }
+
+    private HistorySegment write(HistorySegment.Builder builder) throws IOException
+    {
+        List<HistoryRevision> revisions = builder.getRevisions();
+        Path file = dir.resolve(String.format("segment-%010d-%010d%s", revisions.get(0).getRevision(),
+                revisions.get(revisions.size() - 1).getRevision(), HistorySegment.FILE_EXTENSION));
+        fileWriter.write(file, builder::writeTo);
+        return new HistorySegment(file);
+    }
+
+    /**
+     * Open the store on first use: segments, minus any merged into
+     * another before a crash, then the log entries not yet in a segment.
+     *
+     * @return the history directory, null when disabled
+     */
+    private Path open() throws IOException
+    {
+        if(state != null)
+            return dir;
+        Path configured = getDirectory();
+        if(configured == null)
+            return null;
+        Files.createDirectories(configured);
+        List<HistorySegment> segments = new ArrayList<>();
+        List<Path> files = new ArrayList<>();
+        try(DirectoryStream<Path> listing = Files.newDirectoryStream(configured))
+        {
+            for(Path file : listing)
+            {
+                String name = file.getFileName().toString();
+                if(SEGMENT_NAME.matcher(name).matches()) files.add(file);
+                else if(name.startsWith(".segment-") && name.endsWith(".tmp")) Files.delete(file);
+            }
+        }
+        // By first revision, the widest first, so that leftovers of a merge follow what they were merged into
+        files.sort(Comparator.comparingLong((Path file) -> revisionRange(file)[0])
+                .thenComparing(Comparator.comparingLong((Path file) -> revisionRange(file)[1]).reversed()));
+        long last = 0;
+        for(Path file : files)
+        {
+            if(revisionRange(file)[1] <= last)
+            {
+                log.info("Deleting schedule history segment {}, already merged", file.getFileName());
+                Files.delete(file);
+                continue;
+            }
+            HistorySegment segment = new HistorySegment(file);
+            segments.add(segment);
+            last = revisionRange(file)[1];
+        }
+
+        wal = new HistoryLog(configured.resolve(LOG_FILE));
+        List<HistoryLog.Entry> recent = new ArrayList<>();
+        for(HistoryLog.Entry entry : wal.getReplayed())
+        {
+            if(entry.getRevision().getRevision() > last)
+            {
+                recent.add(entry);
+                last = entry.getRevision().getRevision();
+            }
+        }
+        nextRevision = last + 1;
+        dir = configured;
+        state = new State(segments, recent);
+        log.info("Opened schedule history {}: {} revisions, {} segments, {} passes in the log", configured,
+                state.revisions.size(), segments.size(), state.recentPasses);
+        return dir;
+    }
+
+    private static long[] revisionRange(Path file)
+    {
+        Matcher name = SEGMENT_NAME.matcher(file.getFileName().toString());
+        if(!name.matches())
+            throw new IllegalArgumentException("Not a history segment: " + file);
+        return new long[] {Long.parseLong(name.group(1)), Long.parseLong(name.group(2))};
+    }
+
+    private State state()
+    {
+        if(state == null)
+        {
+            synchronized(lock)
+            {
+                try
+                {
+                    if(open() == null)
+                        throw new IllegalStateException("The schedule history is disabled");
+                } catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Passes overlapping [from, to) as they were scheduled, in AOS order:
+     * of each span of time, the passes of the latest revision covering it.
+     *
+     * @param mission category, or null for every mission
+     * @param asOfMillis only revisions published by then, or null for all
+     * @throws IllegalStateException when the history is disabled
+     */
+    public List<HistoryPass> query(long from, long to, String mission, Long asOfMillis, int limit)
+    {
+        if(limit < 0)
+            throw new IllegalArgumentException("limit must not be negative: " + limit);
+        State state = state();
+        HistoryTimeline timeline = state.timeline;
+        if(asOfMillis != null)
+        {
+            List<HistoryRevision> published = new ArrayList<>();
+            for(HistoryRevision revision : state.revisions)
+            {
+                if(revision.getPublishedMillis() <= asOfMillis) published.add(revision);
+            }
+            timeline = new HistoryTimeline(published);
+        }
+
+        // Each source is in AOS order, so the first limit of all are among the first limit of each
+        List<HistoryPass> passes = new ArrayList<>();
+        for(HistorySegment segment : state.segments)
+        {
+            segment.query(from, to, mission, timeline, limit, passes);
+        }
+        for(HistoryLog.Entry entry : state.recent)
+        {
+            long revision = entry.getRevision().getRevision();
+            PassTable table = entry.getPasses();
+            SortedPassIndex index = table.asIndex();
+            int found = 0;
+            for(int i = index.firstEndingAfter(from); i < table.size() && found < limit; i++)
+            {
+                long aos = table.startOf(i);
+                if(aos >= to)
+                    break;
+                if(mission != null && !mission.equals(table.categoryOf(i)) || index.endOf(i) <= from
+                        || timeline.revisionAt(aos) != revision)
+                    continue;
+                passes.add(new HistoryPass(table.categoryOf(i), aos, index.endOf(i), table.startLabelOf(i),
+                        table.endLabelOf(i), revision));
+                found++;
+            }
+        }
+        passes.sort(Comparator.comparingLong(HistoryPass::getAos).thenComparing(HistoryPass::getCategory));
+        return passes.size() > limit ? new ArrayList<>(passes.subList(0, limit)) : passes;
+    }
+
+    /**
+     * @return revisions published in [fromMillis, toMillis), in revision order
+     * @throws IllegalStateException when the history is disabled
+     */
+    public List<HistoryRevision> revisions(long fromMillis, long toMillis)
+    {
+        List<HistoryRevision> revisions = new ArrayList<>();
+        for(HistoryRevision revision : state().revisions)
+        {
+            if(revision.getPublishedMillis() >= fromMillis && revision.getPublishedMillis() < toMillis)
+                revisions.add(revision);
+        }
+        return revisions;
+    }
+
+    /**
+     * @return segments on disk, for tests and monitoring
+     */
+    public int segmentCount()
+    {
+        return state().segments.size();
+    }
+}
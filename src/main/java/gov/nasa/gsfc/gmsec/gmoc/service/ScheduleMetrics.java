@@ -0,0 +1,227 @@
+package gov.nasa.gsfc.gmsec.gmoc.service;
+
+import gov.nasa.gsfc.gmsec.gmoc.model.LatencyHistogram;
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleSnapshot;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms for schedule generation, schedule file
+ * writes, HTTP requests, pass event timers and bus publishing, rendered in
+ * the Prometheus text format by MetricsController.
+ *
+ * Counters are LongAdders and histograms are LatencyHistograms, so
+ * recording never takes a lock; the cost lands on the scrape instead.
+ */
+@Service
+public class ScheduleMetrics
+{
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final String[] QUANTILE_LABELS = {"0.5", "0.9", "0.99", "0.999"};
+
+    private final LongAdder snapshotsBuilt = new LongAdder();
+    private final LongAdder rowsGenerated = new LongAdder();
+    private final LatencyHistogram generationNanos = new LatencyHistogram();
+    private final LongAdder fileBytesWritten = new LongAdder();
+    private final LatencyHistogram fsyncNanos = new LatencyHistogram();
+    private final LongAdder filesWritten = new LongAdder();
+    private final LongAdder filesUnchanged = new LongAdder();
+    private final LongAdder fileFailures = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final ConcurrentMap<String, LatencyHistogram> requestNanos = new ConcurrentHashMap<>();
+    private final LatencyHistogram timerLatenessNanos = new LatencyHistogram();
+    private final LongAdder busMessagesSent = new LongAdder();
+    private final LongAdder busMessagesUnchanged = new LongAdder();
+    private final LongAdder busMessagesCancelled = new LongAdder();
+    private final LongAdder busRetries = new LongAdder();
+    private final LongAdder busFailures = new LongAdder();
+    private final LatencyHistogram busBatchNanos = new LatencyHistogram();
+
+    public void recordGeneration(long rows, long nanos)
+    {
+        snapshotsBuilt.increment();
+        rowsGenerated.add(rows);
+        generationNanos.record(nanos);
+    }
+
+    public void recordFileWrite(ScheduleFileWriter.Result result)
+    {
+        if(result.isWritten())
+        {
+            filesWritten.increment();
+            fileBytesWritten.add(result.getBytes());
+            fsyncNanos.record(result.getForceNanos());
+        }
+        else
+        {
+            filesUnchanged.increment();
+        }
+    }
+
+    public void recordFileFailure()
+    {
+        fileFailures.increment();
+    }
+
+    public void recordCache(boolean hit)
+    {
+        (hit ? cacheHits : cacheMisses).increment();
+    }
+
+    /**
+     * @param path request mapping, not the raw URI, to keep the label set small
+     */
+    public void recordRequest(String path, long nanos)
+    {
+        LatencyHistogram histogram = requestNanos.get(path);
+        if(histogram == null)
+        {
+            histogram = requestNanos.computeIfAbsent(path, p -> new LatencyHistogram());
+        }
+        histogram.record(nanos);
+    }
+
+    /**
+     * @param nanos from a PassEventEngine deadline to running its task
+     */
+    public void recordTimerLateness(long nanos)
+    {
+        timerLatenessNanos.record(nanos);
+    }
+
+    /**
+     * @param sent pass messages handed to the bus, unchanged ones were not
+     */
+    public void recordBusPublish(long sent, long unchanged, long cancelled)
+    {
+        busMessagesSent.add(sent);
+        busMessagesUnchanged.add(unchanged);
+        busMessagesCancelled.add(cancelled);
+    }
+
+    /**
+     * @param nanos from sending a batch to the bus accepting it
+     */
+    public void recordBusBatch(long nanos)
+    {
+        busBatchNanos.record(nanos);
+    }
+
+    public void recordBusRetry()
+    {
+        busRetries.increment();
+    }
+
+    public void recordBusFailure()
+    {
+        busFailures.increment();
+    }
+
+    public long getFileFailures()
+    {
+        return fileFailures.sum();
+    }
+
+    /**
+     * Append every metric in the Prometheus text exposition format 0.0.4.
+     * @param snapshot published schedule, or null if none yet
+     */
+    public void writePrometheus(StringBuilder out, ScheduleSnapshot snapshot, long nowMillis)
+    {
+        header(out, "gmoc_schedule_snapshots_built_total", "counter", "Schedule snapshots built.");
+        sample(out, "gmoc_schedule_snapshots_built_total", "", snapshotsBuilt.sum());
+        header(out, "gmoc_schedule_rows_generated_total", "counter", "Pass rows generated into schedule snapshots.");
+        sample(out, "gmoc_schedule_rows_generated_total", "", rowsGenerated.sum());
+        summary(out, "gmoc_schedule_generation_seconds", "Time to build a schedule snapshot.", "", generationNanos);
+
+        header(out, "gmoc_schedule_file_writes_total", "counter", "Schedule file writes by result.");
+        sample(out, "gmoc_schedule_file_writes_total", "result=\"written\"", filesWritten.sum());
+        sample(out, "gmoc_schedule_file_writes_total", "result=\"unchanged\"", filesUnchanged.sum());
+        sample(out, "gmoc_schedule_file_writes_total", "result=\"failed\"", fileFailures.sum());
+        header(out, "gmoc_schedule_file_bytes_written_total", "counter", "Bytes written to schedule files.");
+        sample(out, "gmoc_schedule_file_bytes_written_total", "", fileBytesWritten.sum());
+        summary(out, "gmoc_schedule_file_fsync_seconds", "Time to force written schedule files to disk.", "", fsyncNanos);
+
+        header(out, "gmoc_response_cache_requests_total", "counter", "Rendered response cache lookups by result.");
+        sample(out, "gmoc_response_cache_requests_total", "result=\"hit\"", cacheHits.sum());
+        sample(out, "gmoc_response_cache_requests_total", "result=\"miss\"", cacheMisses.sum());
+
+        String name = "gmoc_http_request_duration_seconds";
+        header(out, name, "summary", "HTTP request latency by request mapping.");
+        for(Map.Entry<String, LatencyHistogram> entry : requestNanos.entrySet())
+        {
+            quantiles(out, name, "path=\"" + escape(entry.getKey()) + "\"", entry.getValue());
+        }
+
+        summary(out, "gmoc_pass_event_lateness_seconds", "Delay from a pass event deadline to firing it.", "",
+                timerLatenessNanos);
+
+        header(out, "gmoc_bus_messages_total", "counter", "Pass messages by what was published.");
+        sample(out, "gmoc_bus_messages_total", "result=\"sent\"", busMessagesSent.sum());
+        sample(out, "gmoc_bus_messages_total", "result=\"unchanged\"", busMessagesUnchanged.sum());
+        sample(out, "gmoc_bus_messages_total", "result=\"cancelled\"", busMessagesCancelled.sum());
+        header(out, "gmoc_bus_batches_total", "counter", "Bus batch sends by result.");
+        sample(out, "gmoc_bus_batches_total", "result=\"accepted\"", busBatchNanos.getCount());
+        sample(out, "gmoc_bus_batches_total", "result=\"retried\"", busRetries.sum());
+        sample(out, "gmoc_bus_batches_total", "result=\"failed\"", busFailures.sum());
+        summary(out, "gmoc_bus_batch_seconds", "Time from sending a batch to the bus accepting it.", "", busBatchNanos);
+
+        if(snapshot != null)
+        {
+            header(out, "gmoc_schedule_snapshot_version", "gauge", "Version of the published schedule snapshot.");
+            sample(out, "gmoc_schedule_snapshot_version", "", snapshot.getVersion());
+            header(out, "gmoc_schedule_snapshot_age_seconds", "gauge", "Seconds since the published snapshot was built.");
+            sample(out, "gmoc_schedule_snapshot_age_seconds", "", (nowMillis - snapshot.getCreatedMillis()) / 1000.0);
+        }
+    }
+
+    private static void summary(StringBuilder out, String name, String help, String labels, LatencyHistogram histogram)
+    {
+        header(out, name, "summary", help);
+        quantiles(out, name, labels, histogram);
+    }
+
+    private static void quantiles(StringBuilder out, String name, String labels, LatencyHistogram histogram)
+    {
+        long count = histogram.getCount();
+        long sum = histogram.getSum();
+        long[] values = histogram.percentiles(QUANTILES);
+        String separator = labels.isEmpty() ? "" : ",";
+        for(int q = 0; q < QUANTILES.length; q++)
+        {
+            sample(out, name, labels + separator + "quantile=\"" + QUANTILE_LABELS[q] + "\"", values[q] / 1e9);
+        }
+        sample(out, name + "_sum", labels, sum / 1e9);
+        sample(out, name + "_count", labels, count);
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help)
+    {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, long value)
+    {
+        out.append(name);
+        if(!labels.isEmpty()) out.append('{').append(labels).append('}');
+        out.append(' ').append(value).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value)
+    {
+        out.append(name);
+        if(!labels.isEmpty()) out.append('{').append(labels).append('}');
+        out.append(' ').append(value).append('\n');
+    }
+
+    private static String escape(String value)
+    {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
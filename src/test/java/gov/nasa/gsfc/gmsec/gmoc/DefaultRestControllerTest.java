@@ -0,0 +1,270 @@
+package gov.nasa.gsfc.gmsec.gmoc;
+
+import gov.nasa.gsfc.gmsec.gmoc.model.RenderedResponse;
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleEncoders;
+import gov.nasa.gsfc.gmsec.gmoc.service.PassScheduleService;
+import gov.nasa.gsfc.gmsec.gmoc.service.RenderedResponseCache;
+import gov.nasa.gsfc.gmsec.gmoc.service.ScheduleMetrics;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class DefaultRestControllerTest
+{
+    // 2016-11-30T00:00:00Z, WIRE passes every 5 minutes for 2 minutes from here
+    private static final long START = 1480464000L;
+    private static final Pattern AOS = Pattern.compile("\"aos\":(\\d+)");
+
+    private MockMvc mvc;
+
+    @Before
+    public void setup()
+    {
+        Options options = new Options();
+        options.parse(new String[] {
+                "passDuration=00:02:00",
+                "schedule.missions=WIRE",
+                "schedule.horizon.start=2016-11-30T00:00:00Z",
+                "schedule.pass.count=100"});
+        ScheduleMetrics metrics = new ScheduleMetrics();
+        PassScheduleService service = new PassScheduleService();
+        ReflectionTestUtils.setField(service, "options", options);
+        ReflectionTestUtils.setField(service, "metrics", metrics);
+        RenderedResponseCache cache = new RenderedResponseCache();
+        ReflectionTestUtils.setField(cache, "options", options);
+        ReflectionTestUtils.setField(cache, "metrics", metrics);
+        DefaultRestController controller = new DefaultRestController();
+        ReflectionTestUtils.setField(controller, "passScheduleService", service);
+        ReflectionTestUtils.setField(controller, "responseCache", cache);
+        ReflectionTestUtils.setField(controller, "metrics", metrics);
+        mvc = MockMvcBuilders.standaloneSetup(controller).setControllerAdvice(new BadRequestHandler()).build();
+    }
+
+    @Test
+    public void parseInstant()
+    {
+        assertEquals(START, DefaultRestController.parseInstant("1480464000"));
+        assertEquals(0, DefaultRestController.parseInstant("0"));
+        assertEquals(START, DefaultRestController.parseInstant("2016-11-30T00:00:00Z"));
+        assertEquals(START + 90, DefaultRestController.parseInstant("2016-11-30T00:01:30.999Z"));
+        for(String malformed : new String[] {"", "abc", "-5", "1e9", "+100", "99999999999999999999",
+                "2016-11-30", "2016-11-30T00:00:00", "2016-11-30 00:00:00Z"})
+        {
+            try
+            {
+                DefaultRestController.parseInstant(malformed);
+                fail(malformed);
+            } catch (IllegalArgumentException e)
+            {
+                // Expected
+            }
+        }
+    }
+
+    @Test
+    public void malformedParametersAreBadRequests() throws Exception
+    {
+        mvc.perform(get("/schedule").param("from", "yesterday")).andExpect(status().isBadRequest())
+                .andExpect(content().string("Expected epoch seconds or ISO-8601 instant: yesterday"));
+        mvc.perform(get("/schedule").param("to", "2016-11-30")).andExpect(status().isBadRequest());
+        mvc.perform(get("/schedule").param("limit", "ten")).andExpect(status().isBadRequest());
+        mvc.perform(get("/schedule").param("format", "xml")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void windowHoldsPassesOverlappingFromTo() throws Exception
+    {
+        // Bounded by to, the pass at START + 600 starts at to and is not included
+        assertEquals(Arrays.asList(START, START + 300), aos("from", "1480464000", "to", "1480464600"));
+        // The pass at START ends at START + 120, so overlaps a window from START + 100
+        assertEquals(Arrays.asList(START, START + 300), aos("from", "1480464100", "to", "2016-11-30T00:10:00Z"));
+        assertEquals(Arrays.asList(START + 300), aos("from", "1480464120", "to", "1480464301"));
+        assertEquals(Arrays.asList(), aos("from", "1480464120", "to", "1480464300"));
+        // Bounded by limit, cached, and not cached
+        assertEquals(Arrays.asList(START + 300, START + 600, START + 900),
+                aos("from", "2016-11-30T00:05:00Z", "limit", "3"));
+        assertEquals(Arrays.asList(START + 29400, START + 29700),
+                aos("from", "2016-11-30T08:10:00Z", "limit", "20000"));
+        assertEquals(Arrays.asList(), aos("limit", "0"));
+        assertEquals(100, aos().size());
+    }
+
+    @Test
+    public void negotiate()
+    {
+        Object[][] cases = {
+                // format, Accept, encoder or null for 406
+                {null, null, ScheduleEncoders.CSV},
+                {null, " ", ScheduleEncoders.CSV},
+                {null, "*/*", ScheduleEncoders.CSV},
+                {null, "text/*", ScheduleEncoders.CSV},
+                {null, "text/csv", ScheduleEncoders.CSV},
+                {null, "application/x-ndjson", ScheduleEncoders.JSON_LINES},
+                {null, "application/jsonl", ScheduleEncoders.JSON_LINES},
+                {null, "application/json", ScheduleEncoders.JSON_COLUMNS},
+                {null, "application/octet-stream", ScheduleEncoders.BINARY},
+                {null, "application/*", ScheduleEncoders.JSON_LINES},
+                // Quality, then specificity
+                {null, "application/json;q=0.5, application/x-ndjson", ScheduleEncoders.JSON_LINES},
+                {null, "text/csv;q=0.1, application/json;q=0.9", ScheduleEncoders.JSON_COLUMNS},
+                {null, "*/*;q=0.8, application/json", ScheduleEncoders.JSON_COLUMNS},
+                {null, "application/*;q=0.9, application/json;q=0.1", ScheduleEncoders.JSON_COLUMNS},
+                {null, "text/html, application/xhtml+xml, */*;q=0.8", ScheduleEncoders.CSV},
+                // q=0 rules a type out, also when a wider range would include it
+                {null, "text/*;q=0, */*", ScheduleEncoders.JSON_LINES},
+                {null, "text/*;q=0, application/x-ndjson;q=0, application/jsonl;q=0, */*",
+                        ScheduleEncoders.JSON_COLUMNS},
+                {null, "application/json;q=0", null},
+                {null, "*/*;q=0", null},
+                // None acceptable
+                {null, "application/xml", null},
+                {null, "text/html", null},
+                // An explicit format wins over Accept
+                {"jsonl", "text/csv", ScheduleEncoders.JSON_LINES},
+                {"JSON", "application/xml", ScheduleEncoders.JSON_COLUMNS},
+                {"bin", null, ScheduleEncoders.BINARY},
+                {"csv", "*/*;q=0", ScheduleEncoders.CSV},
+        };
+        for(Object[] c : cases)
+        {
+            assertEquals(c[0] + " " + c[1], c[2], DefaultRestController.negotiate((String) c[0], (String) c[1]));
+        }
+        for(String[] invalid : new String[][] {{"xml", null}, {null, "text"}, {null, "application/json;q=x"}})
+        {
+            try
+            {
+                DefaultRestController.negotiate(invalid[0], invalid[1]);
+                fail(invalid[0] + " " + invalid[1]);
+            } catch (IllegalArgumentException e)
+            {
+                // Expected, answered with 400
+            }
+        }
+    }
+
+    @Test
+    public void notAcceptable() throws Exception
+    {
+        MockHttpServletResponse response = perform(get("/schedule").header(HttpHeaders.ACCEPT, "application/xml"));
+        assertEquals(406, response.getStatus());
+        assertEquals(HttpHeaders.ACCEPT, response.getHeader(HttpHeaders.VARY));
+        response = perform(get("/schedule").param("limit", "3").param("format", "bin")
+                .header(HttpHeaders.ACCEPT, "application/xml"));
+        assertEquals(200, response.getStatus());
+        assertEquals("application/octet-stream", response.getContentType());
+    }
+
+    @Test
+    public void respondWithEtagGzipOr304() throws Exception
+    {
+        byte[] body = "WIRE,2016-335-00:00:00,+00:02:00,AOS WIRE,LOS WIRE\r\n".getBytes(StandardCharsets.UTF_8);
+        RenderedResponse rendered = new RenderedResponse(1, body);
+
+        ResponseEntity<byte[]> response = DefaultRestController.respond(rendered, null, null);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(rendered.getEtag(), response.getHeaders().getETag());
+        assertEquals(DefaultRestController.TEXT_PLAIN_UTF8, response.getHeaders().getContentType());
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeaders().getFirst(HttpHeaders.VARY));
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(body, response.getBody());
+
+        for(String gzip : new String[] {"gzip", "GZIP", "deflate, gzip", "gzip;q=0.5", "br;q=1, gzip; q=0.001"})
+        {
+            response = DefaultRestController.respond(rendered, null, gzip);
+            assertEquals(gzip, "gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+            assertEquals(gzip, rendered.getGzipEtag(), response.getHeaders().getETag());
+            assertArrayEquals(gzip, rendered.getGzipBody(), response.getBody());
+        }
+        for(String identity : new String[] {"identity", "gzip;q=0", "gzip; q=0.000", "x-gzip", "deflate"})
+        {
+            response = DefaultRestController.respond(rendered, null, identity);
+            assertNull(identity, response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+            assertEquals(identity, rendered.getEtag(), response.getHeaders().getETag());
+            assertArrayEquals(identity, body, response.getBody());
+        }
+
+        // Either variant's tag is a match, the 304 carries the tag of the accepted variant
+        for(String tag : new String[] {rendered.getEtag(), rendered.getGzipEtag(), "\"a\", " + rendered.getEtag()})
+        {
+            response = DefaultRestController.respond(rendered, tag, "gzip");
+            assertEquals(tag, HttpStatus.NOT_MODIFIED, response.getStatusCode());
+            assertEquals(tag, rendered.getGzipEtag(), response.getHeaders().getETag());
+            assertNull(tag, response.getBody());
+        }
+        assertEquals(HttpStatus.OK, DefaultRestController.respond(rendered, "\"a\"", null).getStatusCode());
+        assertEquals(HttpStatus.OK,
+                DefaultRestController.respond(new RenderedResponse(2, body), rendered.getEtag(), null).getStatusCode());
+    }
+
+    @Test
+    public void cachedWindowsAnswer200Then304() throws Exception
+    {
+        for(String accept : new String[] {"text/csv", "text/plain", "*/*", "text/*;q=0.5, application/json;q=0.1"})
+        {
+            MockHttpServletResponse response = perform(get("/schedule").param("limit", "10")
+                    .header(HttpHeaders.ACCEPT, accept));
+            assertEquals(accept, 200, response.getStatus());
+            assertEquals(accept, "text/plain;charset=UTF-8", response.getContentType());
+            assertEquals(accept, 10, response.getContentAsString().split("\r\n").length);
+            String etag = response.getHeader(HttpHeaders.ETAG);
+
+            response = perform(get("/schedule").param("limit", "10").header(HttpHeaders.ACCEPT, accept)
+                    .header(HttpHeaders.IF_NONE_MATCH, etag));
+            assertEquals(accept, 304, response.getStatus());
+            assertEquals(accept, 0, response.getContentLength());
+        }
+
+        MockHttpServletResponse response = perform(get("/").header(HttpHeaders.ACCEPT_ENCODING, "gzip"));
+        assertEquals(200, response.getStatus());
+        assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        response = perform(get("/").header(HttpHeaders.IF_NONE_MATCH, response.getHeader(HttpHeaders.ETAG)));
+        assertEquals(304, response.getStatus());
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequestBuilder request) throws Exception
+    {
+        MvcResult result = mvc.perform(request).andReturn();
+        if(result.getRequest().isAsyncStarted()) result.getAsyncResult();
+        return result.getResponse();
+    }
+
+    private List<Long> aos(String... params) throws Exception
+    {
+        MockHttpServletRequestBuilder request = get("/schedule")
+                .param("format", "jsonl");
+        for(int i = 0; i < params.length; i += 2) request.param(params[i], params[i + 1]);
+        // The body is streamed on the async thread into the first response
+        MvcResult result = mvc.perform(request).andExpect(request().asyncStarted()).andReturn();
+        result.getAsyncResult();
+        assertEquals(200, result.getResponse().getStatus());
+        String body = result.getResponse().getContentAsString();
+        List<Long> aos = new ArrayList<>();
+        Matcher matcher = AOS.matcher(body);
+        while(matcher.find()) aos.add(Long.parseLong(matcher.group(1)));
+        return aos;
+    }
+}
@@ -0,0 +1,34 @@
+package gov.nasa.gsfc.gmsec.gmoc;
+
+import gov.nasa.gsfc.gmsec.gmoc.service.ScheduleFileService;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.time.LocalDate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GmocBatchTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void writesTodaysScheduleFile()
+    {
+        assertEquals(GmocBatch.EXIT_OK, GmocBatch.run(new String[] {"schedule.file.path=" + folder.getRoot()}));
+        assertTrue(new File(folder.getRoot(), ScheduleFileService.fileName(LocalDate.now())).isFile());
+    }
+
+    @Test
+    public void exitStatusTellsUsageFromFailure()
+    {
+        assertEquals(GmocBatch.EXIT_USAGE, GmocBatch.run(new String[] {"schedule.file.path=" + folder.getRoot(),
+                "schedule.backfill.from=yesterday"}));
+        assertEquals(GmocBatch.EXIT_FAILED, GmocBatch.run(new String[] {
+                "schedule.file.path=" + new File(folder.getRoot(), "missing")}));
+    }
+}
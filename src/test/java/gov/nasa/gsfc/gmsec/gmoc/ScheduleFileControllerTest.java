@@ -0,0 +1,166 @@
+package gov.nasa.gsfc.gmsec.gmoc;
+
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleEncoders;
+import gov.nasa.gsfc.gmsec.gmoc.service.ScheduleFileService;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ScheduleFileControllerTest
+{
+    private static final long LAST_MODIFIED = 1480510800000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ScheduleFileController controller;
+
+    @Before
+    public void setup() throws Exception
+    {
+        Options options = new Options();
+        options.parse(new String[] {"schedule.file.path=" + folder.getRoot()});
+        controller = new ScheduleFileController();
+        ReflectionTestUtils.setField(controller, "options", options);
+
+        Path file = folder.getRoot().toPath().resolve(
+                ScheduleFileService.fileName(LocalDate.of(2016, 11, 30), ScheduleEncoders.CSV));
+        Files.write(file, "0123456789".getBytes(StandardCharsets.US_ASCII));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(LAST_MODIFIED));
+    }
+
+    @Test
+    public void parseRange()
+    {
+        Object[][] cases = {
+                // range, length, {start, end}, {} for the whole file or null for 416
+                {"bytes=0-499", 1000L, new long[] {0, 500}},
+                {"bytes=500-999", 1000L, new long[] {500, 1000}},
+                {"bytes=500-5000", 1000L, new long[] {500, 1000}},
+                {"bytes=7-7", 1000L, new long[] {7, 8}},
+                {"bytes= 100-199 ", 1000L, new long[] {100, 200}},
+                // Suffix
+                {"bytes=-100", 1000L, new long[] {900, 1000}},
+                {"bytes=-5000", 1000L, new long[] {0, 1000}},
+                {"bytes=-0", 1000L, null},
+                {"bytes=-1", 0L, null},
+                // Open-ended
+                {"bytes=900-", 1000L, new long[] {900, 1000}},
+                {"bytes=0-", 1000L, new long[] {0, 1000}},
+                {"bytes=1000-", 1000L, null},
+                // Out of bounds
+                {"bytes=1000-1999", 1000L, null},
+                {"bytes=5000-6000", 1000L, null},
+                // Inverted, invalid so ignored
+                {"bytes=500-100", 1000L, new long[0]},
+                {"bytes=5000-100", 1000L, new long[0]},
+                // Several ranges are not supported, ignored
+                {"bytes=0-1,5-6", 1000L, new long[0]},
+                {"bytes=0-1, -2", 1000L, new long[0]},
+                // Not valid
+                {"bytes=-", 1000L, new long[0]},
+                {"bytes=100", 1000L, new long[0]},
+                {"bytes=a-b", 1000L, new long[0]},
+                {"bytes=+1-2", 1000L, new long[0]},
+                {"bytes=1--2", 1000L, new long[0]},
+                {"bytes=99999999999999999999-", 1000L, new long[0]},
+                {"items=0-1", 1000L, new long[0]},
+        };
+        for(Object[] c : cases)
+        {
+            long[] bounds = ScheduleFileController.parseRange((String) c[0], (Long) c[1]);
+            if(c[2] == null)
+                assertNull((String) c[0], bounds);
+            else
+                assertArrayEquals((String) c[0], (long[]) c[2], bounds);
+        }
+    }
+
+    @Test
+    public void rangeRequests() throws Exception
+    {
+        MockHttpServletResponse response = get("bytes=2-4", null);
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 2-4/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("234", response.getContentAsString());
+
+        response = get("bytes=-3", null);
+        assertEquals(206, response.getStatus());
+        assertEquals("789", response.getContentAsString());
+
+        response = get("bytes=500-100", null);
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("0123456789", response.getContentAsString());
+
+        response = get("bytes=10-", null);
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    public void ifRange() throws Exception
+    {
+        // Unchanged since the date: the range applies
+        MockHttpServletResponse response = get("bytes=0-1", LAST_MODIFIED);
+        assertEquals(206, response.getStatus());
+        assertEquals("01", response.getContentAsString());
+
+        // Changed since, or an entity tag that never matches: the whole file
+        for(Object ifRange : Arrays.asList(LAST_MODIFIED - 1000, "\"etag\""))
+        {
+            response = get("bytes=0-1", ifRange);
+            assertEquals(String.valueOf(ifRange), 200, response.getStatus());
+            assertEquals("0123456789", response.getContentAsString());
+        }
+    }
+
+    @Test
+    public void ifModifiedSinceBeforeRange() throws Exception
+    {
+        // Up to date: 304 whether or not a range is asked for
+        for(String range : Arrays.asList("bytes=0-1", null))
+        {
+            MockHttpServletResponse response = get(range, null, LAST_MODIFIED);
+            assertEquals(range, 304, response.getStatus());
+            assertEquals(range, "", response.getContentAsString());
+        }
+
+        // Changed since: the range applies
+        MockHttpServletResponse response = get("bytes=0-1", null, LAST_MODIFIED - 1000);
+        assertEquals(206, response.getStatus());
+        assertEquals("01", response.getContentAsString());
+    }
+
+    private MockHttpServletResponse get(String range, Object ifRange) throws Exception
+    {
+        return get(range, ifRange, null);
+    }
+
+    private MockHttpServletResponse get(String range, Object ifRange, Long ifModifiedSince) throws Exception
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/schedule/2016-11-30.csv");
+        if(range != null) request.addHeader(HttpHeaders.RANGE, range);
+        if(ifRange != null) request.addHeader(HttpHeaders.IF_RANGE, ifRange);
+        if(ifModifiedSince != null) request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, ifModifiedSince);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.download("2016-11-30", "csv", request, response);
+        return response;
+    }
+}
@@ -0,0 +1,62 @@
+package gov.nasa.gsfc.gmsec.gmoc.benchmark;
+
+import gov.nasa.gsfc.gmsec.gmoc.Options;
+import gov.nasa.gsfc.gmsec.gmoc.model.ConflictDetector;
+import gov.nasa.gsfc.gmsec.gmoc.model.ConflictReport;
+import gov.nasa.gsfc.gmsec.gmoc.model.Mission;
+import gov.nasa.gsfc.gmsec.gmoc.model.MissionSchedule;
+import gov.nasa.gsfc.gmsec.gmoc.model.SchedulePasses;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conflict sweep over missions sharing two stations, every pass of one
+ * mission overlapping the next so examples fill up at the start.
+ *
+ *     mvn -Pbenchmark verify -Djmh.args="ConflictDetector -p passesPerMission=1000000"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ConflictDetectorBenchmark
+{
+    @Param({"4"})
+    public int missions;
+
+    @Param({"100000", "1000000"})
+    public int passesPerMission;
+
+    private SchedulePasses passes;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        List<MissionSchedule> schedules = new ArrayList<>();
+        for(int m = 0; m < missions; m++)
+        {
+            String duration = m == 0 ? "00:30:00" : "00:02:00";
+            Mission mission = new Mission(m, "SC" + m, "AOS", "LOS", duration, 5 + m, m % 2 == 0 ? "GROUND" : "WHITE_SANDS");
+            schedules.add(MissionSchedule.uniform(mission, 1480510800L + 60 * m, passesPerMission,
+                    Options.DateFormat.DAY_IN_YEAR, TimeZone.getTimeZone("UTC")));
+        }
+        passes = new SchedulePasses(schedules);
+    }
+
+    @Benchmark
+    public ConflictReport analyze()
+    {
+        return ConflictDetector.analyze(0, passes, 100);
+    }
+}
@@ -0,0 +1,83 @@
+package gov.nasa.gsfc.gmsec.gmoc.benchmark;
+
+import gov.nasa.gsfc.gmsec.gmoc.Options;
+import gov.nasa.gsfc.gmsec.gmoc.model.EncodedSchedule;
+import gov.nasa.gsfc.gmsec.gmoc.model.Mission;
+import gov.nasa.gsfc.gmsec.gmoc.model.MissionSchedule;
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleCsvParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CSV ingest throughput in rows per second, over an in-memory copy of a
+ * 1M row, 8 mission schedule in the local zone.
+ *
+ *     mvn -Pbenchmark verify -Djmh.args="CsvIngest -p parallelism=1,4"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CsvIngestBenchmark
+{
+    private static final int ROWS = 1000000;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    @Param({"DAY_IN_YEAR", "MONTH_IN_YEAR"})
+    public Options.DateFormat format;
+
+    private ByteBuffer csv;
+    private ForkJoinPool pool;
+    private ScheduleCsvParser parser;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException
+    {
+        pool = new ForkJoinPool(parallelism);
+        List<MissionSchedule> schedules = new ArrayList<>();
+        for(int m = 0; m < 8; m++)
+        {
+            Mission mission = new Mission(m, "SC" + m, "AOS", "LOS", "00:02:00", 1 + m % 5);
+            schedules.add(MissionSchedule.uniform(mission, 1480510800L + 60 * m, ROWS / 8,
+                    format, TimeZone.getDefault()));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(ROWS * 64);
+        EncodedSchedule.encode(schedules, pool).writeTo(out, "\n".getBytes(StandardCharsets.UTF_8));
+        csv = ByteBuffer.allocateDirect(out.size());
+        csv.put(out.toByteArray()).flip();
+        parser = new ScheduleCsvParser(TimeZone.getDefault());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int parse() throws IOException
+    {
+        return parser.parse(csv.duplicate(), parallelism == 1 ? null : pool).size();
+    }
+}
@@ -0,0 +1,66 @@
+package gov.nasa.gsfc.gmsec.gmoc.benchmark;
+
+import gov.nasa.gsfc.gmsec.gmoc.Options;
+import gov.nasa.gsfc.gmsec.gmoc.model.PassRowEncoder;
+import gov.nasa.gsfc.gmsec.gmoc.model.PassSchedule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per row cost of the legacy PassSchedule path, Calendar increment plus
+ * SimpleDateFormat and the duration regex, next to PassRowEncoder.
+ *
+ *     mvn -Pbenchmark verify -Djmh.args="LegacyPassSchedule -prof gc"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LegacyPassScheduleBenchmark
+{
+    @Param({"DAY_IN_YEAR", "MONTH_IN_YEAR"})
+    public Options.DateFormat format;
+
+    private PassSchedule pass;
+    private PassRowEncoder encoder;
+    private final byte[] row = new byte[256];
+    private long start;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        Services.quietLogging();
+        Options options = Services.options(format, PassSchedule.DEFAULT_PASS_COUNT, ".");
+        pass = new PassSchedule(options);
+        encoder = PassRowEncoder.fromOptions(options);
+        start = pass.getPassStartEpochSecond();
+    }
+
+    @Benchmark
+    public String passScheduleToString()
+    {
+        pass.incrementPass();
+        return pass.toString();
+    }
+
+    @Benchmark
+    public String getPassDuration()
+    {
+        return pass.getPassDuration();
+    }
+
+    @Benchmark
+    public int passRowEncoder()
+    {
+        start += 300;
+        return encoder.encode(start, row, 0);
+    }
+}
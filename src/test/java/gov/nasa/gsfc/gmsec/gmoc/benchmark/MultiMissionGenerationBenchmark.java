@@ -0,0 +1,106 @@
+package gov.nasa.gsfc.gmsec.gmoc.benchmark;
+
+import gov.nasa.gsfc.gmsec.gmoc.Options;
+import gov.nasa.gsfc.gmsec.gmoc.model.EncodedSchedule;
+import gov.nasa.gsfc.gmsec.gmoc.model.Mission;
+import gov.nasa.gsfc.gmsec.gmoc.model.MissionSchedule;
+import gov.nasa.gsfc.gmsec.gmoc.model.PassRowGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multi-mission generation: parallel chunk encoding plus k-way merge, as
+ * PassScheduleService.init() does it, against parallelism 1..N. The
+ * streamingMerge baseline encodes while merging on a single thread.
+ *
+ *     mvn -Pbenchmark verify -Djmh.args="MultiMission -p parallelism=1,2,4,8"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MultiMissionGenerationBenchmark
+{
+    private static final byte[] NEWLINE = "\r\n".getBytes(StandardCharsets.UTF_8);
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    @Param({"8"})
+    public int missions;
+
+    @Param({"100000"})
+    public int passesPerMission;
+
+    private List<MissionSchedule> schedules;
+    private ForkJoinPool pool;
+    private final CountingOutputStream out = new CountingOutputStream();
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        pool = new ForkJoinPool(parallelism);
+        schedules = new ArrayList<>();
+        for(int m = 0; m < missions; m++)
+        {
+            Mission mission = new Mission(m, "SC" + m, "AOS", "LOS", "00:02:00", 1 + m % 5);
+            schedules.add(MissionSchedule.uniform(mission, 1480510800L + 60 * m, passesPerMission,
+                    Options.DateFormat.DAY_IN_YEAR, TimeZone.getTimeZone("UTC")));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public long parallelEncodeAndMerge() throws IOException
+    {
+        out.count = 0;
+        EncodedSchedule.encode(schedules, pool).writeTo(out, NEWLINE);
+        return out.count;
+    }
+
+    @Benchmark
+    public long streamingMerge() throws IOException
+    {
+        out.count = 0;
+        new PassRowGenerator(schedules).writeTo(out, NEWLINE);
+        return out.count;
+    }
+
+    static class CountingOutputStream extends OutputStream
+    {
+        long count;
+
+        @Override
+        public void write(int b)
+        {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len)
+        {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package gov.nasa.gsfc.gmsec.gmoc.benchmark;
+
+import gov.nasa.gsfc.gmsec.gmoc.Options;
+import gov.nasa.gsfc.gmsec.gmoc.model.PassIndex;
+import gov.nasa.gsfc.gmsec.gmoc.model.TimingWheel;
+import gov.nasa.gsfc.gmsec.gmoc.service.PassEventEngine;
+import gov.nasa.gsfc.gmsec.gmoc.service.PassScheduleService;
+import gov.nasa.gsfc.gmsec.gmoc.service.ScheduleMetrics;
+import gov.nasa.gsfc.gmsec.gmoc.service.ServiceFixture;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Trigger jitter of PassEventEngine with the edges of passCount passes
+ * pending, while loadThreads other threads schedule and cancel timers on
+ * the same engine as fast as they can.
+ *
+ * trigger schedules a task 2 ms ahead and waits for it. Its time is mostly
+ * that wait; the jitter, from each deadline to the engine running the task,
+ * is printed as gmoc_pass_event_lateness_seconds quantiles at the end of
+ * each trial, warmup included.
+ *
+ * replaceEdges is the cost of swapping a regenerated schedule into the
+ * wheel: cancel the edges of passCount passes and schedule new ones.
+ *
+ *     mvn -Pbenchmark verify -Djmh.args="PassEventEngine -p loadThreads=0,1"
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PassEventEngineBenchmark
+{
+    @Param({"121", "100000"})
+    public int passCount;
+
+    @Param({"0", "2"})
+    public int loadThreads;
+
+    private ScheduleMetrics metrics;
+    private PassScheduleService service;
+    private PassEventEngine engine;
+    private final List<Thread> load = new ArrayList<>();
+    private volatile boolean loading;
+    private volatile boolean fired;
+
+    private TimingWheel<Integer> wheel;
+    private List<TimingWheel.Timeout<Integer>> edges;
+    private long[] edgeTimes;
+
+    @Setup(Level.Trial)
+    public void setup() throws InterruptedException
+    {
+        Services.quietLogging();
+        Options options = Services.options(Options.DateFormat.DAY_IN_YEAR, passCount, "/tmp");
+        ServiceFixture services = ServiceFixture.of(options);
+        metrics = services.metrics;
+        service = services.passScheduleService;
+        service.init();
+        engine = services.passEventEngine();
+        engine.start();
+        while(engine.getPendingCount() == 0) Thread.sleep(10);
+
+        loading = true;
+        for(int i = 0; i < loadThreads; i++)
+        {
+            Thread thread = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while(loading)
+                {
+                    long at = engine.currentTimeMillis() + 1000 + random.nextInt(3600000);
+                    engine.cancel(engine.schedule(at, () -> { }));
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+            load.add(thread);
+        }
+
+        // The engine's edge times, replayed into a bare wheel
+        wheel = new TimingWheel<>(engine.currentTimeMillis());
+        edges = new ArrayList<>(2 * passCount);
+        edgeTimes = new long[2 * passCount];
+        PassIndex index = service.getSnapshot().getMissions().get(0).getIndex();
+        for(int i = 0; i < passCount; i++)
+        {
+            edgeTimes[2 * i] = index.startOf(i) * 1000L;
+            edgeTimes[2 * i + 1] = index.endOf(i) * 1000L;
+            edges.add(wheel.schedule(edgeTimes[2 * i], i));
+            edges.add(wheel.schedule(edgeTimes[2 * i + 1], i));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException
+    {
+        loading = false;
+        for(Thread thread : load) thread.join();
+        load.clear();
+        engine.stop();
+        service.shutdown();
+        StringBuilder out = new StringBuilder();
+        metrics.writePrometheus(out, null, System.currentTimeMillis());
+        System.out.println();
+        for(String line : out.toString().split("\n"))
+        {
+            if(line.startsWith("gmoc_pass_event_lateness_seconds")) System.out.println(line);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    public boolean trigger()
+    {
+        Thread waiter = Thread.currentThread();
+        fired = false;
+        engine.schedule(engine.currentTimeMillis() + 2, () -> {
+            fired = true;
+            LockSupport.unpark(waiter);
+        });
+        while(!fired) LockSupport.park(this);
+        return fired;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public int replaceEdges()
+    {
+        for(int i = 0; i < edges.size(); i++)
+        {
+            wheel.cancel(edges.get(i));
+            edges.set(i, wheel.schedule(edgeTimes[i], i));
+        }
+        return wheel.size();
+    }
+}
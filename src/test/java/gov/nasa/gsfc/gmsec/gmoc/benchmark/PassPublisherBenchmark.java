@@ -0,0 +1,117 @@
+package gov.nasa.gsfc.gmsec.gmoc.benchmark;
+
+import gov.nasa.gsfc.gmsec.gmoc.Options;
+import gov.nasa.gsfc.gmsec.gmoc.model.Mission;
+import gov.nasa.gsfc.gmsec.gmoc.model.MissionSchedule;
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleSnapshot;
+import gov.nasa.gsfc.gmsec.gmoc.service.LoopbackBusAdapter;
+import gov.nasa.gsfc.gmsec.gmoc.service.PassPublisher;
+import gov.nasa.gsfc.gmsec.gmoc.service.ScheduleFileService;
+import gov.nasa.gsfc.gmsec.gmoc.service.ScheduleMetrics;
+import gov.nasa.gsfc.gmsec.gmoc.service.ServiceFixture;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishing a schedule to the loopback bus: every pass changed, by
+ * alternating the labels, or none. The loopback delay models a remote
+ * bus, where the window of batches in flight decides throughput. Batch
+ * latency quantiles are printed at the end of each trial.
+ *
+ *     mvn -Pbenchmark verify -Djmh.args="PassPublisher -p delayMicros=500"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PassPublisherBenchmark
+{
+    @Param({"100000"})
+    public int passes;
+
+    @Param({"64", "512"})
+    public String batchSize;
+
+    @Param({"1", "8"})
+    public String window;
+
+    @Param({"0"})
+    public long delayMicros;
+
+    private ScheduleMetrics metrics;
+    private LoopbackBusAdapter bus;
+    private PassPublisher publisher;
+    private ScheduleSnapshot[] snapshots;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        Services.quietLogging();
+        Options options = new Options();
+        options.parse(new String[] {"schedule.bus.batch.size=" + batchSize, "schedule.bus.window=" + window});
+        ServiceFixture services = ServiceFixture.of(options);
+        metrics = services.metrics;
+        bus = new LoopbackBusAdapter();
+        bus.setDelayNanos(TimeUnit.MICROSECONDS.toNanos(delayMicros));
+        publisher = services.passPublisher(bus);
+        publisher.start();
+
+        // Two days out so that no pass is in the past
+        LocalDate date = LocalDate.now().plusDays(2);
+        long start = date.atStartOfDay(TimeZone.getDefault().toZoneId()).toEpochSecond();
+        snapshots = new ScheduleSnapshot[2];
+        for(int s = 0; s < snapshots.length; s++)
+        {
+            List<MissionSchedule> missions = new ArrayList<>();
+            for(int m = 0; m < 2; m++)
+            {
+                Mission mission = new Mission(m, m == 0 ? "WIRE" : "SDO", s == 0 ? "AOS" : "START",
+                        s == 0 ? "LOS" : "END", "00:02:00", 5 + 2 * m);
+                missions.add(MissionSchedule.uniform(mission, start, passes / 2, Options.DateFormat.DAY_IN_YEAR,
+                        TimeZone.getDefault()));
+            }
+            snapshots[s] = new ScheduleSnapshot(s + 1, date, ScheduleFileService.fileName(date), missions);
+        }
+        publisher.publish(snapshots[0], bus);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        publisher.stop();
+        bus.shutdown();
+        StringBuilder out = new StringBuilder();
+        metrics.writePrometheus(out, null, System.currentTimeMillis());
+        for(String line : out.toString().split("\n"))
+        {
+            if(line.startsWith("gmoc_bus_batch_seconds{")) System.out.println(line);
+        }
+    }
+
+    @Benchmark
+    public PassPublisher.Result changed()
+    {
+        next ^= 1;
+        return publisher.publish(snapshots[next], bus);
+    }
+
+    @Benchmark
+    public PassPublisher.Result unchanged()
+    {
+        return publisher.publish(snapshots[next], bus);
+    }
+}
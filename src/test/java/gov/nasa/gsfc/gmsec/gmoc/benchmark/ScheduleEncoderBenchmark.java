@@ -0,0 +1,85 @@
+package gov.nasa.gsfc.gmsec.gmoc.benchmark;
+
+import gov.nasa.gsfc.gmsec.gmoc.Options;
+import gov.nasa.gsfc.gmsec.gmoc.model.Mission;
+import gov.nasa.gsfc.gmsec.gmoc.model.MissionSchedule;
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleEncoder;
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleEncoders;
+import gov.nasa.gsfc.gmsec.gmoc.model.SchedulePasses;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Each ScheduleEncoder writing every pass of a schedule into a direct
+ * buffer whose contents are dropped, so only encoding is measured. The
+ * bytes counter is the encoder's output in bytes per second.
+ *
+ *     mvn -Pbenchmark verify -Djmh.args="ScheduleEncoder -p format=csv,jsonl,json"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ScheduleEncoderBenchmark
+{
+    private static final byte[] NEWLINE = "\r\n".getBytes(StandardCharsets.UTF_8);
+
+    @Param({"csv", "jsonl", "json"})
+    public String format;
+
+    @Param({"4"})
+    public int missions;
+
+    @Param({"100000"})
+    public int passesPerMission;
+
+    private ScheduleEncoder encoder;
+    private SchedulePasses passes;
+    private ByteBuffer buffer;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Output
+    {
+        public long bytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        encoder = ScheduleEncoders.forName(format);
+        List<MissionSchedule> schedules = new ArrayList<>();
+        for(int m = 0; m < missions; m++)
+        {
+            Mission mission = new Mission(m, "SC" + m, "AOS", "LOS", "00:10:00", 97 + m);
+            schedules.add(MissionSchedule.uniform(mission, 1480510800L + 60 * m, passesPerMission,
+                    Options.DateFormat.DAY_IN_YEAR, TimeZone.getTimeZone("America/New_York")));
+        }
+        passes = new SchedulePasses(schedules);
+        buffer = ByteBuffer.allocateDirect(ScheduleEncoder.BUFFER_SIZE);
+    }
+
+    @Benchmark
+    public void encode(Output output) throws IOException
+    {
+        encoder.encode(passes, -1, NEWLINE, buffer, written -> {
+            output.bytes += written.remaining();
+            written.position(written.limit());
+        });
+    }
+}
@@ -0,0 +1,99 @@
+package gov.nasa.gsfc.gmsec.gmoc.benchmark;
+
+import gov.nasa.gsfc.gmsec.gmoc.model.HistoryPass;
+import gov.nasa.gsfc.gmsec.gmoc.service.PassScheduleService;
+import gov.nasa.gsfc.gmsec.gmoc.service.ScheduleHistory;
+import gov.nasa.gsfc.gmsec.gmoc.service.ServiceFixture;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queries over years of schedule history: a daily two-mission schedule,
+ * every seventh day published twice, so part of the history is
+ * superseded. One mission's month, every mission's day, and a month as of
+ * a publish time in the middle, which builds its own timeline.
+ *
+ *     mvn -Pbenchmark verify -Djmh.args="ScheduleHistory -p years=1,5"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ScheduleHistoryBenchmark
+{
+    private static final LocalDate FIRST = LocalDate.of(2012, 1, 1);
+
+    @Param({"5"})
+    public int years;
+
+    private Path dir;
+    private ScheduleHistory history;
+    private long monthFrom;
+    private long monthTo;
+    private long asOfMillis;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException
+    {
+        Services.quietLogging();
+        Path shm = Paths.get("/dev/shm");
+        dir = Files.isDirectory(shm) ? Files.createTempDirectory(shm, "gmoc") : Files.createTempDirectory("gmoc");
+        ServiceFixture services = ServiceFixture.builder().args("schedule.history.dir=" + dir).build();
+        PassScheduleService service = services.passScheduleService;
+        history = services.scheduleHistory();
+        LocalDate last = FIRST.plusYears(years);
+        long published = 0;
+        for(LocalDate day = FIRST; day.isBefore(last); day = day.plusDays(1))
+        {
+            history.append(service.buildSnapshot(day), ++published);
+            if(day.toEpochDay() % 7 == 0) history.append(service.buildSnapshot(day), ++published);
+        }
+        LocalDate month = FIRST.plusYears(years / 2).withDayOfYear(60).withDayOfMonth(1);
+        monthFrom = month.atStartOfDay(ZoneId.systemDefault()).toEpochSecond();
+        monthTo = month.plusMonths(1).atStartOfDay(ZoneId.systemDefault()).toEpochSecond();
+        asOfMillis = published / 2;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException
+    {
+        history.stop();
+        for(File file : dir.toFile().listFiles()) Files.delete(file.toPath());
+        Files.delete(dir);
+    }
+
+    @Benchmark
+    public List<HistoryPass> missionMonth()
+    {
+        return history.query(monthFrom, monthTo, "WIRE", null, 100_000);
+    }
+
+    @Benchmark
+    public List<HistoryPass> day()
+    {
+        return history.query(monthFrom, monthFrom + 86400, null, null, 100_000);
+    }
+
+    @Benchmark
+    public List<HistoryPass> monthAsOf()
+    {
+        return history.query(monthFrom, monthTo, null, asOfMillis, 100_000);
+    }
+}
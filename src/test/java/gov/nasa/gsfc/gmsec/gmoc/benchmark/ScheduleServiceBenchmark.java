@@ -0,0 +1,113 @@
+package gov.nasa.gsfc.gmsec.gmoc.benchmark;
+
+import gov.nasa.gsfc.gmsec.gmoc.DefaultRestController;
+import gov.nasa.gsfc.gmsec.gmoc.Options;
+import gov.nasa.gsfc.gmsec.gmoc.service.PassScheduleService;
+import gov.nasa.gsfc.gmsec.gmoc.service.ServiceFixture;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.http.ResponseEntity;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Baseline of the service paths at different row counts and both date
+ * formats: building and publishing the schedule, writing the schedule
+ * file, and rendering "/" from a warm cache and with no cache at all.
+ *
+ * Files go to a directory under /dev/shm when it exists, so disk speed
+ * does not dominate. createPassScheduleFileUnchanged is the hourly case
+ * where the file on disk already matches and is not rewritten.
+ *
+ *     mvn -Pbenchmark verify -Djmh.args="ScheduleService -p passCount=121,100000"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ScheduleServiceBenchmark
+{
+    @Param({"DAY_IN_YEAR", "MONTH_IN_YEAR"})
+    public Options.DateFormat format;
+
+    @Param({"121", "10000", "100000"})
+    public int passCount;
+
+    private Path dir;
+    private PassScheduleService service;
+    private DefaultRestController cached;
+    private DefaultRestController uncached;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException
+    {
+        Services.quietLogging();
+        Path shm = Paths.get("/dev/shm");
+        dir = Files.isDirectory(shm) ? Files.createTempDirectory(shm, "gmoc") : Files.createTempDirectory("gmoc");
+        Options options = Services.options(format, passCount, dir.toString());
+        service = ServiceFixture.of(options).passScheduleService;
+        service.init();
+        cached = Services.defaultRestController(service, options);
+        Options noCache = Services.options(format, passCount, dir.toString());
+        noCache.setCacheMaxBytes("0");
+        uncached = Services.defaultRestController(service, noCache);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException
+    {
+        service.shutdown();
+        for(File file : dir.toFile().listFiles()) Files.delete(file.toPath());
+        Files.delete(dir);
+    }
+
+    @Benchmark
+    public long init()
+    {
+        service.init();
+        return service.getSnapshot().getVersion();
+    }
+
+    @Benchmark
+    public File createPassScheduleFile() throws IOException
+    {
+        for(File file : dir.toFile().listFiles()) Files.delete(file.toPath());
+        return service.createPassScheduleFile();
+    }
+
+    @Benchmark
+    public File createPassScheduleFileUnchanged()
+    {
+        return service.createPassScheduleFile();
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> indexCached()
+    {
+        return cached.index(null, null);
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> indexCachedGzip()
+    {
+        return cached.index(null, "gzip");
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> indexRender()
+    {
+        return uncached.index(null, "gzip");
+    }
+}
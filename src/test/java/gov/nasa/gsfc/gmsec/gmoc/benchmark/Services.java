@@ -0,0 +1,54 @@
+package gov.nasa.gsfc.gmsec.gmoc.benchmark;
+
+import gov.nasa.gsfc.gmsec.gmoc.DefaultRestController;
+import gov.nasa.gsfc.gmsec.gmoc.Options;
+import gov.nasa.gsfc.gmsec.gmoc.service.PassScheduleService;
+import gov.nasa.gsfc.gmsec.gmoc.service.RenderedResponseCache;
+import gov.nasa.gsfc.gmsec.gmoc.service.ScheduleMetrics;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Options and the controller for benchmarks that run without Spring; the
+ * services are wired by ServiceFixture.
+ */
+final class Services
+{
+    private Services()
+    {
+    }
+
+    /**
+     * Without Spring Boot logging config logback logs DEBUG to the console,
+     * which would be measured along with the services.
+     */
+    static void quietLogging()
+    {
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+    }
+
+    static Options options(Options.DateFormat format, int passCount, String scheduleFilePath)
+    {
+        Options options = new Options();
+        options.parse(new String[] {
+                "dateFormat=" + format,
+                "passDuration=00:02:00",
+                "schedule.pass.count=" + passCount,
+                "schedule.file.path=" + scheduleFilePath});
+        return options;
+    }
+
+    static DefaultRestController defaultRestController(PassScheduleService service, Options cacheOptions)
+    {
+        RenderedResponseCache cache = new RenderedResponseCache();
+        ReflectionTestUtils.setField(cache, "options", cacheOptions);
+        ReflectionTestUtils.setField(cache, "metrics", new ScheduleMetrics());
+        DefaultRestController controller = new DefaultRestController();
+        ReflectionTestUtils.setField(controller, "passScheduleService", service);
+        ReflectionTestUtils.setField(controller, "responseCache", cache);
+        ReflectionTestUtils.setField(controller, "metrics", new ScheduleMetrics());
+        return controller;
+    }
+}
@@ -0,0 +1,76 @@
+package gov.nasa.gsfc.gmsec.gmoc.benchmark;
+
+import gov.nasa.gsfc.gmsec.gmoc.GmocApplication;
+import gov.nasa.gsfc.gmsec.gmoc.GmocBatch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold start to schedule file written, once per forked JVM: the web
+ * application, which writes the file from its CommandLineRunner once
+ * Tomcat is up, against batch mode, which also closes its context.
+ * JVM startup itself is not included.
+ *
+ *     mvn -Pbenchmark verify -Djmh.args="Startup"
+ *     mvn -Pbenchmark verify -Djmh.args="Startup -jvmArgsAppend -XX:TieredStopAtLevel=1"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(10)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+public class StartupBenchmark
+{
+    private Path dir;
+    private String[] args;
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException
+    {
+        dir = Files.createTempDirectory("gmoc");
+        args = new String[] {"--server.port=0", "--logging.level.root=WARN", "schedule.file.path=" + dir};
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException
+    {
+        if(context != null) context.close();
+        for(File file : dir.toFile().listFiles()) Files.delete(file.toPath());
+        Files.delete(dir);
+    }
+
+    @Benchmark
+    public ConfigurableApplicationContext web()
+    {
+        context = SpringApplication.run(GmocApplication.class, args);
+        return context;
+    }
+
+    @Benchmark
+    public int batch()
+    {
+        int status = GmocBatch.run(args);
+        if(status != GmocBatch.EXIT_OK) throw new IllegalStateException("Batch exit status " + status);
+        return status;
+    }
+}
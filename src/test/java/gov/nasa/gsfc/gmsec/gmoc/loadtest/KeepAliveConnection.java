@@ -0,0 +1,209 @@
+package gov.nasa.gsfc.gmsec.gmoc.loadtest;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal HTTP/1.1 client holding one persistent connection, so a load
+ * client sends every request over the same socket like a browser or a
+ * proxy would. Bodies, fixed length, chunked or up to close, are read and
+ * dropped. HttpURLConnection is not used as its idle connection cache
+ * keeps http.maxConnections, 5 by default, connections per host.
+ *
+ * Not thread safe, one per client.
+ */
+final class KeepAliveConnection implements Closeable
+{
+    private final String host;
+    private final int port;
+    private final int timeoutMillis;
+    private final byte[] buffer = new byte[64 * 1024];
+    private int start;
+    private int end;
+    private Socket socket;
+    private InputStream in;
+    private OutputStream out;
+    private long bytesRead;
+    private long connects;
+
+    KeepAliveConnection(String host, int port, int timeoutMillis)
+    {
+        this.host = host;
+        this.port = port;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * GET target, a path and query, and read the whole response. A reused
+     * connection the server closed meanwhile is opened again once.
+     * @return status code
+     */
+    int get(String target) throws IOException
+    {
+        byte[] request = ("GET " + target + " HTTP/1.1\r\nHost: " + host + ":" + port
+                + "\r\nAccept: */*\r\nUser-Agent: gmoc-loadtest\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        boolean reused = socket != null;
+        try
+        {
+            return exchange(request);
+        } catch (EOFException | SocketException e)
+        {
+            reconnect();
+            if(!reused) throw e;
+            return exchange(request);
+        }
+    }
+
+    long getBytesRead()
+    {
+        return bytesRead;
+    }
+
+    long getConnects()
+    {
+        return connects;
+    }
+
+    private int exchange(byte[] request) throws IOException
+    {
+        if(socket == null) connect();
+        out.write(request);
+        out.flush();
+        String statusLine = readLine();
+        if(statusLine == null) throw new EOFException("Connection closed before response");
+        int status = Integer.parseInt(statusLine.split(" ", 3)[1]);
+
+        long length = -1;
+        boolean chunked = false;
+        boolean keepAlive = true;
+        for(String line = readLine(); line != null && !line.isEmpty(); line = readLine())
+        {
+            int colon = line.indexOf(':');
+            if(colon < 0) continue;
+            String name = line.substring(0, colon).trim();
+            String value = line.substring(colon + 1).trim();
+            if(name.equalsIgnoreCase("Content-Length")) length = Long.parseLong(value);
+            else if(name.equalsIgnoreCase("Transfer-Encoding")) chunked = value.equalsIgnoreCase("chunked");
+            else if(name.equalsIgnoreCase("Connection")) keepAlive = !value.equalsIgnoreCase("close");
+        }
+
+        if(status == 204 || status == 304 || status / 100 == 1)
+        {
+            length = 0;
+        }
+        if(chunked)
+        {
+            for(long size = chunkSize(); size > 0; size = chunkSize())
+            {
+                skip(size);
+                readLine();
+            }
+            for(String trailer = readLine(); trailer != null && !trailer.isEmpty(); trailer = readLine())
+            {
+                // Trailers are dropped
+            }
+        }
+        else if(length >= 0)
+        {
+            skip(length);
+        }
+        else
+        {
+            while(fill()) start = end;
+            keepAlive = false;
+        }
+        if(!keepAlive) reconnect();
+        return status;
+    }
+
+    private void connect() throws IOException
+    {
+        socket = new Socket();
+        socket.setTcpNoDelay(true);
+        socket.setSoTimeout(timeoutMillis);
+        socket.connect(new InetSocketAddress(host, port), timeoutMillis);
+        in = socket.getInputStream();
+        out = socket.getOutputStream();
+        start = end = 0;
+        connects++;
+    }
+
+    private long chunkSize() throws IOException
+    {
+        String line = readLine();
+        if(line == null) throw new EOFException("Connection closed in chunked body");
+        int extension = line.indexOf(';');
+        return Long.parseLong((extension < 0 ? line : line.substring(0, extension)).trim(), 16);
+    }
+
+    private void skip(long count) throws IOException
+    {
+        while(count > 0)
+        {
+            if(start == end && !fill()) throw new EOFException("Connection closed in body");
+            int n = (int) Math.min(count, end - start);
+            start += n;
+            count -= n;
+        }
+    }
+
+    /**
+     * @return next line without its CRLF, null at end of stream
+     */
+    private String readLine() throws IOException
+    {
+        StringBuilder line = new StringBuilder();
+        while(true)
+        {
+            if(start == end && !fill()) return line.length() == 0 ? null : line.toString();
+            byte b = buffer[start++];
+            if(b == '\n')
+            {
+                int length = line.length();
+                if(length > 0 && line.charAt(length - 1) == '\r') line.setLength(length - 1);
+                return line.toString();
+            }
+            line.append((char) b);
+        }
+    }
+
+    private boolean fill() throws IOException
+    {
+        int n = in.read(buffer, 0, buffer.length);
+        if(n < 0) return false;
+        start = 0;
+        end = n;
+        bytesRead += n;
+        return true;
+    }
+
+    /**
+     * Drop the connection, after an error or when the server closes it. The
+     * next request opens a new one.
+     */
+    void reconnect()
+    {
+        if(socket == null) return;
+        try
+        {
+            socket.close();
+        } catch (IOException e)
+        {
+            // Nothing to do, the connection is dropped either way
+        }
+        socket = null;
+    }
+
+    @Override
+    public void close()
+    {
+        reconnect();
+    }
+}
@@ -0,0 +1,150 @@
+package gov.nasa.gsfc.gmsec.gmoc.loadtest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class KeepAliveConnectionTest
+{
+    private ServerSocket server;
+    private Thread thread;
+    private final BlockingQueue<String> requests = new ArrayBlockingQueue<>(100);
+
+    @Before
+    public void setup() throws IOException
+    {
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    }
+
+    @After
+    public void shutdown() throws Exception
+    {
+        server.close();
+        if(thread != null) thread.join(5000);
+    }
+
+    @Test
+    public void readsEachKindOfBodyOnOneConnection() throws Exception
+    {
+        serve(Arrays.asList(
+                "HTTP/1.1 200 OK\r\nContent-Length: 5\r\n\r\nhello",
+                "HTTP/1.1 404 Not Found\r\nTransfer-Encoding: chunked\r\n\r\n"
+                        + "3;name=value\r\nabc\r\n10\r\n0123456789abcdef\r\n0\r\nX-Trailer: 1\r\n\r\n",
+                "HTTP/1.1 304 Not Modified\r\nContent-Length: 100\r\n\r\n",
+                "HTTP/1.1 200 OK\r\ncontent-length: 0\r\n\r\n"));
+        try(KeepAliveConnection connection = connection())
+        {
+            assertEquals(200, connection.get("/a"));
+            assertEquals(404, connection.get("/b"));
+            assertEquals(304, connection.get("/c"));
+            assertEquals(200, connection.get("/d"));
+            assertEquals(1, connection.getConnects());
+        }
+        assertEquals(Arrays.asList("GET /a", "GET /b", "GET /c", "GET /d"), taken(4));
+    }
+
+    @Test
+    public void bodyUpToCloseOpensANewConnection() throws Exception
+    {
+        serve(Arrays.asList(
+                "HTTP/1.1 200 OK\r\n\r\nread until the server closes",
+                null,
+                "HTTP/1.1 200 OK\r\nContent-Length: 2\r\nConnection: close\r\n\r\nok",
+                null,
+                "HTTP/1.1 201 Created\r\nContent-Length: 0\r\n\r\n"));
+        try(KeepAliveConnection connection = connection())
+        {
+            assertEquals(200, connection.get("/a"));
+            assertEquals(200, connection.get("/b"));
+            assertEquals(201, connection.get("/c"));
+            assertEquals(3, connection.getConnects());
+        }
+        assertEquals(Arrays.asList("GET /a", "GET /b", "GET /c"), taken(3));
+    }
+
+    @Test
+    public void reusedConnectionClosedByServerIsOpenedAgain() throws Exception
+    {
+        // The server closes the connection after the first response without saying so
+        serve(Arrays.asList(
+                "HTTP/1.1 200 OK\r\nContent-Length: 0\r\n\r\n",
+                null,
+                "HTTP/1.1 200 OK\r\nContent-Length: 0\r\n\r\n"));
+        try(KeepAliveConnection connection = connection())
+        {
+            assertEquals(200, connection.get("/a"));
+            assertEquals(200, connection.get("/b"));
+            assertEquals(2, connection.getConnects());
+        }
+    }
+
+    private KeepAliveConnection connection()
+    {
+        return new KeepAliveConnection("127.0.0.1", server.getLocalPort(), 5000);
+    }
+
+    private List<String> taken(int count) throws InterruptedException
+    {
+        List<String> list = new ArrayList<>();
+        for(int i = 0; i < count; i++) list.add(requests.poll(5, TimeUnit.SECONDS));
+        return list;
+    }
+
+    /**
+     * Answer each request with the next response in turn. A null closes the
+     * connection instead, the next response goes to the next connection.
+     */
+    private void serve(List<String> responses)
+    {
+        thread = new Thread(() -> {
+            int next = 0;
+            try
+            {
+                while(next < responses.size())
+                {
+                    try(Socket socket = server.accept())
+                    {
+                        BufferedReader in = new BufferedReader(
+                                new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                        OutputStream out = socket.getOutputStream();
+                        while(next < responses.size() && responses.get(next) != null)
+                        {
+                            String line = in.readLine();
+                            if(line == null) break;
+                            requests.add(line.substring(0, line.lastIndexOf(' ')));
+                            while(!in.readLine().isEmpty())
+                            {
+                                // Headers are not checked
+                            }
+                            out.write(responses.get(next++).getBytes(StandardCharsets.US_ASCII));
+                            out.flush();
+                        }
+                        next++;
+                    }
+                }
+            } catch (IOException e)
+            {
+                // Server closed by the test
+            }
+        }, "test-http-server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
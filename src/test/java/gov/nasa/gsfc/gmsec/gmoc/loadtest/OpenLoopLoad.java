@@ -0,0 +1,183 @@
+package gov.nasa.gsfc.gmsec.gmoc.loadtest;
+
+import gov.nasa.gsfc.gmsec.gmoc.model.LatencyHistogram;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load: requests are due at a fixed rate whatever the responses
+ * take, request i at start + i / rate, cycling through the paths. Clients
+ * each hold a KeepAliveConnection and take the next due request when
+ * free. Latency is measured from when a request was due, not from when a
+ * client got round to sending it, so time spent queued behind slow
+ * responses is counted instead of hidden (coordinated omission).
+ *
+ * Requests due during the warmup are sent but not recorded. Requests
+ * still unsent a grace period after the run are counted as missed.
+ */
+public class OpenLoopLoad
+{
+    private static final int TIMEOUT_MILLIS = 30000;
+
+    private final String host;
+    private final int port;
+    private final List<String> paths;
+    private final int clients;
+
+    public OpenLoopLoad(String host, int port, List<String> paths, int clients)
+    {
+        if(paths.isEmpty()) throw new IllegalArgumentException("No paths to request");
+        if(clients < 1) throw new IllegalArgumentException("clients must be positive: " + clients);
+        this.host = host;
+        this.port = port;
+        this.paths = new ArrayList<>(paths);
+        this.clients = clients;
+    }
+
+    public Result run(double ratePerSecond, long warmupSeconds, long durationSeconds) throws InterruptedException
+    {
+        if(ratePerSecond <= 0) throw new IllegalArgumentException("rate must be positive: " + ratePerSecond);
+        double interval = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+        long deadline = end + Math.max(TimeUnit.SECONDS.toNanos(10), end - start);
+
+        Result result = new Result(paths, durationSeconds);
+        AtomicLong next = new AtomicLong();
+        List<Thread> threads = new ArrayList<>();
+        for(int c = 0; c < clients; c++)
+        {
+            Thread thread = new Thread(() -> {
+                try(KeepAliveConnection connection = new KeepAliveConnection(host, port, TIMEOUT_MILLIS))
+                {
+                    for(long i = next.getAndIncrement(); ; i = next.getAndIncrement())
+                    {
+                        long due = start + (long) (i * interval);
+                        if(due >= end) break;
+                        boolean measured = due >= measureFrom;
+                        long now;
+                        while((now = System.nanoTime()) < due) LockSupport.parkNanos(due - now);
+                        if(now > deadline)
+                        {
+                            if(measured) result.missed.increment();
+                            continue;
+                        }
+                        String path = paths.get((int) (i % paths.size()));
+                        boolean ok;
+                        try
+                        {
+                            ok = connection.get(path) < 400;
+                        } catch (IOException | RuntimeException e)
+                        {
+                            connection.reconnect();
+                            ok = false;
+                        }
+                        if(measured)
+                            result.record(path, System.nanoTime() - due, ok);
+                    }
+                    result.bytes.add(connection.getBytesRead());
+                    result.connects.add(connection.getConnects());
+                }
+            }, "load-client-" + c);
+            thread.setDaemon(true);
+            threads.add(thread);
+            thread.start();
+        }
+        for(Thread thread : threads) thread.join();
+        return result;
+    }
+
+    /**
+     * Latencies, in nanoseconds, of the requests due after the warmup,
+     * overall and per path.
+     */
+    public static class Result
+    {
+        private static final double[] QUANTILES = {0.5, 0.99, 0.999, 1.0};
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final Map<String, LatencyHistogram> byPath = new LinkedHashMap<>();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder missed = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder connects = new LongAdder();
+        private final long durationSeconds;
+
+        Result(List<String> paths, long durationSeconds)
+        {
+            for(String path : paths) byPath.put(path, new LatencyHistogram());
+            this.durationSeconds = durationSeconds;
+        }
+
+        void record(String path, long nanos, boolean ok)
+        {
+            latency.record(nanos);
+            byPath.get(path).record(nanos);
+            if(!ok) errors.increment();
+        }
+
+        public long getRequests()
+        {
+            return latency.getCount();
+        }
+
+        /**
+         * @return requests failed, with a status of 400 or more or an I/O error
+         */
+        public long getErrors()
+        {
+            return errors.sum();
+        }
+
+        /**
+         * @return requests never sent, the server having fallen too far behind
+         */
+        public long getMissed()
+        {
+            return missed.sum();
+        }
+
+        public double getRequestsPerSecond()
+        {
+            return (double) getRequests() / Math.max(1, durationSeconds);
+        }
+
+        /**
+         * @return upper bound of the quantile's latency in nanoseconds
+         */
+        public long percentile(double quantile)
+        {
+            return latency.percentiles(quantile)[0];
+        }
+
+        @Override
+        public String toString()
+        {
+            StringBuilder sb = new StringBuilder(String.format(
+                    "%d requests, %.0f/s, %d errors, %d missed, %d connections, %d MB read%n",
+                    getRequests(), getRequestsPerSecond(), getErrors(), getMissed(), connects.sum(),
+                    bytes.sum() >> 20));
+            sb.append(String.format("%-48s %10s %10s %10s %10s %10s%n", "path", "requests", "p50 ms", "p99 ms",
+                    "p999 ms", "max ms"));
+            row(sb, "all", latency);
+            for(Map.Entry<String, LatencyHistogram> path : byPath.entrySet()) row(sb, path.getKey(), path.getValue());
+            return sb.toString();
+        }
+
+        private static void row(StringBuilder sb, String name, LatencyHistogram histogram)
+        {
+            long[] values = histogram.percentiles(QUANTILES);
+            sb.append(String.format("%-48s %10d %10.2f %10.2f %10.2f %10.2f%n", name, histogram.getCount(),
+                    values[0] / 1e6, values[1] / 1e6, values[2] / 1e6, values[3] / 1e6));
+        }
+    }
+}
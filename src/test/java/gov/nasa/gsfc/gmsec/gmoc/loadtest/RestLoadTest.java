@@ -0,0 +1,77 @@
+package gov.nasa.gsfc.gmsec.gmoc.loadtest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.embedded.LocalServerPort;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Drives the REST endpoints of the application, started on a random
+ * localhost port, with open-loop load and fails when a latency objective
+ * is missed. Only run by the loadtest profile. Settings are -D properties,
+ * defaulting to the values below, which Maven passes on to the test:
+ *
+ *     mvn -Ploadtest test
+ *     mvn -Ploadtest test -Dloadtest.rate=10000 -Dloadtest.clients=128 -Dloadtest.p99.ms=20
+ *
+ *     loadtest.rate       requests per second
+ *     loadtest.clients    concurrent keep-alive connections
+ *     loadtest.warmup     seconds of load before recording
+ *     loadtest.duration   seconds of recorded load
+ *     loadtest.paths      comma separated paths and queries, requested in turn
+ *     loadtest.p99.ms     99th percentile latency objective
+ *     loadtest.p999.ms    99.9th percentile latency objective
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"schedule.file.path=target"})
+public class RestLoadTest
+{
+    private static final Logger log = LoggerFactory.getLogger(RestLoadTest.class);
+
+    private static final String DEFAULT_PATHS = "/,/schedule?limit=100,/schedule?limit=100&format=jsonl,/passes/next";
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    public void meetsLatencyObjectives() throws Exception
+    {
+        double rate = Double.parseDouble(System.getProperty("loadtest.rate", "5000"));
+        int clients = Integer.parseInt(System.getProperty("loadtest.clients", "64"));
+        long warmup = Long.parseLong(System.getProperty("loadtest.warmup", "10"));
+        long duration = Long.parseLong(System.getProperty("loadtest.duration", "30"));
+        double p99 = Double.parseDouble(System.getProperty("loadtest.p99.ms", "50"));
+        double p999 = Double.parseDouble(System.getProperty("loadtest.p999.ms", "200"));
+        List<String> paths = new ArrayList<>();
+        for(String path : System.getProperty("loadtest.paths", DEFAULT_PATHS).split(","))
+        {
+            if(!path.trim().isEmpty()) paths.add(path.trim());
+        }
+
+        log.info("Load testing {} at {}/s from {} clients, {}s warmup, {}s measured", paths, rate, clients, warmup,
+                duration);
+        OpenLoopLoad.Result result = new OpenLoopLoad("127.0.0.1", port, paths, clients).run(rate, warmup, duration);
+        log.info("Load test result:\n{}", result);
+
+        assertEquals("Failed requests\n" + result, 0, result.getErrors());
+        assertEquals("Requests not sent in time\n" + result, 0, result.getMissed());
+        assertTrue("p99 over " + p99 + " ms\n" + result, result.percentile(0.99) <= millis(p99));
+        assertTrue("p999 over " + p999 + " ms\n" + result, result.percentile(0.999) <= millis(p999));
+    }
+
+    private static long millis(double ms)
+    {
+        return (long) (ms * TimeUnit.MILLISECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,79 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import gov.nasa.gsfc.gmsec.gmoc.Options;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class BinaryScheduleFormatTest
+{
+    private static final byte[] NEWLINE = "\n".getBytes(StandardCharsets.UTF_8);
+    private static final TimeZone ZONE = TimeZone.getTimeZone("America/New_York");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void csvToBinaryToCsvIsIdentical() throws Exception
+    {
+        for(Options.DateFormat format : Options.DateFormat.values())
+        {
+            List<MissionSchedule> missions = Arrays.asList(
+                    MissionSchedule.uniform(new Mission(0, "WIRE", "AOS", "LOS", "00:02:00", 12),
+                            1480510800L, 5000, format, ZONE),
+                    MissionSchedule.uniform(new Mission(1, "TRMM", "BOT", "EOT", "00:10:30", 97),
+                            1480500000L, 700, format, ZONE));
+            ByteArrayOutputStream csv = new ByteArrayOutputStream();
+            EncodedSchedule.encode(missions, ForkJoinPool.commonPool()).writeTo(csv, NEWLINE);
+            Path csvFile = folder.newFile().toPath();
+            Files.write(csvFile, csv.toByteArray());
+
+            Path binFile = folder.newFile("schedule-" + format + ".bin").toPath();
+            ScheduleCsvConverter.writeBinary(ScheduleCsvConverter.readCsv(csvFile, ZONE), binFile);
+            try(MappedScheduleReader reader = new MappedScheduleReader(binFile))
+            {
+                assertEquals(5700, reader.size());
+                ByteArrayOutputStream back = new ByteArrayOutputStream();
+                ScheduleCsvConverter.writeCsv(reader, back, NEWLINE, format, ZONE);
+                assertArrayEquals(csv.toByteArray(), back.toByteArray());
+            }
+        }
+    }
+
+    @Test
+    public void searchesMatchSortedIndex() throws Exception
+    {
+        PassTable table = new PassTable.Builder()
+                .add(100, 50, "A", "AOS A", "LOS A")
+                .add(110, 5, "B", "AOS B", "LOS B")
+                .add(120, 5, "B", "AOS B", "LOS B")
+                .add(200, 10, "A", "AOS A", "LOS A")
+                .add(200, 1, "B", "AOS B", "LOS B")
+                .build();
+        Path binFile = folder.newFile("search.bin").toPath();
+        ScheduleCsvConverter.writeBinary(table, binFile);
+        SortedPassIndex index = table.asIndex();
+        try(MappedScheduleReader reader = new MappedScheduleReader(binFile))
+        {
+            for(long t = 90; t < 220; t++)
+            {
+                assertEquals("start " + t, index.firstStartingAtOrAfter(t), reader.firstStartingAtOrAfter(t));
+                assertEquals("end " + t, index.firstEndingAfter(t), reader.firstEndingAfter(t));
+            }
+            assertEquals("AOS B", reader.startLabelOf(1));
+            assertEquals(10, reader.durationOf(3));
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import gov.nasa.gsfc.gmsec.gmoc.Options;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ConflictDetectorTest
+{
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    @Test
+    public void defaultDurationOverlapsFiveMinuteInterval()
+    {
+        MissionSchedule wire = MissionSchedule.uniform(new Mission(0, "WIRE", "AOS", "LOS", "00:30:00", 5),
+                1480492800L, 121, Options.DateFormat.DAY_IN_YEAR, UTC);
+        ConflictReport report = ConflictDetector.analyze(7, new SchedulePasses(Arrays.asList(wire)), 3);
+        assertEquals(7, report.getVersion());
+        assertEquals(120, report.getMissionOverlaps());
+        assertEquals(0, report.getStationConflicts());
+        assertEquals(1500, report.getMissions().get(0).getMaxOverlapSeconds());
+        assertEquals(3, report.getExamples().size());
+        assertEquals(1, report.getExamples().get(0).getPass().getIndex());
+        assertEquals(0, report.getExamples().get(0).getOverlaps().getIndex());
+
+        MissionSchedule sdo = MissionSchedule.uniform(new Mission(1, "SDO", "AOS", "LOS", "00:03:00", 7, "WHITE_SANDS"),
+                1480492800L, 121, Options.DateFormat.DAY_IN_YEAR, UTC);
+        MissionSchedule wire2 = MissionSchedule.uniform(new Mission(0, "WIRE", "AOS", "LOS", "00:02:00", 5),
+                1480492800L, 121, Options.DateFormat.DAY_IN_YEAR, UTC);
+        assertFalse(ConflictDetector.analyze(0, new SchedulePasses(Arrays.asList(wire2, sdo)), 3).hasConflicts());
+    }
+
+    @Test
+    public void missionsShareAStationOnlyWhenConfigured()
+    {
+        Options options = new Options();
+        options.parse(new String[] {
+                "passDuration=00:02:00",
+                "schedule.missions=WIRE,SDO,ACE",
+                "schedule.mission.SDO.pass.interval=7",
+                "schedule.mission.SDO.pass.duration=00:03:00"});
+        assertEquals(Arrays.asList("WIRE", "SDO", "ACE"), stations(options));
+        assertFalse(analyze(options).hasConflicts());
+
+        options.parse(new String[] {
+                "schedule.mission.SDO.station=WHITE_SANDS",
+                "schedule.mission.ACE.station=WHITE_SANDS"});
+        assertEquals(Arrays.asList("WIRE", "WHITE_SANDS", "WHITE_SANDS"), stations(options));
+        ConflictReport report = analyze(options);
+        assertEquals(0, report.getMissionOverlaps());
+        assertTrue(report.getStationConflicts() > 0);
+        assertEquals(Arrays.asList("SDO", "ACE"), report.getStations().get(1).getMissions());
+    }
+
+    private static List<String> stations(Options options)
+    {
+        List<String> stations = new ArrayList<>();
+        for(Mission mission : options.getMissionList()) stations.add(mission.getStation());
+        return stations;
+    }
+
+    private static ConflictReport analyze(Options options)
+    {
+        List<MissionSchedule> missions = new ArrayList<>();
+        for(Mission mission : options.getMissionList())
+        {
+            missions.add(MissionSchedule.uniform(mission, 1480492800L, 121, Options.DateFormat.DAY_IN_YEAR, UTC));
+        }
+        return ConflictDetector.analyze(0, new SchedulePasses(missions), 3);
+    }
+
+    @Test
+    public void sweepMatchesPairwiseComparison()
+    {
+        Random random = new Random(11);
+        List<MissionSchedule> missions = new ArrayList<>();
+        String[] stations = {"GROUND", "GROUND", "WHITE_SANDS", "GROUND", "WHITE_SANDS"};
+        for(int m = 0; m < stations.length; m++)
+        {
+            int n = 200 + random.nextInt(300);
+            long[] starts = new long[n];
+            int[] durations = new int[n];
+            long t = 1480492800L + random.nextInt(600);
+            for(int i = 0; i < n; i++)
+            {
+                t += random.nextInt(900);
+                starts[i] = t;
+                durations[i] = 60 + random.nextInt(m == 0 ? 1800 : 600);
+            }
+            Mission mission = new Mission(m, "M" + m, "AOS", "LOS", "00:01:00", 1, stations[m]);
+            missions.add(new MissionSchedule(mission, new SortedPassIndex(starts, durations), null));
+        }
+        SchedulePasses passes = new SchedulePasses(missions);
+        ConflictReport report = ConflictDetector.analyze(0, passes, Integer.MAX_VALUE);
+
+        long[] refs = passes.refs().toArray();
+        long[] overlapping = new long[missions.size()];
+        long[] maxOverlap = new long[missions.size()];
+        long ground = 0;
+        long whiteSands = 0;
+        int examples = 0;
+        for(int i = 0; i < refs.length; i++)
+        {
+            PassInfo pass = passes.info(refs[i]);
+            int m = SchedulePasses.mission(refs[i]);
+            long missionEnd = Long.MIN_VALUE;
+            long stationEnd = Long.MIN_VALUE;
+            for(int j = 0; j < i; j++)
+            {
+                PassInfo earlier = passes.info(refs[j]);
+                int other = SchedulePasses.mission(refs[j]);
+                if(other == m) missionEnd = Math.max(missionEnd, earlier.getLos());
+                else if(stations[other].equals(stations[m])) stationEnd = Math.max(stationEnd, earlier.getLos());
+            }
+            if(missionEnd > pass.getAos())
+            {
+                ConflictReport.Conflict conflict = report.getExamples().get(examples++);
+                assertEquals(ConflictReport.Conflict.Type.MISSION, conflict.getType());
+                assertEquals(pass.getAos(), conflict.getPass().getAos());
+                assertEquals(Math.min(pass.getLos(), missionEnd) - pass.getAos(), conflict.getOverlapSeconds());
+                overlapping[m]++;
+                maxOverlap[m] = Math.max(maxOverlap[m], conflict.getOverlapSeconds());
+            }
+            if(stationEnd > pass.getAos())
+            {
+                ConflictReport.Conflict conflict = report.getExamples().get(examples++);
+                assertEquals(ConflictReport.Conflict.Type.STATION, conflict.getType());
+                assertEquals(stations[m], conflict.getStation());
+                assertEquals(Math.min(pass.getLos(), stationEnd) - pass.getAos(), conflict.getOverlapSeconds());
+                if(stations[m].equals("GROUND")) ground++;
+                else whiteSands++;
+            }
+        }
+        assertEquals(examples, report.getExamples().size());
+        for(int m = 0; m < missions.size(); m++)
+        {
+            assertEquals(overlapping[m], report.getMissions().get(m).getOverlapping());
+            assertEquals(maxOverlap[m], report.getMissions().get(m).getMaxOverlapSeconds());
+        }
+        assertTrue(overlapping[0] > 0 && ground > 0 && whiteSands > 0);
+        assertEquals(ground, report.getStations().get(0).getConflicting());
+        assertEquals(whiteSands, report.getStations().get(1).getConflicting());
+        assertEquals(Arrays.asList("M0", "M1", "M3"), report.getStations().get(0).getMissions());
+    }
+}
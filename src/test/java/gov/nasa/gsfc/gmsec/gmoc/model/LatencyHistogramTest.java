@@ -0,0 +1,54 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest
+{
+    @Test
+    public void bucketsCoverEveryValueWithinThreePercent()
+    {
+        int previous = -1;
+        for(long value : new long[] {0, 1, 31, 32, 33, 63, 64, 65, 1000, 123456789, 1L << 40, Long.MAX_VALUE})
+        {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(bucket >= previous);
+            long high = LatencyHistogram.highestValueIn(bucket);
+            assertTrue(value + " <= " + high, value <= high);
+            assertTrue(value + " ~ " + high, high - value <= Math.max(0, value / 32));
+            assertEquals(bucket, LatencyHistogram.bucketOf(high));
+            previous = bucket;
+        }
+    }
+
+    @Test
+    public void percentilesMatchSortedValues()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(42);
+        long[] values = new long[100000];
+        for(int i = 0; i < values.length; i++)
+        {
+            values[i] = (long) Math.exp(random.nextDouble() * 20);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        double[] quantiles = {0.5, 0.9, 0.99, 0.999, 1.0};
+        long[] percentiles = histogram.percentiles(quantiles);
+        for(int q = 0; q < quantiles.length; q++)
+        {
+            long exact = values[(int) Math.ceil(quantiles[q] * values.length) - 1];
+            assertTrue(quantiles[q] + ": " + exact + " vs " + percentiles[q],
+                    percentiles[q] >= exact && percentiles[q] - exact <= exact / 32 + 1);
+        }
+        assertEquals(values.length, histogram.getCount());
+        assertEquals(Arrays.stream(values).sum(), histogram.getSum());
+        assertArrayEquals(new long[2], new LatencyHistogram().percentiles(0.5, 0.99));
+    }
+}
@@ -0,0 +1,55 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class PassIndexTest
+{
+    @Test
+    public void uniformAndSortedIndexesAgree()
+    {
+        long first = 1480510800L;
+        UniformPassIndex uniform = new UniformPassIndex(first, 300, 120, 121);
+        long[] starts = new long[121];
+        int[] durations = new int[121];
+        for(int i = 0; i < starts.length; i++)
+        {
+            starts[i] = uniform.startOf(i);
+            durations[i] = 120;
+        }
+        SortedPassIndex sorted = new SortedPassIndex(starts, durations);
+
+        Random random = new Random(42);
+        for(int n = 0; n < 100000; n++)
+        {
+            long t = first - 600 + random.nextInt(121 * 300 + 1200);
+            assertEquals(uniform.firstEndingAfter(t), sorted.firstEndingAfter(t));
+            assertEquals(uniform.firstStartingAtOrAfter(t), sorted.firstStartingAtOrAfter(t));
+            assertEquals(uniform.containing(t), sorted.containing(t));
+        }
+    }
+
+    @Test
+    public void boundaries()
+    {
+        UniformPassIndex index = new UniformPassIndex(1000, 300, 120, 3);
+        assertEquals(0, index.containing(1000));
+        assertEquals(-1, index.containing(1120));
+        assertEquals(1, index.firstStartingAtOrAfter(1001));
+        assertEquals(1, index.firstEndingAfter(1120));
+        assertEquals(3, index.firstStartingAtOrAfter(1601));
+        assertEquals(0, index.firstEndingAfter(Long.MIN_VALUE / 2));
+    }
+
+    @Test
+    public void sortedIndexHandlesMixedDurations()
+    {
+        SortedPassIndex index = new SortedPassIndex(new long[] {0, 10, 20}, new int[] {100, 5, 5});
+        assertEquals(0, index.firstEndingAfter(50));
+        assertEquals(0, index.containing(50));
+        assertEquals(3, index.firstEndingAfter(100));
+    }
+}
@@ -0,0 +1,106 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import gov.nasa.gsfc.gmsec.gmoc.Options;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Calendar;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PassRowEncoderTest
+{
+    private final TimeZone defaultZone = TimeZone.getDefault();
+
+    @After
+    public void restoreZone()
+    {
+        TimeZone.setDefault(defaultZone);
+    }
+
+    @Test
+    public void dayInYearMatchesPassSchedule() throws Exception
+    {
+        assertMatchesPassSchedule(Options.DateFormat.DAY_IN_YEAR, "UTC");
+        assertMatchesPassSchedule(Options.DateFormat.DAY_IN_YEAR, "America/New_York");
+    }
+
+    @Test
+    public void monthInYearMatchesPassSchedule() throws Exception
+    {
+        assertMatchesPassSchedule(Options.DateFormat.MONTH_IN_YEAR, "UTC");
+        assertMatchesPassSchedule(Options.DateFormat.MONTH_IN_YEAR, "Asia/Kolkata");
+    }
+
+    @Test
+    public void parsesDurationWithoutRegex()
+    {
+        assertEquals(120, PassSchedule.parseDurationSeconds("00:02:00"));
+        assertEquals(3723, PassSchedule.parseDurationSeconds("+01:02:03"));
+        assertEquals(1800, PassSchedule.parseDurationSeconds("2 minutes"));
+        assertEquals("+00:30:00", PassSchedule.normalizeDuration("0:2:0"));
+    }
+
+    @Test
+    public void invalidDurationFallsBackOnEveryRow() throws Exception
+    {
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+        Options options = new Options();
+        options.setDuration("2 minutes");
+        PassSchedule pass = new PassSchedule(options);
+        Calendar start = Calendar.getInstance();
+        start.set(2016, Calendar.NOVEMBER, 30, 8, 0, 0);
+        pass.setPassStartTime(start);
+        long firstPassStart = start.getTimeInMillis() / 1000;
+        String first = pass.toString();
+        pass.incrementPass();
+        String second = pass.toString();
+
+        PassRowGenerator generator = new PassRowGenerator(PassRowEncoder.fromOptions(options),
+                firstPassStart, options.getPassInterval() * 60L, 2);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        generator.writeTo(out, "\r\n".getBytes(StandardCharsets.UTF_8));
+        String[] rows = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\r\n");
+
+        // PassSchedule drops the "+" on its first row only, as it stores the
+        // fallback unsigned and signs it on the next call
+        assertTrue(first, first.contains(",00:30:00,"));
+        assertEquals(first.replace(",00:30:00,", ",+00:30:00,"), rows[0]);
+        assertEquals(second, rows[1]);
+        assertTrue(rows[1], rows[1].contains(",+00:30:00,"));
+    }
+
+    // Walk ~4 years in 97 minute steps so rows cross days, years, leap days and DST changes
+    private void assertMatchesPassSchedule(Options.DateFormat format, String zone) throws Exception
+    {
+        TimeZone.setDefault(TimeZone.getTimeZone(zone));
+        Options options = new Options();
+        options.setDateFormat(format.name());
+        options.setDuration("00:02:00");
+        options.setPassInterval("97");
+
+        PassSchedule pass = new PassSchedule(options);
+        Calendar start = Calendar.getInstance();
+        start.set(2015, Calendar.DECEMBER, 31, 22, 0, 0);
+        pass.setPassStartTime(start);
+        long firstPassStart = start.getTimeInMillis() / 1000;
+        int rows = 22000;
+
+        StringBuilder expected = new StringBuilder();
+        for(int p = 1; p <= rows; p++)
+        {
+            if(p > 1) pass.incrementPass();
+            expected.append(pass.toString()).append("\r\n");
+        }
+
+        PassRowGenerator generator = new PassRowGenerator(PassRowEncoder.fromOptions(options),
+                firstPassStart, 97 * 60L, rows);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        generator.writeTo(out, "\r\n".getBytes(StandardCharsets.UTF_8));
+        assertEquals(expected.toString(), new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,141 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import gov.nasa.gsfc.gmsec.gmoc.Options;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ScheduleCsvParserTest
+{
+    private static final byte[] NEWLINE = "\n".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void sampleFileRoundTrips() throws Exception
+    {
+        Path sample = Paths.get("samples", "GENERICPassSchedule-2016-11-30.csv");
+        TimeZone zone = TimeZone.getTimeZone("America/New_York");
+        PassTable table = new ScheduleCsvParser(zone).parse(sample);
+        assertEquals(121, table.size());
+        assertEquals("AOS WIRE", table.startLabelOf(0));
+        assertEquals(120, table.durationOf(0));
+
+        List<MissionSchedule> missions = table.missionSchedules(Options.DateFormat.DAY_IN_YEAR, zone);
+        assertEquals(1, missions.size());
+        assertEquals("AOS", missions.get(0).getMission().getStartLabel());
+        assertEquals(5, missions.get(0).getMission().getPassInterval());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new PassRowGenerator(missions).writeTo(out, NEWLINE);
+        assertArrayEquals(Files.readAllBytes(sample), out.toByteArray());
+    }
+
+    @Test
+    public void datestampsMatchSimpleDateFormat() throws Exception
+    {
+        for(String id : Arrays.asList("UTC", "America/New_York", "Asia/Kolkata", "Australia/Lord_Howe"))
+        {
+            TimeZone zone = TimeZone.getTimeZone(id);
+            for(Options.DateFormat format : Options.DateFormat.values())
+            {
+                SimpleDateFormat sdf = new SimpleDateFormat(format.value());
+                sdf.setTimeZone(zone);
+                StringBuilder csv = new StringBuilder();
+                // Every 7 minutes across 2016, through both DST transitions
+                for(long t = 1451606400L; t < 1483228800L; t += 7 * 60)
+                {
+                    csv.append("WIRE,").append(sdf.format(new Date(t * 1000))).append(",+00:02:00,AOS WIRE,LOS WIRE\n");
+                }
+                String[] lines = csv.toString().split("\n");
+                PassTable table = new ScheduleCsvParser(zone).parse(
+                        ByteBuffer.wrap(csv.toString().getBytes(StandardCharsets.UTF_8)), null);
+                long[] expected = new long[lines.length];
+                for(int i = 0; i < lines.length; i++)
+                {
+                    expected[i] = sdf.parse(lines[i].split(",")[1], new ParsePosition(0)).getTime() / 1000;
+                }
+                // Repeated local times parse to the same instant, so the table is re-sorted
+                Arrays.sort(expected);
+                assertEquals(lines.length, table.size());
+                for(int i = 0; i < lines.length; i++)
+                {
+                    assertEquals(id + " " + format + " row " + i, expected[i], table.startOf(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void parallelParseMatchesSerial() throws Exception
+    {
+        List<MissionSchedule> missions = Arrays.asList(
+                MissionSchedule.uniform(new Mission(0, "WIRE", "AOS", "LOS", "00:02:00", 3),
+                        1480510800L, 150000, Options.DateFormat.MONTH_IN_YEAR, TimeZone.getTimeZone("UTC")),
+                MissionSchedule.uniform(new Mission(1, "TRMM", "BOT", "EOT", "00:10:30", 7),
+                        1480500000L, 100000, Options.DateFormat.MONTH_IN_YEAR, TimeZone.getTimeZone("UTC")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EncodedSchedule.encode(missions, ForkJoinPool.commonPool()).writeTo(out, "\r\n".getBytes(StandardCharsets.UTF_8));
+        assertTrue(out.size() > 2 * ScheduleCsvParser.MIN_PARALLEL_BYTES);
+
+        ScheduleCsvParser parser = new ScheduleCsvParser(TimeZone.getTimeZone("UTC"));
+        PassTable serial = parser.parse(ByteBuffer.wrap(out.toByteArray()), null);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            PassTable parallel = parser.parse(ByteBuffer.wrap(out.toByteArray()), pool);
+            assertEquals(250000, parallel.size());
+            for(int i = 0; i < serial.size(); i++)
+            {
+                assertEquals(serial.startOf(i), parallel.startOf(i));
+                assertEquals(serial.durationOf(i), parallel.durationOf(i));
+                assertEquals(serial.categoryOf(i), parallel.categoryOf(i));
+                assertEquals(serial.endLabelOf(i), parallel.endLabelOf(i));
+            }
+        } finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void rejectsMalformedRows() throws Exception
+    {
+        String good = "WIRE,2016-335-13:00:00,+00:02:00,AOS WIRE,LOS WIRE\n";
+        assertRejected(good + "\n" + "WIRE,2016-335-13:00:00,+00:02:00,AOS WIRE\n", "line 3: expected 5 fields");
+        assertRejected(good + "WIRE,2016-335-13:00:00,+00:02:00,AOS WIRE,LOS WIRE,X\n", "line 2: expected 5 fields");
+        assertRejected(good + "WIRE,2016-367-13:00:00,+00:02:00,AOS WIRE,LOS WIRE\n", "line 2: day of year");
+        assertRejected(good + "WIRE,2016-02-30-13:00:00,+00:02:00,AOS WIRE,LOS WIRE\n", "line 2: day of month");
+        assertRejected(good + "WIRE,2016-335-24:00:00,+00:02:00,AOS WIRE,LOS WIRE\n", "line 2: time out of range");
+        assertRejected(good + "WIRE,2016-335-13:00,+00:02:00,AOS WIRE,LOS WIRE\n", "line 2: expected yyyy");
+        assertRejected(good + "WIRE,2016-335-13:00:00,+2 minutes,AOS WIRE,LOS WIRE\n", "line 2: expected +hh:mm:ss");
+        assertRejected(good + "WIRE,2016-335-13:0x:00,+00:02:00,AOS WIRE,LOS WIRE\n", "line 2: expected digit");
+    }
+
+    private static void assertRejected(String csv, String message)
+    {
+        try
+        {
+            new ScheduleCsvParser(TimeZone.getTimeZone("UTC"))
+                    .parse(ByteBuffer.wrap(csv.getBytes(StandardCharsets.UTF_8)), null);
+            fail("Accepted " + csv);
+        } catch (ScheduleCsvParser.ScheduleFormatException e)
+        {
+            assertTrue(e.getMessage(), e.getMessage().startsWith(message));
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import gov.nasa.gsfc.gmsec.gmoc.Options;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ScheduleEncoderTest
+{
+    private static final byte[] NEWLINE = "\r\n".getBytes(StandardCharsets.UTF_8);
+    private static final TimeZone ZONE = TimeZone.getTimeZone("America/New_York");
+
+    private final SchedulePasses passes = new SchedulePasses(Arrays.asList(
+            MissionSchedule.uniform(new Mission(0, "WIRE", "AOS", "LOS", "00:02:00", 12),
+                    1480510800L, 5000, Options.DateFormat.DAY_IN_YEAR, ZONE),
+            MissionSchedule.uniform(new Mission(1, "T\"RMM\\", "BOT", "EOT", "00:10:30", 97),
+                    1480500000L, 700, Options.DateFormat.DAY_IN_YEAR, ZONE)));
+
+    @Test
+    public void csvMatchesPassRowGenerator() throws Exception
+    {
+        for(long limit : new long[] {-1, 0, 1, 1234})
+        {
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            new PassRowGenerator(passes.getMissions()).write(passes.spliterator(), expected, NEWLINE, limit);
+            assertArrayEquals("limit " + limit, expected.toByteArray(), encode(ScheduleEncoders.CSV, limit, 64 * 1024));
+            assertArrayEquals("limit " + limit, expected.toByteArray(), encode(ScheduleEncoders.CSV, limit, 7));
+        }
+    }
+
+    @Test
+    public void jsonFormatsCarryEveryPass() throws Exception
+    {
+        ObjectMapper mapper = new ObjectMapper();
+        byte[] csv = encode(ScheduleEncoders.CSV, -1, 1024);
+        String[] rows = new String(csv, StandardCharsets.UTF_8).split("\r\n");
+        List<PassInfo> infos = Arrays.asList(passes.stream().toArray(PassInfo[]::new));
+        assertEquals(5700, rows.length);
+
+        String[] lines = new String(encode(ScheduleEncoders.JSON_LINES, -1, 13), StandardCharsets.UTF_8)
+                .split("\r\n");
+        assertEquals(rows.length, lines.length);
+        JsonNode columns = mapper.readTree(encode(ScheduleEncoders.JSON_COLUMNS, -1, 13));
+        for(int i = 0; i < rows.length; i++)
+        {
+            JsonNode line = mapper.readTree(lines[i]);
+            String[] fields = rows[i].split(",");
+            PassInfo info = infos.get(i);
+            for(JsonNode node : new JsonNode[] {line, rowOf(columns, i)})
+            {
+                assertEquals(info.getCategory(), node.get("category").asText());
+                assertEquals(fields[1], node.get("start").asText());
+                assertEquals(info.getAos(), node.get("aos").asLong());
+                assertEquals(info.getLos(), node.get("los").asLong());
+                assertEquals(fields[fields.length - 2], node.get("startLabel").asText());
+                assertEquals(fields[fields.length - 1], node.get("endLabel").asText());
+            }
+        }
+        assertEquals(3, mapper.readTree(encode(ScheduleEncoders.JSON_COLUMNS, 3, 1024)).get("aos").size());
+        assertEquals(0, mapper.readTree(encode(ScheduleEncoders.JSON_COLUMNS, 0, 1024)).get("los").size());
+    }
+
+    @Test
+    public void binaryMatchesBinaryScheduleFormat() throws Exception
+    {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        BinaryScheduleFormat.write(PassTable.of(passes.getMissions()), ByteBuffer.allocate(64 * 1024), buffer -> {
+            expected.write(buffer.array(), buffer.position(), buffer.remaining());
+            buffer.position(buffer.limit());
+        });
+        assertArrayEquals(expected.toByteArray(), encode(ScheduleEncoders.BINARY, -1, 64 * 1024));
+        // A buffer too small for the header is replaced
+        assertArrayEquals(expected.toByteArray(), encode(ScheduleEncoders.BINARY, -1, 13));
+
+        ByteBuffer limited = ByteBuffer.wrap(encode(ScheduleEncoders.BINARY, 3, 1024));
+        assertEquals(3, limited.getLong(24));
+        assertEquals(limited.getInt(16) + 3 * 20, limited.capacity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownFormat()
+    {
+        ScheduleEncoders.forName("xml");
+    }
+
+    private static JsonNode rowOf(JsonNode columns, int i)
+    {
+        ObjectMapper mapper = new ObjectMapper();
+        ObjectNode row = mapper.createObjectNode();
+        columns.fields().forEachRemaining(column -> row.set(column.getKey(), column.getValue().get(i)));
+        return row;
+    }
+
+    private byte[] encode(ScheduleEncoder encoder, long limit, int bufferSize) throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.encode(passes, limit, NEWLINE, ByteBuffer.allocateDirect(bufferSize), buffer -> {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            out.write(bytes);
+        });
+        return out.toByteArray();
+    }
+}
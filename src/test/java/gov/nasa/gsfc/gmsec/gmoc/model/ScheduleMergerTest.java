@@ -0,0 +1,69 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import gov.nasa.gsfc.gmsec.gmoc.Options;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ScheduleMergerTest
+{
+    private static final byte[] NEWLINE = "\n".getBytes(StandardCharsets.UTF_8);
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    @Test
+    public void mergesMissionsInTimeOrder()
+    {
+        PassIndex[] indexes = {
+                new UniformPassIndex(0, 300, 120, 50),
+                new UniformPassIndex(60, 420, 120, 40),
+                new SortedPassIndex(new long[] {0, 5, 5, 9000}, new int[] {1, 1, 1, 1})
+        };
+        List<long[]> expected = new ArrayList<>();
+        for(int m = 0; m < indexes.length; m++)
+            for(int i = 0; i < indexes[m].size(); i++)
+                expected.add(new long[] {indexes[m].startOf(i), m, i});
+        expected.sort(Comparator.<long[]>comparingLong(e -> e[0]).thenComparingLong(e -> e[1]).thenComparingLong(e -> e[2]));
+
+        ScheduleMerger merger = new ScheduleMerger(indexes);
+        for(long[] e : expected)
+        {
+            assertTrue(merger.advance());
+            assertEquals(Arrays.toString(e), e[1], merger.mission());
+            assertEquals(Arrays.toString(e), e[2], merger.pass());
+        }
+        assertEquals(false, merger.advance());
+    }
+
+    @Test
+    public void parallelEncodingMatchesStreamingGenerator() throws Exception
+    {
+        List<MissionSchedule> missions = new ArrayList<>();
+        missions.add(MissionSchedule.uniform(new Mission(0, "WIRE", "AOS", "LOS", "00:02:00", 5),
+                1480510800L, 30000, Options.DateFormat.DAY_IN_YEAR, UTC));
+        missions.add(MissionSchedule.uniform(new Mission(1, "SDO", "AOS", "LOS", "00:03:00", 7),
+                1480510800L, 20000, Options.DateFormat.DAY_IN_YEAR, UTC));
+
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        new PassRowGenerator(missions).writeTo(streamed, NEWLINE);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        EncodedSchedule.encode(missions, pool).writeTo(encoded, NEWLINE);
+        pool.shutdown();
+
+        assertEquals(new String(streamed.toByteArray(), StandardCharsets.UTF_8),
+                new String(encoded.toByteArray(), StandardCharsets.UTF_8));
+        String first = new String(streamed.toByteArray(), 0, 100, StandardCharsets.UTF_8);
+        assertTrue(first, first.startsWith("WIRE,2016-335-13:00:00,+00:02:00,AOS WIRE,LOS WIRE\nSDO,2016-335-13:00:00,"));
+    }
+}
@@ -0,0 +1,149 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import gov.nasa.gsfc.gmsec.gmoc.Options;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.TimeZone;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SchedulePassesTest
+{
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+
+    @Test
+    public void windowsFollowLocalTimeAcrossDaylightSaving()
+    {
+        // Fall back on 2016-11-06
+        long start = LocalDateTime.parse("2016-11-04T10:00:30").atZone(NEW_YORK).toEpochSecond();
+        Horizon horizon = new Horizon(start, Long.MAX_VALUE, 200,
+                Horizon.parseWindows("08:00-12:00, 13:00-18:00"), NEW_YORK);
+        PassIndex index = horizon.index(420, 180);
+
+        List<Long> expected = new ArrayList<>();
+        for(LocalDate day = LocalDate.of(2016, 11, 4); expected.size() < 200; day = day.plusDays(1))
+        {
+            for(int[] window : new int[][] {{8, 12}, {13, 18}})
+            {
+                long open = ZonedDateTime.of(day, LocalTime.of(window[0], 0), NEW_YORK).toEpochSecond();
+                long close = ZonedDateTime.of(day, LocalTime.of(window[1], 0), NEW_YORK).toEpochSecond();
+                for(long t = open; t < close && expected.size() < 200; t += 420)
+                {
+                    if(t >= start) expected.add(t);
+                }
+            }
+        }
+        assertEquals(expected.size(), index.size());
+        for(int i = 0; i < expected.size(); i++)
+        {
+            assertEquals("pass " + i, (long) expected.get(i), index.startOf(i));
+        }
+
+        Random random = new Random(3);
+        for(int n = 0; n < 5000; n++)
+        {
+            long t = start - 3600 + random.nextInt(7 * 86400);
+            int starting = 0;
+            while(starting < expected.size() && expected.get(starting) < t) starting++;
+            int ending = 0;
+            while(ending < expected.size() && expected.get(ending) + 180 <= t) ending++;
+            assertEquals("t " + t, starting, index.firstStartingAtOrAfter(t));
+            assertEquals("t " + t, ending, index.firstEndingAfter(t));
+        }
+    }
+
+    @Test
+    public void ninetyDaysOfMinutePassesSplitExactly()
+    {
+        long start = LocalDateTime.parse("2016-11-01T00:00").atZone(NEW_YORK).toEpochSecond();
+        long end = LocalDateTime.parse("2017-01-30T00:00").atZone(NEW_YORK).toEpochSecond();
+        Horizon horizon = new Horizon(start, end, 0, new int[0], NEW_YORK);
+        List<MissionSchedule> missions = new ArrayList<>();
+        missions.add(MissionSchedule.forHorizon(new Mission(0, "WIRE", "AOS", "LOS", "00:00:40", 1), horizon,
+                Options.DateFormat.DAY_IN_YEAR, TimeZone.getTimeZone(NEW_YORK)));
+        missions.add(MissionSchedule.forHorizon(new Mission(1, "SDO", "AOS", "LOS", "00:03:00", 7), horizon,
+                Options.DateFormat.DAY_IN_YEAR, TimeZone.getTimeZone(NEW_YORK)));
+        SchedulePasses passes = new SchedulePasses(missions);
+        // 90 days and the hour gained falling back
+        long size = (90 * 1440 + 60) + (90 * 1440 + 60 + 6) / 7;
+        assertEquals(size, passes.size());
+
+        // Split to the bottom, every part knows its exact size and parts stay in time order
+        List<Spliterator.OfLong> parts = new ArrayList<>(Arrays.asList(passes.spliterator()));
+        for(int round = 0; round < 6; round++)
+        {
+            List<Spliterator.OfLong> split = new ArrayList<>();
+            for(Spliterator.OfLong part : parts)
+            {
+                Spliterator.OfLong prefix = part.trySplit();
+                if(prefix != null) split.add(prefix);
+                split.add(part);
+            }
+            parts = split;
+        }
+        assertEquals(64, parts.size());
+        long[] last = {Long.MIN_VALUE};
+        long seen = 0;
+        for(Spliterator.OfLong part : parts)
+        {
+            long expected = part.getExactSizeIfKnown();
+            long[] count = {0};
+            part.forEachRemaining((long ref) -> {
+                long t = missions.get(SchedulePasses.mission(ref)).getIndex().startOf(SchedulePasses.pass(ref));
+                assertTrue(t >= last[0]);
+                last[0] = t;
+                count[0]++;
+            });
+            assertEquals(expected, count[0]);
+            seen += count[0];
+        }
+        assertEquals(size, seen);
+
+        assertEquals(passes.stream().filter(p -> p.getCategory().equals("SDO")).count(),
+                passes.stream().parallel().filter(p -> p.getCategory().equals("SDO")).count());
+        assertEquals(1440 + 206, passes.window(end - 86400, end).refs().parallel().count());
+    }
+
+    @Test
+    public void parallelEncodingOfWindowedPassesMatchesGenerator() throws Exception
+    {
+        long start = LocalDateTime.parse("2016-11-04T00:00").atZone(NEW_YORK).toEpochSecond();
+        Horizon horizon = new Horizon(start, start + 10 * 86400, 0, Horizon.parseWindows("06:00-09:00,20:00-24:00"),
+                NEW_YORK);
+        List<MissionSchedule> missions = new ArrayList<>();
+        missions.add(MissionSchedule.forHorizon(new Mission(0, "WIRE", "AOS", "LOS", "00:00:40", 1), horizon,
+                Options.DateFormat.MONTH_IN_YEAR, TimeZone.getTimeZone(NEW_YORK)));
+        missions.add(MissionSchedule.forHorizon(new Mission(1, "SDO", "AOS", "LOS", "00:03:00", 3), horizon,
+                Options.DateFormat.MONTH_IN_YEAR, TimeZone.getTimeZone(NEW_YORK)));
+        byte[] newline = "\r\n".getBytes(StandardCharsets.UTF_8);
+
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        new PassRowGenerator(missions).writeTo(streamed, newline);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        EncodedSchedule.encode(new SchedulePasses(missions), pool).writeTo(encoded, newline);
+        pool.shutdown();
+
+        String text = new String(streamed.toByteArray(), StandardCharsets.UTF_8);
+        assertEquals(text, new String(encoded.toByteArray(), StandardCharsets.UTF_8));
+        // Ten days of 24 hours end at 23:00 local after falling back, one hour short of the last window
+        assertEquals(10 * (180 + 240 + 60 + 80) - (60 + 20), text.split("\r\n").length);
+        assertTrue(text, text.startsWith("WIRE,2016-11-04-06:00:00,+00:00:40,AOS WIRE,LOS WIRE\r\n"
+                + "SDO,2016-11-04-06:00:00,+00:03:00,AOS SDO,LOS SDO\r\n"
+                + "WIRE,2016-11-04-06:01:00,"));
+    }
+}
@@ -0,0 +1,82 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TimingWheelTest
+{
+    private static final long START = 1792199161000L;
+
+    @Test
+    public void expiresEachTimeoutOnItsDeadlineInOrder()
+    {
+        TimingWheel<Long> wheel = new TimingWheel<>(START);
+        Random random = new Random(7);
+        List<TimingWheel.Timeout<Long>> timeouts = new ArrayList<>();
+        for(int i = 0; i < 20000; i++)
+        {
+            // From past due to past the top level, many sharing a deadline
+            long deadline = START - 10 + (long) Math.exp(random.nextDouble() * 26) / 7 * 7;
+            timeouts.add(wheel.schedule(deadline, deadline));
+        }
+        int cancelled = 0;
+        for(int i = 0; i < timeouts.size(); i += 3)
+        {
+            assertTrue(wheel.cancel(timeouts.get(i)));
+            assertFalse(wheel.cancel(timeouts.get(i)));
+            cancelled++;
+        }
+        assertEquals(timeouts.size() - cancelled, wheel.size());
+
+        long[] last = {Long.MIN_VALUE};
+        int expired = 0;
+        long now = START;
+        for(int step = 0; wheel.size() > 0; step++)
+        {
+            long advanceTo = now;
+            expired += wheel.advance(advanceTo, timeout -> {
+                assertTrue(timeout.getDeadline() <= advanceTo);
+                // Past due timeouts all expire on the first tick
+                long tick = Math.max(timeout.getDeadline(), START);
+                assertTrue(tick >= last[0]);
+                assertFalse(timeout.isPending());
+                last[0] = tick;
+            });
+            // Nothing due is left behind
+            for(int i = 0; step % 100 == 0 && i < timeouts.size(); i++)
+            {
+                TimingWheel.Timeout<Long> timeout = timeouts.get(i);
+                if(timeout.isPending()) assertTrue(timeout.getDeadline() > advanceTo);
+            }
+            now = Math.max(now + 1 + random.nextInt(5000000), wheel.nextTick());
+        }
+        assertEquals(timeouts.size() - cancelled, expired);
+        assertEquals(Long.MAX_VALUE, wheel.nextTick());
+    }
+
+    @Test
+    public void equalDeadlinesExpireInScheduleOrder()
+    {
+        TimingWheel<Integer> wheel = new TimingWheel<>(START);
+        for(int i = 0; i < 100; i++)
+        {
+            wheel.schedule(START + 86400000L, i);
+        }
+        wheel.schedule(START - 1, -1);
+        List<Integer> order = new ArrayList<>();
+        wheel.advance(START + 86400000L - 1, timeout -> order.add(timeout.getValue()));
+        assertEquals(1, order.size());
+        wheel.advance(START + 86400000L, timeout -> order.add(timeout.getValue()));
+        for(int i = 0; i < 100; i++)
+        {
+            assertEquals(i, (int) order.get(i + 1));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package gov.nasa.gsfc.gmsec.gmoc.model;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class ZoneTransitionsTest
+{
+    private static final long FROM = LocalDateTime.of(1850, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+    private static final long TO = LocalDateTime.of(ZoneTransitions.LAST_YEAR + 50, 1, 1, 0, 0)
+            .toEpochSecond(ZoneOffset.UTC);
+
+    // Random instants and local times in every zone, and around each of its offset changes
+    @Test
+    public void convertsLikeJavaTime()
+    {
+        Random random = new Random(23);
+        for(String id : ZoneId.getAvailableZoneIds())
+        {
+            ZoneId zone = ZoneId.of(id);
+            ZoneTransitions transitions = ZoneTransitions.of(zone);
+            for(int i = 0; i < 200; i++)
+            {
+                long t = FROM + (long) (random.nextDouble() * (TO - FROM));
+                assertConverts(zone, transitions, t);
+            }
+            ZoneRules rules = zone.getRules();
+            for(ZoneOffsetTransition change = rules.nextTransition(Instant.ofEpochSecond(FROM));
+                change != null && change.toEpochSecond() < TO; change = rules.nextTransition(change.getInstant()))
+            {
+                long t = change.toEpochSecond();
+                for(long s : new long[] {t - 1, t, t + 1, t - 3600, t + 3600})
+                {
+                    assertConverts(zone, transitions, s);
+                    assertConverts(zone, transitions, s + change.getOffsetBefore().getTotalSeconds());
+                    assertConverts(zone, transitions, s + change.getOffsetAfter().getTotalSeconds());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void cursorFollowsInstantsInAnyOrder()
+    {
+        ZoneTransitions transitions = ZoneTransitions.of(ZoneId.of("Australia/Lord_Howe"));
+        ZoneTransitions.Cursor cursor = transitions.cursor();
+        Random random = new Random(7);
+        for(long t = FROM; t < TO; t += 97 * 60 + random.nextInt(2 * 86400))
+        {
+            assertEquals(transitions.offsetAt(t), cursor.offsetAt(t));
+            long back = t - random.nextInt(400 * 86400);
+            assertEquals(transitions.offsetAt(back), cursor.offsetAt(back));
+        }
+    }
+
+    @Test
+    public void firstPassStartsAtEightLocal()
+    {
+        for(String id : new String[] {"UTC", "America/New_York", "Asia/Kolkata", "Australia/Lord_Howe",
+                "America/St_Johns"})
+        {
+            ZoneId zone = ZoneId.of(id);
+            for(LocalDate date = LocalDate.of(2016, 1, 1); date.getYear() < 2018; date = date.plusDays(1))
+            {
+                assertEquals(id + " " + date, date.atTime(8, 0).atZone(zone).toEpochSecond(),
+                        PassSchedule.firstPassStart(date, ZoneTransitions.of(zone)));
+            }
+        }
+    }
+
+    private static void assertConverts(ZoneId zone, ZoneTransitions transitions, long second)
+    {
+        String at = zone + " at " + second;
+        assertEquals(at, zone.getRules().getOffset(Instant.ofEpochSecond(second)).getTotalSeconds(),
+                transitions.offsetAt(second));
+
+        LocalDateTime local = LocalDateTime.ofEpochSecond(second, 0, ZoneOffset.UTC);
+        ZonedDateTime earlier = local.atZone(zone);
+        assertEquals(at, earlier.toEpochSecond(), transitions.toEpochSecond(second));
+        assertEquals(at, second - earlier.withLaterOffsetAtOverlap().toEpochSecond(),
+                transitions.offsetOfLocal(second, true));
+    }
+}
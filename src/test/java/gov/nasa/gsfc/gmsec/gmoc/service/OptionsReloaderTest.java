@@ -0,0 +1,166 @@
+package gov.nasa.gsfc.gmsec.gmoc.service;
+
+import gov.nasa.gsfc.gmsec.gmoc.Options;
+import gov.nasa.gsfc.gmsec.gmoc.model.Mission;
+import gov.nasa.gsfc.gmsec.gmoc.model.PassInfo;
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleReload;
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleSnapshot;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class OptionsReloaderTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ServiceFixture services;
+    private Options options;
+    private PassScheduleService service;
+    private OptionsReloader reloader;
+
+    @Before
+    public void setup()
+    {
+        services = ServiceFixture.builder().args("schedule.file.path=" + folder.getRoot()).build();
+        options = services.options;
+        service = services.passScheduleService;
+        reloader = services.optionsReloader();
+    }
+
+    @Test
+    public void labelChangeOnlyRerendersRows()
+    {
+        ScheduleSnapshot before = service.getSnapshot();
+        byte[] rendered = service.renderGenericPassSchedule(before);
+
+        ScheduleReload reload = reloader.reload(Arrays.asList("schedule.mission.SDO.start.label=START",
+                "schedule.date.format=MONTH_IN_YEAR"), 0);
+        assertEquals(Arrays.asList("WIRE", "SDO"), reload.getRelabeled());
+        assertTrue(reload.getRegenerated().isEmpty());
+        ScheduleSnapshot after = service.getSnapshot();
+        assertEquals(reload.getVersion(), after.getVersion());
+        assertSame(before.getMissions().get(1).getIndex(), after.getMissions().get(1).getIndex());
+        assertArrayEquals(service.renderGenericPassSchedule(service.buildSnapshot(LocalDate.now())),
+                service.renderGenericPassSchedule(after));
+
+        // Readers of the old snapshot are unaffected
+        assertArrayEquals(rendered, service.renderGenericPassSchedule(before));
+    }
+
+    @Test
+    public void intervalChangeKeepsEarlierRows()
+    {
+        ScheduleSnapshot before = service.getSnapshot();
+        PassInfo middle = before.passes().info(before.passes().refs().toArray()[100]);
+        long t = middle.getAos() + 1;
+
+        ScheduleReload reload = reloader.reload(Arrays.asList("schedule.mission.SDO.pass.interval=10",
+                "schedule.missions=WIRE,SDO,ACE"), t);
+        assertEquals(Arrays.asList("SDO"), reload.getRegenerated());
+        assertEquals(Arrays.asList("ACE"), reload.getAdded());
+        ScheduleSnapshot after = service.getSnapshot();
+        ScheduleSnapshot fresh = service.buildSnapshot(LocalDate.now());
+
+        List<String> expected = new ArrayList<>();
+        for(String pass : ServiceFixture.passes(before.passes()))
+        {
+            if(pass.startsWith("WIRE") || aos(pass) < t) expected.add(pass);
+        }
+        for(String pass : ServiceFixture.passes(fresh.passes()))
+        {
+            if(!pass.startsWith("WIRE") && aos(pass) >= t) expected.add(pass);
+        }
+        Collections.sort(expected);
+        List<String> actual = ServiceFixture.passes(after.passes());
+        Collections.sort(actual);
+        assertEquals(expected, actual);
+
+        // Every row before t is the same
+        String[] old = services.rows(before);
+        String[] updated = services.rows(after);
+        int kept = 0;
+        while(kept < old.length && kept < updated.length && old[kept].equals(updated[kept])) kept++;
+        int earlier = 0;
+        for(String pass : ServiceFixture.passes(before.passes())) if(aos(pass) < t) earlier++;
+        assertTrue(kept >= earlier);
+    }
+
+    @Test
+    public void invalidValuesChangeNothing()
+    {
+        long version = service.getSnapshot().getVersion();
+        for(String arg : new String[] {"passDuration=2 minutes", "schedule.mission.SDO.pass.interval=0",
+                "schedule.windows=18:00-08:00", "schedule.backfill.from=yesterday"})
+        {
+            try
+            {
+                reloader.reload(Arrays.asList("startLabel=START", arg), 0);
+                fail(arg);
+            } catch (IllegalArgumentException e)
+            {
+                assertEquals("AOS", options.getStartLabel());
+            }
+        }
+        assertEquals(version, service.getSnapshot().getVersion());
+        assertFalse(reloader.reload(Arrays.asList("schedule.cache.max.bytes=1024"), 0).isChanged());
+        assertEquals(1024, options.getCacheMaxBytes());
+    }
+
+    @Test
+    public void optionsAreReplacedBeforeTheirScheduleIsPublished() throws Exception
+    {
+        service.getSnapshot();
+        List<String> seen = new ArrayList<>();
+        service.addPublishListener(snapshot -> seen.add(options.getStartLabel() + " " + options.getMissions()));
+        reloader.reload(Arrays.asList("startLabel=START", "schedule.missions=WIRE,SDO,ACE"), 0);
+        assertEquals(Collections.singletonList("START WIRE,SDO,ACE"), seen);
+
+        // Readers see one reload's mission list or the other's, never a mix
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> mixed = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            while(!done.get())
+            {
+                List<Mission> missions = options.getMissionList();
+                Set<String> labels = new HashSet<>();
+                for(Mission mission : missions) labels.add(mission.getStartLabel());
+                if(labels.size() > 1 || missions.size() != (labels.contains("AOS") ? 2 : 3))
+                    mixed.set(missions.toString());
+            }
+        });
+        reader.start();
+        for(int i = 0; i < 20; i++)
+        {
+            reloader.reload(Arrays.asList("startLabel=AOS", "schedule.missions=WIRE,SDO"), 0);
+            reloader.reload(Arrays.asList("startLabel=START", "schedule.missions=WIRE,SDO,ACE"), 0);
+        }
+        done.set(true);
+        reader.join();
+        assertNull(mixed.get(), mixed.get());
+    }
+
+    private static long aos(String pass)
+    {
+        return Long.parseLong(pass.split(" ")[1]);
+    }
+}
@@ -0,0 +1,179 @@
+package gov.nasa.gsfc.gmsec.gmoc.service;
+
+import gov.nasa.gsfc.gmsec.gmoc.Options;
+import gov.nasa.gsfc.gmsec.gmoc.PassEventServlet;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PassEventBroadcasterTest
+{
+    private static final byte[] EVENT = "id: 1\nevent: aos\ndata: {}\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private Options options;
+    private PassEventBroadcaster broadcaster;
+
+    @Before
+    public void setup()
+    {
+        ServiceFixture services = ServiceFixture.builder().args("schedule.events.queue.max=4").build();
+        options = services.options;
+        broadcaster = services.passEventBroadcaster();
+    }
+
+    @Test
+    public void sameBytesFanOutToEverySubscriber()
+    {
+        List<Recorder> recorders = new ArrayList<>();
+        for(int i = 0; i < 3; i++)
+        {
+            Recorder recorder = new Recorder();
+            broadcaster.subscribe(recorder);
+            recorders.add(recorder);
+        }
+        assertEquals(3, broadcaster.getSubscriberCount());
+        broadcaster.broadcast(EVENT);
+        for(Recorder recorder : recorders)
+        {
+            assertEquals(2, recorder.events.size());
+            assertTrue(new String(recorder.events.get(0), StandardCharsets.UTF_8).contains("\nevent: status\n"));
+            assertSame(EVENT, recorder.events.get(1));
+        }
+
+        broadcaster.unsubscribe(recorders.get(0));
+        broadcaster.broadcast(EVENT);
+        assertEquals(2, recorders.get(0).events.size());
+        assertEquals(3, recorders.get(1).events.size());
+    }
+
+    @Test
+    public void goneAndFailingSubscribersAreRemoved()
+    {
+        Recorder gone = new Recorder();
+        Recorder healthy = new Recorder();
+        broadcaster.subscribe(gone);
+        broadcaster.subscribe(event -> {
+            throw new IllegalStateException("Broken subscriber");
+        });
+        broadcaster.subscribe(healthy);
+        // The failing subscriber is dropped on subscribe
+        assertEquals(2, broadcaster.getSubscriberCount());
+
+        broadcaster.subscribe(new Recorder()
+        {
+            @Override
+            public boolean send(byte[] event)
+            {
+                if(!events.isEmpty()) throw new IllegalStateException("Broken subscriber");
+                return super.send(event);
+            }
+        });
+        gone.accept = false;
+        broadcaster.broadcast(EVENT);
+        assertEquals(1, broadcaster.getSubscriberCount());
+        assertSame(EVENT, healthy.events.get(1));
+    }
+
+    @Test
+    public void slowSubscriberIsDisconnected() throws Exception
+    {
+        PassEventServlet servlet = new PassEventServlet(broadcaster, options);
+        EventStream slow = new EventStream();
+        EventStream fast = new EventStream();
+        MockHttpServletRequest slowRequest = connect(servlet, slow);
+        connect(servlet, fast);
+        assertEquals(2, broadcaster.getSubscriberCount());
+        fast.ready = true;
+        fast.listener.onWritePossible();
+
+        // Preamble and status are queued, the queue holds 4 events
+        broadcaster.broadcast(EVENT);
+        broadcaster.broadcast(EVENT);
+        assertEquals(2, broadcaster.getSubscriberCount());
+        assertTrue(slowRequest.isAsyncStarted());
+        broadcaster.broadcast(EVENT);
+        assertEquals(1, broadcaster.getSubscriberCount());
+        assertFalse(slowRequest.isAsyncStarted());
+        assertEquals(0, slow.bytes.size());
+
+        String written = new String(fast.bytes.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(written.startsWith("retry: 5000\n\nid: "));
+        assertTrue(written.endsWith(new String(EVENT, StandardCharsets.UTF_8)));
+
+        // An I/O error disconnects too
+        fast.listener.onError(new IOException("Connection reset"));
+        assertEquals(0, broadcaster.getSubscriberCount());
+    }
+
+    private static MockHttpServletRequest connect(PassEventServlet servlet, EventStream stream) throws Exception
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/passes/events");
+        request.setAsyncSupported(true);
+        HttpServletResponse response = new HttpServletResponseWrapper(new MockHttpServletResponse())
+        {
+            @Override
+            public ServletOutputStream getOutputStream()
+            {
+                return stream;
+            }
+        };
+        servlet.service(request, response);
+        return request;
+    }
+
+    private static class Recorder implements PassEventBroadcaster.Subscriber
+    {
+        final List<byte[]> events = new ArrayList<>();
+        boolean accept = true;
+
+        @Override
+        public boolean send(byte[] event)
+        {
+            if(!accept) return false;
+            events.add(event);
+            return true;
+        }
+    }
+
+    // Output stream that takes bytes only while ready, as a congested connection
+    private static class EventStream extends ServletOutputStream
+    {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        WriteListener listener;
+        boolean ready;
+
+        @Override
+        public boolean isReady()
+        {
+            return ready;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener)
+        {
+            this.listener = listener;
+        }
+
+        @Override
+        public void write(int b)
+        {
+            bytes.write(b);
+        }
+    }
+}
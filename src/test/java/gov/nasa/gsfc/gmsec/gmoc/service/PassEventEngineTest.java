@@ -0,0 +1,95 @@
+package gov.nasa.gsfc.gmsec.gmoc.service;
+
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleSnapshot;
+import gov.nasa.gsfc.gmsec.gmoc.model.TimingWheel;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PassEventEngineTest
+{
+    // 2016-11-30T00:00:00Z, WIRE passes every 5 minutes for 5 minutes from here
+    private static final long START = 1480464000L;
+
+    private PassScheduleService service;
+    private PassEventEngine engine;
+    private final List<String> fired = new ArrayList<>();
+
+    @Before
+    public void setup()
+    {
+        ServiceFixture services = ServiceFixture.builder().args(
+                "passDuration=00:05:00",
+                "schedule.missions=WIRE",
+                "schedule.horizon.start=2016-11-30T00:00:00Z",
+                "schedule.pass.count=100").build();
+        service = services.passScheduleService;
+        engine = services.passEventEngine();
+        engine.addHandler(edge -> fired.add((edge.isAos() ? "aos " : "los ") + (edge.getTime() - START)));
+    }
+
+    @Test
+    public void reloadStartsFromTheFirstSecondNotFired()
+    {
+        // The wheel has fired everything before START + 600, whatever the wall clock says
+        TimingWheel<Runnable> wheel = new TimingWheel<>((START + 600) * 1000);
+        ReflectionTestUtils.setField(engine, "wheel", wheel);
+        engine.reload(service.getSnapshot());
+        // LOS of passes 1 to 99, AOS of passes 2 to 99
+        assertEquals(99 + 98, engine.getPendingCount());
+
+        advance(wheel, START + 900);
+        // LOS before AOS on the same second
+        assertEquals(Arrays.asList("los 600", "aos 600", "los 900", "aos 900"), fired);
+
+        // A new schedule continues after the last fired second, without firing it again
+        fired.clear();
+        engine.reload(service.buildSnapshot(LocalDate.now()));
+        assertEquals(97 + 96, engine.getPendingCount());
+        advance(wheel, START + 1200);
+        assertEquals(Arrays.asList("los 1200", "aos 1200"), fired);
+    }
+
+    @Test
+    public void publishWakesTheEngine() throws Exception
+    {
+        engine.start();
+        try
+        {
+            service.init();
+            awaitLoaded(service.getPublishedSnapshot(), 5000);
+            // Nothing is pending, so the engine parks for its longest interval
+            Thread.sleep(50);
+            service.init();
+            long started = System.nanoTime();
+            awaitLoaded(service.getPublishedSnapshot(), 5000);
+            long millis = (System.nanoTime() - started) / 1_000_000L;
+            assertTrue(millis + " ms", millis < 500);
+        } finally
+        {
+            engine.stop();
+        }
+    }
+
+    private void awaitLoaded(ScheduleSnapshot snapshot, long timeoutMillis) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while(ReflectionTestUtils.getField(engine, "loaded") != snapshot && System.currentTimeMillis() < deadline)
+            Thread.sleep(1);
+        assertSame(snapshot, ReflectionTestUtils.getField(engine, "loaded"));
+    }
+
+    private static void advance(TimingWheel<Runnable> wheel, long epochSecond)
+    {
+        wheel.advance(epochSecond * 1000, timeout -> timeout.getValue().run());
+    }
+}
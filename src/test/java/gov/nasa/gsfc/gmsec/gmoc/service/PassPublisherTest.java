@@ -0,0 +1,106 @@
+package gov.nasa.gsfc.gmsec.gmoc.service;
+
+import gov.nasa.gsfc.gmsec.gmoc.Options;
+import gov.nasa.gsfc.gmsec.gmoc.model.PassMessage;
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleSnapshot;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PassPublisherTest
+{
+    private ServiceFixture services;
+    private Options options;
+    private PassScheduleService service;
+    private LoopbackBusAdapter bus;
+    private PassPublisher publisher;
+
+    @Before
+    public void setup()
+    {
+        services = ServiceFixture.builder().args("schedule.bus.batch.size=16", "schedule.bus.window=2").build();
+        options = services.options;
+        service = services.passScheduleService;
+        bus = new LoopbackBusAdapter();
+        publisher = services.passPublisher(bus);
+        publisher.start();
+    }
+
+    @After
+    public void tearDown()
+    {
+        publisher.stop();
+        bus.shutdown();
+    }
+
+    @Test
+    public void publishesOnlyChanges()
+    {
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+        ScheduleSnapshot first = service.buildSnapshot(tomorrow);
+        PassPublisher.Result result = publisher.publish(first, bus);
+        assertEquals(242, result.getSent());
+        assertEquals(16, result.getBatches());
+        assertBusHolds(first);
+
+        result = publisher.publish(service.buildSnapshot(tomorrow), bus);
+        assertEquals(0, result.getSent());
+        assertEquals(242, result.getUnchanged());
+
+        options.parse(new String[] {"schedule.mission.SDO.start.label=START"});
+        ScheduleSnapshot relabeled = service.buildSnapshot(tomorrow);
+        result = publisher.publish(relabeled, bus);
+        assertEquals(121, result.getSent());
+        assertEquals(121, result.getUnchanged());
+        assertBusHolds(relabeled);
+    }
+
+    @Test
+    public void retriedBatchesAreDeduplicated()
+    {
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+        publisher.publish(service.buildSnapshot(tomorrow), bus);
+
+        // WIRE every 10 minutes: 61 of its passes stay, 60 are added and 60 cancelled
+        options.parse(new String[] {"passInterval=10"});
+        ScheduleSnapshot retimed = service.buildSnapshot(tomorrow);
+        bus.failNext(3);
+        PassPublisher.Result result = publisher.publish(retimed, bus);
+        assertEquals(3, result.getRetries());
+        assertEquals(0, result.getFailedBatches());
+        assertEquals(60, result.getCancelled());
+        assertEquals(121 - 61 + 60, result.getSent());
+        assertTrue(bus.getDuplicates() > 0);
+        assertBusHolds(retimed);
+
+        // No acknowledgement at all: the batches are given up on, and sent again next time
+        options.parse(new String[] {"schedule.bus.retries=1", "schedule.mission.SDO.end.label=END"});
+        ScheduleSnapshot relabeled = service.buildSnapshot(tomorrow);
+        bus.failNext(Integer.MAX_VALUE);
+        result = publisher.publish(relabeled, bus);
+        assertEquals(8, result.getFailedBatches());
+        assertEquals(8, result.getRetries());
+        bus.failNext(0);
+        long duplicates = bus.getDuplicates();
+        result = publisher.publish(relabeled, bus);
+        assertEquals(121, result.getSent());
+        assertEquals(duplicates + 121, bus.getDuplicates());
+        assertBusHolds(relabeled);
+    }
+
+    private void assertBusHolds(ScheduleSnapshot snapshot)
+    {
+        Set<String> rows = new HashSet<>(Arrays.asList(services.rows(snapshot)));
+        Set<String> published = new HashSet<>();
+        for(PassMessage message : bus.getPasses().values()) published.add(message.toString());
+        assertEquals(rows, published);
+    }
+}
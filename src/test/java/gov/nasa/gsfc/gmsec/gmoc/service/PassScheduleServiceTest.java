@@ -0,0 +1,120 @@
+package gov.nasa.gsfc.gmsec.gmoc.service;
+
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleSnapshot;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PassScheduleServiceTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ServiceFixture services;
+    private PassScheduleService service;
+    private LocalDate today;
+
+    @Before
+    public void setup()
+    {
+        services = ServiceFixture.builder().args("schedule.file.path=" + folder.getRoot()).build();
+        service = services.passScheduleService;
+        today = LocalDate.now();
+    }
+
+    @Test
+    public void builtSnapshotsAreVisibleOncePublished()
+    {
+        assertNull(service.getPublishedSnapshot());
+        ScheduleSnapshot first = service.getSnapshot();
+        assertSame(first, service.getSnapshot());
+        assertSame(first, service.getPublishedSnapshot());
+
+        ScheduleSnapshot built = service.buildSnapshot(today);
+        assertTrue(built.getVersion() > first.getVersion());
+        assertSame(first, service.getSnapshot());
+    }
+
+    @Test
+    public void rolloverPublishesThePreparedSchedule()
+    {
+        service.prepareRollover(today);
+        ScheduleSnapshot prepared = pending();
+        service.rollover(today);
+        assertSame(prepared, service.getSnapshot());
+        assertTrue(new File(folder.getRoot(), ScheduleFileService.fileName(today)).isFile());
+
+        // Today's schedule is published once, whoever rolls over
+        service.prepareRollover(today);
+        service.rollover(today);
+        assertSame(prepared, service.getSnapshot());
+
+        // Prepared for another day, it is built again
+        service.prepareRollover(today.plusDays(1));
+        service.rollover(today.plusDays(2));
+        assertEquals(today.plusDays(2), service.getPublishedSnapshot().getDate());
+    }
+
+    @Test
+    public void reloadDropsThePreparedSchedule()
+    {
+        service.getSnapshot();
+        service.prepareRollover(today.plusDays(1));
+        ScheduleSnapshot prepared = pending();
+        services.optionsReloader().reload(Arrays.asList("schedule.mission.SDO.start.label=START"), 0);
+        assertNull(pending());
+
+        service.rollover(today.plusDays(1));
+        ScheduleSnapshot rolled = service.getPublishedSnapshot();
+        assertNotSame(prepared, rolled);
+        assertTrue(services.rows(rolled)[0], Arrays.toString(services.rows(rolled)).contains("START"));
+    }
+
+    @Test
+    public void readersRollAStaleScheduleOverOnce() throws Exception
+    {
+        service.rollover(today.minusDays(1));
+        ScheduleSnapshot stale = service.getPublishedSnapshot();
+        assertEquals(today.minusDays(1), stale.getDate());
+
+        // The scheduled rollover is skipped while one is running
+        AtomicBoolean rolling = (AtomicBoolean) ReflectionTestUtils.getField(service, "rolling");
+        rolling.set(true);
+        service.rollover();
+        assertSame(stale, service.getPublishedSnapshot());
+        rolling.set(false);
+
+        // A reader gets the stale schedule and the rollover runs in the background
+        assertSame(stale, service.getSnapshot());
+        long deadline = System.currentTimeMillis() + 5000;
+        while((rolling.get() || service.getPublishedSnapshot() == stale) && System.currentTimeMillis() < deadline)
+            Thread.sleep(1);
+        ScheduleSnapshot rolled = service.getPublishedSnapshot();
+        assertEquals(LocalDate.now(), rolled.getDate());
+        assertFalse(rolling.get());
+
+        service.rollover();
+        assertSame(rolled, service.getSnapshot());
+    }
+
+    @SuppressWarnings("unchecked")
+    private ScheduleSnapshot pending()
+    {
+        return ((AtomicReference<ScheduleSnapshot>) ReflectionTestUtils.getField(service, "pending")).get();
+    }
+}
@@ -0,0 +1,185 @@
+package gov.nasa.gsfc.gmsec.gmoc.service;
+
+import gov.nasa.gsfc.gmsec.gmoc.Options;
+import gov.nasa.gsfc.gmsec.gmoc.model.RenderedResponse;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RenderedResponseCacheTest
+{
+    private Options options;
+    private RenderedResponseCache cache;
+
+    @Before
+    public void setup()
+    {
+        options = new Options();
+        cache = new RenderedResponseCache();
+        ReflectionTestUtils.setField(cache, "options", options);
+        ReflectionTestUtils.setField(cache, "metrics", new ScheduleMetrics());
+    }
+
+    @Test
+    public void etagsAndGzipVariant() throws Exception
+    {
+        byte[] body = "WIRE,2016-335-00:00:00,+00:02:00,AOS WIRE,LOS WIRE\r\n".getBytes(StandardCharsets.UTF_8);
+        RenderedResponse response = cache.get(3, "/", () -> body);
+        assertArrayEquals(body, response.getBody());
+        assertArrayEquals(body, gunzip(response.getGzipBody()));
+        assertNotEquals(response.getEtag(), response.getGzipEtag());
+        assertTrue(response.getEtag().startsWith("\"3-"));
+
+        assertTrue(response.matches(response.getEtag()));
+        assertTrue(response.matches(response.getGzipEtag()));
+        assertTrue(response.matches("\"other\", " + response.getEtag()));
+        assertTrue(response.matches("W/" + response.getEtag()));
+        assertTrue(response.matches("*"));
+        assertFalse(response.matches(null));
+        assertFalse(response.matches("\"other\""));
+        // Same bytes of another version are another entity
+        assertFalse(new RenderedResponse(4, body).matches(response.getEtag()));
+    }
+
+    @Test
+    public void hitsUntilTheVersionChanges()
+    {
+        AtomicInteger renders = new AtomicInteger();
+        RenderedResponse first = cache.get(1, "/", () -> render(renders, 10));
+        assertSame(first, cache.get(1, "/", () -> render(renders, 10)));
+        assertNotSame(first, cache.get(2, "/", () -> render(renders, 10)));
+        assertNotSame(first, cache.get(1, "/schedule", () -> render(renders, 10)));
+        assertEquals(3, renders.get());
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedOverTheWeightBudget()
+    {
+        AtomicInteger renders = new AtomicInteger();
+        long weight = new RenderedResponse(1, new byte[1000]).weight();
+        options.parse(new String[] {"schedule.cache.max.bytes=" + (3 * weight)});
+        RenderedResponse a = cache.get(1, "a", () -> new byte[1000]);
+        cache.get(1, "b", () -> new byte[1000]);
+        cache.get(1, "c", () -> new byte[1000]);
+        assertEquals(3 * weight, cache.getTotalWeight());
+
+        // a was used last, so b goes
+        assertSame(a, cache.get(1, "a", () -> render(renders, 1000)));
+        cache.get(1, "d", () -> new byte[1000]);
+        assertEquals(3, cache.size());
+        assertEquals(3 * weight, cache.getTotalWeight());
+        assertSame(a, cache.get(1, "a", () -> render(renders, 1000)));
+        assertEquals(0, renders.get());
+        cache.get(1, "b", () -> render(renders, 1000));
+        assertEquals(1, renders.get());
+
+        // Too heavy on its own: served, not cached
+        RenderedResponse heavy = cache.get(1, "e", () -> new byte[(int) (4 * weight)]);
+        assertNotSame(heavy, cache.get(1, "e", () -> new byte[(int) (4 * weight)]));
+        assertEquals(3, cache.size());
+        assertEquals(3 * weight, cache.getTotalWeight());
+    }
+
+    @Test
+    public void concurrentMissesRenderOnce() throws Exception
+    {
+        int threads = 8;
+        AtomicInteger renders = new AtomicInteger();
+        CountDownLatch rendering = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try
+        {
+            List<Future<RenderedResponse>> results = new ArrayList<>();
+            results.add(pool.submit(() -> cache.get(1, "/", () -> {
+                rendering.countDown();
+                await(release);
+                return render(renders, 100);
+            })));
+            assertTrue(rendering.await(10, TimeUnit.SECONDS));
+            for(int i = 1; i < threads; i++)
+                results.add(pool.submit(() -> cache.get(1, "/", () -> render(renders, 100))));
+            // Let the others reach the in-flight render before it finishes
+            Thread.sleep(100);
+            release.countDown();
+            RenderedResponse first = results.get(0).get(10, TimeUnit.SECONDS);
+            for(Future<RenderedResponse> result : results)
+                assertSame(first, result.get(10, TimeUnit.SECONDS));
+            assertEquals(1, renders.get());
+        } finally
+        {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void failedRenderIsNotCached()
+    {
+        try
+        {
+            cache.get(1, "/", () -> {
+                throw new UncheckedIOException(new IOException("disk"));
+            });
+            fail();
+        } catch (UncheckedIOException e)
+        {
+            assertEquals("disk", e.getCause().getMessage());
+        }
+        AtomicInteger renders = new AtomicInteger();
+        cache.get(1, "/", () -> render(renders, 10));
+        assertEquals(1, renders.get());
+    }
+
+    private static byte[] render(AtomicInteger renders, int length)
+    {
+        renders.incrementAndGet();
+        return new byte[length];
+    }
+
+    private static void await(CountDownLatch latch)
+    {
+        try
+        {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static byte[] gunzip(byte[] gzip) throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try(GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip)))
+        {
+            byte[] buffer = new byte[4096];
+            for(int n = in.read(buffer); n > 0; n = in.read(buffer)) out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+}
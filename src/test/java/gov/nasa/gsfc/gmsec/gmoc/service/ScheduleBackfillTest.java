@@ -0,0 +1,98 @@
+package gov.nasa.gsfc.gmsec.gmoc.service;
+
+import gov.nasa.gsfc.gmsec.gmoc.model.EncodedSchedule;
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleEncoders;
+import gov.nasa.gsfc.gmsec.gmoc.model.SchedulePasses;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ScheduleBackfillTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void resumesAfterFailedDays() throws Exception
+    {
+        Path dir = folder.getRoot().toPath();
+        ServiceFixture services = ServiceFixture.builder().args(
+                "schedule.file.path=" + dir,
+                "dateFormat=MONTH_IN_YEAR",
+                "schedule.backfill.io.threads=3").build();
+        PassScheduleService service = services.passScheduleService;
+        ScheduleBackfill backfill = services.scheduleBackfill();
+
+        // A directory in place of a day's file fails its atomic rename
+        LocalDate from = LocalDate.of(2016, 2, 1);
+        LocalDate to = LocalDate.of(2016, 3, 31);
+        Path blocked = dir.resolve(ScheduleFileService.fileName(LocalDate.of(2016, 2, 29)));
+        Files.createDirectory(blocked);
+        Files.createFile(blocked.resolve("keep"));
+
+        ScheduleBackfill.Progress first = backfill.backfill(from, to);
+        assertEquals(ScheduleBackfill.State.FAILED, first.getState());
+        assertEquals(60, first.getDays());
+        assertEquals(59, first.getWritten());
+        assertEquals(1, first.getFailed());
+        assertTrue(Files.exists(dir.resolve(ScheduleBackfill.JOURNAL_NAME)));
+
+        Files.delete(blocked.resolve("keep"));
+        Files.delete(blocked);
+        ScheduleBackfill.Progress second = backfill.backfill(from, to);
+        assertEquals(ScheduleBackfill.State.COMPLETED, second.getState());
+        assertEquals(59, second.getResumed());
+        assertEquals(1, second.getWritten());
+        assertFalse(Files.exists(dir.resolve(ScheduleBackfill.JOURNAL_NAME)));
+
+        for(LocalDate day = from; !day.isAfter(to); day = day.plusDays(1))
+        {
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            EncodedSchedule.encode(new SchedulePasses(service.generateDay(day)), ForkJoinPool.commonPool())
+                    .writeTo(expected, System.lineSeparator().getBytes("UTF-8"));
+            assertArrayEquals(day.toString(), expected.toByteArray(),
+                    Files.readAllBytes(dir.resolve(ScheduleFileService.fileName(day))));
+            assertTrue(Files.exists(dir.resolve(ScheduleFileService.binaryFileName(day))));
+        }
+
+        // Nothing changed, nothing is rewritten
+        ScheduleBackfill.Progress third = backfill.backfill(from, to);
+        assertEquals(ScheduleBackfill.State.COMPLETED, third.getState());
+        assertEquals(60, third.getUnchanged());
+        service.shutdown();
+    }
+
+    @Test
+    public void fileFormatChangeRewritesEveryDay() throws Exception
+    {
+        Path dir = folder.getRoot().toPath();
+        ServiceFixture services = ServiceFixture.builder().args("schedule.file.path=" + dir).build();
+        ScheduleBackfill backfill = services.scheduleBackfill();
+        LocalDate from = LocalDate.of(2016, 2, 1);
+        LocalDate to = LocalDate.of(2016, 2, 10);
+        Path blocked = dir.resolve(ScheduleFileService.fileName(to));
+        Files.createDirectory(blocked);
+        assertEquals(ScheduleBackfill.State.FAILED, backfill.backfill(from, to).getState());
+        Files.delete(blocked);
+
+        // The journal was written for csv files, none of them are jsonl
+        services.options.parse(new String[] {"schedule.file.format=jsonl"});
+        ScheduleBackfill.Progress progress = backfill.backfill(from, to);
+        assertEquals(ScheduleBackfill.State.COMPLETED, progress.getState());
+        assertEquals(0, progress.getResumed());
+        assertEquals(10, progress.getWritten());
+        assertTrue(Files.exists(dir.resolve(ScheduleFileService.fileName(from, ScheduleEncoders.JSON_LINES))));
+        services.passScheduleService.shutdown();
+    }
+}
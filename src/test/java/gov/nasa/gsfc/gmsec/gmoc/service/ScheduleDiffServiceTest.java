@@ -0,0 +1,149 @@
+package gov.nasa.gsfc.gmsec.gmoc.service;
+
+import gov.nasa.gsfc.gmsec.gmoc.Options;
+import gov.nasa.gsfc.gmsec.gmoc.model.MissionSchedule;
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleDelta;
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleDiff;
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleSnapshot;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ScheduleDiffServiceTest
+{
+    private static final LocalDate MARCH = LocalDate.of(2016, 3, 1);
+
+    private ServiceFixture services;
+    private Options options;
+    private PassScheduleService service;
+    private ScheduleDiffService diffService;
+
+    @Before
+    public void setup()
+    {
+        services = ServiceFixture.builder().build();
+        options = services.options;
+        service = services.passScheduleService;
+        diffService = services.scheduleDiffService();
+        diffService.start();
+    }
+
+    @Test
+    public void reportsShiftedAndUpdatedPasses()
+    {
+        ScheduleSnapshot before = service.buildSnapshot(MARCH);
+        options.parse(new String[] {
+                "schedule.mission.SDO.pass.duration=00:03:00",
+                "schedule.mission.WIRE.start.label=START"});
+        ScheduleSnapshot after = service.buildSnapshot(MARCH);
+        ScheduleDelta delta = ScheduleDiff.diff(before, after, ScheduleDiff.DEFAULT_MAX_SHIFT_SECONDS);
+
+        assertEquals(passes(before, "SDO"), delta.getShifted());
+        assertEquals(passes(before, "WIRE"), delta.getUpdated());
+        assertEquals(0, delta.getInserted() + delta.getRemoved() + delta.getUnchanged());
+        assertEquals(rows(after), apply(rows(before), delta));
+    }
+
+    @Test
+    public void pairsMovedPassesWithinMaxShift()
+    {
+        ScheduleSnapshot before = service.buildSnapshot(MARCH);
+        options.parse(new String[] {"schedule.mission.SDO.pass.interval=8"});
+        ScheduleSnapshot after = service.buildSnapshot(MARCH);
+
+        ScheduleDelta paired = ScheduleDiff.diff(before, after, ScheduleDiff.DEFAULT_MAX_SHIFT_SECONDS);
+        ScheduleDelta unpaired = ScheduleDiff.diff(before, after, 0);
+        for(ScheduleDelta.Change change : paired.getChanges()) assertEquals("SDO", change.getCategory());
+        assertTrue(paired.getShifted() > 0);
+        assertEquals(0, unpaired.getShifted());
+        assertEquals(passes(after) - passes(before), paired.getInserted() - paired.getRemoved());
+        assertEquals(paired.getShifted() + paired.getInserted(), unpaired.getInserted());
+        assertEquals(rows(after), apply(rows(before), paired));
+        assertEquals(rows(after), apply(rows(before), unpaired));
+    }
+
+    @Test
+    public void answersRetainedVersionsOnly()
+    {
+        service.init();
+        long first = service.getSnapshot().getVersion();
+        options.parse(new String[] {"schedule.mission.WIRE.end.label=END"});
+        service.init();
+        long second = service.getSnapshot().getVersion();
+
+        ScheduleDelta delta = diffService.diff(first, ScheduleDiff.DEFAULT_MAX_SHIFT_SECONDS);
+        assertEquals(second, delta.getToVersion());
+        assertEquals(passes(service.getSnapshot(), "WIRE"), delta.getUpdated());
+        assertTrue(diffService.diff(second, 0).getChanges().isEmpty());
+        assertFalse(delta.isFull());
+
+        // Unknown versions, such as one from before a restart, get the whole schedule
+        assertFull(service.getSnapshot(), diffService.diff(second + 1, 0));
+        for(int i = 0; i < ScheduleDiffService.RETAINED_VERSIONS; i++) service.init();
+        assertFull(service.getSnapshot(), diffService.diff(first, 0));
+        assertFalse(diffService.diff(service.getSnapshot().getVersion() - 1, 0).getUnchanged() == 0);
+    }
+
+    @Test
+    public void versionsIncreaseAcrossRestarts()
+    {
+        service.init();
+        long before = service.getSnapshot().getVersion();
+        ServiceFixture restarted = ServiceFixture.builder().build();
+        restarted.passScheduleService.init();
+        assertTrue(restarted.passScheduleService.getSnapshot().getVersion() > before);
+
+        // The restarted service does not know versions of the one before
+        ScheduleDiffService restartedDiffs = restarted.scheduleDiffService();
+        restartedDiffs.start();
+        assertFull(restarted.passScheduleService.getSnapshot(), restartedDiffs.diff(before, ScheduleDiff.DEFAULT_MAX_SHIFT_SECONDS));
+    }
+
+    private void assertFull(ScheduleSnapshot current, ScheduleDelta delta)
+    {
+        assertTrue(delta.isFull());
+        assertEquals(current.getVersion(), delta.getToVersion());
+        assertEquals(0, delta.getUnchanged() + delta.getRemoved() + delta.getShifted() + delta.getUpdated());
+        assertEquals(rows(current), apply(new HashSet<>(), delta));
+    }
+
+    private static Set<String> apply(Set<String> rows, ScheduleDelta delta)
+    {
+        Set<String> applied = new HashSet<>(rows);
+        for(ScheduleDelta.Change change : delta.getChanges())
+        {
+            if(change.getOldRow() != null) assertTrue(change.getOldRow(), applied.remove(change.getOldRow()));
+            if(change.getRow() != null) assertTrue(change.getRow(), applied.add(change.getRow()));
+        }
+        return applied;
+    }
+
+    private Set<String> rows(ScheduleSnapshot snapshot)
+    {
+        return new HashSet<>(Arrays.asList(services.rows(snapshot)));
+    }
+
+    private static int passes(ScheduleSnapshot snapshot)
+    {
+        int passes = 0;
+        for(MissionSchedule mission : snapshot.getMissions()) passes += mission.getIndex().size();
+        return passes;
+    }
+
+    private static int passes(ScheduleSnapshot snapshot, String category)
+    {
+        for(MissionSchedule mission : snapshot.getMissions())
+        {
+            if(mission.getMission().getCategory().equals(category)) return mission.getIndex().size();
+        }
+        throw new IllegalArgumentException(category);
+    }
+}
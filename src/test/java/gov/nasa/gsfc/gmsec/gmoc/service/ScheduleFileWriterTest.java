@@ -0,0 +1,56 @@
+package gov.nasa.gsfc.gmsec.gmoc.service;
+
+import gov.nasa.gsfc.gmsec.gmoc.Options;
+import gov.nasa.gsfc.gmsec.gmoc.model.EncodedSchedule;
+import gov.nasa.gsfc.gmsec.gmoc.model.Mission;
+import gov.nasa.gsfc.gmsec.gmoc.model.MissionSchedule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.TimeZone;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ScheduleFileWriterTest
+{
+    private static final byte[] NEWLINE = "\n".getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void writesAtomicallyAndSkipsUnchangedContent() throws Exception
+    {
+        EncodedSchedule schedule = schedule(100000);
+        Path target = folder.getRoot().toPath().resolve("GENERICPassSchedule-2016-11-30.csv");
+        ScheduleFileWriter writer = new ScheduleFileWriter();
+
+        ScheduleFileWriter.Result first = writer.write(schedule, NEWLINE, target);
+        assertTrue(first.isWritten());
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        schedule.writeTo(expected, NEWLINE);
+        assertArrayEquals(expected.toByteArray(), Files.readAllBytes(target));
+        assertEquals(expected.size(), first.getBytes());
+
+        assertFalse(writer.write(schedule, NEWLINE, target).isWritten());
+        assertTrue(writer.write(schedule(99999), NEWLINE, target).isWritten());
+        assertEquals(1, folder.getRoot().list().length);
+    }
+
+    private static EncodedSchedule schedule(int passes)
+    {
+        MissionSchedule mission = MissionSchedule.uniform(new Mission(0, "WIRE", "AOS", "LOS", "00:02:00", 1),
+                1480510800L, passes, Options.DateFormat.MONTH_IN_YEAR, TimeZone.getTimeZone("UTC"));
+        return EncodedSchedule.encode(Collections.singletonList(mission), ForkJoinPool.commonPool());
+    }
+}
@@ -0,0 +1,166 @@
+package gov.nasa.gsfc.gmsec.gmoc.service;
+
+import gov.nasa.gsfc.gmsec.gmoc.Options;
+import gov.nasa.gsfc.gmsec.gmoc.model.HistoryPass;
+import gov.nasa.gsfc.gmsec.gmoc.model.PassTable;
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleSnapshot;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ScheduleHistoryTest
+{
+    private static final LocalDate MARCH = LocalDate.of(2016, 3, 1);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path dir;
+    private ServiceFixture services;
+    private Options options;
+    private PassScheduleService service;
+    private ScheduleHistory history;
+
+    @Before
+    public void setup()
+    {
+        dir = folder.getRoot().toPath();
+        services = ServiceFixture.builder().args("schedule.history.dir=" + dir).build();
+        options = services.options;
+        service = services.passScheduleService;
+        history = services.scheduleHistory();
+    }
+
+    @After
+    public void tearDown()
+    {
+        history.stop();
+    }
+
+    @Test
+    public void answersWhatWasScheduled() throws Exception
+    {
+        List<ScheduleSnapshot> days = new ArrayList<>();
+        for(int d = 0; d < 10; d++)
+        {
+            days.add(service.buildSnapshot(MARCH.plusDays(d)));
+            history.append(days.get(d), 1000 * (d + 1));
+        }
+        // March 5 rescheduled with WIRE every 10 minutes
+        options.parse(new String[] {"passInterval=10"});
+        ScheduleSnapshot rescheduled = service.buildSnapshot(MARCH.plusDays(4));
+        history.append(rescheduled, 11_000);
+
+        // Its last passes are after midnight, before March 6's first
+        long from = second(MARCH.plusDays(4));
+        long to = second(MARCH.plusDays(5)) + 6 * 3600;
+        assertEquals(passes(rescheduled), passes(history.query(from, to, null, null, 10_000)));
+        assertEquals(passes(days.get(4)), passes(history.query(from, to, null, 10_000L, 10_000)));
+        assertEquals(121, history.query(from, to, "SDO", null, 10_000).size());
+        assertEquals(10, history.query(from, to, "WIRE", null, 10).size());
+        assertEquals(121 * 10, history.query(second(MARCH), second(MARCH.plusDays(10)), "WIRE", null, 10_000).size());
+        assertEquals(11, history.revisions(Long.MIN_VALUE, Long.MAX_VALUE).size());
+    }
+
+    @Test
+    public void compactsAndSurvivesRestart() throws Exception
+    {
+        options.parse(new String[] {"schedule.history.retain.days=0"});
+        ReflectionTestUtils.setField(history, "flushPasses", 500);
+        ReflectionTestUtils.setField(history, "maxSegments", 1);
+        for(int d = 0; d < 10; d++) history.append(service.buildSnapshot(MARCH.plusDays(d)), 1000 * (d + 1));
+        options.parse(new String[] {"passInterval=10"});
+        history.append(service.buildSnapshot(MARCH.plusDays(4)), 11_000);
+        history.flush();
+        assertEquals(1, history.segmentCount());
+
+        // Superseded passes are gone, so the schedule as of before the change is too
+        long from = second(MARCH.plusDays(4));
+        long to = second(MARCH.plusDays(5));
+        assertTrue(history.query(from, to, null, 10_000L, 10_000).isEmpty());
+
+        // One more day in the log only, then a torn append after it
+        history.append(service.buildSnapshot(MARCH.plusDays(10)), 12_000);
+        Set<String> before = passes(history.query(second(MARCH), second(MARCH.plusDays(11)), null, null, 100_000));
+        history.stop();
+        Files.write(dir.resolve("history.wal"), new byte[] {0, 0, 1, 0, 42}, StandardOpenOption.APPEND);
+
+        history = services.scheduleHistory();
+        assertEquals(before, passes(history.query(second(MARCH), second(MARCH.plusDays(11)), null, null, 100_000)));
+        assertEquals(12, history.revisions(Long.MIN_VALUE, Long.MAX_VALUE).size());
+        assertEquals(13, history.append(service.buildSnapshot(MARCH.plusDays(11)), 13_000).getRevision());
+    }
+
+    @Test
+    public void keepsPassesSupersededWithinRetention() throws Exception
+    {
+        options.parse(new String[] {"schedule.history.retain.days=1"});
+        ReflectionTestUtils.setField(history, "flushPasses", 500);
+        ReflectionTestUtils.setField(history, "maxSegments", 1);
+        List<ScheduleSnapshot> days = new ArrayList<>();
+        for(int d = 0; d < 10; d++)
+        {
+            days.add(service.buildSnapshot(MARCH.plusDays(d)));
+            history.append(days.get(d), 1000 * (d + 1));
+        }
+        // Passes published long ago: March 3 superseded long ago too, March 5 just now
+        options.parse(new String[] {"passInterval=10"});
+        history.append(service.buildSnapshot(MARCH.plusDays(2)), 11_000);
+        history.append(service.buildSnapshot(MARCH.plusDays(4)), System.currentTimeMillis());
+        history.flush();
+        history.compact();
+        assertEquals(1, history.segmentCount());
+
+        assertTrue(history.query(second(MARCH.plusDays(2)), second(MARCH.plusDays(3)), null, 10_000L, 10_000)
+                .isEmpty());
+        long from = second(MARCH.plusDays(4));
+        long to = second(MARCH.plusDays(5)) + 6 * 3600;
+        assertEquals(passes(days.get(4)), passes(history.query(from, to, null, 10_000L, 10_000)));
+    }
+
+    private static long second(LocalDate date)
+    {
+        return date.atStartOfDay(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    private static Set<String> passes(ScheduleSnapshot snapshot)
+    {
+        PassTable table = PassTable.of(snapshot.getMissions());
+        Set<String> passes = new HashSet<>();
+        for(int i = 0; i < table.size(); i++)
+        {
+            passes.add(table.categoryOf(i) + "@" + table.startOf(i) + "+" + table.durationOf(i) + " "
+                    + table.startLabelOf(i) + "/" + table.endLabelOf(i));
+        }
+        assertEquals(table.size(), passes.size());
+        return passes;
+    }
+
+    private static Set<String> passes(List<HistoryPass> history)
+    {
+        Set<String> passes = new HashSet<>();
+        for(HistoryPass pass : history)
+        {
+            passes.add(pass.getCategory() + "@" + pass.getAos() + "+" + (pass.getLos() - pass.getAos()) + " "
+                    + pass.getStartLabel() + "/" + pass.getEndLabel());
+        }
+        assertEquals(history.size(), passes.size());
+        return passes;
+    }
+}
@@ -0,0 +1,184 @@
+package gov.nasa.gsfc.gmsec.gmoc.service;
+
+import gov.nasa.gsfc.gmsec.gmoc.Options;
+import gov.nasa.gsfc.gmsec.gmoc.model.PassInfo;
+import gov.nasa.gsfc.gmsec.gmoc.model.SchedulePasses;
+import gov.nasa.gsfc.gmsec.gmoc.model.ScheduleSnapshot;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Options and services wired by hand the way the application context
+ * does, for tests and benchmarks that run them without starting Spring.
+ * The options, metrics, file service and schedule service are shared;
+ * every other service is new on each call, not started.
+ *
+ * Unless given Options, the missions are WIRE and SDO, SDO every 7
+ * minutes, with 2 minute passes, then the builder's arguments.
+ *      ServiceFixture services = ServiceFixture.builder().args("schedule.file.path=" + dir).build();
+ */
+public final class ServiceFixture
+{
+    private static final String[] DEFAULT_ARGS = {
+            "passDuration=00:02:00",
+            "schedule.missions=WIRE,SDO",
+            "schedule.mission.SDO.pass.interval=7"};
+
+    public final Options options;
+    public final ScheduleMetrics metrics = new ScheduleMetrics();
+    public final ScheduleFileService scheduleFiles = new ScheduleFileService();
+    public final PassScheduleService passScheduleService = new PassScheduleService();
+
+    public static class Builder
+    {
+        private final List<String> args = new ArrayList<>(Arrays.asList(DEFAULT_ARGS));
+        private Options options;
+
+        private Builder()
+        {
+        }
+
+        /**
+         * Arguments parsed after the default ones, as on the command line.
+         */
+        public Builder args(String... args)
+        {
+            this.args.addAll(Arrays.asList(args));
+            return this;
+        }
+
+        /**
+         * Use options as they are, without the default arguments.
+         */
+        public Builder options(Options options)
+        {
+            this.options = options;
+            return this;
+        }
+
+        public ServiceFixture build()
+        {
+            Options options = this.options;
+            if(options == null)
+            {
+                options = new Options();
+                if(!options.parse(args.toArray(new String[0])))
+                    throw new IllegalArgumentException("Invalid arguments " + args);
+            }
+            return new ServiceFixture(options);
+        }
+    }
+
+    private ServiceFixture(Options options)
+    {
+        this.options = options;
+        ReflectionTestUtils.setField(scheduleFiles, "options", options);
+        ReflectionTestUtils.setField(scheduleFiles, "metrics", metrics);
+        ReflectionTestUtils.setField(passScheduleService, "options", options);
+        ReflectionTestUtils.setField(passScheduleService, "metrics", metrics);
+        ReflectionTestUtils.setField(passScheduleService, "scheduleFiles", scheduleFiles);
+    }
+
+    public static Builder builder()
+    {
+        return new Builder();
+    }
+
+    public static ServiceFixture of(Options options)
+    {
+        return builder().options(options).build();
+    }
+
+    public ScheduleBackfill scheduleBackfill()
+    {
+        ScheduleBackfill backfill = new ScheduleBackfill();
+        ReflectionTestUtils.setField(backfill, "options", options);
+        ReflectionTestUtils.setField(backfill, "passScheduleService", passScheduleService);
+        ReflectionTestUtils.setField(backfill, "scheduleFiles", scheduleFiles);
+        return backfill;
+    }
+
+    public ScheduleHistory scheduleHistory()
+    {
+        ScheduleHistory history = new ScheduleHistory();
+        ReflectionTestUtils.setField(history, "options", options);
+        ReflectionTestUtils.setField(history, "passScheduleService", passScheduleService);
+        return history;
+    }
+
+    public PassPublisher passPublisher(BusAdapter adapter)
+    {
+        PassPublisher publisher = new PassPublisher();
+        ReflectionTestUtils.setField(publisher, "options", options);
+        ReflectionTestUtils.setField(publisher, "passScheduleService", passScheduleService);
+        ReflectionTestUtils.setField(publisher, "metrics", metrics);
+        ReflectionTestUtils.setField(publisher, "adapters", Collections.singletonList(adapter));
+        return publisher;
+    }
+
+    public OptionsReloader optionsReloader()
+    {
+        OptionsReloader reloader = new OptionsReloader();
+        ReflectionTestUtils.setField(reloader, "options", options);
+        ReflectionTestUtils.setField(reloader, "passScheduleService", passScheduleService);
+        return reloader;
+    }
+
+    public ScheduleDiffService scheduleDiffService()
+    {
+        ScheduleDiffService diffService = new ScheduleDiffService();
+        ReflectionTestUtils.setField(diffService, "passScheduleService", passScheduleService);
+        return diffService;
+    }
+
+    public PassEventEngine passEventEngine()
+    {
+        PassEventEngine engine = new PassEventEngine();
+        ReflectionTestUtils.setField(engine, "passScheduleService", passScheduleService);
+        ReflectionTestUtils.setField(engine, "metrics", metrics);
+        return engine;
+    }
+
+    public PassQueryService passQueryService()
+    {
+        PassQueryService query = new PassQueryService();
+        ReflectionTestUtils.setField(query, "passScheduleService", passScheduleService);
+        return query;
+    }
+
+    public PassEventBroadcaster passEventBroadcaster()
+    {
+        PassEventBroadcaster broadcaster = new PassEventBroadcaster();
+        ReflectionTestUtils.setField(broadcaster, "passQueryService", passQueryService());
+        ReflectionTestUtils.setField(broadcaster, "engine", passEventEngine());
+        return broadcaster;
+    }
+
+    /**
+     * @return the rows of snapshot's generic schedule file, in file order
+     */
+    public String[] rows(ScheduleSnapshot snapshot)
+    {
+        return new String(passScheduleService.renderGenericPassSchedule(snapshot), StandardCharsets.UTF_8)
+                .split("\r\n");
+    }
+
+    /**
+     * @return "category aos los" of every pass, in start order
+     */
+    public static List<String> passes(SchedulePasses passes)
+    {
+        List<String> list = new ArrayList<>();
+        for(long ref : passes.refs().toArray())
+        {
+            PassInfo pass = passes.info(ref);
+            list.add(pass.getCategory() + " " + pass.getAos() + " " + pass.getLos());
+        }
+        return list;
+    }
+}